@@ -2,6 +2,7 @@ package com.ledger.project_software.business;
 
 import com.ledger.project_software.orm.*;
 import com.ledger.project_software.domain.*;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -26,15 +27,37 @@ public class AccountController {
     private final UserDAO userDAO;
     private final TransactionDAO transactionDAO;
     private final LedgerDAO ledgerDAO;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BalanceCheckpointService balanceCheckpoints;
 
     public AccountController(AccountDAO accountDAO,
                              UserDAO userDAO,
                              TransactionDAO transactionDAO,
-                             LedgerDAO ledgerDAO) {
+                             LedgerDAO ledgerDAO,
+                             ApplicationEventPublisher eventPublisher,
+                             BalanceCheckpointService balanceCheckpoints) {
         this.accountDAO = accountDAO;
         this.userDAO = userDAO;
         this.transactionDAO = transactionDAO;
         this.ledgerDAO = ledgerDAO;
+        this.eventPublisher = eventPublisher;
+        this.balanceCheckpoints = balanceCheckpoints;
+    }
+
+    //transaction (if any) and touched accounts, pushed to the open streams of the user after commit.
+    //a balance updated without a transaction is not in the history: the checkpoints of the account are dropped
+    private void publishChanges(Long userId, Transaction transaction, LedgerChange.Action accountAction, Account... accounts) {
+        if (transaction != null) {
+            eventPublisher.publishEvent(LedgerChange.transaction(userId, transaction, LedgerChange.Action.CREATED));
+        }
+        for (Account account : accounts) {
+            if (account != null) {
+                if (transaction == null && accountAction == LedgerChange.Action.UPDATED) {
+                    balanceCheckpoints.invalidateAll(account);
+                }
+                eventPublisher.publishEvent(LedgerChange.account(userId, account, accountAction));
+            }
+        }
     }
 
 
@@ -72,6 +95,7 @@ public class AccountController {
         accountDAO.save(account);
         user.getAccounts().add(account);
         userDAO.save(user);
+        publishChanges(user.getId(), null, LedgerChange.Action.CREATED, account);
         return ResponseEntity.ok("Basic account created successfully");
     }
 
@@ -115,6 +139,7 @@ public class AccountController {
         accountDAO.save(account);
         user.getAccounts().add(account);
         userDAO.save(user);
+        publishChanges(user.getId(), null, LedgerChange.Action.CREATED, account);
         return ResponseEntity.ok("Credit account created successfully");
     }
 
@@ -170,6 +195,8 @@ public class AccountController {
         accountDAO.save(account);
         user.getAccounts().add(account);
         userDAO.save(user);
+        publishChanges(user.getId(), tx, LedgerChange.Action.CREATED, account);
+        publishChanges(user.getId(), null, LedgerChange.Action.UPDATED, receivingAccount);
         return ResponseEntity.ok("Loan account created successfully");
     }
 
@@ -243,6 +270,8 @@ public class AccountController {
         accountDAO.save(borrowingAccount);
         user.getAccounts().add(borrowingAccount);
         userDAO.save(user);
+        publishChanges(user.getId(), initialTransaction, LedgerChange.Action.CREATED, borrowingAccount);
+        publishChanges(user.getId(), null, LedgerChange.Action.UPDATED, toAccount);
         return ResponseEntity.ok("Borrowing account created successfully");
     }
 
@@ -320,6 +349,8 @@ public class AccountController {
 
         user.getAccounts().add(lendingAccount);
         userDAO.save(user);
+        publishChanges(user.getId(), initialTransaction, LedgerChange.Action.CREATED, lendingAccount);
+        publishChanges(user.getId(), null, LedgerChange.Action.UPDATED, fromAccount);
         return ResponseEntity.ok("Lending account created successfully");
     }
 
@@ -347,6 +378,7 @@ public class AccountController {
         if (!account.getOwner().getId().equals(user.getId())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You cannot delete someone else's account");
         }
+        LedgerChange deletedChange = LedgerChange.account(user.getId(), account, LedgerChange.Action.DELETED);
 
         if (deleteTransactions) {// Delete all transactions associated with the account
             List<Transaction> transactionsToDelete =
@@ -356,6 +388,7 @@ public class AccountController {
                             .toList();
 
             for (Transaction transaction : transactionsToDelete) {
+                balanceCheckpoints.invalidate(transaction.getDate(), transaction.getFromAccount(), transaction.getToAccount());
 
                 if (transaction.getFromAccount() != null) {
                     transaction.getFromAccount().getOutgoingTransactions().remove(transaction);
@@ -381,9 +414,11 @@ public class AccountController {
 
             }
 
+            balanceCheckpoints.invalidateAll(account);
             accountDAO.delete(account);
             user.getAccounts().remove(account);
             userDAO.save(user);
+            eventPublisher.publishEvent(deletedChange);
             return ResponseEntity.ok("Account and associated transactions deleted successfully");
         } else {
             // If not deleting transactions, just disassociate them
@@ -403,9 +438,11 @@ public class AccountController {
                 transactionDAO.save(transaction);
             }
 
+            balanceCheckpoints.invalidateAll(account);
             accountDAO.delete(account);
             user.getAccounts().remove(account);
             userDAO.save(user);
+            eventPublisher.publishEvent(deletedChange);
             return ResponseEntity.ok("Account disassociated from transactions and deleted successfully");
         }
     }
@@ -434,6 +471,7 @@ public class AccountController {
 
         account.hide();
         accountDAO.save(account);
+        publishChanges(account.getOwner().getId(), null, LedgerChange.Action.UPDATED, account);
         return ResponseEntity.ok("Account hidden successfully");
     }
 
@@ -446,7 +484,8 @@ public class AccountController {
                                                    @RequestParam(required = false) BigDecimal balance,
                                                    @RequestParam(required = false) String notes,
                                                    @RequestParam(required = false) Boolean includedInNetAsset,
-                                                   @RequestParam(required = false) Boolean selectable) {
+                                                   @RequestParam(required = false) Boolean selectable,
+                                                   @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         if (principal == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized access");
         }
@@ -464,6 +503,9 @@ public class AccountController {
         if (!account.getOwner().getId().equals(user.getId())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You cannot edit someone else's account");
         }
+        if (!ETags.matches(ifMatch, account.getVersion())) {
+            return ETags.preconditionFailed(account.getVersion());
+        }
 
         if (!(account instanceof BasicAccount)) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Account is not a basic account");
@@ -487,7 +529,9 @@ public class AccountController {
 
         accountDAO.save(account);
         userDAO.save(account.getOwner());
-        return ResponseEntity.ok("Account edited successfully");
+        accountDAO.flush(); //new version for the ETag
+        publishChanges(account.getOwner().getId(), null, LedgerChange.Action.UPDATED, account);
+        return ETags.ok("Account edited successfully", account.getVersion());
     }
 
     @PutMapping("/{id}/edit-credit-account")
@@ -503,7 +547,8 @@ public class AccountController {
                                                     @RequestParam(required = false) BigDecimal creditLimit,
                                                     @RequestParam(required = false) BigDecimal currentDebt,
                                                     @RequestParam(required = false) Integer billDate,
-                                                    @RequestParam(required = false) Integer dueDate) {
+                                                    @RequestParam(required = false) Integer dueDate,
+                                                    @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         if (principal == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized access");
         }
@@ -519,6 +564,9 @@ public class AccountController {
         if (!account.getOwner().getId().equals(user.getId())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You cannot edit someone else's account");
         }
+        if (!ETags.matches(ifMatch, account.getVersion())) {
+            return ETags.preconditionFailed(account.getVersion());
+        }
         if (!(account instanceof CreditAccount)) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Account is not a credit account");
         }
@@ -551,7 +599,9 @@ public class AccountController {
         }
         accountDAO.save(creditAccount);
         userDAO.save(creditAccount.getOwner());
-        return ResponseEntity.ok("Credit account edited successfully");
+        accountDAO.flush(); //new version for the ETag
+        publishChanges(creditAccount.getOwner().getId(), null, LedgerChange.Action.UPDATED, creditAccount);
+        return ETags.ok("Credit account edited successfully", account.getVersion());
     }
 
     @PutMapping("/{id}/edit-loan-account")
@@ -567,7 +617,8 @@ public class AccountController {
                                                   @RequestParam(required = false) BigDecimal annualInterestRate,
                                                   @RequestParam(required = false) BigDecimal loanAmount,
                                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate repaymentDate,
-                                                  @RequestParam(required = false) LoanAccount.RepaymentType repaymentType) {
+                                                  @RequestParam(required = false) LoanAccount.RepaymentType repaymentType,
+                                                  @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         if (principal == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized access");
         }
@@ -585,6 +636,9 @@ public class AccountController {
         if (!account.getOwner().getId().equals(user.getId())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You cannot edit someone else's account");
         }
+        if (!ETags.matches(ifMatch, account.getVersion())) {
+            return ETags.preconditionFailed(account.getVersion());
+        }
         if (!(account instanceof LoanAccount)) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Account is not a loan account");
         }
@@ -617,7 +671,9 @@ public class AccountController {
         ((LoanAccount) account).updateRemainingAmount();
         accountDAO.save(loanAccount);
         userDAO.save(loanAccount.getOwner());
-        return ResponseEntity.ok("Loan account edited successfully");
+        accountDAO.flush(); //new version for the ETag
+        publishChanges(loanAccount.getOwner().getId(), null, LedgerChange.Action.UPDATED, loanAccount);
+        return ETags.ok("Loan account edited successfully", account.getVersion());
     }
 
     @PutMapping("/{id}/edit-borrowing-account")
@@ -630,7 +686,8 @@ public class AccountController {
                                                        @RequestParam(required = false) String notes,
                                                        @RequestParam(required = false) Boolean includedInNetAsset,
                                                        @RequestParam(required = false) Boolean selectable,
-                                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+                                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                                                       @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         if (principal == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized access");
         }
@@ -646,6 +703,9 @@ public class AccountController {
         if (!account.getOwner().getId().equals(user.getId())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Borrowing account does not belong to the authenticated user");
         }
+        if (!ETags.matches(ifMatch, account.getVersion())) {
+            return ETags.preconditionFailed(account.getVersion());
+        }
         if (!(account instanceof BorrowingAccount)) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Account is not a borrowing account");
         }
@@ -672,7 +732,9 @@ public class AccountController {
         }
         ((BorrowingAccount) account).checkAndUpdateStatus(); // aggiorna lo stato del borrowing
         accountDAO.save(account);
-        return ResponseEntity.ok("Borrowing account updated successfully");
+        accountDAO.flush(); //new version for the ETag
+        publishChanges(account.getOwner().getId(), null, LedgerChange.Action.UPDATED, account);
+        return ETags.ok("Borrowing account updated successfully", account.getVersion());
     }
 
     @PutMapping("/{id}/edit-lending-account")
@@ -685,7 +747,8 @@ public class AccountController {
                                                      @RequestParam(required = false) String note,
                                                      @RequestParam(required = false) Boolean includedInNetAsset,
                                                      @RequestParam(required = false) Boolean selectable,
-                                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+                                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                                                     @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         if (principal == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized access");
         }
@@ -700,6 +763,9 @@ public class AccountController {
         if (!account.getOwner().getId().equals(user.getId())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("LendingAccount does not belong to the user");
         }
+        if (!ETags.matches(ifMatch, account.getVersion())) {
+            return ETags.preconditionFailed(account.getVersion());
+        }
         if (!(account instanceof LendingAccount)) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Account is not a LendingAccount");
         }
@@ -726,7 +792,9 @@ public class AccountController {
         }
         ((LendingAccount) account).checkAndUpdateStatus();
         accountDAO.save(account);
-        return ResponseEntity.ok("LendingAccount updated successfully");
+        accountDAO.flush(); //new version for the ETag
+        publishChanges(account.getOwner().getId(), null, LedgerChange.Action.UPDATED, account);
+        return ETags.ok("LendingAccount updated successfully", account.getVersion());
     }
 
 
@@ -765,6 +833,7 @@ public class AccountController {
 
         account.credit(amount);
         accountDAO.save(account);
+        publishChanges(account.getOwner().getId(), null, LedgerChange.Action.UPDATED, account);
         return ResponseEntity.ok("credit account");
     }
 
@@ -806,6 +875,7 @@ public class AccountController {
                     ((CreditAccount) account).setCurrentDebt(((CreditAccount) account).getCurrentDebt().add(amount.subtract(account.getBalance())).setScale(2, RoundingMode.HALF_UP));
                     account.setBalance(BigDecimal.ZERO);
                     accountDAO.save(account);
+                    publishChanges(account.getOwner().getId(), null, LedgerChange.Action.UPDATED, account);
                     return ResponseEntity.ok("debit account");
                 }
             }
@@ -817,6 +887,7 @@ public class AccountController {
 
         account.debit(amount);
         accountDAO.save(account);
+        publishChanges(account.getOwner().getId(), null, LedgerChange.Action.UPDATED, account);
         return ResponseEntity.ok("debit account");
     }
 
@@ -842,6 +913,7 @@ public class AccountController {
         if (creditAccount == null) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Credit account not found");
         }
+        OperationMetrics.type(creditAccount.getType());
         if (!(creditAccount instanceof CreditAccount)) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Account is not a credit account");
         }
@@ -893,6 +965,7 @@ public class AccountController {
         if (ledger != null) {
             ledger.getTransactions().add(tx);
         }
+        publishChanges(creditAccount.getOwner().getId(), tx, LedgerChange.Action.UPDATED, creditAccount, fromAccount);
         return ResponseEntity.ok("Debt repaid successfully");
     }
 
@@ -909,10 +982,15 @@ public class AccountController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized access");
         }
 
-        Account loanAccount = accountDAO.findById(id).orElse(null);
+        //locked first: the repayment batch job may be paying the same loan
+        Account loanAccount = accountDAO.findLoanByIdForUpdate(id).orElse(null);
+        if (loanAccount == null) {
+            loanAccount = accountDAO.findById(id).orElse(null);
+        }
         if (loanAccount == null) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Loan account not found");
         }
+        OperationMetrics.type(loanAccount.getType());
         if (!(loanAccount instanceof LoanAccount)) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Account is not a loan account");
         }
@@ -985,6 +1063,7 @@ public class AccountController {
         if (ledger != null) {
             ledger.getTransactions().add(repaymentTransaction);
         }
+        publishChanges(owner.getId(), repaymentTransaction, LedgerChange.Action.UPDATED, loanAcc, fromAccount);
 
         return ResponseEntity.ok("Loan repaid successfully");
     }
@@ -1009,6 +1088,7 @@ public class AccountController {
         if (borrowingAccount == null) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Borrowing account not found");
         }
+        OperationMetrics.type(borrowingAccount.getType());
         if (!(borrowingAccount instanceof BorrowingAccount)) {
             return ResponseEntity.badRequest().body("Account is not a borrowing account");
         }
@@ -1067,6 +1147,7 @@ public class AccountController {
         if (ledger != null) {
             ledger.getTransactions().add(tx);
         }
+        publishChanges(borrowingAccount.getOwner().getId(), tx, LedgerChange.Action.UPDATED, borrowingAccount, fromAccount);
         return ResponseEntity.ok("Repayment successful");
     }
 
@@ -1144,10 +1225,12 @@ public class AccountController {
         if (ledger != null) {
             ledger.getTransactions().add(tx);
         }
+        publishChanges(lendingAccount.getOwner().getId(), tx, LedgerChange.Action.UPDATED, lendingAccount, toAccount);
         return ResponseEntity.ok("Lending received successfully");
     }
 
     @GetMapping("all-accounts")
+    @Transactional(readOnly = true)
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<List<Account>> getAllAccounts(Principal principal) {
         if (principal == null) {
@@ -1165,6 +1248,7 @@ public class AccountController {
 
 
     @GetMapping("{id}/get-transactions-for-month")
+    @Transactional(readOnly = true)
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<List<Transaction>> getAccountTransactionsForMonth(@PathVariable Long id,
                                                                             @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month,
@@ -1194,6 +1278,7 @@ public class AccountController {
     }
 
     @GetMapping("/{id}/monthly-summary" )
+    @Transactional(readOnly = true)
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Map<String, Object>> getMonthlySummary(@PathVariable Long id,
                                                                  @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month,
@@ -1236,4 +1321,30 @@ public class AccountController {
 
         return ResponseEntity.ok(summary);
     }
+
+    //balance at the end of asOf, from the nearest month-end checkpoint (or the current balance). for cards, loans and
+    //borrowings the position: balance minus the amount owed
+    @GetMapping("/{id}/balance")
+    @Transactional(readOnly = true)
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<BalanceCheckpointService.BalanceAsOf> getBalanceAsOf(@PathVariable Long id,
+                                                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate asOf,
+                                                                               Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        Account account = accountDAO.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Account not found"));
+
+        User user = userDAO.findByUsername(principal.getName());
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (!account.getOwner().getId().equals(user.getId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        return ResponseEntity.ok(balanceCheckpoints.balanceAsOf(account, asOf, LocalDate.now()));
+    }
 }
@@ -786,12 +786,14 @@ public class AccountService {
         BigDecimal totalIncome = account.getIncomingTransactions().stream()
                 .filter(tx -> isInMonth(tx.getDate(), month))
                 .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .collect(Money.summing())
+                .toBigDecimal();
 
         BigDecimal totalExpense = account.getOutgoingTransactions().stream()
                 .filter(tx -> isInMonth(tx.getDate(), month))
                 .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .collect(Money.summing())
+                .toBigDecimal();
 
         Map<String, Object> summary = new LinkedHashMap<>();
         summary.put("month", month.toString());
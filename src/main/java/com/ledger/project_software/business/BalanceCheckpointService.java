@@ -0,0 +1,194 @@
+package com.ledger.project_software.business;
+
+import com.ledger.project_software.domain.Account;
+import com.ledger.project_software.domain.BalanceCheckpoint;
+import com.ledger.project_software.orm.AccountDAO;
+import com.ledger.project_software.orm.BalanceCheckpointDAO;
+import com.ledger.project_software.orm.TransactionDAO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+//balance of an account on a past date without replaying its whole history: month-end checkpoints are written every
+//night (the last ledger.balance-checkpoints.months month-ends of every account) and balanceAsOf starts from the
+//nearest checkpoint, or from the current balance, applying only the transactions dated in between.
+//the balance is the position of the account (BalanceReconciliationService.position), what it holds minus what it
+//owes: the only value every transaction moves by its amount, also on cards (a repayment lowers the debt) and on
+//loans and borrowings (their balance field never moves, the amount owed does)
+//a transaction change deletes the checkpoints of its accounts from its date (the earlier of old and new) forward,
+//in the same database transaction; a balance changed without a transaction deletes all those of the account
+@Service
+public class BalanceCheckpointService {
+    private static final LocalDate END_OF_TIME = LocalDate.of(9999, 12, 31);
+
+    private final BalanceCheckpointDAO checkpointDAO;
+    private final AccountDAO accountDAO;
+    private final TransactionDAO transactionDAO;
+    private final TransactionTemplate transactionTemplate;
+    private final int months;
+    private final int batchSize;
+
+    public BalanceCheckpointService(BalanceCheckpointDAO checkpointDAO,
+                                    AccountDAO accountDAO,
+                                    TransactionDAO transactionDAO,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${ledger.balance-checkpoints.months:12}") int months,
+                                    @Value("${ledger.balance-checkpoints.batch-size:200}") int batchSize) {
+        this.checkpointDAO = checkpointDAO;
+        this.accountDAO = accountDAO;
+        this.transactionDAO = transactionDAO;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.months = months;
+        this.batchSize = batchSize;
+    }
+
+    //checkpoint is the date the computation started from, null for the current balance
+    public record BalanceAsOf(Long accountId, LocalDate asOf, BigDecimal balance, LocalDate checkpoint) {}
+
+    public BalanceAsOf balanceAsOf(Account account, LocalDate asOf, LocalDate today) {
+        Long accountId = account.getId();
+        BalanceCheckpoint before = checkpointDAO.findOnOrBefore(accountId, asOf, PageRequest.of(0, 1))
+                .stream().findFirst().orElse(null);
+        BalanceCheckpoint after = checkpointDAO.findAfter(accountId, asOf, PageRequest.of(0, 1))
+                .stream().findFirst().orElse(null);
+
+        //days of transactions to apply from each starting point, the current balance counts as a checkpoint of today
+        long fromCurrent = Math.max(0, ChronoUnit.DAYS.between(asOf, today));
+        long fromBefore = before != null ? ChronoUnit.DAYS.between(before.getAsOf(), asOf) : Long.MAX_VALUE;
+        long fromAfter = after != null ? ChronoUnit.DAYS.between(asOf, after.getAsOf()) : Long.MAX_VALUE;
+
+        if (fromBefore <= fromAfter && fromBefore <= fromCurrent) {
+            BigDecimal balance = before.getBalance().add(net(accountId, before.getAsOf(), asOf));
+            return new BalanceAsOf(accountId, asOf, balance, before.getAsOf());
+        }
+        if (fromAfter <= fromCurrent) {
+            BigDecimal balance = after.getBalance().subtract(net(accountId, asOf, after.getAsOf()));
+            return new BalanceAsOf(accountId, asOf, balance, after.getAsOf());
+        }
+        //transactions dated after today (scheduled ones) are not in the balance at asOf either
+        BigDecimal balance = BalanceReconciliationService.position(account).subtract(net(accountId, asOf, END_OF_TIME));
+        return new BalanceAsOf(accountId, asOf, balance, null);
+    }
+
+    //incoming minus outgoing amounts of the transactions dated after 'after', up to 'upTo' included
+    private BigDecimal net(Long accountId, LocalDate after, LocalDate upTo) {
+        if (!upTo.isAfter(after)) {
+            return BigDecimal.ZERO;
+        }
+        LocalDate start = after.plusDays(1);
+        return transactionDAO.sumIncomingByAccountAndPeriod(accountId, start, upTo)
+                .subtract(transactionDAO.sumOutgoingByAccountAndPeriod(accountId, start, upTo));
+    }
+
+    //runs in the transaction that publishes the change: the checkpoints go with it or not at all
+    @EventListener
+    public void onLedgerChange(LedgerChange change) {
+        if (change.type() != LedgerChange.Type.TRANSACTION) {
+            return;
+        }
+        Map<String, Object> data = change.data();
+        LocalDate date = (LocalDate) data.get("date");
+        LocalDate previousDate = (LocalDate) data.get("previousDate");
+        LocalDate from = date == null || (previousDate != null && previousDate.isBefore(date)) ? previousDate : date;
+        if (from == null) {
+            return;
+        }
+        Set<Long> accountIds = new HashSet<>();
+        for (String key : List.of("fromAccountId", "toAccountId", "previousFromAccountId", "previousToAccountId")) {
+            if (data.get(key) instanceof Long id) {
+                accountIds.add(id);
+            }
+        }
+        if (!accountIds.isEmpty()) {
+            checkpointDAO.deleteFrom(accountIds, from);
+        }
+    }
+
+    //a transaction dated 'from' was removed or rewritten without a change event (ledger or category deleted)
+    public void invalidate(LocalDate from, Account... accounts) {
+        Set<Long> accountIds = new LinkedHashSet<>();
+        for (Account account : accounts) {
+            if (account != null && account.getId() != null) {
+                accountIds.add(account.getId());
+            }
+        }
+        if (from != null && !accountIds.isEmpty()) {
+            checkpointDAO.deleteFrom(accountIds, from);
+        }
+    }
+
+    //balance set or adjusted without a transaction: the whole history moves with it
+    public void invalidateAll(Account account) {
+        if (account != null && account.getId() != null) {
+            checkpointDAO.deleteByAccountId(account.getId());
+        }
+    }
+
+    @Scheduled(cron = "${ledger.balance-checkpoints.cron:0 0 1 * * *}")
+    public void writeDueCheckpoints() {
+        ShardContext.forEachShard(() -> writeCheckpointsFor(LocalDate.now()));
+    }
+
+    //writes the missing checkpoints of the last month-ends before today, batchSize accounts per transaction.
+    //returns the number of checkpoints written
+    public int writeCheckpointsFor(LocalDate today) {
+        List<LocalDate> monthEnds = new ArrayList<>(); //newest first: each one starts from the one written before
+        YearMonth month = YearMonth.from(today);
+        while (monthEnds.size() < months) {
+            month = month.minusMonths(1);
+            monthEnds.add(month.atEndOfMonth());
+        }
+
+        int written = 0;
+        Long afterId = 0L;
+        while (true) {
+            List<Long> ids = accountDAO.findIdsAfter(afterId, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            Integer batchWritten = transactionTemplate.execute(status -> {
+                int count = 0;
+                for (Long id : ids) {
+                    Account account = accountDAO.findById(id).orElse(null);
+                    if (account != null) {
+                        count += writeCheckpoints(account, monthEnds, today);
+                    }
+                }
+                return count;
+            });
+            written += Objects.requireNonNullElse(batchWritten, 0);
+            afterId = ids.get(ids.size() - 1);
+        }
+        return written;
+    }
+
+    private int writeCheckpoints(Account account, List<LocalDate> monthEnds, LocalDate today) {
+        Set<LocalDate> existing = new HashSet<>(checkpointDAO.findDatesFrom(account.getId(), monthEnds.get(monthEnds.size() - 1)));
+        int count = 0;
+        for (LocalDate monthEnd : monthEnds) {
+            if (existing.contains(monthEnd)) {
+                continue;
+            }
+            BigDecimal balance = balanceAsOf(account, monthEnd, today).balance();
+            checkpointDAO.save(new BalanceCheckpoint(account.getId(), monthEnd, balance));
+            count++;
+        }
+        return count;
+    }
+}
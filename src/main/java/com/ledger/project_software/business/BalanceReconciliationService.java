@@ -0,0 +1,372 @@
+package com.ledger.project_software.business;
+
+import com.ledger.project_software.domain.*;
+import com.ledger.project_software.orm.AccountDAO;
+import com.ledger.project_software.orm.ReconciliationBaselineDAO;
+import com.ledger.project_software.orm.TransactionDAO;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+//balance reconciliation: the position of every account (see ReconciliationBaseline) minus the net amount of its
+//transactions, summed with two grouped queries per chunk of accounts, must still equal the offset recorded the first
+//time the account was checked. chunks of chunk-size accounts are checked in parallel on a fork-join pool, each in
+//short transactions of its own: a read-only one for the check and, only when an account is new or off, a second one
+//that reads those accounts again and keeps what did not move in between (baselines, discrepancies, repairs).
+//with repair the difference is taken off the balance of basic, lending and credit accounts, off the amount owed of
+//borrowings and loans. an account changed by a commit that has no transaction of it (edits, installment plans,
+//credit/debit) drops its baseline, so the next run records the new one instead of reporting it. a repair is
+//published as an account update too, but keeps the baseline it was brought back to
+@Service
+public class BalanceReconciliationService {
+    private static final Logger log = LoggerFactory.getLogger(BalanceReconciliationService.class);
+    //accounts changed in the current transaction
+    private static final Object CHANGES = new Object();
+
+    private final AccountDAO accountDAO;
+    private final TransactionDAO transactionDAO;
+    private final ReconciliationBaselineDAO baselineDAO;
+    private final BalanceCheckpointService balanceCheckpoints;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final int parallelism;
+    private final int chunkSize;
+    private final int maxReported;
+    private final boolean repairOnSchedule;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile ReconciliationReport lastReport;
+
+    public BalanceReconciliationService(AccountDAO accountDAO,
+                                        TransactionDAO transactionDAO,
+                                        ReconciliationBaselineDAO baselineDAO,
+                                        BalanceCheckpointService balanceCheckpoints,
+                                        ApplicationEventPublisher eventPublisher,
+                                        PlatformTransactionManager transactionManager,
+                                        @Value("${ledger.reconciliation.parallelism:4}") int parallelism,
+                                        @Value("${ledger.reconciliation.chunk-size:1000}") int chunkSize,
+                                        @Value("${ledger.reconciliation.max-reported:1000}") int maxReported,
+                                        @Value("${ledger.reconciliation.repair:false}") boolean repairOnSchedule) {
+        this.accountDAO = accountDAO;
+        this.transactionDAO = transactionDAO;
+        this.baselineDAO = baselineDAO;
+        this.balanceCheckpoints = balanceCheckpoints;
+        this.eventPublisher = eventPublisher;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.parallelism = Math.max(1, parallelism);
+        this.chunkSize = chunkSize;
+        this.maxReported = maxReported;
+        this.repairOnSchedule = repairOnSchedule;
+    }
+
+    //expectedPosition is what the baseline and the history give, difference = position - expectedPosition
+    public record Discrepancy(Long accountId,
+                              AccountType accountType,
+                              BigDecimal position,
+                              BigDecimal expectedPosition,
+                              BigDecimal difference,
+                              boolean repaired) {}
+
+    //discrepancies lists at most max-reported of them, discrepancyCount counts all
+    public record ReconciliationReport(Instant startedAt,
+                                       Instant finishedAt,
+                                       boolean repair,
+                                       long accountsChecked,
+                                       long baselinesRecorded,
+                                       long discrepancyCount,
+                                       long repairedCount,
+                                       long failedChunks,
+                                       List<Discrepancy> discrepancies) {}
+
+    private record Observed(Account account, BigDecimal position, BigDecimal net) {
+        BigDecimal offset() {
+            return position.subtract(net);
+        }
+    }
+
+    private record Check(int checked, Map<Long, Observed> pending, Map<Long, BigDecimal> baselines) {}
+
+    private record ChunkResult(int checked, int baselines, List<Discrepancy> discrepancies, boolean failed) {}
+
+    private record Changes(Set<Long> updated, Set<Long> transacted) {}
+
+    //position of an account: what it holds minus what it owes
+    static BigDecimal position(Account account) {
+        Account real = (Account) Hibernate.unproxy(account);
+        if (real instanceof CreditAccount credit) {
+            return orZero(credit.getBalance()).subtract(orZero(credit.getCurrentDebt()));
+        }
+        if (real instanceof BorrowingAccount borrowing) {
+            return orZero(borrowing.getBorrowingAmount()).negate();
+        }
+        if (real instanceof LoanAccount loan) {
+            return orZero(loan.getRemainingAmount()).negate();
+        }
+        return orZero(real.getBalance());
+    }
+
+    private static void shiftPosition(Account account, BigDecimal amount) {
+        Account real = (Account) Hibernate.unproxy(account);
+        if (real instanceof BorrowingAccount borrowing) {
+            borrowing.credit(amount); //owes less
+        } else if (real instanceof LoanAccount loan) {
+            loan.setRemainingAmount(orZero(loan.getRemainingAmount()).subtract(amount).setScale(2, RoundingMode.HALF_UP));
+        } else {
+            real.setBalance(orZero(real.getBalance()).add(amount).setScale(2, RoundingMode.HALF_UP));
+        }
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    //collects the accounts of the transaction, baselines are dropped just before it commits
+    @EventListener
+    public void onLedgerChange(LedgerChange change) {
+        if (change.type() != LedgerChange.Type.ACCOUNT && change.type() != LedgerChange.Type.TRANSACTION) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Changes changes = new Changes(new HashSet<>(), new HashSet<>());
+            collect(change, changes);
+            dropBaselines(changes);
+            return;
+        }
+        Changes changes = (Changes) TransactionSynchronizationManager.getResource(CHANGES);
+        if (changes == null) {
+            Changes created = new Changes(new HashSet<>(), new HashSet<>());
+            TransactionSynchronizationManager.bindResource(CHANGES, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    dropBaselines(created);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CHANGES);
+                }
+            });
+            changes = created;
+        }
+        collect(change, changes);
+    }
+
+    private static void collect(LedgerChange change, Changes changes) {
+        if (change.type() == LedgerChange.Type.ACCOUNT) {
+            if (!change.data().containsKey("reconciliationRepair")) { //a repair keeps the baseline right
+                changes.updated().add(change.id());
+            }
+            return;
+        }
+        for (String key : List.of("fromAccountId", "toAccountId", "previousFromAccountId", "previousToAccountId")) {
+            if (change.data().get(key) instanceof Long id) {
+                changes.transacted().add(id);
+            }
+        }
+    }
+
+    private void dropBaselines(Changes changes) {
+        Set<Long> adjusted = new HashSet<>(changes.updated());
+        adjusted.removeAll(changes.transacted());
+        adjusted.remove(null);
+        if (!adjusted.isEmpty()) {
+            baselineDAO.deleteAllByIdInBatch(adjusted);
+        }
+    }
+
+    @Scheduled(cron = "${ledger.reconciliation.cron:0 0 3 * * *}")
+    public void reconcileDue() {
+        ShardContext.forEachShard(() -> reconcile(repairOnSchedule));
+    }
+
+    public ReconciliationReport getLastReport() {
+        return lastReport;
+    }
+
+    //checks every account, one run at a time
+    public ReconciliationReport reconcile(boolean repair) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A reconciliation is already running");
+        }
+        Instant startedAt = Instant.now();
+        long checked = 0;
+        long baselines = 0;
+        long discrepancyCount = 0;
+        long repairedCount = 0;
+        long failedChunks = 0;
+        List<Discrepancy> discrepancies = new ArrayList<>();
+        ForkJoinPool pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        try {
+            Long afterId = 0L;
+            while (true) {
+                //parallelism chunks at a time, keyset over the ids
+                List<List<Long>> wave = new ArrayList<>();
+                while (wave.size() < parallelism) {
+                    List<Long> ids = accountDAO.findIdsAfter(afterId, PageRequest.of(0, chunkSize));
+                    if (ids.isEmpty()) {
+                        break;
+                    }
+                    wave.add(ids);
+                    afterId = ids.get(ids.size() - 1);
+                }
+                if (wave.isEmpty()) {
+                    break;
+                }
+                for (ChunkResult result : run(pool, wave, repair)) {
+                    checked += result.checked();
+                    baselines += result.baselines();
+                    failedChunks += result.failed() ? 1 : 0;
+                    for (Discrepancy discrepancy : result.discrepancies()) {
+                        discrepancyCount++;
+                        repairedCount += discrepancy.repaired() ? 1 : 0;
+                        if (discrepancies.size() < maxReported) {
+                            discrepancies.add(discrepancy);
+                        }
+                    }
+                }
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+            running.set(false);
+        }
+
+        ReconciliationReport report = new ReconciliationReport(startedAt, Instant.now(), repair, checked, baselines,
+                discrepancyCount, repairedCount, failedChunks, List.copyOf(discrepancies));
+        lastReport = report;
+        if (discrepancyCount > 0 || failedChunks > 0) {
+            log.warn("Reconciled {} accounts: {} discrepancies, {} repaired, {} chunks failed",
+                    checked, discrepancyCount, repairedCount, failedChunks);
+        } else {
+            log.info("Reconciled {} accounts, {} new baselines", checked, baselines);
+        }
+        return report;
+    }
+
+    private List<ChunkResult> run(ForkJoinPool pool, List<List<Long>> wave, boolean repair) {
+        if (pool == null) { //serial: on the caller thread, in its transaction if any
+            return wave.stream().map(ids -> reconcileChunk(ids, repair)).toList();
+        }
+        List<Callable<ChunkResult>> tasks = new ArrayList<>(wave.size());
+        for (List<Long> ids : wave) {
+            Supplier<ChunkResult> chunk = ShardContext.propagate(() -> reconcileChunk(ids, repair)); //the shard being reconciled
+            tasks.add(chunk::get);
+        }
+        List<ChunkResult> results = new ArrayList<>(wave.size());
+        try {
+            for (Future<ChunkResult> future : pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reconciliation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Reconciliation failed", e.getCause());
+        }
+        return results;
+    }
+
+    private ChunkResult reconcileChunk(List<Long> ids, boolean repair) {
+        try {
+            Check check = readTransaction.execute(status -> check(ids));
+            if (check.pending().isEmpty()) {
+                return new ChunkResult(check.checked(), 0, List.of(), false);
+            }
+            return writeTransaction.execute(status -> settle(check, repair));
+        } catch (RuntimeException e) {
+            log.warn("Reconciliation of accounts {}..{} failed, left for the next run",
+                    ids.get(0), ids.get(ids.size() - 1), e);
+            return new ChunkResult(0, 0, List.of(), true);
+        }
+    }
+
+    private Map<Long, Observed> observe(Collection<Long> ids) {
+        Map<Long, BigDecimal> net = new HashMap<>();
+        for (Object[] row : transactionDAO.sumIncomingByAccountIds(ids)) {
+            net.merge((Long) row[0], (BigDecimal) row[1], BigDecimal::add);
+        }
+        for (Object[] row : transactionDAO.sumOutgoingByAccountIds(ids)) {
+            net.merge((Long) row[0], ((BigDecimal) row[1]).negate(), BigDecimal::add);
+        }
+        Map<Long, Observed> observed = new HashMap<>();
+        for (Account account : accountDAO.findAllById(ids)) {
+            observed.put(account.getId(), new Observed(account, position(account),
+                    net.getOrDefault(account.getId(), BigDecimal.ZERO)));
+        }
+        return observed;
+    }
+
+    private Check check(List<Long> ids) {
+        Map<Long, Observed> observed = observe(ids);
+        Map<Long, BigDecimal> baselines = new HashMap<>();
+        for (ReconciliationBaseline baseline : baselineDAO.findAllById(ids)) {
+            baselines.put(baseline.getAccountId(), baseline.getOffset());
+        }
+        Map<Long, Observed> pending = new HashMap<>(); //without a baseline or off it
+        observed.forEach((id, seen) -> {
+            BigDecimal baseline = baselines.get(id);
+            if (baseline == null || baseline.compareTo(seen.offset()) != 0) {
+                pending.put(id, seen);
+            }
+        });
+        return new Check(observed.size(), pending, baselines);
+    }
+
+    //an account that moved since the check is left for the next run
+    private ChunkResult settle(Check check, boolean repair) {
+        Map<Long, Observed> current = observe(check.pending().keySet());
+        int baselines = 0;
+        List<Discrepancy> discrepancies = new ArrayList<>();
+        for (Map.Entry<Long, Observed> entry : check.pending().entrySet()) {
+            Long accountId = entry.getKey();
+            Observed now = current.get(accountId);
+            if (now == null || now.offset().compareTo(entry.getValue().offset()) != 0) {
+                continue;
+            }
+            BigDecimal baseline = check.baselines().get(accountId);
+            if (baseline == null) {
+                baselineDAO.save(new ReconciliationBaseline(accountId, now.offset()));
+                baselines++;
+                continue;
+            }
+            BigDecimal difference = now.offset().subtract(baseline);
+            if (repair) {
+                shiftPosition(now.account(), difference.negate());
+                accountDAO.save(now.account());
+                balanceCheckpoints.invalidateAll(now.account());
+                //streams, caches and the net worth series follow the corrected position like any account edit
+                eventPublisher.publishEvent(LedgerChange.account(now.account().getOwner().getId(), now.account(),
+                        LedgerChange.Action.UPDATED).with("reconciliationRepair", difference.negate()));
+            }
+            discrepancies.add(new Discrepancy(accountId, now.account().getType(), now.position(),
+                    now.position().subtract(difference), difference, repair));
+        }
+        return new ChunkResult(check.checked(), baselines, discrepancies, false);
+    }
+}
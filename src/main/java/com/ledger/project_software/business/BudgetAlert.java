@@ -0,0 +1,21 @@
+package com.ledger.project_software.business;
+
+import com.ledger.project_software.domain.Budget;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+//emitted when the spent amount of a budget crosses one of the configured thresholds (e.g. 80%, 100%)
+public record BudgetAlert(Long userId,
+                          Long budgetId,
+                          String categoryName, //null for the uncategorized user budget
+                          Budget.Period period,
+                          LocalDate startDate,
+                          LocalDate endDate,
+                          int threshold, //percentage of the budget amount
+                          BigDecimal amount,
+                          BigDecimal spent,
+                          Long transactionId,
+                          LocalDateTime createdAt) {
+}
@@ -0,0 +1,222 @@
+package com.ledger.project_software.business;
+
+import com.ledger.project_software.domain.*;
+import com.ledger.project_software.orm.BudgetDAO;
+import com.ledger.project_software.orm.TransactionDAO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+//threshold rules (e.g. 80% and 100%) evaluated only for the budgets touched by a new or edited expense.
+//alerts are published as application events and delivered to a bounded per-user queue after commit,
+//so clients can long-poll /budgets/alerts instead of polling /budgets
+@Service
+public class BudgetAlertService {
+    private static final BigDecimal ONE_HUNDRED = BigDecimal.valueOf(100);
+
+    private final BudgetDAO budgetDAO;
+    private final TransactionDAO transactionDAO;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int[] thresholds;
+    private final int queueCapacity;
+    private final Map<Long, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    public BudgetAlertService(BudgetDAO budgetDAO,
+                              TransactionDAO transactionDAO,
+                              ApplicationEventPublisher eventPublisher,
+                              @Value("${ledger.budget-alerts.thresholds:80,100}") int[] thresholds,
+                              @Value("${ledger.budget-alerts.queue-capacity:100}") int queueCapacity) {
+        this.budgetDAO = budgetDAO;
+        this.transactionDAO = transactionDAO;
+        this.eventPublisher = eventPublisher;
+        this.thresholds = thresholds.clone();
+        Arrays.sort(this.thresholds);
+        this.queueCapacity = queueCapacity;
+    }
+
+    //new expense: nothing was counted before
+    public List<BudgetAlert> evaluate(User owner, Transaction expense) {
+        return evaluate(owner, expense, null, null, null);
+    }
+
+    //edited expense: oldCategory/oldDate/oldAmount describe the transaction before the edit.
+    //only budgets whose spent grows because of this transaction can cross a threshold upward
+    public List<BudgetAlert> evaluate(User owner,
+                                      Transaction expense,
+                                      LedgerCategory oldCategory,
+                                      LocalDate oldDate,
+                                      BigDecimal oldAmount) {
+        if (owner == null || !(expense instanceof Expense) || expense.getCategory() == null) {
+            return List.of();
+        }
+        OperationEvents.BudgetEvaluation evaluation = new OperationEvents.BudgetEvaluation();
+        evaluation.begin();
+        LedgerCategory category = expense.getCategory();
+
+        //only the user budget, the budget of the category and the budget of its parent can be affected
+        List<Long> categoryIds = new ArrayList<>();
+        categoryIds.add(category.getId());
+        if (category.getParent() != null) {
+            categoryIds.add(category.getParent().getId());
+        }
+        List<Budget> budgets = budgetDAO.findActiveBudgetsAffectedBy(owner.getId(), categoryIds, expense.getDate());
+
+        List<BudgetAlert> alerts = new ArrayList<>();
+        for (Budget budget : budgets) {
+            if (budget.getAmount() == null || budget.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+                continue;
+            }
+            BigDecimal delta = contribution(budget, category, expense.getDate(), expense.getAmount())
+                    .subtract(contribution(budget, oldCategory, oldDate, oldAmount));
+            if (delta.compareTo(BigDecimal.ZERO) <= 0) {
+                continue;
+            }
+
+            BigDecimal spent = spentFor(owner.getId(), budget); //includes the flushed expense
+            BigDecimal spentBefore = spent.subtract(delta);
+            for (int threshold : thresholds) {
+                BigDecimal limit = budget.getAmount()
+                        .multiply(BigDecimal.valueOf(threshold))
+                        .divide(ONE_HUNDRED, 2, RoundingMode.HALF_UP);
+                if (spentBefore.compareTo(limit) < 0 && spent.compareTo(limit) >= 0) {
+                    alerts.add(new BudgetAlert(
+                            owner.getId(),
+                            budget.getId(),
+                            budget.getCategory() != null ? budget.getCategory().getName() : null,
+                            budget.getPeriod(),
+                            budget.getStartDate(),
+                            budget.getEndDate(),
+                            threshold,
+                            budget.getAmount(),
+                            spent,
+                            expense.getId(),
+                            LocalDateTime.now()));
+                }
+            }
+        }
+        alerts.forEach(eventPublisher::publishEvent);
+        if (evaluation.shouldCommit()) {
+            evaluation.source = "alerts";
+            evaluation.userId = owner.getId();
+            evaluation.transactionId = expense.getId() != null ? expense.getId() : 0;
+            evaluation.budgets = budgets.size();
+            evaluation.alerts = alerts.size();
+            evaluation.commit();
+        }
+        return alerts;
+    }
+
+    //amount counted by budget for a version of the transaction
+    private BigDecimal contribution(Budget budget, LedgerCategory category, LocalDate date, BigDecimal amount) {
+        if (date == null || amount == null) {
+            return BigDecimal.ZERO;
+        }
+        if (date.isBefore(budget.getStartDate()) || date.isAfter(budget.getEndDate())) {
+            return BigDecimal.ZERO;
+        }
+        if (budget.getCategory() == null) { //uncategorized user budget counts every expense
+            return amount;
+        }
+        if (category == null) {
+            return BigDecimal.ZERO;
+        }
+        Long budgetCategoryId = budget.getCategory().getId();
+        if (budgetCategoryId.equals(category.getId())
+                || (category.getParent() != null && budgetCategoryId.equals(category.getParent().getId()))) {
+            return amount;
+        }
+        return BigDecimal.ZERO;
+    }
+
+    //same spent rules used by BudgetController
+    private BigDecimal spentFor(Long userId, Budget budget) {
+        BigDecimal spent;
+        LedgerCategory category = budget.getCategory();
+        if (category == null) {
+            spent = transactionDAO.sumExpensesByUserAndPeriod(userId, budget.getStartDate(), budget.getEndDate());
+        } else if (category.getParent() == null) {
+            List<Long> categoryIds = new ArrayList<>();
+            categoryIds.add(category.getId());
+            categoryIds.addAll(category.getChildren().stream().map(LedgerCategory::getId).toList());
+            spent = transactionDAO.sumExpensesByCategoryIdsAndPeriod(userId, categoryIds, budget.getStartDate(), budget.getEndDate());
+        } else {
+            spent = transactionDAO.sumExpensesBySubCategoryAndPeriod(userId, category.getId(), budget.getStartDate(), budget.getEndDate());
+        }
+        return spent != null ? spent : BigDecimal.ZERO;
+    }
+
+    //delivered only once the transaction that produced the alert has committed
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBudgetAlert(BudgetAlert alert) {
+        mailboxes.computeIfAbsent(alert.userId(), id -> new Mailbox()).offer(alert, queueCapacity);
+    }
+
+    //returns and removes all pending alerts of the user
+    public List<BudgetAlert> drainAlerts(Long userId) {
+        Mailbox mailbox = mailboxes.get(userId);
+        return mailbox != null ? mailbox.drain() : List.of();
+    }
+
+    //callback is invoked once, with the pending alerts if any, otherwise with the next alerts published.
+    //the returned Runnable unregisters the callback (long-poll timeout or client disconnect)
+    public Runnable awaitAlerts(Long userId, Consumer<List<BudgetAlert>> callback) {
+        return mailboxes.computeIfAbsent(userId, id -> new Mailbox()).await(callback);
+    }
+
+    private static final class Mailbox {
+        private final Deque<BudgetAlert> alerts = new ArrayDeque<>();
+        private final List<Consumer<List<BudgetAlert>>> waiters = new ArrayList<>();
+
+        void offer(BudgetAlert alert, int capacity) {
+            List<BudgetAlert> batch;
+            List<Consumer<List<BudgetAlert>>> toNotify;
+            synchronized (this) {
+                if (alerts.size() >= capacity) {
+                    alerts.pollFirst(); //slow consumer: drop the oldest alert
+                }
+                alerts.addLast(alert);
+                if (waiters.isEmpty()) {
+                    return;
+                }
+                batch = List.copyOf(alerts);
+                alerts.clear();
+                toNotify = new ArrayList<>(waiters);
+                waiters.clear();
+            }
+            toNotify.forEach(waiter -> waiter.accept(batch));
+        }
+
+        synchronized List<BudgetAlert> drain() {
+            List<BudgetAlert> batch = List.copyOf(alerts);
+            alerts.clear();
+            return batch;
+        }
+
+        Runnable await(Consumer<List<BudgetAlert>> callback) {
+            List<BudgetAlert> batch;
+            synchronized (this) {
+                if (alerts.isEmpty()) {
+                    waiters.add(callback);
+                    return () -> remove(callback);
+                }
+                batch = List.copyOf(alerts);
+                alerts.clear();
+            }
+            callback.accept(batch);
+            return () -> {};
+        }
+
+        synchronized void remove(Consumer<List<BudgetAlert>> callback) {
+            waiters.remove(callback);
+        }
+    }
+}
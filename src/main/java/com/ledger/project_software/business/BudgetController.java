@@ -8,17 +8,20 @@ import com.ledger.project_software.domain.Budget;
 import com.ledger.project_software.domain.CategoryType;
 import com.ledger.project_software.domain.LedgerCategory;
 import com.ledger.project_software.domain.User;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
 import java.security.Principal;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -29,16 +32,25 @@ public class BudgetController {
     private final TransactionDAO transactionDAO;
     private final BudgetDAO budgetDAO;
     private final UserDAO userDAO;
+    private final BudgetAlertService budgetAlertService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ParallelQueryExecutor parallelQueryExecutor;
 
 
     public BudgetController(BudgetDAO budgetDAO,
                             UserDAO userDAO,
                             LedgerCategoryDAO ledgerCategoryDAO,
-                            TransactionDAO transactionDAO) {
+                            TransactionDAO transactionDAO,
+                            BudgetAlertService budgetAlertService,
+                            ApplicationEventPublisher eventPublisher,
+                            ParallelQueryExecutor parallelQueryExecutor) {
         this.budgetDAO = budgetDAO;
         this.userDAO = userDAO;
         this.ledgerCategoryDAO = ledgerCategoryDAO;
         this.transactionDAO = transactionDAO;
+        this.budgetAlertService = budgetAlertService;
+        this.eventPublisher = eventPublisher;
+        this.parallelQueryExecutor = parallelQueryExecutor;
 
     }
 
@@ -88,6 +100,7 @@ public class BudgetController {
             user.getBudgets().add(budget);
             budgetDAO.save(budget);
         }
+        eventPublisher.publishEvent(LedgerChange.budget(user.getId(), budget, LedgerChange.Action.CREATED));
 
         return ResponseEntity.ok("Budget created successfully");
     }
@@ -98,7 +111,8 @@ public class BudgetController {
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<String> editBudget(@PathVariable Long id,
                                              @RequestParam BigDecimal amount,
-                                             Principal principal) {
+                                             Principal principal,
+                                             @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         if (principal == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthenticated access");
         }
@@ -112,13 +126,18 @@ public class BudgetController {
         if (!budget.getOwner().getId().equals(user.getId())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Budget does not belong to the user");
         }
+        if (!ETags.matches(ifMatch, budget.getVersion())) {
+            return ETags.preconditionFailed(budget.getVersion());
+        }
         if (amount.compareTo(BigDecimal.ZERO) < 0) {
             return ResponseEntity.badRequest().body("Amount must be non-negative");
         }
 
         budget.setAmount(amount);
         budgetDAO.save(budget);
-        return ResponseEntity.ok("Budget updated successfully");
+        budgetDAO.flush(); //new version for the ETag
+        eventPublisher.publishEvent(LedgerChange.budget(user.getId(), budget, LedgerChange.Action.UPDATED));
+        return ETags.ok("Budget updated successfully", budget.getVersion());
     }
 
     @PutMapping("{targetBudgetId}/merge")
@@ -174,6 +193,7 @@ public class BudgetController {
             targetBudget.setAmount(targetBudget.getAmount().add(mergedAmount));
             budgetDAO.save(targetBudget);
         }
+        eventPublisher.publishEvent(LedgerChange.budget(user.getId(), targetBudget, LedgerChange.Action.UPDATED));
 
         return ResponseEntity.ok("Budgets merged successfully");
     }
@@ -195,6 +215,7 @@ public class BudgetController {
         if (!budget.getOwner().getId().equals(user.getId())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Budget does not belong to the user");
         }
+        LedgerChange deletedChange = LedgerChange.budget(user.getId(), budget, LedgerChange.Action.DELETED); //snapshot before unlinking
         if (budget.isActive(LocalDate.now())) {
             if (budget.getCategory() != null) { //budget for category
                 LedgerCategory category = budget.getCategory();
@@ -206,6 +227,7 @@ public class BudgetController {
 
         }
         budgetDAO.delete(budget);
+        eventPublisher.publishEvent(deletedChange);
         return ResponseEntity.ok("Budget deleted successfully");
     }
 
@@ -213,6 +235,7 @@ public class BudgetController {
 
     //uncategorized user budget + budgets for all categories of first level + spent and remaining for each
     @GetMapping
+    @Transactional(readOnly = true)
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Map<String, Object>> getAllBudgets(Principal principal) {
         if (principal == null) {
@@ -223,6 +246,8 @@ public class BudgetController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
+        OperationEvents.BudgetEvaluation evaluation = new OperationEvents.BudgetEvaluation();
+        evaluation.begin();
         LocalDate today = LocalDate.now();
         BigDecimal totalCategorySpent = BigDecimal.ZERO;
 
@@ -347,11 +372,43 @@ public class BudgetController {
         response.put("userBudget", userBudgetMap);
         response.put("categoryBudgets", categoryBudgets);
 
+        if (evaluation.shouldCommit()) {
+            evaluation.source = "dashboard";
+            evaluation.userId = user.getId();
+            evaluation.budgets = activeBudgets.size() + (userBudgetOpt.isPresent() ? 1 : 0);
+            evaluation.commit();
+        }
         return ResponseEntity.ok(response);
     }
 
+    //long-poll for budget threshold alerts: answers as soon as an alert is pending, or with an empty list after timeout
+    @GetMapping("/alerts")
+    @Transactional(readOnly = true)
+    @PreAuthorize("isAuthenticated()")
+    public DeferredResult<ResponseEntity<List<BudgetAlert>>> pollBudgetAlerts(Principal principal,
+                                                                              @RequestParam(required = false, defaultValue = "30000") long timeoutMillis) {
+        long timeout = Math.max(1000, Math.min(timeoutMillis, 60000));
+        DeferredResult<ResponseEntity<List<BudgetAlert>>> result =
+                new DeferredResult<>(timeout, ResponseEntity.ok(List.of()));
+        if (principal == null) {
+            result.setResult(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+            return result;
+        }
+        User user = userDAO.findByUsername(principal.getName());
+        if (user == null) {
+            result.setResult(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+            return result;
+        }
+
+        Runnable unsubscribe = budgetAlertService.awaitAlerts(user.getId(),
+                alerts -> result.setResult(ResponseEntity.ok(alerts)));
+        result.onCompletion(unsubscribe);
+        return result;
+    }
+
     //budget for category of first level + spent and remaining + budgets for all its subcategories + spent and remaining for each
     @GetMapping("/{id}")
+    @Transactional(readOnly = true)
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Map <String, Object>> getCategoryBudgetsWithSubCategoryBudgets(@PathVariable Long id,
                                                                                          Principal principal) {
@@ -386,41 +443,10 @@ public class BudgetController {
                 .filter(c -> c.getName().equalsIgnoreCase(parentName) && c.getParent() == null)
                 .toList();
 
-        //sum category budget in allSameNameParents and spent in period of categoryBudget
-        BigDecimal totalParentAmount = BigDecimal.ZERO;
-        BigDecimal totalParentSpent = BigDecimal.ZERO;
-
-        for (LedgerCategory parentCat : allSameNameParents) {
-            List<LedgerCategory> children = parentCat.getChildren(); //subcategories of parentCat
-            List<Long> categoryIds = new ArrayList<>();
-            categoryIds.add(parentCat.getId());
-            categoryIds.addAll(children.stream().map(LedgerCategory::getId).toList());
-
-            //get active budget of category with same period of categoryBudget
-            Optional<Budget> parentBudgetOpt = budgetDAO.findActiveCategoryBudget(
-                    user.getId(),
-                    parentCat.getId(),
-                    today,
-                    categoryBudget.getPeriod()
-            );
-            if (parentBudgetOpt.isPresent()) {
-                Budget b = parentBudgetOpt.get();
-                totalParentAmount = totalParentAmount.add(b.getAmount());
-
-                BigDecimal spent = transactionDAO.sumExpensesByCategoryIdsAndPeriod(
-                        user.getId(),
-                        categoryIds,
-                        b.getStartDateForPeriod(today, b.getPeriod()),
-                        b.getEndDateForPeriod(today, b.getPeriod())
-                );
-
-                if (spent == null) {
-                    spent = BigDecimal.ZERO;
-                }
-
-                totalParentSpent = totalParentSpent.add(spent);
-            }
-        }
+        Long userId = user.getId();
+        Budget.Period period = categoryBudget.getPeriod();
+        LocalDate subStart = categoryBudget.getStartDateForPeriod(today, period);
+        LocalDate subEnd = categoryBudget.getEndDateForPeriod(today, period);
 
         //get all subcategories of allSameNameParents
         List<LedgerCategory> allSubCategories = allSameNameParents.stream()
@@ -435,49 +461,69 @@ public class BudgetController {
                         Collectors.toList()
                 ));
 
-        //for each subcategory name, calculate total budget, spent and remaining
-        List<Map<String, Object>> subCategoryBudgets = groupedSubCats.entrySet().stream()
-                .map(entry -> {
-                    String subName = entry.getKey();
-                    List<LedgerCategory> sameSubCats = entry.getValue();
-
-                    BigDecimal totalAmount = BigDecimal.ZERO;
-                    BigDecimal totalSpent = BigDecimal.ZERO;
-
-                    for (LedgerCategory subCat : sameSubCats) {
-                        Optional<Budget> subBudgetOpt = budgetDAO.findActiveSubCategoryBudget(
-                                user.getId(),
-                                subCat.getId(),
-                                today,
-                                categoryBudget.getPeriod()
-                        );
-
-                        if (subBudgetOpt.isPresent()) {
-                            totalAmount = totalAmount.add(subBudgetOpt.get().getAmount());
-                        }
-
-                        BigDecimal spent = transactionDAO.sumExpensesBySubCategoryAndPeriod(
-                                user.getId(),
-                                subCat.getId(),
-                                categoryBudget.getStartDateForPeriod(today, categoryBudget.getPeriod()),
-                                categoryBudget.getEndDateForPeriod(today, categoryBudget.getPeriod())
-                        );
-
-                        if (spent == null) {
-                            spent = BigDecimal.ZERO;
-                        }
-
-                        totalSpent = totalSpent.add(spent);
+        //one task per same-name parent and one per subcategory, all independent: they run concurrently.
+        //ids and dates are captured here, the tasks only run queries
+        List<Supplier<BudgetTotals>> tasks = new ArrayList<>();
+        for (LedgerCategory parentCat : allSameNameParents) {
+            Long parentId = parentCat.getId();
+            List<Long> categoryIds = new ArrayList<>();
+            categoryIds.add(parentId);
+            categoryIds.addAll(parentCat.getChildren().stream().map(LedgerCategory::getId).toList());
+
+            tasks.add(() -> {
+                //get active budget of category with same period of categoryBudget
+                Optional<Budget> parentBudgetOpt = budgetDAO.findActiveCategoryBudget(userId, parentId, today, period);
+                if (parentBudgetOpt.isEmpty()) {
+                    return BudgetTotals.ZERO;
+                }
+                Budget b = parentBudgetOpt.get();
+                BigDecimal spent = transactionDAO.sumExpensesByCategoryIdsAndPeriod(
+                        userId,
+                        categoryIds,
+                        b.getStartDateForPeriod(today, b.getPeriod()),
+                        b.getEndDateForPeriod(today, b.getPeriod())
+                );
+                return new BudgetTotals(b.getAmount(), spent);
+            });
+        }
+        for (List<LedgerCategory> sameSubCats : groupedSubCats.values()) {
+            for (LedgerCategory subCat : sameSubCats) {
+                Long subId = subCat.getId();
+                tasks.add(() -> {
+                    Optional<Budget> subBudgetOpt = budgetDAO.findActiveSubCategoryBudget(userId, subId, today, period);
+                    BigDecimal spent = transactionDAO.sumExpensesBySubCategoryAndPeriod(userId, subId, subStart, subEnd);
+                    return new BudgetTotals(subBudgetOpt.map(Budget::getAmount).orElse(null), spent);
+                });
+            }
+        }
+        List<BudgetTotals> results = parallelQueryExecutor.invokeAll(tasks);
 
-                    }
+        //merge in task order: same response whatever the completion order
+        BigDecimal totalParentAmount = BigDecimal.ZERO;
+        BigDecimal totalParentSpent = BigDecimal.ZERO;
+        int index = 0;
+        for (; index < allSameNameParents.size(); index++) {
+            totalParentAmount = totalParentAmount.add(results.get(index).amount());
+            totalParentSpent = totalParentSpent.add(results.get(index).spent());
+        }
+
+        //for each subcategory name, calculate total budget, spent and remaining
+        List<Map<String, Object>> subCategoryBudgets = new ArrayList<>();
+        for (Map.Entry<String, List<LedgerCategory>> entry : groupedSubCats.entrySet()) {
+            BigDecimal totalAmount = BigDecimal.ZERO;
+            BigDecimal totalSpent = BigDecimal.ZERO;
+            for (int i = 0; i < entry.getValue().size(); i++, index++) {
+                totalAmount = totalAmount.add(results.get(index).amount());
+                totalSpent = totalSpent.add(results.get(index).spent());
+            }
 
-                    Map<String, Object> map = new HashMap<>();
-                    map.put("subCategory", subName);
-                    map.put("amount", totalAmount);
-                    map.put("spent", totalSpent);
-                    map.put("remaining", totalAmount.subtract(totalSpent));
-                    return map;
-                }).toList();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("subCategory", entry.getKey());
+            map.put("amount", totalAmount);
+            map.put("spent", totalSpent);
+            map.put("remaining", totalAmount.subtract(totalSpent));
+            subCategoryBudgets.add(map);
+        }
 
         Map<String, Object> response = new LinkedHashMap<>();
         response.put("category", parentName);
@@ -489,4 +535,14 @@ public class BudgetController {
 
         return ResponseEntity.ok(response);
     }
+
+    //budget amount and spent of one category, missing values count as zero
+    private record BudgetTotals(BigDecimal amount, BigDecimal spent) {
+        static final BudgetTotals ZERO = new BudgetTotals(BigDecimal.ZERO, BigDecimal.ZERO);
+
+        BudgetTotals {
+            amount = amount != null ? amount : BigDecimal.ZERO;
+            spent = spent != null ? spent : BigDecimal.ZERO;
+        }
+    }
 }
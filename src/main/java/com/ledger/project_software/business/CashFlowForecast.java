@@ -0,0 +1,27 @@
+package com.ledger.project_software.business;
+
+import com.ledger.project_software.domain.AccountType;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
+
+//projected month-end balances of the user's accounts. every list has one value per month of months.
+//loans are projected as negative balances (the amount still to repay)
+public record CashFlowForecast(List<YearMonth> months,
+                               Long spendingAccountId, //account charged with the budgeted spend
+                               List<AccountProjection> accounts,
+                               List<BigDecimal> expectedIncome,
+                               List<BigDecimal> scheduledPayments,
+                               List<BigDecimal> budgetedSpend,
+                               List<BigDecimal> netBalance) {
+
+    public record AccountProjection(Long accountId,
+                                    String name,
+                                    AccountType type,
+                                    BigDecimal openingBalance,
+                                    List<BigDecimal> inflow,
+                                    List<BigDecimal> outflow,
+                                    List<BigDecimal> balance) {
+    }
+}
@@ -0,0 +1,368 @@
+package com.ledger.project_software.business;
+
+import com.ledger.project_software.domain.*;
+import com.ledger.project_software.orm.AccountDAO;
+import com.ledger.project_software.orm.BudgetDAO;
+import com.ledger.project_software.orm.InstallmentPlanDAO;
+import com.ledger.project_software.orm.TransactionDAO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.function.IntFunction;
+
+//month-by-month balance projection of all accounts of a user, starting next month:
+//- loan and installment periods still to pay, posted on their due dates like RepaymentBatchService does
+//- recurring income: per account and category, received in at least income-min-months of the last
+//  income-lookback-months complete months, expected every month with its median amount
+//- active budgets as expected spend, charged to the account that paid most expenses in the lookback
+//everything is loaded with a few queries and added up in cents in one pass. payment schedules only depend on
+//the loan/plan terms, so they are cached by terms and shared by every forecast
+@Service
+public class CashFlowForecastService {
+    private final AccountDAO accountDAO;
+    private final InstallmentPlanDAO installmentPlanDAO;
+    private final TransactionDAO transactionDAO;
+    private final BudgetDAO budgetDAO;
+    private final int maxMonths;
+    private final int incomeLookbackMonths;
+    private final int incomeMinMonths;
+    private final int scheduleCacheSize;
+
+    //payment in cents of every period, by terms. access order, guarded by itself
+    private final LinkedHashMap<Object, long[]> schedules;
+
+    public CashFlowForecastService(AccountDAO accountDAO,
+                                   InstallmentPlanDAO installmentPlanDAO,
+                                   TransactionDAO transactionDAO,
+                                   BudgetDAO budgetDAO,
+                                   @Value("${ledger.forecast.max-months:60}") int maxMonths,
+                                   @Value("${ledger.forecast.income-lookback-months:6}") int incomeLookbackMonths,
+                                   @Value("${ledger.forecast.income-min-months:3}") int incomeMinMonths,
+                                   @Value("${ledger.forecast.schedule-cache-size:1024}") int scheduleCacheSize) {
+        this.accountDAO = accountDAO;
+        this.installmentPlanDAO = installmentPlanDAO;
+        this.transactionDAO = transactionDAO;
+        this.budgetDAO = budgetDAO;
+        this.maxMonths = maxMonths;
+        this.incomeLookbackMonths = incomeLookbackMonths;
+        this.incomeMinMonths = incomeMinMonths;
+        this.scheduleCacheSize = scheduleCacheSize;
+        this.schedules = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, long[]> eldest) {
+                return size() > CashFlowForecastService.this.scheduleCacheSize;
+            }
+        };
+    }
+
+    private record LoanTerms(BigDecimal loanAmount, BigDecimal annualInterestRate, int totalPeriods,
+                             LoanAccount.RepaymentType repaymentType) {
+    }
+
+    private record PlanTerms(BigDecimal totalAmount, BigDecimal feeRate, int totalPeriods,
+                             InstallmentPlan.FeeStrategy feeStrategy) {
+    }
+
+    private record IncomeSource(Long accountId, Long categoryId) {
+    }
+
+    //state of one forecast: cents per account position and month
+    private static final class Projection {
+        final int months;
+        final YearMonth first;
+        final long[] opening;
+        final long[][] inflow;
+        final long[][] outflow;
+        final long[] income;
+        final long[] scheduled;
+        final long[] budgeted;
+
+        Projection(int accounts, int months, YearMonth first) {
+            this.months = months;
+            this.first = first;
+            opening = new long[accounts];
+            inflow = new long[accounts][months];
+            outflow = new long[accounts][months];
+            income = new long[months];
+            scheduled = new long[months];
+            budgeted = new long[months];
+        }
+
+        //month slot of a date, -1 if before the first month (still to pay this month or overdue)
+        int slot(LocalDate date) {
+            long offset = (date.getYear() - first.getYear()) * 12L + date.getMonthValue() - first.getMonthValue();
+            return offset < 0 ? -1 : (int) offset;
+        }
+
+        //from/to -1: account not in the forecast
+        void move(int from, int to, long cents, int slot) {
+            if (slot < 0) { //not posted yet: part of the opening balance
+                if (from >= 0) opening[from] -= cents;
+                if (to >= 0) opening[to] += cents;
+                return;
+            }
+            if (from >= 0) outflow[from][slot] += cents;
+            if (to >= 0) inflow[to][slot] += cents;
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public CashFlowForecast forecast(Long userId, int months, LocalDate today) {
+        if (months < 1 || months > maxMonths) {
+            throw new IllegalArgumentException("Months must be between 1 and " + maxMonths);
+        }
+        YearMonth first = YearMonth.from(today).plusMonths(1);
+        LocalDate horizonEnd = first.plusMonths(months - 1).atEndOfMonth();
+
+        List<Account> accounts = accountDAO.findByOwnerId(userId);
+        Map<Long, Integer> positions = new HashMap<>(accounts.size() * 2);
+        for (int i = 0; i < accounts.size(); i++) {
+            positions.put(accounts.get(i).getId(), i);
+        }
+        Projection projection = new Projection(accounts.size(), months, first);
+        for (int i = 0; i < accounts.size(); i++) {
+            Account account = accounts.get(i);
+            projection.opening[i] = account instanceof LoanAccount loan
+                    ? -cents(loan.getRemainingAmount())
+                    : cents(account.getBalance());
+        }
+
+        for (Account account : accounts) {
+            if (account instanceof LoanAccount loan) {
+                addLoan(projection, positions, loan, horizonEnd);
+            }
+        }
+        for (InstallmentPlan plan : installmentPlanDAO.findOpenByOwnerId(userId)) {
+            addInstallmentPlan(projection, positions, plan, horizonEnd);
+        }
+
+        YearMonth lookbackFrom = YearMonth.from(today).minusMonths(incomeLookbackMonths);
+        YearMonth lookbackTo = YearMonth.from(today).minusMonths(1);
+        addRecurringIncome(projection, positions, userId, lookbackFrom, lookbackTo);
+        Long spendingAccountId = addBudgetedSpend(projection, positions, accounts, userId, today, lookbackFrom, lookbackTo);
+
+        return toForecast(projection, accounts, spendingAccountId);
+    }
+
+    private void addLoan(Projection projection, Map<Long, Integer> positions, LoanAccount loan, LocalDate horizonEnd) {
+        if (loan.getRepaymentDay() == null || loan.getRemainingAmount() == null) {
+            return;
+        }
+        long[] payments = loanSchedule(loan);
+        int loanPosition = positions.get(loan.getId());
+        int fromPosition = loan.getReceivingAccount() != null
+                ? positions.getOrDefault(loan.getReceivingAccount().getId(), -1)
+                : -1;
+        long remaining = cents(loan.getRemainingAmount());
+        for (int period = loan.getRepaidPeriods() + 1; period <= loan.getTotalPeriods() && remaining > 0; period++) {
+            LocalDate dueDate = loan.getDueDate(period);
+            if (dueDate.isAfter(horizonEnd)) {
+                break;
+            }
+            long amount = Math.min(payments[period - 1], remaining);
+            remaining -= amount;
+            int slot = projection.slot(dueDate);
+            projection.move(fromPosition, loanPosition, amount, slot);
+            if (slot >= 0) {
+                projection.scheduled[slot] += amount;
+            }
+        }
+    }
+
+    private void addInstallmentPlan(Projection projection, Map<Long, Integer> positions, InstallmentPlan plan,
+                                    LocalDate horizonEnd) {
+        Integer cardPosition = plan.getLinkedAccount() != null ? positions.get(plan.getLinkedAccount().getId()) : null;
+        if (cardPosition == null || plan.getRepaymentStartDate() == null) {
+            return; //hidden card or plan without dates
+        }
+        long[] payments = planSchedule(plan);
+        long remaining = cents(plan.getRemainingAmount());
+        for (int period = plan.getPaidPeriods() + 1; period <= plan.getTotalPeriods() && remaining > 0; period++) {
+            LocalDate dueDate = plan.getRepaymentStartDate().plusMonths(period - 1);
+            if (dueDate.isAfter(horizonEnd)) {
+                break;
+            }
+            long amount = Math.min(payments[period - 1], remaining);
+            remaining -= amount;
+            int slot = projection.slot(dueDate);
+            projection.move(cardPosition, -1, amount, slot);
+            if (slot >= 0) {
+                projection.scheduled[slot] += amount;
+            }
+        }
+    }
+
+    private void addRecurringIncome(Projection projection, Map<Long, Integer> positions, Long userId,
+                                    YearMonth lookbackFrom, YearMonth lookbackTo) {
+        if (incomeLookbackMonths <= 0) {
+            return;
+        }
+        Map<IncomeSource, long[]> monthly = new HashMap<>();
+        for (Object[] row : transactionDAO.sumIncomingByAccountCategoryAndMonth(userId, TransactionType.INCOME,
+                lookbackFrom.atDay(1), lookbackTo.atEndOfMonth())) {
+            int month = (((Number) row[2]).intValue() - lookbackFrom.getYear()) * 12
+                    + ((Number) row[3]).intValue() - lookbackFrom.getMonthValue();
+            monthly.computeIfAbsent(new IncomeSource((Long) row[0], (Long) row[1]), source -> new long[incomeLookbackMonths])
+                    [month] += cents((BigDecimal) row[4]);
+        }
+        monthly.forEach((source, amounts) -> {
+            Integer position = positions.get(source.accountId());
+            long[] received = Arrays.stream(amounts).filter(cents -> cents > 0).sorted().toArray();
+            if (position == null || received.length < incomeMinMonths || received.length == 0) {
+                return;
+            }
+            long expected = received[received.length / 2]; //median: one-off bonuses do not move it
+            for (int slot = 0; slot < projection.months; slot++) {
+                projection.move(-1, position, expected, slot);
+                projection.income[slot] += expected;
+            }
+        });
+    }
+
+    //the overall budget if there is one, otherwise the sum of the top-level category budgets
+    //(subcategory budgets are parts of them). a yearly budget counts 1/12 per month
+    private Long addBudgetedSpend(Projection projection, Map<Long, Integer> positions, List<Account> accounts,
+                                  Long userId, LocalDate today, YearMonth lookbackFrom, YearMonth lookbackTo) {
+        Map<Long, Long> perCategory = new HashMap<>(); //uncategorized under 0
+        Map<Long, Budget.Period> periods = new HashMap<>();
+        for (Budget budget : budgetDAO.findActiveByUserId(userId, today)) {
+            LedgerCategory category = budget.getCategory();
+            if (category != null && category.getParent() != null) {
+                continue;
+            }
+            Long key = category != null ? category.getId() : 0L;
+            long monthly = budget.getPeriod() == Budget.Period.YEARLY
+                    ? Math.round(cents(budget.getAmount()) / 12.0)
+                    : cents(budget.getAmount());
+            //a monthly budget is more precise than the yearly one of the same scope
+            if (!periods.containsKey(key) || budget.getPeriod() == Budget.Period.MONTHLY) {
+                perCategory.put(key, monthly);
+                periods.put(key, budget.getPeriod());
+            }
+        }
+        long expected = perCategory.containsKey(0L)
+                ? perCategory.get(0L)
+                : perCategory.values().stream().mapToLong(Long::longValue).sum();
+        if (expected == 0) {
+            return null;
+        }
+
+        int spendingPosition = -1;
+        long mostSpent = 0;
+        for (Object[] row : transactionDAO.sumOutgoingByAccount(userId, TransactionType.EXPENSE,
+                lookbackFrom.atDay(1), lookbackTo.atEndOfMonth())) {
+            Integer position = positions.get((Long) row[0]);
+            long spent = cents((BigDecimal) row[1]);
+            if (position != null && !(accounts.get(position) instanceof LoanAccount) && spent > mostSpent) {
+                spendingPosition = position;
+                mostSpent = spent;
+            }
+        }
+        for (int slot = 0; slot < projection.months; slot++) {
+            projection.move(spendingPosition, -1, expected, slot);
+            projection.budgeted[slot] += expected;
+        }
+        return spendingPosition >= 0 ? accounts.get(spendingPosition).getId() : null;
+    }
+
+    private CashFlowForecast toForecast(Projection projection, List<Account> accounts, Long spendingAccountId) {
+        int months = projection.months;
+        long[] net = new long[months];
+        List<CashFlowForecast.AccountProjection> rows = new ArrayList<>(accounts.size());
+        for (int i = 0; i < accounts.size(); i++) {
+            Account account = accounts.get(i);
+            boolean inNet = !Boolean.FALSE.equals(account.getIncludedInNetAsset());
+            long balance = projection.opening[i];
+            List<BigDecimal> balances = new ArrayList<>(months);
+            for (int slot = 0; slot < months; slot++) {
+                balance += projection.inflow[i][slot] - projection.outflow[i][slot];
+                balances.add(amount(balance));
+                if (inNet) {
+                    net[slot] += balance;
+                }
+            }
+            rows.add(new CashFlowForecast.AccountProjection(account.getId(),
+                    account.getName(),
+                    account.getType(),
+                    amount(projection.opening[i]),
+                    amounts(projection.inflow[i]),
+                    amounts(projection.outflow[i]),
+                    balances));
+        }
+        if (spendingAccountId == null) { //budgeted spend not charged to any account
+            long spent = 0;
+            for (int slot = 0; slot < months; slot++) {
+                spent += projection.budgeted[slot];
+                net[slot] -= spent;
+            }
+        }
+        List<YearMonth> monthList = new ArrayList<>(months);
+        for (int slot = 0; slot < months; slot++) {
+            monthList.add(projection.first.plusMonths(slot));
+        }
+        return new CashFlowForecast(monthList,
+                spendingAccountId,
+                rows,
+                amounts(projection.income),
+                amounts(projection.scheduled),
+                amounts(projection.budgeted),
+                amounts(net));
+    }
+
+    private long[] loanSchedule(LoanAccount loan) {
+        LoanTerms terms = new LoanTerms(loan.getLoanAmount(), loan.getAnnualInterestRate(), loan.getTotalPeriods(),
+                loan.getRepaymentType());
+        return cachedSchedule(terms, loan.getTotalPeriods(), loan::getMonthlyRepayment);
+    }
+
+    private long[] planSchedule(InstallmentPlan plan) {
+        PlanTerms terms = new PlanTerms(plan.getTotalAmount(), plan.getFeeRate(), plan.getTotalPeriods(),
+                plan.getFeeStrategy());
+        return cachedSchedule(terms, plan.getTotalPeriods(), plan::getMonthlyPayment);
+    }
+
+    public int getCachedSchedules() {
+        synchronized (schedules) {
+            return schedules.size();
+        }
+    }
+
+    //the entity methods are the same ones used when a period is posted, computed once per terms
+    private long[] cachedSchedule(Object terms, int periods, IntFunction<BigDecimal> payment) {
+        synchronized (schedules) {
+            long[] cached = schedules.get(terms);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        long[] computed = new long[periods];
+        for (int period = 1; period <= periods; period++) {
+            computed[period - 1] = cents(payment.apply(period));
+        }
+        synchronized (schedules) {
+            schedules.putIfAbsent(terms, computed);
+        }
+        return computed;
+    }
+
+    private static long cents(BigDecimal amount) {
+        return amount != null ? Money.toCents(amount) : 0L;
+    }
+
+    private static BigDecimal amount(long cents) {
+        return Money.ofCents(cents).toBigDecimal();
+    }
+
+    private static List<BigDecimal> amounts(long[] cents) {
+        List<BigDecimal> amounts = new ArrayList<>(cents.length);
+        for (long value : cents) {
+            amounts.add(amount(value));
+        }
+        return amounts;
+    }
+}
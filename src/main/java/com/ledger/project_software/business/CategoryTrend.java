@@ -0,0 +1,23 @@
+package com.ledger.project_software.business;
+
+import com.ledger.project_software.domain.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
+
+//monthly totals per category over a range of months; amounts of a category include its subcategories.
+//monthly.get(i) is the total of months.get(i)
+public record CategoryTrend(TransactionType type,
+                            Long ledgerId,
+                            List<YearMonth> months,
+                            List<Row> categories) {
+
+    public record Row(Long categoryId,
+                      String name,
+                      Long parentId,
+                      Long ledgerId,
+                      List<BigDecimal> monthly,
+                      BigDecimal total) {
+    }
+}
@@ -0,0 +1,22 @@
+package com.ledger.project_software.business;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+//a write that lost a race (stale @Version at flush, row lock timeout or deadlock victim) is rolled back:
+//the client gets 409 and retries on fresh data instead of a 500
+@RestControllerAdvice
+public class ConcurrencyExceptionHandler {
+    private static final Logger log = LoggerFactory.getLogger(ConcurrencyExceptionHandler.class);
+
+    @ExceptionHandler(ConcurrencyFailureException.class)
+    public ResponseEntity<String> handleConcurrencyFailure(ConcurrencyFailureException e) {
+        log.debug("Concurrent modification rejected", e);
+        return ResponseEntity.status(HttpStatus.CONFLICT).body("The resource was modified by another request, reload it and retry");
+    }
+}
@@ -0,0 +1,113 @@
+package com.ledger.project_software.business;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.List;
+
+//conditional GET for the polled read endpoints (ledger.conditional-get.paths): ETag and Last-Modified come from
+//the user's change version, If-None-Match/If-Modified-Since are answered with 304 before the controller runs.
+//with ledger.response-cache.enabled the 200 bodies are also kept, keyed by user, path, query and ETag, and served
+//again while the version does not move. a new version simply makes the old entries unreachable, they leave
+//in LRU order above ledger.response-cache.max-entries
+@Component
+public class ConditionalGetFilter extends OncePerRequestFilter {
+    private final UserChangeVersions changeVersions;
+    private final List<String> paths;
+    private final boolean cacheEnabled;
+    private final int maxEntries;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    //guarded by this
+    private final LruMap<CacheKey, CachedResponse> responses = new LruMap<>();
+
+    public ConditionalGetFilter(UserChangeVersions changeVersions,
+                                @Value("${ledger.conditional-get.paths:/ledgers/all-ledgers,/ledgers/*/categories,/ledgers/*/monthly-summary,/accounts/all-accounts,/accounts/*/monthly-summary}") String[] paths,
+                                @Value("${ledger.response-cache.enabled:false}") boolean cacheEnabled,
+                                @Value("${ledger.response-cache.max-entries:10000}") int maxEntries) {
+        this.changeVersions = changeVersions;
+        this.paths = List.of(paths);
+        this.cacheEnabled = cacheEnabled;
+        this.maxEntries = maxEntries;
+    }
+
+    private record CacheKey(Long userId, String path, String query, String eTag) {}
+
+    private record CachedResponse(byte[] body, String contentType) {}
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!"GET".equals(request.getMethod())) {
+            return true;
+        }
+        String path = pathOf(request);
+        return paths.stream().noneMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Principal principal = request.getUserPrincipal();
+        Long userId = principal != null ? changeVersions.userId(principal.getName()) : null;
+        if (userId == null) {
+            chain.doFilter(request, response); //the controller answers 401
+            return;
+        }
+
+        UserChangeVersions.Stamp stamp = changeVersions.stamp(userId);
+        String eTag = changeVersions.eTag(stamp);
+        //sets ETag and Last-Modified, and the 304 status when the client copy is current
+        if (new ServletWebRequest(request, response).checkNotModified(eTag, changeVersions.lastModified(stamp))) {
+            return;
+        }
+        if (!cacheEnabled) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        CacheKey key = new CacheKey(userId, pathOf(request), request.getQueryString(), eTag);
+        CachedResponse cached = get(key);
+        if (cached != null) {
+            response.setContentType(cached.contentType());
+            response.setContentLength(cached.body().length);
+            response.getOutputStream().write(cached.body());
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, wrapper);
+        //the body was produced at this version or later: a later one is only ever served under the older tag,
+        //and the next request with the newer version misses and reloads
+        if (wrapper.getStatus() == HttpServletResponse.SC_OK) {
+            put(key, new CachedResponse(wrapper.getContentAsByteArray(), wrapper.getContentType()));
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private static String pathOf(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private synchronized CachedResponse get(CacheKey key) {
+        return responses.get(key);
+    }
+
+    private synchronized void put(CacheKey key, CachedResponse response) {
+        responses.put(key, response);
+        responses.trimTo(maxEntries);
+    }
+
+    public synchronized int getCachedResponses() {
+        return responses.size();
+    }
+}
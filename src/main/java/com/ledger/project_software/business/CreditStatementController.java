@@ -0,0 +1,128 @@
+package com.ledger.project_software.business;
+
+import com.ledger.project_software.domain.Account;
+import com.ledger.project_software.domain.CreditAccount;
+import com.ledger.project_software.domain.CreditStatement;
+import com.ledger.project_software.domain.User;
+import com.ledger.project_software.orm.AccountDAO;
+import com.ledger.project_software.orm.CreditStatementDAO;
+import com.ledger.project_software.orm.UserDAO;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.security.Principal;
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/credit-statements")
+public class CreditStatementController {
+    private final CreditStatementDAO creditStatementDAO;
+    private final CreditStatementService creditStatementService;
+    private final AccountDAO accountDAO;
+    private final UserDAO userDAO;
+
+    public CreditStatementController(CreditStatementDAO creditStatementDAO,
+                                     CreditStatementService creditStatementService,
+                                     AccountDAO accountDAO,
+                                     UserDAO userDAO) {
+        this.creditStatementDAO = creditStatementDAO;
+        this.creditStatementService = creditStatementService;
+        this.accountDAO = accountDAO;
+        this.userDAO = userDAO;
+    }
+
+    //last closed statement of the card
+    @GetMapping("/{accountId}/latest")
+    @Transactional(readOnly = true)
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<CreditStatement> getLatestStatement(@PathVariable Long accountId,
+                                                              Principal principal) {
+        ResponseEntity<CreditStatement> denied = checkCard(accountId, principal);
+        if (denied != null) {
+            return denied;
+        }
+        return creditStatementService.findLatest(accountId)
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No statement closed yet"));
+    }
+
+    //statement closed on periodEnd
+    @GetMapping("/{accountId}/by-period")
+    @Transactional(readOnly = true)
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<CreditStatement> getStatement(@PathVariable Long accountId,
+                                                        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate periodEnd,
+                                                        Principal principal) {
+        ResponseEntity<CreditStatement> denied = checkCard(accountId, principal);
+        if (denied != null) {
+            return denied;
+        }
+        return creditStatementDAO.findByAccountIdAndPeriodEnd(accountId, periodEnd)
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Statement not found"));
+    }
+
+    //past statements, newest first
+    @GetMapping("/{accountId}")
+    @Transactional(readOnly = true)
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<List<CreditStatement>> getStatements(@PathVariable Long accountId,
+                                                               @RequestParam(defaultValue = "12") int limit,
+                                                               Principal principal) {
+        ResponseEntity<List<CreditStatement>> denied = checkCard(accountId, principal);
+        if (denied != null) {
+            return denied;
+        }
+        return ResponseEntity.ok(creditStatementDAO.findByAccountIdOrderByPeriodEndDesc(
+                accountId, PageRequest.of(0, Math.max(1, Math.min(limit, 120)))));
+    }
+
+    //closes the last cycle ended before today, if the batch job has not done it yet. a cycle ending today is still
+    //open: transactions can be dated on it until midnight, like closeDueStatements it is closed from tomorrow
+    @PostMapping("/{accountId}/close")
+    @Transactional
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<CreditStatement> closeStatement(@PathVariable Long accountId,
+                                                          Principal principal) {
+        ResponseEntity<CreditStatement> denied = checkCard(accountId, principal);
+        if (denied != null) {
+            return denied;
+        }
+        CreditAccount card = (CreditAccount) accountDAO.findById(accountId).orElseThrow();
+        if (card.getBillDay() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        LocalDate closing = CreditStatementService.lastClosingDate(card.getBillDay(), LocalDate.now().minusDays(1));
+        try {
+            return ResponseEntity.ok(creditStatementService.closeStatement(card, closing));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    private <T> ResponseEntity<T> checkCard(Long accountId, Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        User user = userDAO.findByUsername(principal.getName());
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Account account = accountDAO.findById(accountId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Account not found"));
+        if (!account.getOwner().getId().equals(user.getId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (!(account instanceof CreditAccount)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,194 @@
+package com.ledger.project_software.business;
+
+import com.ledger.project_software.domain.*;
+import com.ledger.project_software.orm.AccountDAO;
+import com.ledger.project_software.orm.CreditStatementDAO;
+import com.ledger.project_software.orm.InstallmentPlanDAO;
+import com.ledger.project_software.orm.TransactionDAO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+//statement cycle of credit cards: on billDay the cycle is closed and its totals are persisted as a CreditStatement,
+//so reading the current or a past statement is a single-row lookup instead of a scan of the card transactions
+@Service
+public class CreditStatementService {
+    private final CreditStatementDAO creditStatementDAO;
+    private final AccountDAO accountDAO;
+    private final TransactionDAO transactionDAO;
+    private final InstallmentPlanDAO installmentPlanDAO;
+    private final TransactionTemplate transactionTemplate;
+    private final BigDecimal minimumRate;
+    private final BigDecimal minimumFloor;
+    private final int graceDays;
+    private final int batchSize;
+
+    public CreditStatementService(CreditStatementDAO creditStatementDAO,
+                                  AccountDAO accountDAO,
+                                  TransactionDAO transactionDAO,
+                                  InstallmentPlanDAO installmentPlanDAO,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${ledger.statements.minimum-rate:0.05}") BigDecimal minimumRate,
+                                  @Value("${ledger.statements.minimum-floor:25.00}") BigDecimal minimumFloor,
+                                  @Value("${ledger.statements.grace-days:20}") int graceDays,
+                                  @Value("${ledger.statements.batch-size:200}") int batchSize) {
+        this.creditStatementDAO = creditStatementDAO;
+        this.accountDAO = accountDAO;
+        this.transactionDAO = transactionDAO;
+        this.installmentPlanDAO = installmentPlanDAO;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.minimumRate = minimumRate;
+        this.minimumFloor = minimumFloor;
+        this.graceDays = graceDays;
+        this.batchSize = batchSize;
+    }
+
+    //billDay 31 closes on the last day of shorter months
+    public static LocalDate closingDate(int billDay, YearMonth month) {
+        return month.atDay(Math.min(billDay, month.lengthOfMonth()));
+    }
+
+    //most recent closing date not after date
+    public static LocalDate lastClosingDate(int billDay, LocalDate date) {
+        LocalDate closing = closingDate(billDay, YearMonth.from(date));
+        return closing.isAfter(date) ? closingDate(billDay, YearMonth.from(date).minusMonths(1)) : closing;
+    }
+
+    //dueDay after billDay: same month, otherwise the next one. without dueDay a grace period is used
+    public LocalDate dueDate(CreditAccount card, LocalDate closing) {
+        if (card.getDueDay() == null) {
+            return closing.plusDays(graceDays);
+        }
+        YearMonth month = YearMonth.from(closing);
+        if (card.getDueDay() <= closing.getDayOfMonth()) {
+            month = month.plusMonths(1);
+        }
+        return closingDate(card.getDueDay(), month);
+    }
+
+    public Optional<CreditStatement> findLatest(Long accountId) {
+        return creditStatementDAO.findByAccountIdOrderByPeriodEndDesc(accountId, PageRequest.of(0, 1))
+                .stream().findFirst();
+    }
+
+    //closes the cycle ending on closing, or returns the statement already closed for it
+    public CreditStatement closeStatement(CreditAccount card, LocalDate closing) {
+        Optional<CreditStatement> existing = creditStatementDAO.findByAccountIdAndPeriodEnd(card.getId(), closing);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+
+        CreditStatement previous = findLatest(card.getId()).orElse(null);
+        if (previous != null && !previous.getPeriodEnd().isBefore(closing)) {
+            throw new IllegalStateException("A later statement is already closed for account " + card.getId());
+        }
+        LocalDate periodStart = previous != null
+                ? previous.getPeriodEnd().plusDays(1)
+                : closingDate(card.getBillDay() != null ? card.getBillDay() : closing.getDayOfMonth(),
+                              YearMonth.from(closing).minusMonths(1)).plusDays(1);
+        BigDecimal previousBalance = previous != null ? previous.getStatementBalance() : BigDecimal.ZERO;
+
+        //the repayment of an installment portion is billed below, by the due date of the portion, not as a charge:
+        //otherwise a portion billed in this cycle and repaid in the next one would be billed twice
+        BigDecimal purchases = transactionDAO.sumChargesByAccountAndPeriod(card.getId(), periodStart, closing);
+        BigDecimal payments = transactionDAO.sumIncomingByAccountAndPeriod(card.getId(), periodStart, closing);
+
+        //portions of installment plans falling due in the cycle, repaid already or not.
+        //older portions are already part of previousBalance, only the first statement picks up the unpaid ones
+        BigDecimal installmentDue = BigDecimal.ZERO;
+        int installmentCount = 0;
+        for (InstallmentPlan plan : installmentPlanDAO.findByLinkedAccountId(card.getId())) {
+            if (plan.getRepaymentStartDate() == null) {
+                continue;
+            }
+            for (int period = 1; period <= plan.getTotalPeriods(); period++) {
+                LocalDate portionDue = plan.getRepaymentStartDate().plusMonths(period - 1);
+                if (portionDue.isAfter(closing)) {
+                    break;
+                }
+                if (portionDue.isBefore(periodStart) && (previous != null || period <= plan.getPaidPeriods())) {
+                    continue;
+                }
+                installmentDue = installmentDue.add(plan.getMonthlyPayment(period));
+                installmentCount++;
+            }
+        }
+
+        BigDecimal statementBalance = previousBalance.add(purchases).subtract(payments).add(installmentDue)
+                .max(BigDecimal.ZERO)
+                .setScale(2, RoundingMode.HALF_UP);
+        BigDecimal minimumDue = installmentDue
+                .add(statementBalance.subtract(installmentDue).max(BigDecimal.ZERO).multiply(minimumRate).max(minimumFloor))
+                .min(statementBalance)
+                .setScale(2, RoundingMode.HALF_UP);
+
+        CreditStatement statement = new CreditStatement(card,
+                periodStart,
+                closing,
+                dueDate(card, closing),
+                previousBalance,
+                purchases,
+                payments,
+                installmentDue.setScale(2, RoundingMode.HALF_UP),
+                installmentCount,
+                statementBalance,
+                minimumDue);
+        return creditStatementDAO.save(statement);
+    }
+
+    //runs after midnight and closes the cycles that ended yesterday
+    @Scheduled(cron = "${ledger.statements.close-cron:0 15 0 * * *}")
+    public void closeDueStatements() {
+        ShardContext.forEachShard(() -> closeStatementsFor(LocalDate.now().minusDays(1)));
+    }
+
+    //closes all cards whose cycle ends on closing, batchSize cards per transaction. returns the number of new statements
+    public int closeStatementsFor(LocalDate closing) {
+        List<Integer> billDays = new ArrayList<>();
+        billDays.add(closing.getDayOfMonth());
+        if (closing.getDayOfMonth() == closing.lengthOfMonth()) { //billDay 29-31 in shorter months
+            for (int day = closing.getDayOfMonth() + 1; day <= 31; day++) {
+                billDays.add(day);
+            }
+        }
+
+        int closed = 0;
+        Long afterId = 0L;
+        while (true) {
+            List<Long> ids = accountDAO.findCreditAccountIdsByBillDays(billDays, afterId, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            Integer batchClosed = transactionTemplate.execute(status -> {
+                int count = 0;
+                for (Long id : ids) {
+                    Optional<CreditStatement> latest = findLatest(id);
+                    if (latest.isPresent() && !latest.get().getPeriodEnd().isBefore(closing)) {
+                        continue; //already closed: the job can be re-run safely
+                    }
+                    CreditAccount card = (CreditAccount) accountDAO.findById(id).orElse(null);
+                    if (card == null) {
+                        continue;
+                    }
+                    closeStatement(card, closing);
+                    count++;
+                }
+                return count;
+            });
+            closed += batchClosed != null ? batchClosed : 0;
+            afterId = ids.get(ids.size() - 1);
+        }
+        return closed;
+    }
+}
@@ -0,0 +1,51 @@
+package com.ledger.project_software.business;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+//conditional edits: the ETag of an entity is its @Version, a client sends it back in If-Match
+//and the edit is refused with 412 if someone else changed the entity in the meantime
+final class ETags {
+    private ETags() {}
+
+    static String of(Long version) {
+        return version != null ? "\"" + version + "\"" : null;
+    }
+
+    //no If-Match (unconditional edit) or "*" always match. weak tags are compared by their value
+    static boolean matches(String ifMatch, Long version) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return true;
+        }
+        String current = of(version);
+        for (String tag : ifMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static ResponseEntity<String> preconditionFailed(Long version) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(HttpStatus.PRECONDITION_FAILED);
+        if (version != null) {
+            builder.eTag(of(version));
+        }
+        return builder.body("The resource was modified by another request");
+    }
+
+    static ResponseEntity<String> ok(String body, Long version) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (version != null) {
+            builder.eTag(of(version));
+        }
+        return builder.body(body);
+    }
+}
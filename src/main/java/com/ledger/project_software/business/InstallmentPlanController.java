@@ -2,6 +2,7 @@ package com.ledger.project_software.business;
 
 import com.ledger.project_software.orm.*;
 import com.ledger.project_software.domain.*;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -13,6 +14,8 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.security.Principal;
 import java.time.LocalDate;
+import java.util.List;
+import java.util.TreeSet;
 
 @RestController
 @RequestMapping("/installment-plans")
@@ -22,17 +25,20 @@ public class InstallmentPlanController {
     private final UserDAO userDAO;
     private final LedgerDAO ledgerDAO;
     public final TransactionDAO transactionDAO;
+    private final ApplicationEventPublisher eventPublisher;
 
     public InstallmentPlanController(InstallmentPlanDAO installmentPlanDAO,
                                      AccountDAO accountDAO,
                                      UserDAO userDAO,
                                      LedgerDAO ledgerDAO,
-                                     TransactionDAO transactionDAO) {
+                                     TransactionDAO transactionDAO,
+                                     ApplicationEventPublisher eventPublisher) {
         this.installmentPlanDAO = installmentPlanDAO;
         this.accountDAO = accountDAO;
         this.userDAO = userDAO;
         this.ledgerDAO = ledgerDAO;
         this.transactionDAO = transactionDAO;
+        this.eventPublisher = eventPublisher;
     }
 
 
@@ -85,6 +91,7 @@ public class InstallmentPlanController {
         installmentPlanDAO.save(installmentPlan);
         ((CreditAccount) linkedAccount).addInstallmentPlan(installmentPlan);
         accountDAO.save(linkedAccount);
+        eventPublisher.publishEvent(LedgerChange.account(user.getId(), linkedAccount, LedgerChange.Action.UPDATED)); //currentDebt changed
 
         return ResponseEntity.ok("installment plan created successfully");
 
@@ -100,7 +107,8 @@ public class InstallmentPlanController {
                                                         @RequestParam(required = false) Integer paidPeriods,
                                                         @RequestParam(required = false) BigDecimal feeRate,
                                                         @RequestParam(required = false) InstallmentPlan.FeeStrategy feeStrategy,
-                                                        @RequestParam(required = false) Long linkedAccountId){
+                                                        @RequestParam(required = false) Long linkedAccountId,
+                                                        @RequestHeader(value = "If-Match", required = false) String ifMatch){
         if(principal == null){
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized access");
         }
@@ -116,7 +124,15 @@ public class InstallmentPlanController {
         if(! installmentPlan.getLinkedAccount().getOwner().getId().equals(user.getId())){
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You do not have permission to edit this installment plan");
         }
+        if (!ETags.matches(ifMatch, installmentPlan.getVersion())) {
+            return ETags.preconditionFailed(installmentPlan.getVersion());
+        }
+        //old and new linked card locked in id order, a stale debt read fails at flush with 409
+        accountDAO.lockAllById(linkedAccountId != null
+                ? new TreeSet<>(List.of(installmentPlan.getLinkedAccount().getId(), linkedAccountId))
+                : List.of(installmentPlan.getLinkedAccount().getId()));
         BigDecimal oldRemainingAmount = installmentPlan.getRemainingAmount();
+        Account oldLinkedAccount = installmentPlan.getLinkedAccount();
 
         if (totalAmount != null){
             installmentPlan.setTotalAmount(totalAmount);
@@ -161,8 +177,13 @@ public class InstallmentPlanController {
             accountDAO.save(creditAccount);
         }
         installmentPlanDAO.save(installmentPlan);
+        installmentPlanDAO.flush(); //new version for the ETag
+        if (oldLinkedAccount != null && oldLinkedAccount != installmentPlan.getLinkedAccount()) {
+            eventPublisher.publishEvent(LedgerChange.account(user.getId(), oldLinkedAccount, LedgerChange.Action.UPDATED));
+        }
+        eventPublisher.publishEvent(LedgerChange.account(user.getId(), installmentPlan.getLinkedAccount(), LedgerChange.Action.UPDATED));
 
-        return ResponseEntity.ok("installment plan updated successfully");
+        return ETags.ok("installment plan updated successfully", installmentPlan.getVersion());
 
     }
 
@@ -193,6 +214,7 @@ public class InstallmentPlanController {
         accountDAO.save(creditAccount);
 
         installmentPlanDAO.delete(installmentPlan);
+        eventPublisher.publishEvent(LedgerChange.account(user.getId(), creditAccount, LedgerChange.Action.UPDATED));
 
         return ResponseEntity.ok("installment plan deleted successfully");
     }
@@ -218,7 +240,8 @@ public class InstallmentPlanController {
         if (account == null) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Credit account not found");
         }
-        InstallmentPlan installmentPlan = installmentPlanDAO.findById(id).orElse(null);
+        OperationMetrics.type(account.getType());
+        InstallmentPlan installmentPlan = installmentPlanDAO.findByIdForUpdate(id).orElse(null); //the repayment batch job may be paying it too
         if (installmentPlan == null) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Installment plan not found");
         }
@@ -256,14 +279,7 @@ public class InstallmentPlanController {
 
             installmentPlan.repayPartial(amount);// decrementa remaining amount e incrementa paid periods
         }
-        Transaction tx = new Transfer(
-                LocalDate.now(),
-                "Repay installment plan",
-                account,
-                null,
-                amount,
-                ledger
-        );
+        Transaction tx = Transfer.installmentRepayment(LocalDate.now(), account, amount, ledger);
         transactionDAO.save(tx);
         account.debit(amount);
         account.getOutgoingTransactions().add(tx);
@@ -273,6 +289,8 @@ public class InstallmentPlanController {
         }
         installmentPlanDAO.save(installmentPlan);
         accountDAO.save(account);
+        eventPublisher.publishEvent(LedgerChange.transaction(user.getId(), tx, LedgerChange.Action.CREATED));
+        eventPublisher.publishEvent(LedgerChange.account(user.getId(), account, LedgerChange.Action.UPDATED));
         return ResponseEntity.ok("Installment plan repaid successfully");
     }
 
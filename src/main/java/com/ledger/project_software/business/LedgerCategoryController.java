@@ -2,6 +2,7 @@ package com.ledger.project_software.business;
 
 import com.ledger.project_software.orm.*;
 import com.ledger.project_software.domain.*;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -14,7 +15,9 @@ import java.security.Principal;
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/ledger-categories")
@@ -24,17 +27,23 @@ public class LedgerCategoryController {
     private final LedgerDAO ledgerDAO;
     private final BudgetDAO budgetDAO;
    private final TransactionDAO transactionDAO;
+   private final ApplicationEventPublisher eventPublisher;
+   private final BalanceCheckpointService balanceCheckpoints;
 
    public LedgerCategoryController(UserDAO userDAO,
                                    LedgerCategoryDAO ledgerCategoryDAO,
                                    LedgerDAO ledgerDAO,
                                    BudgetDAO budgetDAO,
-                                   TransactionDAO transactionDAO) {
+                                   TransactionDAO transactionDAO,
+                                   ApplicationEventPublisher eventPublisher,
+                                   BalanceCheckpointService balanceCheckpoints) {
         this.userDAO = userDAO;
         this.ledgerCategoryDAO = ledgerCategoryDAO;
         this.ledgerDAO = ledgerDAO;
         this.budgetDAO = budgetDAO;
         this.transactionDAO = transactionDAO;
+        this.eventPublisher = eventPublisher;
+        this.balanceCheckpoints = balanceCheckpoints;
     }
 
     @PostMapping("/create-category")
@@ -70,6 +79,7 @@ public class LedgerCategoryController {
         ledgerCategoryDAO.save(newCategory);
         ledger.getCategories().add(newCategory);
         ledgerDAO.save(ledger);
+        eventPublisher.publishEvent(LedgerChange.category(user.getId(), newCategory, LedgerChange.Action.CREATED));
         return ResponseEntity.ok("Category created successfully");
     }
 
@@ -121,6 +131,7 @@ public class LedgerCategoryController {
         ledger.getCategories().add(newSubCategory);
         ledgerDAO.save(ledger);
         ledgerCategoryDAO.save(parent);
+        eventPublisher.publishEvent(LedgerChange.category(user.getId(), newSubCategory, LedgerChange.Action.CREATED));
         return ResponseEntity.ok("SubCategory created successfully");
     }
 
@@ -165,6 +176,7 @@ public class LedgerCategoryController {
 
         ledgerCategoryDAO.save(category);
         ledgerCategoryDAO.save(parent);
+        eventPublisher.publishEvent(LedgerChange.category(user.getId(), category, LedgerChange.Action.UPDATED));
 
         return ResponseEntity.ok("Demoted successfully");
     }
@@ -193,6 +205,7 @@ public class LedgerCategoryController {
         category.setParent(null);
         ledgerCategoryDAO.save(category);
         ledgerCategoryDAO.save(parent);
+        eventPublisher.publishEvent(LedgerChange.category(user.getId(), category, LedgerChange.Action.UPDATED));
         return ResponseEntity.ok("Promoted successfully");
     }
 
@@ -215,8 +228,14 @@ public class LedgerCategoryController {
         if (!category.getChildren().isEmpty() && category.getParent() == null) {
             return ResponseEntity.badRequest().body("Cannot delete category with subcategories");
         }
+        LedgerChange deletedChange = LedgerChange.category(user.getId(), category, LedgerChange.Action.DELETED); //snapshot before unlinking
+        Set<Account> touchedAccounts = new LinkedHashSet<>();
+        List<LedgerChange> deletedTransactions = new ArrayList<>();
 
         List<Budget> budgetsToDelete = new ArrayList<>(category.getBudgets());
+        List<LedgerChange> deletedBudgets = budgetsToDelete.stream()
+                .map(b -> LedgerChange.budget(user.getId(), b, LedgerChange.Action.DELETED))
+                .toList();
         budgetDAO.deleteAll(budgetsToDelete);
 
         if (!deleteTransactions) {
@@ -239,6 +258,8 @@ public class LedgerCategoryController {
         }else{
             List<Transaction> transactionsToDelete = new ArrayList<>(category.getTransactions());
             for (Transaction tx : transactionsToDelete) {
+                deletedTransactions.add(LedgerChange.transaction(user.getId(), tx, LedgerChange.Action.DELETED)); //snapshot before unlinking
+                balanceCheckpoints.invalidate(tx.getDate(), tx.getFromAccount(), tx.getToAccount());
                 tx.setCategory(null);
                 category.getTransactions().remove(tx);
                 if(tx.getFromAccount() != null){
@@ -246,12 +267,14 @@ public class LedgerCategoryController {
                     from.getOutgoingTransactions().remove(tx);
                     from.credit(tx.getAmount());
                     tx.setFromAccount(null);
+                    touchedAccounts.add(from);
                 }
                 if(tx.getToAccount() != null){
                     Account to = tx.getToAccount();
                     to.getIncomingTransactions().remove(tx);
                     to.debit(tx.getAmount());
                     tx.setToAccount(null);
+                    touchedAccounts.add(to);
                 }
                 if(tx.getLedger() != null){
                     Ledger ledger = tx.getLedger();
@@ -275,6 +298,12 @@ public class LedgerCategoryController {
         ledgerDAO.save(ledger);
 
         ledgerCategoryDAO.delete(category);
+        deletedBudgets.forEach(eventPublisher::publishEvent);
+        deletedTransactions.forEach(eventPublisher::publishEvent);
+        for (Account account : touchedAccounts) {
+            eventPublisher.publishEvent(LedgerChange.account(user.getId(), account, LedgerChange.Action.UPDATED));
+        }
+        eventPublisher.publishEvent(deletedChange);
         return ResponseEntity.ok("Deleted successfully");
     }
 
@@ -312,6 +341,7 @@ public class LedgerCategoryController {
 
         category.setName(newName);
         ledgerCategoryDAO.save(category);
+        eventPublisher.publishEvent(LedgerChange.category(user.getId(), category, LedgerChange.Action.UPDATED));
 
 
         return ResponseEntity.ok("Renamed successfully");
@@ -354,10 +384,12 @@ public class LedgerCategoryController {
         ledgerCategoryDAO.save(oldParent);
         ledgerCategoryDAO.save(newParent);
         ledgerCategoryDAO.save(category);
+        eventPublisher.publishEvent(LedgerChange.category(user.getId(), category, LedgerChange.Action.UPDATED));
         return ResponseEntity.ok("Parent category changed successfully");
     }
 
     @GetMapping("/{id}/all-transactions-for-month")
+    @Transactional(readOnly = true)
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<List<Transaction>> getCategoryTransactionsForMonth(@PathVariable Long id,
                                                                              Principal principal,
@@ -0,0 +1,102 @@
+package com.ledger.project_software.business;
+
+import com.ledger.project_software.domain.*;
+import org.hibernate.Hibernate;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//change published by the mutating controllers and pushed to the user's clients after commit.
+//data is a snapshot taken at publish time, so later mutations of the entity do not leak into it
+public record LedgerChange(Long userId,
+                           Type type,
+                           Action action,
+                           Long id,
+                           Map<String, Object> data,
+                           LocalDateTime at) {
+
+    public enum Type {
+        ACCOUNT, TRANSACTION, BUDGET, LEDGER, CATEGORY, USER
+    }
+
+    public enum Action {
+        CREATED, UPDATED, DELETED
+    }
+
+    public LedgerChange {
+        data = Collections.unmodifiableMap(new LinkedHashMap<>(data));
+    }
+
+    public static LedgerChange account(Long userId, Account account, Action action) {
+        account = (Account) Hibernate.unproxy(account); //reached through a lazy reference the subclass is hidden by the proxy
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("name", account.getName());
+        data.put("accountType", account.getType());
+        data.put("accountCategory", account.getCategory());
+        data.put("balance", account.getBalance());
+        data.put("hidden", account.getHidden());
+        if (account instanceof CreditAccount creditAccount) {
+            data.put("currentDebt", creditAccount.getCurrentDebt());
+            data.put("creditLimit", creditAccount.getCreditLimit());
+        } else if (account instanceof LoanAccount loanAccount) {
+            data.put("remainingAmount", loanAccount.getRemainingAmount());
+            data.put("repaidPeriods", loanAccount.getRepaidPeriods());
+        } else if (account instanceof BorrowingAccount borrowingAccount) {
+            data.put("borrowingAmount", borrowingAccount.getBorrowingAmount());
+        }
+        return new LedgerChange(userId, Type.ACCOUNT, action, account.getId(), data, LocalDateTime.now());
+    }
+
+    public static LedgerChange transaction(Long userId, Transaction transaction, Action action) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("transactionType", transaction.getType());
+        data.put("amount", transaction.getAmount());
+        data.put("date", transaction.getDate());
+        data.put("note", transaction.getNote());
+        data.put("ledgerId", transaction.getLedger() != null ? transaction.getLedger().getId() : null);
+        data.put("categoryId", transaction.getCategory() != null ? transaction.getCategory().getId() : null);
+        data.put("fromAccountId", transaction.getFromAccount() != null ? transaction.getFromAccount().getId() : null);
+        data.put("toAccountId", transaction.getToAccount() != null ? transaction.getToAccount().getId() : null);
+        return new LedgerChange(userId, Type.TRANSACTION, action, transaction.getId(), data, LocalDateTime.now());
+    }
+
+    public static LedgerChange budget(Long userId, Budget budget, Action action) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("amount", budget.getAmount());
+        data.put("period", budget.getPeriod());
+        data.put("categoryId", budget.getCategory() != null ? budget.getCategory().getId() : null);
+        data.put("startDate", budget.getStartDate());
+        data.put("endDate", budget.getEndDate());
+        return new LedgerChange(userId, Type.BUDGET, action, budget.getId(), data, LocalDateTime.now());
+    }
+
+    public static LedgerChange ledger(Long userId, Ledger ledger, Action action) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("name", ledger.getName());
+        return new LedgerChange(userId, Type.LEDGER, action, ledger.getId(), data, LocalDateTime.now());
+    }
+
+    public static LedgerChange category(Long userId, LedgerCategory category, Action action) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("name", category.getName());
+        data.put("categoryType", category.getType());
+        data.put("ledgerId", category.getLedger() != null ? category.getLedger().getId() : null);
+        data.put("parentId", category.getParent() != null ? category.getParent().getId() : null);
+        return new LedgerChange(userId, Type.CATEGORY, action, category.getId(), data, LocalDateTime.now());
+    }
+
+    public static LedgerChange user(Long userId, User user, Action action) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("username", user.getUsername());
+        return new LedgerChange(userId, Type.USER, action, user.getId(), data, LocalDateTime.now());
+    }
+
+    //copy with an extra entry, e.g. the date of a transaction before an edit
+    public LedgerChange with(String key, Object value) {
+        Map<String, Object> copy = new LinkedHashMap<>(data);
+        copy.put(key, value);
+        return new LedgerChange(userId, type, action, id, copy, at);
+    }
+}
@@ -1,6 +1,7 @@
 package com.ledger.project_software.business;
 import com.ledger.project_software.orm.*;
 import com.ledger.project_software.domain.*;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -24,19 +25,28 @@ public class LedgerController {
     private final AccountDAO accountDAO;
     private final TransactionDAO transactionRepository;
     private final LedgerCategoryDAO ledgerCategoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionAnalyticsCache analyticsCache;
+    private final BalanceCheckpointService balanceCheckpoints;
 
     public LedgerController(LedgerDAO ledgerDAO,
                             UserDAO userDAO,
                             CategoryDAO categoryDAO,
                             AccountDAO accountDAO,
                             TransactionDAO transactionRepository,
-                            LedgerCategoryDAO ledgerCategoryRepository) {
+                            LedgerCategoryDAO ledgerCategoryRepository,
+                            ApplicationEventPublisher eventPublisher,
+                            TransactionAnalyticsCache analyticsCache,
+                            BalanceCheckpointService balanceCheckpoints) {
         this.ledgerDAO = ledgerDAO;
         this.userDAO = userDAO;
         this.categoryDAO = categoryDAO;
         this.accountDAO = accountDAO;
         this.transactionRepository = transactionRepository;
         this.ledgerCategoryRepository = ledgerCategoryRepository;
+        this.eventPublisher = eventPublisher;
+        this.analyticsCache = analyticsCache;
+        this.balanceCheckpoints = balanceCheckpoints;
     }
 
     @PostMapping("/create")
@@ -67,6 +77,7 @@ public class LedgerController {
             LedgerCategory ledgerCategory= copyCategory(template, ledger);
             ledger.getCategories().add(ledgerCategory);
         }
+        eventPublisher.publishEvent(LedgerChange.ledger(owner.getId(), ledger, LedgerChange.Action.CREATED));
         return ResponseEntity.ok("ledger created successfully");
     }
 
@@ -116,10 +127,20 @@ public class LedgerController {
         }
 
         List<Transaction> transactionsToDelete = new ArrayList<>(ledger.getTransactions());
+        Set<Account> touchedAccounts = new LinkedHashSet<>(); //balances changed by the rollback
+        List<LedgerChange> deletedTransactions = new ArrayList<>();
         for(Transaction tx :transactionsToDelete){
+            deletedTransactions.add(LedgerChange.transaction(owner.getId(), tx, LedgerChange.Action.DELETED)); //snapshot before unlinking
             Account to = tx.getToAccount();
             Account from = tx.getFromAccount();
             LedgerCategory category= tx.getCategory();
+            if (to != null) {
+                touchedAccounts.add(to);
+            }
+            if (from != null) {
+                touchedAccounts.add(from);
+            }
+            balanceCheckpoints.invalidate(tx.getDate(), from, to);
 
             if (tx instanceof Income) {
                 if(to != null) {
@@ -170,6 +191,11 @@ public class LedgerController {
 
         owner.getLedgers().remove(ledger); //rimuove ledger da user
         ledgerDAO.delete(ledger);
+        deletedTransactions.forEach(eventPublisher::publishEvent);
+        for (Account account : touchedAccounts) {
+            eventPublisher.publishEvent(LedgerChange.account(owner.getId(), account, LedgerChange.Action.UPDATED));
+        }
+        eventPublisher.publishEvent(LedgerChange.ledger(owner.getId(), ledger, LedgerChange.Action.DELETED));
         return ResponseEntity.ok("Ledger deleted successfully");
     }
 
@@ -210,6 +236,7 @@ public class LedgerController {
         }
 
         ledgerDAO.save(newLedger);
+        eventPublisher.publishEvent(LedgerChange.ledger(owner.getId(), newLedger, LedgerChange.Action.CREATED));
         return ResponseEntity.ok("copy ledger");
     }
     private LedgerCategory copyLedgerCategory(LedgerCategory oldCategory, Ledger newLedger) {
@@ -276,12 +303,14 @@ public class LedgerController {
 
         ledger.setName(newName);
         ledgerDAO.save(ledger);
+        eventPublisher.publishEvent(LedgerChange.ledger(owner.getId(), ledger, LedgerChange.Action.UPDATED));
         return ResponseEntity.ok("Ledger renamed successfully");
     }
 
 
 
     @GetMapping("/all-ledgers")
+    @Transactional(readOnly = true)
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<List<Ledger>> getAllLedgers(Principal principal) {
         if(principal == null) {
@@ -292,11 +321,15 @@ public class LedgerController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
+        //the serialized transactions reach their accounts through lazy references: with the user's accounts
+        //already loaded (one query) they resolve to the concrete instances instead of one proxy query each
+        accountDAO.findAllByOwnerId(user.getId());
         List<Ledger> ledgers = ledgerDAO.findByOwner(user);
         return ResponseEntity.ok(ledgers);
     }
 
     @GetMapping("/{ledgerId}/all-transactions-for-month")
+    @Transactional(readOnly = true)
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<List<Transaction>> getLedgerTransactionsForMonth(@PathVariable Long ledgerId,
                                                               Principal principal,
@@ -337,6 +370,7 @@ public class LedgerController {
     }
 
     @GetMapping("/{ledgerId}/categories")
+    @Transactional(readOnly = true)
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Map<String, Object>> getLedgerCategories(@PathVariable Long ledgerId,
                                                               Principal principal) {
@@ -384,6 +418,7 @@ public class LedgerController {
     }
 
     @GetMapping("/{ledgerId}/monthly-summary")
+    @Transactional(readOnly = true)
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Map<String, Object>> getMonthlySummary(@PathVariable Long ledgerId,
                                                                  @RequestParam (required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth month,
@@ -421,8 +456,18 @@ public class LedgerController {
         }
 
 
-        BigDecimal totalIncome = transactionRepository.sumIncomeByLedgerAndPeriod(ledgerId, startDate, endDate);
-        BigDecimal totalExpense = transactionRepository.sumExpenseByLedgerAndPeriod(ledgerId, startDate, endDate);
+        BigDecimal totalIncome;
+        BigDecimal totalExpense;
+        if (analyticsCache.isEnabled()) {
+            TransactionColumns columns = analyticsCache.columns(user.getId());
+            TransactionColumns.RowFilter inLedgerAndMonth = TransactionColumns.inLedger(ledgerId)
+                    .and(TransactionColumns.between(startDate, endDate));
+            totalIncome = columns.sum(inLedgerAndMonth.and(TransactionColumns.ofType(TransactionType.INCOME)));
+            totalExpense = columns.sum(inLedgerAndMonth.and(TransactionColumns.ofType(TransactionType.EXPENSE)));
+        } else {
+            totalIncome = transactionRepository.sumIncomeByLedgerAndPeriod(ledgerId, startDate, endDate);
+            totalExpense = transactionRepository.sumExpenseByLedgerAndPeriod(ledgerId, startDate, endDate);
+        }
 
         if (totalIncome == null) totalIncome = BigDecimal.ZERO;
         if (totalExpense == null) totalExpense = BigDecimal.ZERO;
@@ -0,0 +1,41 @@
+package com.ledger.project_software.business;
+
+import com.ledger.project_software.domain.User;
+import com.ledger.project_software.orm.UserDAO;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.security.Principal;
+
+@RestController
+@RequestMapping("/stream")
+public class LedgerStreamController {
+    private final UserDAO userDAO;
+    private final LedgerStreamService ledgerStreamService;
+
+    public LedgerStreamController(UserDAO userDAO,
+                                  LedgerStreamService ledgerStreamService) {
+        this.userDAO = userDAO;
+        this.ledgerStreamService = ledgerStreamService;
+    }
+
+    //account balance, transaction, budget and budget-alert events of the authenticated user, pushed after commit
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<SseEmitter> streamChanges(Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        User user = userDAO.findByUsername(principal.getName());
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(ledgerStreamService.subscribe(user.getId()));
+    }
+}
@@ -0,0 +1,157 @@
+package com.ledger.project_software.business;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+//per-user Server-Sent Events fan-out of LedgerChange and BudgetAlert events.
+//every connection owns a bounded buffer drained by its own virtual thread: publishing never blocks,
+//and a client that cannot keep up loses its buffer and receives a "resync" event instead
+@Service
+public class LedgerStreamService {
+    private final int bufferCapacity;
+    private final long heartbeatMillis;
+    private final long connectionTimeoutMillis;
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ThreadFactory threadFactory = Thread.ofVirtual().name("ledger-stream-", 0).factory();
+    private final AtomicLong eventIds = new AtomicLong();
+
+    public LedgerStreamService(@Value("${ledger.stream.buffer-capacity:256}") int bufferCapacity,
+                               @Value("${ledger.stream.heartbeat-millis:15000}") long heartbeatMillis,
+                               @Value("${ledger.stream.timeout-millis:1800000}") long connectionTimeoutMillis) {
+        this.bufferCapacity = bufferCapacity;
+        this.heartbeatMillis = heartbeatMillis;
+        this.connectionTimeoutMillis = connectionTimeoutMillis;
+    }
+
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(connectionTimeoutMillis);
+        Subscriber subscriber = new Subscriber(userId, emitter);
+        subscribers.compute(userId, (id, set) -> {
+            Set<Subscriber> userSubscribers = set != null ? set : ConcurrentHashMap.newKeySet();
+            userSubscribers.add(subscriber);
+            return userSubscribers;
+        });
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        subscriber.offer("connected", Map.of("userId", userId));
+        subscriber.thread = threadFactory.newThread(subscriber);
+        subscriber.thread.start();
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLedgerChange(LedgerChange change) {
+        publish(change.userId(), change.type().name().toLowerCase(), change);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBudgetAlert(BudgetAlert alert) {
+        publish(alert.userId(), "budget-alert", alert);
+    }
+
+    private void publish(Long userId, String name, Object payload) {
+        Set<Subscriber> userSubscribers = subscribers.get(userId);
+        if (userSubscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : userSubscribers) {
+            subscriber.offer(name, payload);
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(set -> set.forEach(Subscriber::complete));
+    }
+
+    private record Message(long id, String name, Object payload) {
+    }
+
+    private final class Subscriber implements Runnable {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Message> buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        private final AtomicBoolean overflowed = new AtomicBoolean(false);
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+        private volatile Thread thread;
+
+        private Subscriber(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        void offer(String name, Object payload) {
+            if (closed.get()) {
+                return;
+            }
+            if (!buffer.offer(new Message(eventIds.incrementAndGet(), name, payload))) {
+                //slow consumer: drop what is buffered, the client reloads its state on "resync"
+                buffer.clear();
+                overflowed.set(true);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!closed.get()) {
+                    if (overflowed.getAndSet(false)) {
+                        emitter.send(SseEmitter.event().name("resync").data("buffer overflow"));
+                        continue;
+                    }
+                    Message message = buffer.poll(heartbeatMillis, TimeUnit.MILLISECONDS);
+                    if (message == null) {
+                        emitter.send(SseEmitter.event().comment("heartbeat")); //also detects dead connections
+                        continue;
+                    }
+                    emitter.send(SseEmitter.event()
+                            .id(Long.toString(message.id()))
+                            .name(message.name())
+                            .data(message.payload(), MediaType.APPLICATION_JSON));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | IllegalStateException e) {
+                //client went away or emitter already completed
+            } finally {
+                close();
+            }
+        }
+
+        void complete() {
+            close();
+            emitter.complete();
+        }
+
+        void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            subscribers.computeIfPresent(userId, (id, set) -> {
+                set.remove(this);
+                return set.isEmpty() ? null : set;
+            });
+            buffer.clear();
+            Thread current = thread;
+            if (current != null && current != Thread.currentThread()) {
+                current.interrupt();
+            }
+        }
+    }
+}
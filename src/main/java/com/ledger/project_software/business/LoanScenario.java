@@ -0,0 +1,17 @@
+package com.ledger.project_software.business;
+
+import java.math.BigDecimal;
+
+//one what-if of the loan simulator, every field is optional:
+//prepaymentAmount is paid on top of the installment of prepaymentPeriod, then either the term gets shorter
+//(same installment, shortenTerm) or the installment gets lower (same term);
+//annualInterestRate applies from rateFromPeriod (default: the next unpaid period);
+//totalPeriods changes the term from the next unpaid period
+public record LoanScenario(String name,
+                           Integer prepaymentPeriod,
+                           BigDecimal prepaymentAmount,
+                           Boolean shortenTerm,
+                           BigDecimal annualInterestRate,
+                           Integer rateFromPeriod,
+                           Integer totalPeriods) {
+}
@@ -0,0 +1,30 @@
+package com.ledger.project_software.business;
+
+import com.ledger.project_software.domain.LoanAccount;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+//full repayment plan of a loan under one scenario, period 1 to the last one
+public record LoanSchedule(String name,
+                           LoanAccount.RepaymentType repaymentType,
+                           int totalPeriods,
+                           BigDecimal totalPayment,
+                           BigDecimal totalInterest,
+                           BigDecimal interestSaved,
+                           List<Row> rows) {
+
+    public record Row(int period,
+                      LocalDate dueDate,
+                      BigDecimal payment,
+                      BigDecimal principal,
+                      BigDecimal interest,
+                      BigDecimal prepayment,
+                      BigDecimal remainingPrincipal) {
+    }
+
+    LoanSchedule withInterestSaved(BigDecimal saved) {
+        return new LoanSchedule(name, repaymentType, totalPeriods, totalPayment, totalInterest, saved, rows);
+    }
+}
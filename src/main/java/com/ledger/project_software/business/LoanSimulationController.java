@@ -0,0 +1,62 @@
+package com.ledger.project_software.business;
+
+import com.ledger.project_software.domain.Account;
+import com.ledger.project_software.domain.LoanAccount;
+import com.ledger.project_software.domain.User;
+import com.ledger.project_software.orm.AccountDAO;
+import com.ledger.project_software.orm.UserDAO;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.security.Principal;
+import java.util.List;
+
+@RestController
+@RequestMapping("/loan-simulations")
+public class LoanSimulationController {
+    private final LoanSimulationService loanSimulationService;
+    private final AccountDAO accountDAO;
+    private final UserDAO userDAO;
+
+    public LoanSimulationController(LoanSimulationService loanSimulationService,
+                                    AccountDAO accountDAO,
+                                    UserDAO userDAO) {
+        this.loanSimulationService = loanSimulationService;
+        this.accountDAO = accountDAO;
+        this.userDAO = userDAO;
+    }
+
+    //preview of the loan under several scenarios, the loan is not modified (unlike edit-loan-account)
+    @PostMapping("/{loanId}")
+    @Transactional(readOnly = true)
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<List<LoanSchedule>> simulate(@PathVariable Long loanId,
+                                                       @RequestBody(required = false) List<LoanScenario> scenarios,
+                                                       Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        User user = userDAO.findByUsername(principal.getName());
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Account account = accountDAO.findById(loanId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Loan account not found"));
+        if (!account.getOwner().getId().equals(user.getId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (!(account instanceof LoanAccount loan)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Account is not a loan account");
+        }
+
+        try {
+            return ResponseEntity.ok(loanSimulationService.simulate(loan, scenarios));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+}
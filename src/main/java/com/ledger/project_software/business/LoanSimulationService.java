@@ -0,0 +1,286 @@
+package com.ledger.project_software.business;
+
+import com.ledger.project_software.domain.LoanAccount;
+import com.ledger.project_software.domain.LoanAccount.RepaymentType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+//read-only what-if schedules of a loan (prepayment, rate change, term change), nothing is persisted.
+//schedules are computed in cents on long values with the monthly rate as a fixed-point long (scale 10, like
+//LoanAccount.getMonthlyRate): BigDecimal is only used once per recast for the annuity factor, with DECIMAL64
+//precision instead of the exact pow of LoanAccount. scenarios are independent and run on the shared pool
+@Service
+public class LoanSimulationService {
+    static final int MAX_PERIODS = 480;
+    private static final long RATE_SCALE = 10_000_000_000L;
+    private static final int RATE_DIGITS = 10;
+
+    private final ParallelQueryExecutor parallelQueryExecutor;
+    private final int maxScenarios;
+
+    public LoanSimulationService(ParallelQueryExecutor parallelQueryExecutor,
+                                 @Value("${ledger.loan-simulation.max-scenarios:20}") int maxScenarios) {
+        this.parallelQueryExecutor = parallelQueryExecutor;
+        this.maxScenarios = maxScenarios;
+    }
+
+    //current plan first, then one schedule per scenario with the interest saved against the current plan
+    public List<LoanSchedule> simulate(LoanAccount loan, List<LoanScenario> scenarios) {
+        List<LoanScenario> requested = scenarios != null ? scenarios : List.of();
+        if (requested.size() > maxScenarios) {
+            throw new IllegalArgumentException("At most " + maxScenarios + " scenarios per request");
+        }
+        Terms terms = Terms.of(loan); //plain values: tasks run on other threads
+        requested.forEach(scenario -> validate(terms, scenario));
+
+        List<Supplier<LoanSchedule>> tasks = new ArrayList<>();
+        tasks.add(() -> schedule(terms, null));
+        for (LoanScenario scenario : requested) {
+            tasks.add(() -> schedule(terms, scenario));
+        }
+        List<LoanSchedule> schedules = parallelQueryExecutor.computeAll(tasks);
+
+        BigDecimal currentInterest = schedules.get(0).totalInterest();
+        List<LoanSchedule> results = new ArrayList<>(schedules.size());
+        for (LoanSchedule schedule : schedules) {
+            results.add(schedule.withInterestSaved(currentInterest.subtract(schedule.totalInterest())));
+        }
+        return results;
+    }
+
+    record Terms(long loanAmount,
+                 long monthlyRate,
+                 int totalPeriods,
+                 int repaidPeriods,
+                 RepaymentType repaymentType,
+                 LocalDate firstDueDate) {
+
+        static Terms of(LoanAccount loan) {
+            return new Terms(toCents(loan.getLoanAmount()),
+                    monthlyRate(loan.getAnnualInterestRate()),
+                    loan.getTotalPeriods(),
+                    loan.getRepaidPeriods(),
+                    loan.getRepaymentType() != null ? loan.getRepaymentType() : RepaymentType.EQUAL_INTEREST,
+                    loan.getRepaymentDay());
+        }
+
+        int nextUnpaid() {
+            return repaidPeriods + 1;
+        }
+    }
+
+    //what-ifs only change periods not paid yet
+    static void validate(Terms terms, LoanScenario scenario) {
+        if (scenario == null) {
+            throw new IllegalArgumentException("Empty scenario");
+        }
+        int nextUnpaid = terms.nextUnpaid();
+        if (scenario.totalPeriods() != null
+                && (scenario.totalPeriods() < nextUnpaid || scenario.totalPeriods() > MAX_PERIODS)) {
+            throw new IllegalArgumentException("Total periods must be between " + nextUnpaid + " and " + MAX_PERIODS);
+        }
+        int lastPeriod = scenario.totalPeriods() != null ? scenario.totalPeriods() : terms.totalPeriods();
+        if (nextUnpaid > lastPeriod) {
+            throw new IllegalArgumentException("Loan is already fully repaid");
+        }
+        if (scenario.prepaymentAmount() != null) {
+            if (scenario.prepaymentAmount().compareTo(BigDecimal.ZERO) <= 0) {
+                throw new IllegalArgumentException("Prepayment amount must be greater than zero");
+            }
+            int period = scenario.prepaymentPeriod() != null ? scenario.prepaymentPeriod() : nextUnpaid;
+            if (period < nextUnpaid || period > lastPeriod) {
+                throw new IllegalArgumentException("Prepayment period must be between " + nextUnpaid + " and " + lastPeriod);
+            }
+        }
+        if (scenario.annualInterestRate() != null) {
+            if (scenario.annualInterestRate().compareTo(BigDecimal.ZERO) < 0) {
+                throw new IllegalArgumentException("Annual interest rate must be non-negative");
+            }
+            int period = scenario.rateFromPeriod() != null ? scenario.rateFromPeriod() : nextUnpaid;
+            if (period < nextUnpaid || period > lastPeriod) {
+                throw new IllegalArgumentException("Rate change period must be between " + nextUnpaid + " and " + lastPeriod);
+            }
+        }
+    }
+
+    //installment amounts of one recast: remaining balance spread over the remaining periods
+    private record Plan(long payment, long principalPart, long flatInterest) {
+        static Plan of(RepaymentType type, long balance, int periods, long rate) {
+            return switch (type) {
+                case EQUAL_INTEREST -> new Plan(annuity(balance, periods, rate), 0, 0);
+                case EQUAL_PRINCIPAL -> new Plan(0, divideHalfUp(balance, periods), 0);
+                case EQUAL_PRINCIPAL_AND_INTEREST -> new Plan(0, divideHalfUp(balance, periods), multiplyRate(balance, rate));
+                case INTEREST_BEFORE_PRINCIPAL -> new Plan(0, 0, 0);
+            };
+        }
+    }
+
+    //scenario null: the current plan of the loan
+    static LoanSchedule schedule(Terms terms, LoanScenario scenario) {
+        RepaymentType type = terms.repaymentType();
+        int total = terms.totalPeriods();
+        long rate = terms.monthlyRate();
+        long balance = terms.loanAmount();
+
+        int termFrom = -1, rateFrom = -1, prepaymentAt = -1;
+        int newTotal = total;
+        long newRate = rate, prepayment = 0;
+        boolean shortenTerm = false;
+        if (scenario != null) {
+            if (scenario.totalPeriods() != null) {
+                termFrom = terms.nextUnpaid();
+                newTotal = scenario.totalPeriods();
+            }
+            if (scenario.annualInterestRate() != null) {
+                rateFrom = scenario.rateFromPeriod() != null ? scenario.rateFromPeriod() : terms.nextUnpaid();
+                newRate = monthlyRate(scenario.annualInterestRate());
+            }
+            if (scenario.prepaymentAmount() != null) {
+                prepaymentAt = scenario.prepaymentPeriod() != null ? scenario.prepaymentPeriod() : terms.nextUnpaid();
+                prepayment = toCents(scenario.prepaymentAmount());
+                shortenTerm = Boolean.TRUE.equals(scenario.shortenTerm());
+            }
+        }
+
+        Plan plan = Plan.of(type, balance, total, rate);
+        List<LoanSchedule.Row> rows = new ArrayList<>(total);
+        long totalPayment = 0, totalInterest = 0;
+        for (int period = 1; period <= total && balance > 0; period++) {
+            boolean recast = false;
+            if (period == termFrom) {
+                total = newTotal;
+                recast = true;
+            }
+            if (period == rateFrom) {
+                rate = newRate;
+                recast = true;
+            }
+            if (recast) {
+                plan = Plan.of(type, balance, total - period + 1, rate);
+            }
+
+            long interest = type == RepaymentType.EQUAL_PRINCIPAL_AND_INTEREST ? plan.flatInterest() : multiplyRate(balance, rate);
+            long principal = switch (type) {
+                case EQUAL_INTEREST -> plan.payment() - interest;
+                case EQUAL_PRINCIPAL, EQUAL_PRINCIPAL_AND_INTEREST -> plan.principalPart();
+                case INTEREST_BEFORE_PRINCIPAL -> 0;
+            };
+            if (period == total || principal > balance) { //last installment closes the rounding differences
+                principal = balance;
+            }
+            principal = Math.max(principal, 0);
+            balance -= principal;
+
+            long prepaid = 0;
+            if (period == prepaymentAt && balance > 0) {
+                prepaid = Math.min(prepayment, balance);
+                balance -= prepaid;
+                if (balance > 0 && period < total) {
+                    int remaining = total - period;
+                    if (shortenTerm) {
+                        remaining = Math.min(remaining, periodsToRepay(type, plan, balance, rate, remaining));
+                    }
+                    total = period + remaining;
+                    plan = Plan.of(type, balance, remaining, rate);
+                }
+            }
+
+            long payment = principal + interest;
+            totalPayment += payment + prepaid;
+            totalInterest += interest;
+            rows.add(new LoanSchedule.Row(period,
+                    terms.firstDueDate() != null ? terms.firstDueDate().plusMonths(period - 1) : null,
+                    toAmount(payment),
+                    toAmount(principal),
+                    toAmount(interest),
+                    toAmount(prepaid),
+                    toAmount(balance)));
+        }
+        String name = scenario == null ? "current" : scenario.name() != null ? scenario.name() : "scenario";
+        return new LoanSchedule(name,
+                type,
+                rows.size(),
+                toAmount(totalPayment),
+                toAmount(totalInterest),
+                BigDecimal.ZERO.setScale(2),
+                rows);
+    }
+
+    //periods needed to repay balance keeping the current installment (shorter term after a prepayment)
+    private static int periodsToRepay(RepaymentType type, Plan plan, long balance, long rate, int fallback) {
+        switch (type) {
+            case EQUAL_PRINCIPAL, EQUAL_PRINCIPAL_AND_INTEREST:
+                return plan.principalPart() > 0 ? (int) Math.ceilDiv(balance, plan.principalPart()) : fallback;
+            case EQUAL_INTEREST:
+                if (plan.payment() <= 0) {
+                    return fallback;
+                }
+                if (rate == 0) {
+                    return (int) Math.ceilDiv(balance, plan.payment());
+                }
+                //n = -ln(1 - B*r/M) / ln(1 + r)
+                double r = (double) rate / RATE_SCALE;
+                double x = 1 - balance * r / plan.payment();
+                if (x <= 0) {
+                    return fallback;
+                }
+                return Math.max(1, (int) Math.ceil(-Math.log(x) / Math.log1p(r) - 1e-9));
+            default:
+                return fallback; //interest-only installments: only the interest gets lower
+        }
+    }
+
+    //M = B * r * (1 + r)^n / ((1 + r)^n - 1)
+    static long annuity(long balance, int periods, long rate) {
+        if (rate == 0) {
+            return divideHalfUp(balance, periods);
+        }
+        BigDecimal r = BigDecimal.valueOf(rate, RATE_DIGITS);
+        BigDecimal factor = BigDecimal.ONE.add(r).pow(periods, MathContext.DECIMAL64);
+        return BigDecimal.valueOf(balance)
+                .multiply(r, MathContext.DECIMAL64)
+                .multiply(factor, MathContext.DECIMAL64)
+                .divide(factor.subtract(BigDecimal.ONE), MathContext.DECIMAL64)
+                .setScale(0, RoundingMode.HALF_UP)
+                .longValueExact();
+    }
+
+    //cents * rate, HALF_UP on cents
+    static long multiplyRate(long cents, long rate) {
+        try {
+            return divideHalfUp(Math.multiplyExact(cents, rate), RATE_SCALE);
+        } catch (ArithmeticException e) { //very large balances
+            return BigDecimal.valueOf(cents).multiply(BigDecimal.valueOf(rate, RATE_DIGITS))
+                    .setScale(0, RoundingMode.HALF_UP).longValueExact();
+        }
+    }
+
+    private static long divideHalfUp(long value, long divisor) {
+        return (value + divisor / 2) / divisor; //values are never negative here
+    }
+
+    //annual percent -> monthly rate with scale 10
+    static long monthlyRate(BigDecimal annualInterestRate) {
+        if (annualInterestRate == null) {
+            return 0;
+        }
+        return annualInterestRate.divide(BigDecimal.valueOf(1200), RATE_DIGITS, RoundingMode.HALF_UP)
+                .unscaledValue().longValueExact();
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
@@ -0,0 +1,30 @@
+package com.ledger.project_software.business;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+//map in access order, behind the in-memory caches: get and put make an entry the most recently used, the eviction
+//takes the least recently used ones first. not thread safe, each owner guards it with its own lock
+final class LruMap<K, V> extends LinkedHashMap<K, V> {
+
+    LruMap() {
+        super(16, 0.75f, true);
+    }
+
+    //removes the least recently used entries while over holds, each removed value is passed to evicted
+    void evictWhile(BooleanSupplier over, Consumer<V> evicted) {
+        Iterator<V> eldest = values().iterator();
+        while (over.getAsBoolean() && eldest.hasNext()) {
+            V value = eldest.next();
+            eldest.remove();
+            evicted.accept(value);
+        }
+    }
+
+    //keeps the maxSize most recently used entries
+    void trimTo(int maxSize) {
+        evictWhile(() -> size() > maxSize, value -> {});
+    }
+}
@@ -0,0 +1,16 @@
+package com.ledger.project_software.business;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+//daily totals of a user from start to end, one entry per day: assets.get(i) is the value of start.plusDays(i).
+//start is the first materialized day in the requested range, start and end are null when there is none
+public record NetWorthSeries(LocalDate start,
+                             LocalDate end,
+                             List<BigDecimal> assets,
+                             List<BigDecimal> liabilities,
+                             List<BigDecimal> lending,
+                             List<BigDecimal> borrowing,
+                             List<BigDecimal> netAssets) {
+}
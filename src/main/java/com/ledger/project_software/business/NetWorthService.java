@@ -0,0 +1,286 @@
+package com.ledger.project_software.business;
+
+import com.ledger.project_software.domain.*;
+import com.ledger.project_software.orm.NetWorthPointDAO;
+import com.ledger.project_software.orm.UserDAO;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+//persisted daily series of the totals of every user (assets, liabilities, lending, borrowing as User computes them),
+//so a chart over years is one range read. after a commit that changed transactions of a user, each transaction
+//patches the rows from its own date forward with its own amount: a new one adds it, a deleted one takes it off, an
+//edited one takes the old amount off from the old date and adds the new amount from the new date (future dates count
+//as today). what the amounts do not explain (accounts edited without a transaction, cards whose debt and balance
+//split a payment differently) is settled on today's row, which always ends up holding the live totals.
+//the nightly job extends every series to the new day and picks up changes made without an event. a series starts on
+//the first day it is materialized
+@Service
+public class NetWorthService {
+    private static final Logger log = LoggerFactory.getLogger(NetWorthService.class);
+    //transactions changed per user in the current transaction
+    private static final Object PENDING = new Object();
+
+    private final NetWorthPointDAO pointDAO;
+    private final UserDAO userDAO;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate newTransaction;
+    private final int batchSize;
+    private final int maxDays;
+
+    public NetWorthService(NetWorthPointDAO pointDAO,
+                           UserDAO userDAO,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${ledger.net-worth.batch-size:200}") int batchSize,
+                           @Value("${ledger.net-worth.max-days:3660}") int maxDays) {
+        this.pointDAO = pointDAO;
+        this.userDAO = userDAO;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.batchSize = batchSize;
+        this.maxDays = maxDays;
+    }
+
+    //amount entering the position of toAccountId and leaving that of fromAccountId from date on, negative to undo
+    private record Move(LocalDate date, BigDecimal amount, Long fromAccountId, Long toAccountId) {
+        Move undone() {
+            return new Move(date, amount.negate(), fromAccountId, toAccountId);
+        }
+    }
+
+    //collects the changes of the transaction and materializes each user once after commit
+    @EventListener
+    @SuppressWarnings("unchecked")
+    public void onLedgerChange(LedgerChange change) {
+        if (change.userId() == null
+                || (change.type() != LedgerChange.Type.TRANSACTION && change.type() != LedgerChange.Type.ACCOUNT)) {
+            return; //deleting a ledger or category publishes each transaction it takes with it
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            materializeAfterCommit(Map.of(change.userId(), List.of(change)), LocalDate.now());
+            return;
+        }
+        Map<Long, List<LedgerChange>> pending =
+                (Map<Long, List<LedgerChange>>) TransactionSynchronizationManager.getResource(PENDING);
+        if (pending == null) {
+            Map<Long, List<LedgerChange>> created = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(PENDING, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    materializeAfterCommit(created, LocalDate.now());
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PENDING);
+                }
+            });
+            pending = created;
+        }
+        pending.computeIfAbsent(change.userId(), id -> new ArrayList<>()).add(change);
+    }
+
+    //what the transaction did to the history: its amounts with their dates and accounts, before and after an edit
+    private static List<Move> moves(LedgerChange change) {
+        if (change.type() != LedgerChange.Type.TRANSACTION) {
+            return List.of();
+        }
+        Map<String, Object> data = change.data();
+        LocalDate date = (LocalDate) data.get("date");
+        BigDecimal amount = (BigDecimal) data.get("amount");
+        Long fromAccountId = (Long) data.get("fromAccountId");
+        Long toAccountId = (Long) data.get("toAccountId");
+        if (date == null || amount == null) {
+            return List.of();
+        }
+        Move current = new Move(date, amount, fromAccountId, toAccountId);
+        return switch (change.action()) {
+            case CREATED -> List.of(current);
+            case DELETED -> List.of(current.undone());
+            case UPDATED -> {
+                Move previous = new Move(
+                        data.get("previousDate") instanceof LocalDate previousDate ? previousDate : date,
+                        data.get("previousAmount") instanceof BigDecimal previousAmount ? previousAmount : amount,
+                        data.containsKey("previousFromAccountId")
+                                ? (Long) data.get("previousFromAccountId") : fromAccountId,
+                        data.containsKey("previousToAccountId")
+                                ? (Long) data.get("previousToAccountId") : toAccountId);
+                yield List.of(previous.undone(), current);
+            }
+        };
+    }
+
+    //the change is committed already: a failure here is left to the nightly job
+    private void materializeAfterCommit(Map<Long, List<LedgerChange>> pending, LocalDate today) {
+        pending.forEach((userId, changes) -> {
+            try {
+                newTransaction.executeWithoutResult(status -> materialize(userId, today, today, changes));
+            } catch (RuntimeException e) {
+                log.warn("Net worth of user {} not updated, left for the next run", userId, e);
+            }
+        });
+    }
+
+    //extends the series of the user through today and adds the difference between the live totals and the latest
+    //row to every row from 'from'. runs in the caller's transaction, returns the number of rows inserted
+    public int materialize(Long userId, LocalDate from, LocalDate today) {
+        return materialize(userId, from, today, List.of());
+    }
+
+    //same, after patching the rows with the committed transaction changes of the user
+    public int materialize(Long userId, LocalDate from, LocalDate today, List<LedgerChange> changes) {
+        List<Move> moves = changes.stream().flatMap(change -> moves(change).stream()).toList();
+        User user = userDAO.lockById(userId).orElse(null);
+        if (user == null) {
+            return 0;
+        }
+        BigDecimal[] live = {user.getTotalAssets(), user.getTotalLiabilities(), user.getTotalLending(), user.getTotalBorrowing()};
+
+        List<Object[]> latest = pointDAO.findLatestValues(userId, PageRequest.of(0, 1));
+        if (latest.isEmpty()) {
+            pointDAO.save(new NetWorthPoint(userId, today, live[0], live[1], live[2], live[3]));
+            return 1;
+        }
+        Object[] row = latest.get(0);
+        int inserted = 0;
+        //nothing changed on the missing days: they repeat the latest row
+        for (LocalDate day = ((LocalDate) row[0]).plusDays(1); !day.isAfter(today); day = day.plusDays(1)) {
+            pointDAO.save(new NetWorthPoint(userId, day, (BigDecimal) row[1], (BigDecimal) row[2],
+                    (BigDecimal) row[3], (BigDecimal) row[4]));
+            inserted++;
+        }
+
+        if (!moves.isEmpty()) {
+            Map<Long, Account> accounts = new HashMap<>();
+            user.getAccounts().forEach(account -> accounts.put(account.getId(), account));
+            for (Move move : moves) {
+                BigDecimal[] effect = {BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO};
+                addEffect(effect, accounts.get(move.fromAccountId()), move.amount().negate());
+                addEffect(effect, accounts.get(move.toAccountId()), move.amount());
+                if (Arrays.stream(effect).anyMatch(value -> value.signum() != 0)) {
+                    LocalDate day = move.date().isAfter(today) ? today : move.date();
+                    pointDAO.shiftFrom(userId, day, effect[0], effect[1], effect[2], effect[3]);
+                }
+            }
+            row = pointDAO.findLatestValues(userId, PageRequest.of(0, 1)).get(0);
+        }
+
+        BigDecimal[] delta = new BigDecimal[live.length];
+        boolean changed = false;
+        for (int i = 0; i < live.length; i++) {
+            delta[i] = live[i].subtract((BigDecimal) row[i + 1]);
+            changed |= delta[i].signum() != 0;
+        }
+        if (changed) {
+            pointDAO.shiftFrom(userId, from, delta[0], delta[1], delta[2], delta[3]);
+        }
+        return inserted;
+    }
+
+    //assets, liabilities, lending, borrowing moved by a change of the position of the account, the way User sums them.
+    //on a card the change is taken as debt, the usual case; hidden and excluded accounts do not count
+    private static void addEffect(BigDecimal[] effect, Account account, BigDecimal change) {
+        if (account == null || !Boolean.TRUE.equals(account.getIncludedInNetAsset())
+                || Boolean.TRUE.equals(account.getHidden())) {
+            return;
+        }
+        Account real = (Account) Hibernate.unproxy(account);
+        if (real instanceof CreditAccount || real instanceof LoanAccount) {
+            effect[1] = effect[1].subtract(change);
+        } else if (real instanceof BorrowingAccount) {
+            effect[1] = effect[1].subtract(change);
+            effect[3] = effect[3].subtract(change);
+        } else if (real instanceof LendingAccount) {
+            effect[0] = effect[0].add(change);
+            effect[2] = effect[2].add(change);
+        } else {
+            effect[0] = effect[0].add(change);
+        }
+    }
+
+    @Scheduled(cron = "${ledger.net-worth.cron:0 30 1 * * *}")
+    public void materializeDue() {
+        ShardContext.forEachShard(() -> materializeFor(LocalDate.now()));
+    }
+
+    //extends the series of every user through today, batchSize users per transaction.
+    //returns the number of rows inserted
+    public int materializeFor(LocalDate today) {
+        int inserted = 0;
+        Long afterId = 0L;
+        while (true) {
+            List<Long> ids = userDAO.findIdsAfter(afterId, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            Integer batchInserted = transactionTemplate.execute(status -> {
+                int count = 0;
+                for (Long id : ids) {
+                    count += materialize(id, today, today);
+                }
+                return count;
+            });
+            inserted += Objects.requireNonNullElse(batchInserted, 0);
+            afterId = ids.get(ids.size() - 1);
+        }
+        return inserted;
+    }
+
+    //one range read, days missing inside the range (job not run) repeat the day before
+    public NetWorthSeries series(Long userId, LocalDate from, LocalDate to, LocalDate today) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxDays) {
+            throw new IllegalArgumentException("At most " + maxDays + " days");
+        }
+        LocalDate end = to.isAfter(today) ? today : to;
+        List<Object[]> rows = end.isBefore(from) ? List.of() : pointDAO.findValues(userId, from, end);
+        if (rows.isEmpty()) {
+            return new NetWorthSeries(null, null, List.of(), List.of(), List.of(), List.of(), List.of());
+        }
+
+        LocalDate start = (LocalDate) rows.get(0)[0];
+        int days = (int) ChronoUnit.DAYS.between(start, end) + 1;
+        List<BigDecimal> assets = new ArrayList<>(days);
+        List<BigDecimal> liabilities = new ArrayList<>(days);
+        List<BigDecimal> lending = new ArrayList<>(days);
+        List<BigDecimal> borrowing = new ArrayList<>(days);
+        List<BigDecimal> netAssets = new ArrayList<>(days);
+        Object[] current = rows.get(0);
+        int next = 1;
+        for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+            if (next < rows.size() && !((LocalDate) rows.get(next)[0]).isAfter(day)) {
+                current = rows.get(next++);
+            }
+            assets.add((BigDecimal) current[1]);
+            liabilities.add((BigDecimal) current[2]);
+            lending.add((BigDecimal) current[3]);
+            borrowing.add((BigDecimal) current[4]);
+            netAssets.add(((BigDecimal) current[1]).subtract((BigDecimal) current[2]));
+        }
+        return new NetWorthSeries(start, end, assets, liabilities, lending, borrowing, netAssets);
+    }
+}
@@ -0,0 +1,61 @@
+package com.ledger.project_software.business;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+//JDK Flight Recorder events of the request path: one per controller operation with its database share,
+//one per Hibernate flush and one per budget evaluation. see DomainEvents for the domain computations
+public final class OperationEvents {
+    private OperationEvents() {}
+
+    @Name("ledger.Operation")
+    @Label("Ledger Operation")
+    @Category({"Ledger", "Web"})
+    @Description("Controller operation with the SQL statements, rows and JDBC time it took")
+    public static class Operation extends Event {
+        @Label("Operation")
+        public String operation;
+        @Label("User Id")
+        public long userId;
+        @Label("Status")
+        public int status;
+        @Label("Statements")
+        public long statements;
+        @Label("Rows")
+        public long rows;
+        @Label("JDBC Time")
+        @Timespan(Timespan.NANOSECONDS)
+        public long jdbcTime;
+    }
+
+    @Name("ledger.HibernateFlush")
+    @Label("Hibernate Flush")
+    @Category({"Ledger", "Database"})
+    public static class HibernateFlush extends Event {
+        @Label("Entities")
+        public int entities;
+        @Label("Collections")
+        public int collections;
+    }
+
+    @Name("ledger.BudgetEvaluation")
+    @Label("Budget Evaluation")
+    @Category({"Ledger", "Business"})
+    @Description("Budgets evaluated for the dashboard or for the alerts of an expense")
+    public static class BudgetEvaluation extends Event {
+        @Label("Source")
+        public String source;
+        @Label("User Id")
+        public long userId;
+        @Label("Transaction Id")
+        public long transactionId;
+        @Label("Budgets")
+        public int budgets;
+        @Label("Alerts")
+        public int alerts;
+    }
+}
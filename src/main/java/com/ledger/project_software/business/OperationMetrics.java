@@ -0,0 +1,248 @@
+package com.ledger.project_software.business;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.Interceptor;
+import org.hibernate.SessionEventListener;
+import org.hibernate.type.Type;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.concurrent.TimeUnit;
+
+//metrics of every controller operation, exposed on /actuator/metrics and /actuator/prometheus:
+//ledger.operations{operation, type, outcome} timer, operation is Controller.method and type what the controller
+//reported with type() (TransactionType, AccountType) or "none".
+//ledger.operation.statements and ledger.operation.rows summaries: SQL statements prepared and entity rows loaded,
+//inserted, updated or deleted by Hibernate on the request thread (the parallel-queries pool is not counted).
+//the same figures, with the JDBC time, go to the ledger.Operation flight recorder event when a recording enables it
+@Component
+public class OperationMetrics implements AsyncHandlerInterceptor {
+    private static final String START = OperationMetrics.class.getName() + ".start";
+    private static final String TYPE = OperationMetrics.class.getName() + ".type";
+    private static final ThreadLocal<Work> current = new ThreadLocal<>();
+
+    private final MeterRegistry registry;
+    private final UserChangeVersions changeVersions;
+
+    public OperationMetrics(MeterRegistry registry, UserChangeVersions changeVersions) {
+        this.registry = registry;
+        this.changeVersions = changeVersions;
+    }
+
+    private static class Work {
+        final OperationEvents.Operation event = new OperationEvents.Operation();
+        long statements;
+        long rows;
+        long jdbcNanos;
+    }
+
+    //tag of the current operation, no-op outside a web request (batch jobs, unit tests)
+    public static void type(Enum<?> type) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null && type != null) {
+            attributes.setAttribute(TYPE, type.name(), RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    static void statementPrepared() {
+        Work work = current.get();
+        if (work != null) {
+            work.statements++;
+        }
+    }
+
+    static void rowTouched() {
+        Work work = current.get();
+        if (work != null) {
+            work.rows++;
+        }
+    }
+
+    static void jdbcExecuted(long nanos) {
+        Work work = current.get();
+        if (work != null) {
+            work.jdbcNanos += nanos;
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod) {
+            request.setAttribute(START, System.nanoTime());
+            Work work = new Work();
+            work.event.begin();
+            current.set(work);
+        }
+        return true;
+    }
+
+    //the async part (stream) runs on other threads: not timed
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.removeAttribute(START);
+        current.remove();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Work work = current.get();
+        current.remove();
+        if (!(handler instanceof HandlerMethod method) || !(request.getAttribute(START) instanceof Long start)) {
+            return;
+        }
+        String operation = method.getBeanType().getSimpleName() + "." + method.getMethod().getName();
+        Object type = request.getAttribute(TYPE);
+
+        Timer.builder("ledger.operations")
+                .description("Controller operations")
+                .tag("operation", operation)
+                .tag("type", type != null ? type.toString() : "none")
+                .tag("outcome", outcome(response.getStatus(), ex))
+                .register(registry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (work != null) {
+            DistributionSummary.builder("ledger.operation.statements")
+                    .description("SQL statements prepared by one operation")
+                    .tag("operation", operation)
+                    .register(registry)
+                    .record(work.statements);
+            DistributionSummary.builder("ledger.operation.rows")
+                    .description("Entity rows loaded or written by one operation")
+                    .tag("operation", operation)
+                    .register(registry)
+                    .record(work.rows);
+            record(work, operation, request, response.getStatus());
+        }
+    }
+
+    private void record(Work work, String operation, HttpServletRequest request, int status) {
+        OperationEvents.Operation event = work.event;
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        Long userId = request.getUserPrincipal() != null ? changeVersions.userId(request.getUserPrincipal().getName()) : null;
+        event.operation = operation;
+        event.userId = userId != null ? userId : 0;
+        event.status = status;
+        event.statements = work.statements;
+        event.rows = work.rows;
+        event.jdbcTime = work.jdbcNanos;
+        event.commit();
+    }
+
+    private static String outcome(int status, Exception ex) {
+        if (ex != null || status >= 500) {
+            return "SERVER_ERROR";
+        }
+        return status >= 400 ? "CLIENT_ERROR" : "SUCCESS";
+    }
+
+    //hibernate.session.events.auto: created by Hibernate for every session, used by one thread at a time
+    public static class StatementListener implements SessionEventListener {
+        private long executeStart;
+        private long batchStart;
+        private OperationEvents.HibernateFlush flush;
+        private RequestTracer.Span flushSpan;
+        private RequestTracer.Span partialFlushSpan;
+
+        @Override
+        public void jdbcPrepareStatementStart() {
+            statementPrepared();
+            RequestTracer.statementPrepared();
+        }
+
+        @Override
+        public void jdbcExecuteStatementStart() {
+            executeStart = System.nanoTime();
+        }
+
+        @Override
+        public void jdbcExecuteStatementEnd() {
+            jdbcExecuted(System.nanoTime() - executeStart);
+        }
+
+        @Override
+        public void jdbcExecuteBatchStart() {
+            batchStart = System.nanoTime();
+        }
+
+        @Override
+        public void jdbcExecuteBatchEnd() {
+            jdbcExecuted(System.nanoTime() - batchStart);
+        }
+
+        @Override
+        public void flushStart() {
+            flush = new OperationEvents.HibernateFlush();
+            flush.begin();
+            flushSpan = RequestTracer.span("hibernate.flush");
+        }
+
+        @Override
+        public void flushEnd(int numberOfEntities, int numberOfCollections) {
+            if (flush != null) {
+                flush.entities = numberOfEntities;
+                flush.collections = numberOfCollections;
+                flush.commit();
+                flush = null;
+            }
+            if (flushSpan != null) {
+                flushSpan.attribute("entities", numberOfEntities)
+                        .attribute("collections", numberOfCollections)
+                        .close();
+                flushSpan = null;
+            }
+        }
+
+        //auto flush before a query
+        @Override
+        public void partialFlushStart() {
+            partialFlushSpan = RequestTracer.span("hibernate.autoFlush");
+        }
+
+        @Override
+        public void partialFlushEnd(int numberOfEntities, int numberOfCollections) {
+            if (partialFlushSpan != null) {
+                partialFlushSpan.attribute("entities", numberOfEntities)
+                        .attribute("collections", numberOfCollections)
+                        .close();
+                partialFlushSpan = null;
+            }
+        }
+    }
+
+    //hibernate.session_factory.interceptor: one instance shared by all sessions
+    public static class RowInterceptor implements Interceptor {
+        @Override
+        public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+            rowTouched();
+            return false;
+        }
+
+        @Override
+        public boolean onFlushDirty(Object entity, Object id, Object[] currentState, Object[] previousState,
+                                    String[] propertyNames, Type[] types) {
+            rowTouched();
+            return false;
+        }
+
+        @Override
+        public boolean onPersist(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+            rowTouched();
+            return false;
+        }
+
+        @Override
+        public void onRemove(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+            rowTouched();
+        }
+    }
+}
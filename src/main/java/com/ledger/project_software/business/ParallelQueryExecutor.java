@@ -0,0 +1,140 @@
+package com.ledger.project_software.business;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+//runs independent read-only queries concurrently on a bounded pool, each in its own read-only transaction.
+//results come back in the order of the tasks, so callers can merge them deterministically.
+//tasks must only use ids and values captured by the caller: entities of the request's persistence context
+//cannot be touched from another thread.
+//connections: the request thread keeps its open-session-in-view connection while it waits, and every task takes
+//one more on a pool thread. with all the connections held by waiting requests the tasks would never get one, so
+//at most max-concurrent-requests requests fan out at once (always fewer than the connection pool size), the
+//others run their tasks serially on their own connection. a fan-out needs up to max-concurrent-requests +
+//parallelism connections: size the pool above that plus the requests that do not fan out
+@Component
+public class ParallelQueryExecutor {
+    private static final Logger log = LoggerFactory.getLogger(ParallelQueryExecutor.class);
+
+    private final int parallelism;
+    private final Semaphore fanOuts;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService executor;
+
+    public ParallelQueryExecutor(@Value("${ledger.parallel-queries.parallelism:4}") int parallelism,
+                                 @Value("${ledger.parallel-queries.max-concurrent-requests:2}") int maxConcurrentRequests,
+                                 @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize,
+                                 PlatformTransactionManager transactionManager) {
+        this.parallelism = Math.max(1, parallelism);
+        int concurrentRequests = Math.max(1, Math.min(maxConcurrentRequests, connectionPoolSize - 1));
+        if (concurrentRequests < maxConcurrentRequests) {
+            log.warn("ledger.parallel-queries.max-concurrent-requests {} lowered to {}: the connection pool has {}",
+                    maxConcurrentRequests, concurrentRequests, connectionPoolSize);
+        }
+        this.fanOuts = new Semaphore(concurrentRequests);
+        if (transactionManager != null) {
+            readOnlyTransaction = new TransactionTemplate(transactionManager);
+            readOnlyTransaction.setReadOnly(true);
+            readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        } else {
+            readOnlyTransaction = null;
+        }
+        if (this.parallelism > 1) {
+            AtomicInteger threads = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(this.parallelism, task -> {
+                Thread thread = new Thread(task, "ledger-query-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            executor = null;
+        }
+    }
+
+    public <T> List<T> invokeAll(List<Supplier<T>> tasks) {
+        if (executor == null || tasks.size() <= 1) {
+            return runAll(tasks, this::readOnly);
+        }
+        if (!fanOuts.tryAcquire()) { //enough requests hold a connection waiting for the pool already
+            return serial(tasks);
+        }
+        try {
+            return runAll(tasks, this::readOnly);
+        } finally {
+            fanOuts.release();
+        }
+    }
+
+    //same pool for CPU-only tasks (simulations, ...): no transaction, so no connection is held
+    public <T> List<T> computeAll(List<Supplier<T>> tasks) {
+        return runAll(tasks, Supplier::get);
+    }
+
+    private <T> List<T> runAll(List<Supplier<T>> tasks, Function<Supplier<T>, T> runner) {
+        if (executor == null || tasks.size() <= 1) { //nothing to overlap: stay on the caller thread
+            return serial(tasks);
+        }
+
+        List<T> results = new ArrayList<>(tasks.size());
+        List<CompletableFuture<T>> futures = new ArrayList<>(tasks.size());
+        for (Supplier<T> task : tasks) {
+            Supplier<T> bound = ShardContext.propagate(ReadYourWrites.propagate(task)); //same shard and replica routing as the caller
+            futures.add(CompletableFuture.supplyAsync(() -> runner.apply(bound), executor));
+        }
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            futures.forEach(f -> f.cancel(false));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    private static <T> List<T> serial(List<Supplier<T>> tasks) {
+        List<T> results = new ArrayList<>(tasks.size());
+        for (Supplier<T> task : tasks) {
+            results.add(task.get());
+        }
+        return results;
+    }
+
+    private <T> T readOnly(Supplier<T> task) {
+        if (readOnlyTransaction == null) {
+            return task.get();
+        }
+        return readOnlyTransaction.execute(status -> task.get());
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.ledger.project_software.business;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.security.Principal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+//read-your-writes for the replica reads (ReadReplicaConfig): the commit time of the last change of each user is kept
+//here and a request of that user carries it (writtenAt), so that its read-only transactions stay on the primary until
+//the replica shows it. a write older than max-staleness is shown by any replica still in use, its entry is dropped.
+//tasks of the parallel-queries pool carry the value of the caller
+@Component
+@ConditionalOnProperty(name = "ledger.read-replica.enabled", havingValue = "true")
+public class ReadYourWrites implements AsyncHandlerInterceptor {
+    private static final ThreadLocal<Long> writtenAt = new ThreadLocal<>();
+
+    private final UserChangeVersions changeVersions;
+    private final long maxStalenessMillis;
+    //user id -> commit time (epoch millis) of the last change
+    private final Map<Long, Long> lastWrites = new ConcurrentHashMap<>();
+
+    public ReadYourWrites(UserChangeVersions changeVersions,
+                          @Value("${ledger.read-replica.max-staleness-millis:5000}") long maxStalenessMillis) {
+        this.changeVersions = changeVersions;
+        this.maxStalenessMillis = maxStalenessMillis;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLedgerChange(LedgerChange change) {
+        if (change.userId() != null) {
+            lastWrites.put(change.userId(), System.currentTimeMillis());
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Principal principal = request.getUserPrincipal();
+        if (principal == null || lastWrites.isEmpty()) {
+            return true;
+        }
+        Long userId = changeVersions.userId(principal.getName());
+        Long at = userId != null ? lastWrites.get(userId) : null;
+        if (at == null) {
+            return true;
+        }
+        if (System.currentTimeMillis() - at > maxStalenessMillis) {
+            lastWrites.remove(userId, at);
+        } else {
+            writtenAt.set(at);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        writtenAt.remove();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        writtenAt.remove();
+    }
+
+    //commit time of the last change of the user this thread works for, null if none is recent
+    public static Long writtenAt() {
+        return writtenAt.get();
+    }
+
+    public static <T> T callWith(Long at, Supplier<T> task) {
+        Long previous = writtenAt.get();
+        writtenAt.set(at);
+        try {
+            return task.get();
+        } finally {
+            if (previous != null) {
+                writtenAt.set(previous);
+            } else {
+                writtenAt.remove();
+            }
+        }
+    }
+
+    //the task run on another thread keeps the value of this one
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        Long at = writtenAt.get();
+        return at == null ? task : () -> callWith(at, task);
+    }
+}
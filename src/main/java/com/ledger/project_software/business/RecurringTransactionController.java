@@ -0,0 +1,210 @@
+package com.ledger.project_software.business;
+
+import com.ledger.project_software.domain.*;
+import com.ledger.project_software.orm.*;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.security.Principal;
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/recurring-transactions")
+public class RecurringTransactionController {
+    private final RecurringTransactionDAO recurringTransactionDAO;
+    private final RecurringTransactionService recurringTransactionService;
+    private final UserDAO userDAO;
+    private final LedgerDAO ledgerDAO;
+    private final AccountDAO accountDAO;
+    private final LedgerCategoryDAO ledgerCategoryDAO;
+
+    public RecurringTransactionController(RecurringTransactionDAO recurringTransactionDAO,
+                                          RecurringTransactionService recurringTransactionService,
+                                          UserDAO userDAO,
+                                          LedgerDAO ledgerDAO,
+                                          AccountDAO accountDAO,
+                                          LedgerCategoryDAO ledgerCategoryDAO) {
+        this.recurringTransactionDAO = recurringTransactionDAO;
+        this.recurringTransactionService = recurringTransactionService;
+        this.userDAO = userDAO;
+        this.ledgerDAO = ledgerDAO;
+        this.accountDAO = accountDAO;
+        this.ledgerCategoryDAO = ledgerCategoryDAO;
+    }
+
+    //same rules as TransactionController.createTransaction; occurrences already due are posted right away
+    @PostMapping("/create")
+    @Transactional
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<String> createRecurringTransaction(@RequestParam Long ledgerId,
+                                                             @RequestParam(required = false) Long fromAccountId,
+                                                             @RequestParam(required = false) Long toAccountId,
+                                                             @RequestParam(required = false) Long categoryId,
+                                                             @RequestParam(required = false) String description,
+                                                             @RequestParam BigDecimal amount,
+                                                             @RequestParam TransactionType type,
+                                                             @RequestParam RecurringTransaction.Frequency frequency,
+                                                             @RequestParam(defaultValue = "1") int interval,
+                                                             @RequestParam(required = false) Integer dayOfMonth,
+                                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+                                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+                                                             Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized access");
+        }
+        User user = userDAO.findByUsername(principal.getName());
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized access");
+        }
+
+        Ledger ledger = ledgerDAO.findById(ledgerId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Ledger not found"));
+        if (!ledger.getOwner().getId().equals(user.getId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Ledger does not belong to the user");
+        }
+
+        Account fromAccount = null;
+        if (fromAccountId != null) {
+            fromAccount = accountDAO.findById(fromAccountId)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "From Account not found"));
+            if (!fromAccount.getOwner().getId().equals(user.getId())) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body("From Account does not belong to the user");
+            }
+        }
+        Account toAccount = null;
+        if (toAccountId != null) {
+            toAccount = accountDAO.findById(toAccountId)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "To Account not found"));
+            if (!toAccount.getOwner().getId().equals(user.getId())) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body("To Account does not belong to the user");
+            }
+        }
+        LedgerCategory category = null;
+        if (categoryId != null) {
+            category = ledgerCategoryDAO.findById(categoryId)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Category not found"));
+            if (!category.getLedger().getId().equals(ledger.getId())) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Category does not belong to the specified ledger");
+            }
+        }
+
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            return ResponseEntity.badRequest().body("Amount must be greater than zero");
+        }
+        if (fromAccount instanceof LoanAccount || toAccount instanceof LoanAccount) {
+            return ResponseEntity.badRequest().body("Recurring transactions cannot use a LoanAccount");
+        }
+        if ((fromAccount != null && !fromAccount.getSelectable()) || (toAccount != null && !toAccount.getSelectable())) {
+            return ResponseEntity.badRequest().body("Account is not selectable");
+        }
+        switch (type) {
+            case EXPENSE -> {
+                if (fromAccount == null || toAccount != null) {
+                    return ResponseEntity.badRequest().body("Expense transaction must have only fromAccount");
+                }
+                if (category == null || category.getType() != CategoryType.EXPENSE) {
+                    return ResponseEntity.badRequest().body("Expense transaction must have an Expense category");
+                }
+            }
+            case INCOME -> {
+                if (toAccount == null || fromAccount != null) {
+                    return ResponseEntity.badRequest().body("Income transaction must have only toAccount");
+                }
+                if (category == null || category.getType() != CategoryType.INCOME) {
+                    return ResponseEntity.badRequest().body("Income transaction must have an Income category");
+                }
+            }
+            case TRANSFER -> {
+                if (fromAccount == null && toAccount == null) {
+                    return ResponseEntity.badRequest().body("At least one of fromAccountId or toAccountId must be provided");
+                }
+                if (fromAccount != null && toAccount != null && fromAccount.getId().equals(toAccount.getId())) {
+                    return ResponseEntity.badRequest().body("fromAccount and toAccount cannot be the same");
+                }
+                category = null;
+            }
+        }
+
+        LocalDate start = startDate != null ? startDate : LocalDate.now();
+        if (interval < 1) {
+            return ResponseEntity.badRequest().body("Interval must be at least 1");
+        }
+        if (dayOfMonth != null && (frequency != RecurringTransaction.Frequency.MONTHLY || dayOfMonth < 1 || dayOfMonth > 31)) {
+            return ResponseEntity.badRequest().body("dayOfMonth must be between 1 and 31, monthly templates only");
+        }
+        if (endDate != null && endDate.isBefore(start)) {
+            return ResponseEntity.badRequest().body("End date must not be before start date");
+        }
+
+        RecurringTransaction template = new RecurringTransaction(user, ledger, fromAccount, toAccount, category, type,
+                amount, description, frequency, interval, dayOfMonth, start, endDate);
+        recurringTransactionDAO.save(template);
+        recurringTransactionService.materialize(List.of(template.getId()), LocalDate.now());
+        return ResponseEntity.ok("Recurring transaction created successfully");
+    }
+
+    @GetMapping
+    @Transactional(readOnly = true)
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<List<RecurringTransaction>> getRecurringTransactions(Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        User user = userDAO.findByUsername(principal.getName());
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(recurringTransactionDAO.findByOwnerId(user.getId()));
+    }
+
+    //stops future occurrences, the transactions already posted stay
+    @PutMapping("/{id}/stop")
+    @Transactional
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<String> stopRecurringTransaction(@PathVariable Long id,
+                                                           Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized access");
+        }
+        User user = userDAO.findByUsername(principal.getName());
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized access");
+        }
+        RecurringTransaction template = recurringTransactionDAO.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Recurring transaction not found"));
+        if (!template.getOwner().getId().equals(user.getId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Recurring transaction does not belong to the user");
+        }
+        template.setActive(false);
+        recurringTransactionDAO.save(template);
+        return ResponseEntity.ok("Recurring transaction stopped");
+    }
+
+    @DeleteMapping("/{id}")
+    @Transactional
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<String> deleteRecurringTransaction(@PathVariable Long id,
+                                                             Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized access");
+        }
+        User user = userDAO.findByUsername(principal.getName());
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized access");
+        }
+        RecurringTransaction template = recurringTransactionDAO.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Recurring transaction not found"));
+        if (!template.getOwner().getId().equals(user.getId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Recurring transaction does not belong to the user");
+        }
+        recurringTransactionDAO.delete(template);
+        return ResponseEntity.ok("Recurring transaction deleted");
+    }
+}
@@ -0,0 +1,232 @@
+package com.ledger.project_software.business;
+
+import com.ledger.project_software.domain.*;
+import com.ledger.project_software.orm.AccountDAO;
+import com.ledger.project_software.orm.RecurringTransactionDAO;
+import com.ledger.project_software.orm.TransactionDAO;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Supplier;
+
+//posts the due occurrences of recurring templates in batches: one transaction per page of templates, the new
+//transactions saved with one saveAll and every touched account updated once with the sum of its movements.
+//occurrenceCount/nextOccurrence move in the same transaction as the postings, under a row lock, so a re-run
+//(or a run after a crash) posts only what is missing and an occurrence is never posted twice
+@Service
+public class RecurringTransactionService {
+    private static final Logger log = LoggerFactory.getLogger(RecurringTransactionService.class);
+
+    private final RecurringTransactionDAO recurringTransactionDAO;
+    private final TransactionDAO transactionDAO;
+    private final AccountDAO accountDAO;
+    private final BudgetAlertService budgetAlertService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxOccurrencesPerRun;
+
+    public RecurringTransactionService(RecurringTransactionDAO recurringTransactionDAO,
+                                       TransactionDAO transactionDAO,
+                                       AccountDAO accountDAO,
+                                       BudgetAlertService budgetAlertService,
+                                       ApplicationEventPublisher eventPublisher,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${ledger.recurring.batch-size:200}") int batchSize,
+                                       @Value("${ledger.recurring.max-occurrences-per-run:366}") int maxOccurrencesPerRun) {
+        this.recurringTransactionDAO = recurringTransactionDAO;
+        this.transactionDAO = transactionDAO;
+        this.accountDAO = accountDAO;
+        this.budgetAlertService = budgetAlertService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxOccurrencesPerRun = maxOccurrencesPerRun;
+    }
+
+    @Scheduled(cron = "${ledger.recurring.cron:0 45 0 * * *}")
+    public void materializeDue() {
+        ShardContext.forEachShard(() -> materializeDueOn(LocalDate.now()));
+    }
+
+    //posts every occurrence due on or before date. returns the number of transactions created
+    public int materializeDueOn(LocalDate date) {
+        int posted = 0;
+        Long afterId = 0L;
+        while (true) {
+            List<Long> ids = recurringTransactionDAO.findDueIds(date, afterId, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            try {
+                posted += inTransaction(() -> materialize(ids, date));
+            } catch (RuntimeException e) {
+                //one bad template rolls back the whole page: retry one by one, only the failing one waits
+                for (Long id : ids) {
+                    try {
+                        posted += inTransaction(() -> materialize(List.of(id), date));
+                    } catch (RuntimeException templateFailure) {
+                        log.warn("Recurring transaction {} failed, left for the next run", id, templateFailure);
+                    }
+                }
+            }
+            afterId = ids.get(ids.size() - 1);
+        }
+        if (posted > 0) {
+            log.info("Posted {} recurring transactions due by {}", posted, date);
+        }
+        return posted;
+    }
+
+    private int inTransaction(Supplier<Integer> work) {
+        Integer result = transactionTemplate.execute(status -> work.get());
+        return result != null ? result : 0;
+    }
+
+    //one page of templates: occurrences created in memory, then saved and applied to the accounts in bulk.
+    //a template that cannot post, an account not selectable or not enough funds for the page, is skipped whole
+    //and stays due for the next run, the way createTransaction refuses such a transaction
+    int materialize(List<Long> ids, LocalDate date) {
+        List<RecurringTransaction> templates = recurringTransactionDAO.findAllByIdForUpdate(ids);
+        Map<RecurringTransaction, Integer> due = new LinkedHashMap<>(); //occurrences to post per template
+        for (RecurringTransaction template : templates) {
+            int occurrences = dueOccurrences(template, date);
+            if (occurrences == 0) {
+                continue;
+            }
+            if (!selectable(template.getFromAccount()) || !selectable(template.getToAccount())) {
+                log.warn("Recurring transaction {} skipped: account not selectable", template.getId());
+                continue;
+            }
+            due.put(template, occurrences);
+        }
+
+        Map<Long, Account> accounts = new LinkedHashMap<>();
+        Map<Long, Long> deltas = deltas(due, accounts); //cents per account id
+        Set<Long> insufficient = insufficient(deltas, accounts);
+        while (!insufficient.isEmpty()) {
+            //without the templates paying from those accounts, other accounts may receive less: checked again
+            skipPayingFrom(due, insufficient);
+            accounts.clear();
+            deltas = deltas(due, accounts);
+            insufficient = insufficient(deltas, accounts);
+        }
+
+        List<Transaction> created = new ArrayList<>();
+        Map<RecurringTransaction, Transaction> lastExpenses = new LinkedHashMap<>();
+        for (Map.Entry<RecurringTransaction, Integer> entry : due.entrySet()) {
+            RecurringTransaction template = entry.getKey();
+            for (int i = 0; i < entry.getValue(); i++) {
+                Transaction tx = template.toTransaction(template.advance());
+                created.add(tx);
+                if (tx instanceof Expense) {
+                    lastExpenses.put(template, tx);
+                }
+            }
+        }
+        if (created.isEmpty()) {
+            return 0;
+        }
+
+        transactionDAO.saveAll(created);
+        recurringTransactionDAO.saveAll(due.keySet());
+        for (Map.Entry<Long, Long> delta : deltas.entrySet()) {
+            Account account = accounts.get(delta.getKey());
+            long cents = delta.getValue();
+            if (cents > 0) {
+                account.credit(Money.ofCents(cents).toBigDecimal());
+            } else if (cents < 0) {
+                account.debit(Money.ofCents(-cents).toBigDecimal());
+            }
+        }
+        accountDAO.saveAll(accounts.values());
+
+        //older occurrences belong to budget periods that are already over: only the latest one can alert
+        lastExpenses.forEach((template, expense) -> budgetAlertService.evaluate(template.getOwner(), expense));
+        for (Transaction tx : created) {
+            eventPublisher.publishEvent(LedgerChange.transaction(ownerOf(tx), tx, LedgerChange.Action.CREATED));
+        }
+        for (Account account : accounts.values()) {
+            eventPublisher.publishEvent(LedgerChange.account(account.getOwner().getId(), account, LedgerChange.Action.UPDATED));
+        }
+        return created.size();
+    }
+
+    //occurrences due on or before date that this run posts, at most max-occurrences-per-run. the template is not
+    //advanced yet: that happens only if it posts
+    private int dueOccurrences(RecurringTransaction template, LocalDate date) {
+        if (!template.isActive()) {
+            return 0;
+        }
+        int count = 0;
+        LocalDate next = template.getNextOccurrence();
+        while (next != null && !next.isAfter(date) && count < maxOccurrencesPerRun) {
+            count++;
+            next = template.occurrenceDate(template.getOccurrenceCount() + count);
+        }
+        return count;
+    }
+
+    //sum of the movements of every account, the accounts collected by id
+    private static Map<Long, Long> deltas(Map<RecurringTransaction, Integer> due, Map<Long, Account> accounts) {
+        Map<Long, Long> deltas = new HashMap<>();
+        due.forEach((template, occurrences) -> {
+            long cents = Money.toCents(template.getAmount()) * occurrences;
+            if (template.getFromAccount() != null) {
+                accounts.computeIfAbsent(template.getFromAccount().getId(), id -> unproxy(template.getFromAccount()));
+                deltas.merge(template.getFromAccount().getId(), -cents, Long::sum);
+            }
+            if (template.getToAccount() != null) {
+                accounts.computeIfAbsent(template.getToAccount().getId(), id -> unproxy(template.getToAccount()));
+                deltas.merge(template.getToAccount().getId(), cents, Long::sum);
+            }
+        });
+        return deltas;
+    }
+
+    //accounts that the page would take below zero
+    private static Set<Long> insufficient(Map<Long, Long> deltas, Map<Long, Account> accounts) {
+        Set<Long> insufficient = new HashSet<>();
+        deltas.forEach((id, cents) -> {
+            if (cents < 0 && Money.toCents(accounts.get(id).getBalance()) + cents < 0) {
+                insufficient.add(id);
+            }
+        });
+        return insufficient;
+    }
+
+    private static void skipPayingFrom(Map<RecurringTransaction, Integer> due, Set<Long> insufficient) {
+        due.keySet().removeIf(template -> {
+            boolean skipped = template.getFromAccount() != null
+                    && insufficient.contains(template.getFromAccount().getId());
+            if (skipped) {
+                log.warn("Recurring transaction {} skipped: insufficient funds in account {}",
+                        template.getId(), template.getFromAccount().getId());
+            }
+            return skipped;
+        });
+    }
+
+    private static boolean selectable(Account account) {
+        return account == null || Boolean.TRUE.equals(account.getSelectable());
+    }
+
+    //template associations are lazy: the real subclass is needed for debit() and the account event
+    private static Account unproxy(Account account) {
+        return (Account) Hibernate.unproxy(account);
+    }
+
+    private static Long ownerOf(Transaction tx) {
+        return tx.getLedger() != null ? tx.getLedger().getOwner().getId() : null;
+    }
+}
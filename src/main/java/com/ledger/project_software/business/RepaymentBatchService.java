@@ -0,0 +1,199 @@
+package com.ledger.project_software.business;
+
+import com.ledger.project_software.domain.*;
+import com.ledger.project_software.orm.AccountDAO;
+import com.ledger.project_software.orm.InstallmentPlanDAO;
+import com.ledger.project_software.orm.TransactionDAO;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+//server-side monthly repayments of installment plans and loans, instead of one client call per plan per month.
+//paidPeriods/repaidPeriods is the progress marker: a period is posted only if its due date is reached and it is
+//not counted yet, in the same transaction that increments the counter. a re-run (or a run after a crash, which
+//rolls back only the open chunk) finds the missing periods and posts them, nothing is paid twice
+@Service
+public class RepaymentBatchService {
+    private static final Logger log = LoggerFactory.getLogger(RepaymentBatchService.class);
+
+    private final InstallmentPlanDAO installmentPlanDAO;
+    private final AccountDAO accountDAO;
+    private final TransactionDAO transactionDAO;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public RepaymentBatchService(InstallmentPlanDAO installmentPlanDAO,
+                                 AccountDAO accountDAO,
+                                 TransactionDAO transactionDAO,
+                                 ApplicationEventPublisher eventPublisher,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${ledger.repayments.batch-size:200}") int batchSize) {
+        this.installmentPlanDAO = installmentPlanDAO;
+        this.accountDAO = accountDAO;
+        this.transactionDAO = transactionDAO;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    //runs after the statement close, so yesterday's cycles do not include today's portions
+    @Scheduled(cron = "${ledger.repayments.cron:0 30 0 * * *}")
+    public void repayDue() {
+        ShardContext.forEachShard(() -> repayDueOn(LocalDate.now()));
+    }
+
+    //posts every period due on or before date. returns the number of periods posted
+    public int repayDueOn(LocalDate date) {
+        int installments = processInBatches(
+                afterId -> installmentPlanDAO.findPlanIdsWithRepaymentsUpTo(date, afterId, PageRequest.of(0, batchSize)),
+                id -> repayInstallmentPlanUpTo(id, date));
+        int loans = processInBatches(
+                afterId -> accountDAO.findLoanIdsWithRepaymentsUpTo(date, afterId, PageRequest.of(0, batchSize)),
+                id -> repayLoanUpTo(id, date));
+        if (installments + loans > 0) {
+            log.info("Posted {} installment and {} loan repayments due by {}", installments, loans, date);
+        }
+        return installments + loans;
+    }
+
+    //keyset pages of ids, one transaction per page
+    private int processInBatches(Function<Long, List<Long>> page, Function<Long, Integer> repay) {
+        int posted = 0;
+        Long afterId = 0L;
+        while (true) {
+            List<Long> ids = page.apply(afterId);
+            if (ids.isEmpty()) {
+                break;
+            }
+            try {
+                posted += inTransaction(() -> ids.stream().mapToInt(repay::apply).sum());
+            } catch (RuntimeException e) {
+                //one bad row rolls back the whole batch: retry row by row, only the failing one waits for the next run
+                for (Long id : ids) {
+                    try {
+                        posted += inTransaction(() -> repay.apply(id));
+                    } catch (RuntimeException rowFailure) {
+                        log.warn("Repayment of {} failed, left for the next run", id, rowFailure);
+                    }
+                }
+            }
+            afterId = ids.get(ids.size() - 1);
+        }
+        return posted;
+    }
+
+    private int inTransaction(Supplier<Integer> work) {
+        Integer result = transactionTemplate.execute(status -> work.get());
+        return result != null ? result : 0;
+    }
+
+    //same postings as InstallmentPlanController.repayInstallmentPlan, one Transfer per due portion
+    int repayInstallmentPlanUpTo(Long planId, LocalDate date) {
+        InstallmentPlan plan = installmentPlanDAO.findByIdForUpdate(planId).orElse(null);
+        if (plan == null || plan.getRepaymentStartDate() == null
+                || !(Hibernate.unproxy(plan.getLinkedAccount()) instanceof CreditAccount card)) { //lazy reference
+            return 0;
+        }
+        Long ownerId = card.getOwner().getId();
+
+        int posted = 0;
+        while (plan.getPaidPeriods() < plan.getTotalPeriods()
+                && plan.getRemainingAmount().compareTo(BigDecimal.ZERO) > 0) {
+            int period = plan.getPaidPeriods() + 1;
+            LocalDate dueDate = plan.getRepaymentStartDate().plusMonths(period - 1);
+            if (dueDate.isAfter(date)) {
+                break;
+            }
+            BigDecimal amount = plan.getMonthlyPayment(period);
+            plan.repayOnePeriod();
+
+            Transaction tx = Transfer.installmentRepayment(dueDate, card, amount, null);
+            transactionDAO.save(tx);
+            card.debit(amount);
+            card.getOutgoingTransactions().add(tx);
+            card.setCurrentDebt(card.getCurrentDebt().subtract(amount).setScale(2, RoundingMode.HALF_UP));
+            eventPublisher.publishEvent(LedgerChange.transaction(ownerId, tx, LedgerChange.Action.CREATED));
+            posted++;
+        }
+        if (posted > 0) {
+            installmentPlanDAO.save(plan);
+            accountDAO.save(card);
+            eventPublisher.publishEvent(LedgerChange.account(ownerId, card, LedgerChange.Action.UPDATED));
+        }
+        return posted;
+    }
+
+    //same postings as AccountController.repayLoan, paid from the account that received the loan. periods are paid
+    //in order while the account covers them (the funds check of createTransaction): the others stay overdue, are
+    //logged and come again on the next run
+    int repayLoanUpTo(Long loanId, LocalDate date) {
+        LoanAccount loan = accountDAO.findLoanByIdForUpdate(loanId).orElse(null);
+        if (loan == null || loan.getRepaymentDay() == null) {
+            return 0;
+        }
+        Long ownerId = loan.getOwner().getId();
+        Account fromAccount = loan.getReceivingAccount();
+
+        int posted = 0;
+        while (loan.getRepaidPeriods() < loan.getTotalPeriods()
+                && loan.getRemainingAmount().compareTo(BigDecimal.ZERO) > 0) {
+            int period = loan.getRepaidPeriods() + 1;
+            LocalDate dueDate = loan.getDueDate(period);
+            if (dueDate.isAfter(date)) {
+                break;
+            }
+            BigDecimal amount = loan.getMonthlyRepayment(period);
+            if (fromAccount != null && fromAccount.getBalance().compareTo(amount) < 0) {
+                log.warn("Loan {}: insufficient funds in account {} for period {} due {}, {} periods overdue",
+                        loanId, fromAccount.getId(), period, dueDate, overduePeriods(loan, date));
+                break;
+            }
+
+            Transaction tx = new Transfer(dueDate, "Loan Repayment", fromAccount, loan, amount, null);
+            transactionDAO.save(tx);
+            loan.repayLoan(tx); //aggiorna remainingAmount e repaidPeriods
+            if (fromAccount != null) {
+                fromAccount.debit(amount);
+                fromAccount.getOutgoingTransactions().add(tx);
+            }
+            eventPublisher.publishEvent(LedgerChange.transaction(ownerId, tx, LedgerChange.Action.CREATED));
+            posted++;
+        }
+        if (posted > 0) {
+            accountDAO.save(loan);
+            eventPublisher.publishEvent(LedgerChange.account(ownerId, loan, LedgerChange.Action.UPDATED));
+            if (fromAccount != null) {
+                accountDAO.save(fromAccount);
+                eventPublisher.publishEvent(LedgerChange.account(ownerId, fromAccount, LedgerChange.Action.UPDATED));
+            }
+        }
+        return posted;
+    }
+
+    //periods due on or before date and not repaid
+    private static int overduePeriods(LoanAccount loan, LocalDate date) {
+        int overdue = 0;
+        for (int period = loan.getRepaidPeriods() + 1; period <= loan.getTotalPeriods(); period++) {
+            if (loan.getDueDate(period).isAfter(date)) {
+                break;
+            }
+            overdue++;
+        }
+        return overdue;
+    }
+}
@@ -0,0 +1,118 @@
+package com.ledger.project_software.business;
+
+import com.ledger.project_software.domain.Ledger;
+import com.ledger.project_software.domain.TransactionType;
+import com.ledger.project_software.domain.User;
+import com.ledger.project_software.orm.LedgerDAO;
+import com.ledger.project_software.orm.UserDAO;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.security.Principal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+@RestController
+@RequestMapping("/reports")
+public class ReportController {
+    private final ReportService reportService;
+    private final CashFlowForecastService cashFlowForecastService;
+    private final NetWorthService netWorthService;
+    private final LedgerDAO ledgerDAO;
+    private final UserDAO userDAO;
+
+    public ReportController(ReportService reportService,
+                            CashFlowForecastService cashFlowForecastService,
+                            NetWorthService netWorthService,
+                            LedgerDAO ledgerDAO,
+                            UserDAO userDAO) {
+        this.reportService = reportService;
+        this.cashFlowForecastService = cashFlowForecastService;
+        this.netWorthService = netWorthService;
+        this.ledgerDAO = ledgerDAO;
+        this.userDAO = userDAO;
+    }
+
+    //monthly totals per category (subcategories rolled up) of one ledger or of all ledgers, last 12 months by default
+    @GetMapping("/category-trend")
+    @Transactional(readOnly = true)
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<CategoryTrend> getCategoryTrend(@RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+                                                          @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth to,
+                                                          @RequestParam(required = false) Long ledgerId,
+                                                          @RequestParam(defaultValue = "EXPENSE") TransactionType type,
+                                                          Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        User user = userDAO.findByUsername(principal.getName());
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (ledgerId != null) {
+            Ledger ledger = ledgerDAO.findById(ledgerId)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Ledger not found"));
+            if (!ledger.getOwner().getId().equals(user.getId())) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+        }
+
+        YearMonth end = to != null ? to : YearMonth.now();
+        YearMonth start = from != null ? from : end.minusMonths(11);
+        try {
+            return ResponseEntity.ok(reportService.categoryTrend(user.getId(), ledgerId, type, start, end));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    //projected month-end balances of every account for the next months (loans, installments, recurring income, budgets)
+    @GetMapping("/cash-flow-forecast")
+    @Transactional(readOnly = true)
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<CashFlowForecast> getCashFlowForecast(@RequestParam(defaultValue = "12") int months,
+                                                                Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        User user = userDAO.findByUsername(principal.getName());
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        try {
+            return ResponseEntity.ok(cashFlowForecastService.forecast(user.getId(), months, LocalDate.now()));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    //daily assets, liabilities, lending, borrowing and net assets as arrays, last 365 days by default
+    @GetMapping("/net-worth")
+    @Transactional(readOnly = true)
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<NetWorthSeries> getNetWorth(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                      Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        User user = userDAO.findByUsername(principal.getName());
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        LocalDate today = LocalDate.now();
+        LocalDate end = to != null ? to : today;
+        LocalDate start = from != null ? from : end.minusDays(364);
+        try {
+            return ResponseEntity.ok(netWorthService.series(user.getId(), start, end, today));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.ledger.project_software.business;
+
+import com.ledger.project_software.domain.CategoryType;
+import com.ledger.project_software.domain.LedgerCategory;
+import com.ledger.project_software.domain.Money;
+import com.ledger.project_software.domain.TransactionType;
+import com.ledger.project_software.orm.LedgerCategoryDAO;
+import com.ledger.project_software.orm.TransactionDAO;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.*;
+
+//multi-month reports. totals come from one grouped query (or the analytics cache when enabled)
+//and are rolled up to the parent categories in memory
+@Service
+public class ReportService {
+    public static final int MAX_MONTHS = 120;
+
+    private final TransactionDAO transactionDAO;
+    private final LedgerCategoryDAO ledgerCategoryDAO;
+    private final TransactionAnalyticsCache analyticsCache;
+
+    public ReportService(TransactionDAO transactionDAO,
+                         LedgerCategoryDAO ledgerCategoryDAO,
+                         TransactionAnalyticsCache analyticsCache) {
+        this.transactionDAO = transactionDAO;
+        this.ledgerCategoryDAO = ledgerCategoryDAO;
+        this.analyticsCache = analyticsCache;
+    }
+
+    //ledgerId null: all ledgers of the user
+    @Transactional(readOnly = true)
+    public CategoryTrend categoryTrend(Long userId, Long ledgerId, TransactionType type, YearMonth from, YearMonth to) {
+        if (type == TransactionType.TRANSFER) {
+            throw new IllegalArgumentException("Transfers have no category");
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        int monthCount = (int) (to.getYear() * 12L + to.getMonthValue() - from.getYear() * 12L - from.getMonthValue()) + 1;
+        if (monthCount > MAX_MONTHS) {
+            throw new IllegalArgumentException("At most " + MAX_MONTHS + " months");
+        }
+        int firstMonth = from.getYear() * 12 + from.getMonthValue() - 1; //same index as TransactionColumns.month
+
+        //own totals per category, in cents, one slot per month
+        Map<Long, long[]> own = new HashMap<>();
+        if (analyticsCache.isEnabled()) {
+            TransactionColumns.RowFilter filter = TransactionColumns.ofType(type)
+                    .and(TransactionColumns.between(from.atDay(1), to.atEndOfMonth()));
+            if (ledgerId != null) {
+                filter = filter.and(TransactionColumns.inLedger(ledgerId));
+            }
+            Map<Long, Map<Long, Long>> sums = analyticsCache.columns(userId)
+                    .sumCentsBy(TransactionColumns.BY_CATEGORY, TransactionColumns.BY_MONTH, filter);
+            sums.forEach((categoryId, byMonth) -> {
+                if (categoryId != TransactionColumns.NO_ID) {
+                    long[] slots = own.computeIfAbsent(categoryId, id -> new long[monthCount]);
+                    byMonth.forEach((month, cents) -> slots[(int) (month - firstMonth)] += cents);
+                }
+            });
+        } else {
+            for (Object[] row : transactionDAO.sumByCategoryAndMonth(userId, ledgerId, type, from.atDay(1), to.atEndOfMonth())) {
+                int month = ((Number) row[1]).intValue() * 12 + ((Number) row[2]).intValue() - 1;
+                own.computeIfAbsent((Long) row[0], id -> new long[monthCount])[month - firstMonth]
+                        += Money.toCents((BigDecimal) row[3]);
+            }
+        }
+
+        //roll up: every total is added to the category and to all its ancestors
+        List<LedgerCategory> categories = ledgerCategoryDAO.findByOwnerIdAndType(userId, ledgerId,
+                type == TransactionType.INCOME ? CategoryType.INCOME : CategoryType.EXPENSE);
+        Map<Long, LedgerCategory> byId = new HashMap<>();
+        for (LedgerCategory category : categories) {
+            byId.put(category.getId(), category);
+        }
+        Map<Long, long[]> rolledUp = new HashMap<>();
+        own.forEach((categoryId, slots) -> {
+            for (LedgerCategory category = byId.get(categoryId); category != null;
+                 category = category.getParent() != null ? byId.get(category.getParent().getId()) : null) {
+                long[] target = rolledUp.computeIfAbsent(category.getId(), id -> new long[monthCount]);
+                for (int i = 0; i < monthCount; i++) {
+                    target[i] += slots[i];
+                }
+            }
+        });
+
+        List<YearMonth> months = new ArrayList<>(monthCount);
+        for (int i = 0; i < monthCount; i++) {
+            months.add(from.plusMonths(i));
+        }
+        List<CategoryTrend.Row> rows = new ArrayList<>(categories.size());
+        categories.stream()
+                .sorted(Comparator.comparing((LedgerCategory c) -> c.getLedger().getId()).thenComparing(LedgerCategory::getId))
+                .forEach(category -> {
+                    long[] slots = rolledUp.getOrDefault(category.getId(), new long[monthCount]);
+                    List<BigDecimal> monthly = new ArrayList<>(monthCount);
+                    long total = 0;
+                    for (long cents : slots) {
+                        monthly.add(Money.ofCents(cents).toBigDecimal());
+                        total += cents;
+                    }
+                    rows.add(new CategoryTrend.Row(category.getId(),
+                            category.getName(),
+                            category.getParent() != null ? category.getParent().getId() : null,
+                            category.getLedger().getId(),
+                            monthly,
+                            Money.ofCents(total).toBigDecimal()));
+                });
+        return new CategoryTrend(type, ledgerId, months, rows);
+    }
+}
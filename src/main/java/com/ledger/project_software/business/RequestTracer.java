@@ -0,0 +1,170 @@
+package com.ledger.project_software.business;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//in-process tracing: a root span per controller operation, child spans opened with span() by the repository calls
+//and the Hibernate flushes of the same thread, each counting the SQL statements prepared while it is open.
+//finished traces are kept in memory (the last ledger.tracing.max-traces) and shown slowest first on
+///actuator/traces. work on the parallel-queries pool is not part of the trace
+@Component
+public class RequestTracer implements AsyncHandlerInterceptor {
+    private static final ThreadLocal<Deque<Span>> open = new ThreadLocal<>();
+
+    private final boolean enabled;
+    private final int maxTraces;
+    //most recent last, guarded by this
+    private final ArrayDeque<Trace> traces = new ArrayDeque<>();
+
+    public RequestTracer(@Value("${ledger.tracing.enabled:true}") boolean enabled,
+                         @Value("${ledger.tracing.max-traces:200}") int maxTraces) {
+        this.enabled = enabled;
+        this.maxTraces = maxTraces;
+    }
+
+    public record Trace(String operation, Instant at, int status, double durationMillis, SpanView root) {}
+
+    public record SpanView(String name, double offsetMillis, double durationMillis, long statements,
+                           Map<String, Object> attributes, List<SpanView> children) {}
+
+    //an open span, closed by the thread that opened it
+    public static final class Span implements AutoCloseable {
+        private final String name;
+        private final long start = System.nanoTime();
+        private long end;
+        private long statements;
+        private final Map<String, Object> attributes = new LinkedHashMap<>();
+        private final List<Span> children = new ArrayList<>();
+
+        private Span(String name) {
+            this.name = name;
+        }
+
+        public Span attribute(String key, Object value) {
+            if (this != NOOP) {
+                attributes.put(key, value);
+            }
+            return this;
+        }
+
+        @Override
+        public void close() {
+            Deque<Span> stack = open.get();
+            if (stack == null || !stack.contains(this)) {
+                return;
+            }
+            //children left open by an exception are closed with it
+            Span top;
+            do {
+                top = stack.pop();
+                top.end = System.nanoTime();
+            } while (top != this);
+        }
+
+        private SpanView view(long rootStart) {
+            long stop = end != 0 ? end : System.nanoTime();
+            return new SpanView(name, millis(start - rootStart), millis(stop - start), statements,
+                    attributes, children.stream().map(child -> child.view(rootStart)).toList());
+        }
+    }
+
+    private static final Span NOOP = new Span("noop");
+
+    //child of the innermost open span of this thread, a no-op when the thread is not tracing
+    public static Span span(String name) {
+        Deque<Span> stack = open.get();
+        if (stack == null || stack.isEmpty()) {
+            return NOOP;
+        }
+        Span span = new Span(name);
+        stack.peek().children.add(span);
+        stack.push(span);
+        return span;
+    }
+
+    public static boolean isTracing() {
+        Deque<Span> stack = open.get();
+        return stack != null && !stack.isEmpty();
+    }
+
+    static void statementPrepared() {
+        Deque<Span> stack = open.get();
+        if (stack != null) {
+            for (Span span : stack) {
+                span.statements++;
+            }
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (enabled && handler instanceof HandlerMethod method) {
+            Deque<Span> stack = new ArrayDeque<>();
+            stack.push(new Span(method.getBeanType().getSimpleName() + "." + method.getMethod().getName())
+                    .attribute("http.method", request.getMethod())
+                    .attribute("http.path", request.getRequestURI()));
+            open.set(stack);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        open.remove();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Deque<Span> stack = open.get();
+        if (stack == null || stack.isEmpty()) {
+            open.remove();
+            return;
+        }
+        Span root = stack.peekLast();
+        root.close();
+        open.remove();
+        if (ex != null) {
+            root.attribute("error", ex.getClass().getSimpleName());
+        }
+        Trace trace = new Trace(root.name, Instant.now(), response.getStatus(), millis(root.end - root.start),
+                root.view(root.start));
+        synchronized (this) {
+            traces.addLast(trace);
+            while (traces.size() > maxTraces) {
+                traces.removeFirst();
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized List<Trace> slowest(int limit) {
+        return traces.stream()
+                .sorted(Comparator.comparingDouble(Trace::durationMillis).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    public synchronized int getTraceCount() {
+        return traces.size();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
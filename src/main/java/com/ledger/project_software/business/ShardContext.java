@@ -0,0 +1,82 @@
+package com.ledger.project_software.business;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.function.Supplier;
+
+//shard of the current thread when the data of the users is split across databases (ShardingConfig): bound per
+//request to the shard of the user by the routing filter, per shard by the batch jobs (forEachShard). work that is
+//not bound runs on shard 0. without sharding nothing is bound and forEachShard runs the job once
+public final class ShardContext {
+    private static final Logger log = LoggerFactory.getLogger(ShardContext.class);
+    private static final ThreadLocal<Integer> current = new ThreadLocal<>();
+    private static volatile int shardCount; //0: not sharded
+
+    private ShardContext() {}
+
+    //binding of a shard, closed by the thread that opened it: the previous one is bound again
+    public static final class Scope implements AutoCloseable {
+        private final Integer previous;
+
+        private Scope(Integer previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous != null) {
+                current.set(previous);
+            } else {
+                current.remove();
+            }
+        }
+    }
+
+    public static Scope open(int shard) {
+        Integer previous = current.get();
+        current.set(shard);
+        return new Scope(previous);
+    }
+
+    //null when the thread is not bound
+    public static Integer current() {
+        return current.get();
+    }
+
+    public static <T> T callOn(int shard, Supplier<T> task) {
+        try (Scope scope = open(shard)) {
+            return task.get();
+        }
+    }
+
+    //the task run on another thread works on the shard of this one
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        Integer shard = current.get();
+        return shard == null ? task : () -> callOn(shard, task);
+    }
+
+    //batch jobs: once per shard, a shard that fails does not stop the others
+    public static void forEachShard(Runnable job) {
+        int count = shardCount;
+        if (count == 0) {
+            job.run();
+            return;
+        }
+        for (int shard = 0; shard < count; shard++) {
+            try (Scope scope = open(shard)) {
+                job.run();
+            } catch (RuntimeException e) {
+                log.error("Job failed on shard {}", shard, e);
+            }
+        }
+    }
+
+    public static void configure(int count) {
+        shardCount = count;
+    }
+
+    public static int shardCount() {
+        return shardCount;
+    }
+}
@@ -0,0 +1,153 @@
+package com.ledger.project_software.business;
+
+import com.ledger.project_software.domain.TransactionType;
+import com.ledger.project_software.orm.TransactionDAO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//optional per-user columnar copy of the transaction history for reports (ledger.analytics-cache.enabled).
+//a user is loaded with one query on first use, new transactions are appended from the committed LedgerChange
+//events, any other change touching transactions drops the user so it is reloaded. users are evicted in LRU
+//order when the estimated size of all columns exceeds ledger.analytics-cache.max-bytes
+@Service
+public class TransactionAnalyticsCache {
+    private final TransactionDAO transactionDAO;
+    private final boolean enabled;
+    private final long maxBytes;
+
+    //guarded by this
+    private final LruMap<Long, TransactionColumns> entries = new LruMap<>();
+    private long totalBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+    //bumped by every change of the user: a load that raced with a change is used once but not cached
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+
+    public TransactionAnalyticsCache(TransactionDAO transactionDAO,
+                                     @Value("${ledger.analytics-cache.enabled:false}") boolean enabled,
+                                     @Value("${ledger.analytics-cache.max-bytes:67108864}") long maxBytes) {
+        this.transactionDAO = transactionDAO;
+        this.enabled = enabled;
+        this.maxBytes = maxBytes;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    //columns of the user, loaded with one query on a miss
+    public TransactionColumns columns(Long userId) {
+        long version;
+        synchronized (this) {
+            TransactionColumns cached = entries.get(userId);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+            version = versions.getOrDefault(userId, 0L);
+        }
+
+        TransactionColumns loaded = load(userId);
+
+        synchronized (this) {
+            if (versions.getOrDefault(userId, 0L) == version && !entries.containsKey(userId)) {
+                entries.put(userId, loaded);
+                totalBytes += loaded.estimatedBytes();
+                evict();
+            }
+        }
+        return loaded;
+    }
+
+    private TransactionColumns load(Long userId) {
+        List<Object[]> rows = transactionDAO.findColumnsByUserId(userId);
+        TransactionColumns columns = TransactionColumns.empty(rows.size());
+        for (Object[] row : rows) {
+            columns = columns.append((Long) row[0], (LocalDate) row[1], (BigDecimal) row[2], (TransactionType) row[3],
+                    (Long) row[4], (Long) row[5], (Long) row[6], (Long) row[7]);
+        }
+        return columns;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLedgerChange(LedgerChange change) {
+        if (!enabled || change.userId() == null) {
+            return;
+        }
+        if (change.type() == LedgerChange.Type.BUDGET
+                || (change.type() == LedgerChange.Type.ACCOUNT && change.action() == LedgerChange.Action.UPDATED)) {
+            return; //balances and budgets are not part of the columns
+        }
+        synchronized (this) {
+            versions.merge(change.userId(), 1L, Long::sum);
+            TransactionColumns cached = entries.get(change.userId());
+            if (cached == null) {
+                return;
+            }
+            if (change.type() == LedgerChange.Type.TRANSACTION && change.action() == LedgerChange.Action.CREATED
+                    && change.id() != null) {
+                Map<String, Object> data = change.data();
+                TransactionColumns appended = cached.append(change.id(),
+                        (LocalDate) data.get("date"),
+                        (BigDecimal) data.get("amount"),
+                        (TransactionType) data.get("transactionType"),
+                        (Long) data.get("categoryId"),
+                        (Long) data.get("fromAccountId"),
+                        (Long) data.get("toAccountId"),
+                        (Long) data.get("ledgerId"));
+                entries.put(change.userId(), appended);
+                totalBytes += appended.estimatedBytes() - cached.estimatedBytes();
+                evict();
+            } else { //edits, deletes, ledger copies, category merges...: reload on next use
+                entries.remove(change.userId());
+                totalBytes -= cached.estimatedBytes();
+            }
+        }
+    }
+
+    //caller holds the lock
+    private void evict() {
+        entries.evictWhile(() -> totalBytes > maxBytes, evicted -> {
+            totalBytes -= evicted.estimatedBytes();
+            evictions++;
+        });
+    }
+
+    public synchronized void invalidate(Long userId) {
+        versions.merge(userId, 1L, Long::sum);
+        TransactionColumns removed = entries.remove(userId);
+        if (removed != null) {
+            totalBytes -= removed.estimatedBytes();
+        }
+    }
+
+    public synchronized int getCachedUsers() {
+        return entries.size();
+    }
+
+    public synchronized long getEstimatedBytes() {
+        return totalBytes;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("users", entries.size());
+        stats.put("estimatedBytes", totalBytes);
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("evictions", evictions);
+        return stats;
+    }
+}
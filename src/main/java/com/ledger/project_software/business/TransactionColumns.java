@@ -0,0 +1,275 @@
+package com.ledger.project_software.business;
+
+import com.ledger.project_software.domain.Money;
+import com.ledger.project_software.domain.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+//transactions of one user as primitive columns, one array per attribute, so aggregations are plain loops
+//over arrays instead of queries. a view is immutable: rows are only appended after size by the cache,
+//which then publishes a new view, so readers never see a row changing. missing ids are stored as 0
+public final class TransactionColumns {
+    public static final long NO_ID = 0L;
+    //long id, int epochDay, int month, long cents, byte type, 4 long ids
+    static final int BYTES_PER_ROW = 8 + 4 + 4 + 8 + 1 + 4 * 8;
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    final long[] ids;
+    final int[] epochDays;
+    final int[] months; //year * 12 + month - 1
+    final long[] cents;
+    final byte[] types;
+    final long[] categoryIds;
+    final long[] fromAccountIds;
+    final long[] toAccountIds;
+    final long[] ledgerIds;
+    private final int size;
+
+    private TransactionColumns(int capacity) {
+        ids = new long[capacity];
+        epochDays = new int[capacity];
+        months = new int[capacity];
+        cents = new long[capacity];
+        types = new byte[capacity];
+        categoryIds = new long[capacity];
+        fromAccountIds = new long[capacity];
+        toAccountIds = new long[capacity];
+        ledgerIds = new long[capacity];
+        size = 0;
+    }
+
+    private TransactionColumns(TransactionColumns columns, int size) {
+        ids = columns.ids;
+        epochDays = columns.epochDays;
+        months = columns.months;
+        cents = columns.cents;
+        types = columns.types;
+        categoryIds = columns.categoryIds;
+        fromAccountIds = columns.fromAccountIds;
+        toAccountIds = columns.toAccountIds;
+        ledgerIds = columns.ledgerIds;
+        this.size = size;
+    }
+
+    public static TransactionColumns empty(int capacity) {
+        return new TransactionColumns(Math.max(capacity, 16));
+    }
+
+    //writes the row after size, growing the arrays when full, and returns the view including it.
+    //callers must serialize appends on the same columns
+    TransactionColumns append(long id, LocalDate date, BigDecimal amount, TransactionType type,
+                              Long categoryId, Long fromAccountId, Long toAccountId, Long ledgerId) {
+        TransactionColumns target = this;
+        if (size == ids.length) {
+            target = grow(ids.length + (ids.length >> 1));
+        }
+        target.ids[size] = id;
+        target.epochDays[size] = (int) date.toEpochDay();
+        target.months[size] = month(date);
+        target.cents[size] = Money.toCents(amount);
+        target.types[size] = (byte) type.ordinal();
+        target.categoryIds[size] = categoryId != null ? categoryId : NO_ID;
+        target.fromAccountIds[size] = fromAccountId != null ? fromAccountId : NO_ID;
+        target.toAccountIds[size] = toAccountId != null ? toAccountId : NO_ID;
+        target.ledgerIds[size] = ledgerId != null ? ledgerId : NO_ID;
+        return new TransactionColumns(target, size + 1);
+    }
+
+    private TransactionColumns grow(int capacity) {
+        TransactionColumns grown = new TransactionColumns(capacity);
+        System.arraycopy(ids, 0, grown.ids, 0, size);
+        System.arraycopy(epochDays, 0, grown.epochDays, 0, size);
+        System.arraycopy(months, 0, grown.months, 0, size);
+        System.arraycopy(cents, 0, grown.cents, 0, size);
+        System.arraycopy(types, 0, grown.types, 0, size);
+        System.arraycopy(categoryIds, 0, grown.categoryIds, 0, size);
+        System.arraycopy(fromAccountIds, 0, grown.fromAccountIds, 0, size);
+        System.arraycopy(toAccountIds, 0, grown.toAccountIds, 0, size);
+        System.arraycopy(ledgerIds, 0, grown.ledgerIds, 0, size);
+        return new TransactionColumns(grown, size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    //heap held by the arrays, used by the cache budget
+    public long estimatedBytes() {
+        return (long) ids.length * BYTES_PER_ROW + 9 * 16;
+    }
+
+    public static int month(LocalDate date) {
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    public long id(int row) {
+        return ids[row];
+    }
+
+    public LocalDate date(int row) {
+        return LocalDate.ofEpochDay(epochDays[row]);
+    }
+
+    public long cents(int row) {
+        return cents[row];
+    }
+
+    public TransactionType type(int row) {
+        return TYPES[types[row]];
+    }
+
+    public long categoryId(int row) {
+        return categoryIds[row];
+    }
+
+    public long fromAccountId(int row) {
+        return fromAccountIds[row];
+    }
+
+    public long toAccountId(int row) {
+        return toAccountIds[row];
+    }
+
+    public long ledgerId(int row) {
+        return ledgerIds[row];
+    }
+
+    @FunctionalInterface
+    public interface RowFilter {
+        boolean test(TransactionColumns columns, int row);
+
+        default RowFilter and(RowFilter other) {
+            return (columns, row) -> test(columns, row) && other.test(columns, row);
+        }
+    }
+
+    @FunctionalInterface
+    public interface RowKey {
+        long key(TransactionColumns columns, int row);
+    }
+
+    public static final RowFilter ALL = (columns, row) -> true;
+    public static final RowKey BY_CATEGORY = (columns, row) -> columns.categoryIds[row];
+    public static final RowKey BY_LEDGER = (columns, row) -> columns.ledgerIds[row];
+    public static final RowKey BY_MONTH = (columns, row) -> columns.months[row];
+    public static final RowKey BY_TYPE = (columns, row) -> columns.types[row];
+
+    public static RowFilter between(LocalDate start, LocalDate end) {
+        int from = (int) start.toEpochDay();
+        int to = (int) end.toEpochDay();
+        return (columns, row) -> columns.epochDays[row] >= from && columns.epochDays[row] <= to;
+    }
+
+    public static RowFilter ofType(TransactionType type) {
+        byte ordinal = (byte) type.ordinal();
+        return (columns, row) -> columns.types[row] == ordinal;
+    }
+
+    public static RowFilter inLedger(long ledgerId) {
+        return (columns, row) -> columns.ledgerIds[row] == ledgerId;
+    }
+
+    public static RowFilter touchingAccount(long accountId) {
+        return (columns, row) -> columns.fromAccountIds[row] == accountId || columns.toAccountIds[row] == accountId;
+    }
+
+    public long sumCents(RowFilter filter) {
+        long total = 0;
+        for (int row = 0; row < size; row++) {
+            if (filter.test(this, row)) {
+                total += cents[row];
+            }
+        }
+        return total;
+    }
+
+    public BigDecimal sum(RowFilter filter) {
+        return Money.ofCents(sumCents(filter)).toBigDecimal();
+    }
+
+    //cents per key of the rows accepted by filter
+    public Map<Long, Long> sumCentsBy(RowKey key, RowFilter filter) {
+        LongSums sums = new LongSums();
+        for (int row = 0; row < size; row++) {
+            if (filter.test(this, row)) {
+                sums.add(key.key(this, row), cents[row]);
+            }
+        }
+        return sums.toMap();
+    }
+
+    //cents per (first, second) key, e.g. category and month
+    public Map<Long, Map<Long, Long>> sumCentsBy(RowKey first, RowKey second, RowFilter filter) {
+        Map<Long, LongSums> groups = new HashMap<>();
+        LongSums current = null;
+        long currentKey = 0;
+        for (int row = 0; row < size; row++) {
+            if (!filter.test(this, row)) {
+                continue;
+            }
+            long firstKey = first.key(this, row);
+            if (current == null || firstKey != currentKey) { //rows of one group are often adjacent
+                current = groups.computeIfAbsent(firstKey, k -> new LongSums());
+                currentKey = firstKey;
+            }
+            current.add(second.key(this, row), cents[row]);
+        }
+        Map<Long, Map<Long, Long>> result = new HashMap<>(groups.size() * 2);
+        groups.forEach((k, sums) -> result.put(k, sums.toMap()));
+        return result;
+    }
+
+    //open addressing long -> long map: no boxing per row, only when the result is built
+    private static final class LongSums {
+        private long[] keys = new long[16];
+        private long[] values = new long[16];
+        private boolean[] used = new boolean[16];
+        private int count;
+
+        void add(long key, long value) {
+            int mask = keys.length - 1;
+            int slot = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+            while (used[slot]) {
+                if (keys[slot] == key) {
+                    values[slot] += value;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            used[slot] = true;
+            keys[slot] = key;
+            values[slot] = value;
+            if (++count * 2 > keys.length) {
+                rehash();
+            }
+        }
+
+        private void rehash() {
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            boolean[] oldUsed = used;
+            keys = new long[oldKeys.length * 2];
+            values = new long[oldKeys.length * 2];
+            used = new boolean[oldKeys.length * 2];
+            count = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) {
+                    add(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        Map<Long, Long> toMap() {
+            Map<Long, Long> map = new HashMap<>(count * 2);
+            for (int i = 0; i < keys.length; i++) {
+                if (used[i]) {
+                    map.put(keys[i], values[i]);
+                }
+            }
+            return map;
+        }
+    }
+}
@@ -2,6 +2,9 @@ package com.ledger.project_software.business;
 
 import com.ledger.project_software.orm.*;
 import com.ledger.project_software.domain.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -14,6 +17,13 @@ import org.springframework.web.server.ResponseStatusException;
 import java.math.BigDecimal;
 import java.security.Principal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 
 @RestController
 @RequestMapping("/transactions")
@@ -23,17 +33,29 @@ public class TransactionController {
     private final LedgerDAO ledgerDAO;
     private final AccountDAO accountDAO;
     private final LedgerCategoryDAO ledgerCategoryDAO;
+    private final BudgetAlertService budgetAlertService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionSearchIndex searchIndex;
+    private final int searchChunkSize;
 
     public TransactionController(TransactionDAO transactionDAO,
                                  UserDAO userDAO,
                                  LedgerDAO ledgerDAO,
                                  AccountDAO accountDAO,
-                                 LedgerCategoryDAO ledgerCategoryDAO) {
+                                 LedgerCategoryDAO ledgerCategoryDAO,
+                                 BudgetAlertService budgetAlertService,
+                                 ApplicationEventPublisher eventPublisher,
+                                 TransactionSearchIndex searchIndex,
+                                 @Value("${ledger.search.id-chunk-size:1000}") int searchChunkSize) {
         this.transactionDAO = transactionDAO;
         this.userDAO = userDAO;
         this.ledgerDAO = ledgerDAO;
         this.accountDAO = accountDAO;
         this.ledgerCategoryDAO = ledgerCategoryDAO;
+        this.budgetAlertService = budgetAlertService;
+        this.eventPublisher = eventPublisher;
+        this.searchIndex = searchIndex;
+        this.searchChunkSize = Math.max(1, searchChunkSize);
     }
 
     @PostMapping("/create")
@@ -48,6 +70,7 @@ public class TransactionController {
                                                     @RequestParam BigDecimal amount,
                                                     Principal principal,
                                                     @RequestParam TransactionType type) {
+        OperationMetrics.type(type);
         if(principal == null){
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized access");
         }
@@ -63,6 +86,7 @@ public class TransactionController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Ledger does not belong to the user");
         }
 
+        lockAccounts(null, fromAccountId, toAccountId);
         Account fromAccount = null;
         if (fromAccountId != null) {
             fromAccount= accountDAO.findById(fromAccountId)
@@ -147,6 +171,9 @@ public class TransactionController {
             accountDAO.save(fromAccount);
             ledgerCategoryDAO.save(categoryComponent);
             ledgerDAO.save(ledger);
+            budgetAlertService.evaluate(user, expenseTransaction); //only budgets touched by this expense
+            eventPublisher.publishEvent(LedgerChange.transaction(user.getId(), expenseTransaction, LedgerChange.Action.CREATED));
+            eventPublisher.publishEvent(LedgerChange.account(user.getId(), fromAccount, LedgerChange.Action.UPDATED));
         } else if(type == TransactionType.INCOME){
             if(toAccount == null){
                 return ResponseEntity.badRequest().body("Income transaction must have toAccount");
@@ -173,6 +200,8 @@ public class TransactionController {
             accountDAO.save(toAccount);
             ledgerCategoryDAO.save(categoryComponent);
             ledgerDAO.save(ledger);
+            eventPublisher.publishEvent(LedgerChange.transaction(user.getId(), incomeTransaction, LedgerChange.Action.CREATED));
+            eventPublisher.publishEvent(LedgerChange.account(user.getId(), toAccount, LedgerChange.Action.UPDATED));
         } else if(type == TransactionType.TRANSFER){
             if(fromAccount != null && toAccount != null && fromAccount.getId().equals(toAccount.getId())){
                 return ResponseEntity.badRequest().body("fromAccount and toAccount cannot be the same");
@@ -198,6 +227,13 @@ public class TransactionController {
             }
             ledger.getTransactions().add(transferTransaction);
             ledgerDAO.save(ledger);
+            eventPublisher.publishEvent(LedgerChange.transaction(user.getId(), transferTransaction, LedgerChange.Action.CREATED));
+            if(fromAccount != null){
+                eventPublisher.publishEvent(LedgerChange.account(user.getId(), fromAccount, LedgerChange.Action.UPDATED));
+            }
+            if(toAccount != null){
+                eventPublisher.publishEvent(LedgerChange.account(user.getId(), toAccount, LedgerChange.Action.UPDATED));
+            }
 
         } else {
             return ResponseEntity.badRequest().body("Invalid transaction type");
@@ -218,15 +254,18 @@ public class TransactionController {
         if (owner == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized access");
         }
+        lockAccounts(id);
         Transaction transaction = transactionDAO.findById(id).orElse(null);
         if(transaction == null){
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Transaction not found");
         }
+        OperationMetrics.type(transaction.getType());
 
         Ledger ledger = transaction.getLedger();
         Account fromAccount = transaction.getFromAccount();
         Account toAccount = transaction.getToAccount();
         LedgerCategory categoryComponent = transaction.getCategory();
+        LedgerChange deletedChange = LedgerChange.transaction(owner.getId(), transaction, LedgerChange.Action.DELETED); //snapshot before unlinking
 
         if(ledger != null){
             ledger.getTransactions().remove(transaction);
@@ -252,6 +291,13 @@ public class TransactionController {
         }
 
         transactionDAO.delete(transaction);
+        eventPublisher.publishEvent(deletedChange);
+        if(fromAccount != null){
+            eventPublisher.publishEvent(LedgerChange.account(owner.getId(), fromAccount, LedgerChange.Action.UPDATED));
+        }
+        if(toAccount != null){
+            eventPublisher.publishEvent(LedgerChange.account(owner.getId(), toAccount, LedgerChange.Action.UPDATED));
+        }
         return ResponseEntity.ok("Transaction deleted successfully");
     }
 
@@ -266,7 +312,8 @@ public class TransactionController {
                                                   @RequestParam (required = false) String note,
                                                   @RequestParam (required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date, //ISO 8601 format: "YYYY-MM-DD"
                                                   @RequestParam (required = false) BigDecimal amount,
-                                                  @RequestParam (required = false) Long ledgerId) {
+                                                  @RequestParam (required = false) Long ledgerId,
+                                                  @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         if(principal == null){
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized access");
         }
@@ -275,10 +322,15 @@ public class TransactionController {
         if (owner == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized access");
         }
+        lockAccounts(id, fromAccountId, toAccountId); //before reading the balances the edit rewrites
         Transaction transaction = transactionDAO.findById(id).orElse(null);
         if(transaction == null){
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Transaction not found");
         }
+        OperationMetrics.type(transaction.getType());
+        if (!ETags.matches(ifMatch, transaction.getVersion())) {
+            return ETags.preconditionFailed(transaction.getVersion());
+        }
 
         Ledger oldLedger = transaction.getLedger();
         if(ledgerId != null){
@@ -303,6 +355,8 @@ public class TransactionController {
         }
 
         LedgerCategory oldCategory = transaction.getCategory();
+        LocalDate oldDate = transaction.getDate();
+        BigDecimal oldAmount = transaction.getAmount();
         if (categoryId != null) {
             LedgerCategory categoryComponent= ledgerCategoryDAO.findById(categoryId)
                     .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Category not found"));
@@ -484,8 +538,107 @@ public class TransactionController {
         transaction.setNote(note != null ? note : transaction.getNote());
 
         transactionDAO.save(transaction);
+        transactionDAO.flush(); //new version for the ETag, a concurrent change fails here with 409
+        budgetAlertService.evaluate(owner, transaction, oldCategory, oldDate, oldAmount);
+        eventPublisher.publishEvent(LedgerChange.transaction(owner.getId(), transaction, LedgerChange.Action.UPDATED)
+                .with("previousDate", oldDate)
+                .with("previousAmount", oldAmount)
+                .with("previousFromAccountId", prevFromAccount != null ? prevFromAccount.getId() : null)
+                .with("previousToAccountId", prevToAccount != null ? prevToAccount.getId() : null));
+        Set<Account> touchedAccounts = new LinkedHashSet<>();
+        touchedAccounts.add(prevFromAccount);
+        touchedAccounts.add(prevToAccount);
+        touchedAccounts.add(transaction.getFromAccount());
+        touchedAccounts.add(transaction.getToAccount());
+        touchedAccounts.remove(null);
+        for (Account account : touchedAccounts) {
+            eventPublisher.publishEvent(LedgerChange.account(owner.getId(), account, LedgerChange.Action.UPDATED));
+        }
+
+        return ETags.ok("Edited successfully", transaction.getVersion());
+
+    }
+
+    //locks the accounts of transaction transactionId (if any) and accountIds, in id order, before they are loaded:
+    //concurrent writes on the same accounts run one after the other on fresh balances
+    private void lockAccounts(Long transactionId, Long... accountIds) {
+        List<Long> candidates = new ArrayList<>(Arrays.asList(accountIds));
+        if (transactionId != null) {
+            for (Object[] row : transactionDAO.findAccountIdsById(transactionId)) {
+                candidates.add((Long) row[0]);
+                candidates.add((Long) row[1]);
+            }
+        }
+        Set<Long> ids = new TreeSet<>();
+        for (Long accountId : candidates) {
+            if (accountId != null) {
+                ids.add(accountId);
+            }
+        }
+        if (!ids.isEmpty()) {
+            accountDAO.lockAllById(ids);
+        }
+    }
 
-        return ResponseEntity.ok("Edited successfully");
+    //transactions of the user whose note contains every word of q (or a word starting with it), newest first,
+    //combined with optional filters. without q only the filters apply
+    @GetMapping("/search")
+    @Transactional(readOnly = true)
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<List<Transaction>> searchTransactions(@RequestParam(required = false) String q,
+                                                                @RequestParam(required = false) BigDecimal minAmount,
+                                                                @RequestParam(required = false) BigDecimal maxAmount,
+                                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+                                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+                                                                @RequestParam(required = false) Long ledgerId,
+                                                                @RequestParam(required = false) Long accountId,
+                                                                @RequestParam(required = false) Long categoryId,
+                                                                @RequestParam(defaultValue = "50") int limit,
+                                                                Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        User user = userDAO.findByUsername(principal.getName());
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        PageRequest page = PageRequest.of(0, Math.max(1, Math.min(limit, 200)));
+        if (q == null || q.isBlank()) {
+            return ResponseEntity.ok(transactionDAO.search(user.getId(), minAmount, maxAmount, startDate, endDate,
+                    ledgerId, accountId, categoryId, page));
+        }
+        Set<Long> ids = searchIndex.search(user.getId(), q);
+        if (ids.isEmpty()) {
+            return ResponseEntity.ok(List.of());
+        }
+        //a common word can match most of the user's notes: the ids are bound chunk-size at a time, each chunk gives
+        //its newest page and the pages are merged
+        List<Long> candidates = new ArrayList<>(ids);
+        List<Transaction> found = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i += searchChunkSize) {
+            found.addAll(transactionDAO.searchIn(candidates.subList(i, Math.min(i + searchChunkSize, candidates.size())),
+                    user.getId(), minAmount, maxAmount, startDate, endDate, ledgerId, accountId, categoryId, page));
+        }
+        if (candidates.size() > searchChunkSize) {
+            found.sort(Comparator.comparing(Transaction::getDate).thenComparing(Transaction::getId).reversed());
+            found = found.subList(0, Math.min(found.size(), page.getPageSize()));
+        }
+        return ResponseEntity.ok(found);
+    }
 
+    //drops the note index of the user, rebuilt from the database on the next search
+    @PostMapping("/search/reindex")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<String> reindexTransactions(Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized access");
+        }
+        User user = userDAO.findByUsername(principal.getName());
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized access");
+        }
+        searchIndex.rebuild(user.getId());
+        return ResponseEntity.ok("Search index rebuilt");
     }
 }
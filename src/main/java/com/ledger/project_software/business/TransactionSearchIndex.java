@@ -0,0 +1,193 @@
+package com.ledger.project_software.business;
+
+import com.ledger.project_software.orm.TransactionDAO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+//inverted index of the transaction notes, one per user: term -> ids of the transactions whose note contains it.
+//built with one query on the first search of the user, then kept up to date from the committed LedgerChange
+//events (created/edited notes are re-tokenized, deleted transactions removed). users are evicted in LRU order
+//above ledger.search.max-users and simply rebuilt on their next search, rebuild() drops one user or everyone.
+//terms are lowercase without accents, a query term matches every term starting with it ("ristor" -> "ristorante")
+@Service
+public class TransactionSearchIndex {
+    private final TransactionDAO transactionDAO;
+    private final int maxUsers;
+
+    //guarded by this
+    private final LruMap<Long, UserIndex> indexes = new LruMap<>();
+    //bumped by every transaction change of the user: a build that raced with a change is used once but not kept
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+    private long generation; //bumped by rebuildAll, guarded by this
+
+    public TransactionSearchIndex(TransactionDAO transactionDAO,
+                                  @Value("${ledger.search.max-users:1000}") int maxUsers) {
+        this.transactionDAO = transactionDAO;
+        this.maxUsers = maxUsers;
+    }
+
+    //terms of one user. guarded by itself: events and searches of the same user can overlap
+    static final class UserIndex {
+        private final TreeMap<String, Set<Long>> postings = new TreeMap<>();
+        private final Map<Long, String[]> termsById = new HashMap<>();
+
+        synchronized void put(Long id, String note) {
+            remove(id);
+            String[] terms = tokenize(note).toArray(new String[0]);
+            if (terms.length == 0) {
+                return;
+            }
+            termsById.put(id, terms);
+            for (String term : terms) {
+                postings.computeIfAbsent(term, t -> new HashSet<>()).add(id);
+            }
+        }
+
+        synchronized void remove(Long id) {
+            String[] terms = termsById.remove(id);
+            if (terms == null) {
+                return;
+            }
+            for (String term : terms) {
+                Set<Long> ids = postings.get(term);
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+        }
+
+        //ids containing every query term (as a prefix of one of their terms)
+        synchronized Set<Long> match(List<String> queryTerms) {
+            Set<Long> result = null;
+            for (String queryTerm : queryTerms) {
+                Set<Long> matching = new HashSet<>();
+                for (Set<Long> ids : postings.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, false).values()) {
+                    matching.addAll(ids);
+                }
+                if (result == null) {
+                    result = matching;
+                } else {
+                    result.retainAll(matching);
+                }
+                if (result.isEmpty()) {
+                    break;
+                }
+            }
+            return result != null ? result : Set.of();
+        }
+
+        synchronized int size() {
+            return termsById.size();
+        }
+    }
+
+    //distinct terms of a text: lowercase, accents removed, split on anything that is not a letter or a digit
+    static Set<String> tokenize(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null || text.isBlank()) {
+            return terms;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+        for (String term : normalized.split("[^\\p{L}\\p{N}]+")) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    //ids of the user's transactions whose note matches every term of query
+    public Set<Long> search(Long userId, String query) {
+        List<String> terms = new ArrayList<>(tokenize(query));
+        if (terms.isEmpty()) {
+            return Set.of();
+        }
+        return index(userId).match(terms);
+    }
+
+    private UserIndex index(Long userId) {
+        long version;
+        long startGeneration;
+        synchronized (this) {
+            UserIndex cached = indexes.get(userId);
+            if (cached != null) {
+                return cached;
+            }
+            version = versions.getOrDefault(userId, 0L);
+            startGeneration = generation;
+        }
+
+        UserIndex built = new UserIndex();
+        for (Object[] row : transactionDAO.findNotesByUserId(userId)) {
+            built.put((Long) row[0], (String) row[1]);
+        }
+
+        synchronized (this) {
+            if (versions.getOrDefault(userId, 0L) == version && generation == startGeneration
+                    && !indexes.containsKey(userId)) {
+                indexes.put(userId, built);
+                indexes.trimTo(maxUsers);
+            }
+        }
+        return built;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLedgerChange(LedgerChange change) {
+        if (change.userId() == null) {
+            return;
+        }
+        if (change.type() == LedgerChange.Type.TRANSACTION && change.id() != null) {
+            UserIndex index;
+            synchronized (this) {
+                versions.merge(change.userId(), 1L, Long::sum);
+                index = indexes.get(change.userId());
+            }
+            if (index == null) {
+                return; //built from the database on the next search
+            }
+            if (change.action() == LedgerChange.Action.DELETED) {
+                index.remove(change.id());
+            } else {
+                index.put(change.id(), (String) change.data().get("note"));
+            }
+        } else if ((change.type() == LedgerChange.Type.LEDGER || change.type() == LedgerChange.Type.CATEGORY)
+                && change.action() != LedgerChange.Action.CREATED) {
+            //ledger deletes and category merges move or remove transactions without one event per transaction
+            rebuild(change.userId());
+        }
+    }
+
+    //drops the index of the user, rebuilt from the database on the next search
+    public synchronized void rebuild(Long userId) {
+        versions.merge(userId, 1L, Long::sum);
+        indexes.remove(userId);
+    }
+
+    public synchronized void rebuildAll() {
+        generation++;
+        indexes.clear();
+    }
+
+    public synchronized int getIndexedUsers() {
+        return indexes.size();
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("users", indexes.size());
+        stats.put("maxUsers", maxUsers);
+        stats.put("documents", indexes.values().stream().mapToInt(UserIndex::size).sum());
+        return stats;
+    }
+}
@@ -0,0 +1,79 @@
+package com.ledger.project_software.business;
+
+import com.ledger.project_software.domain.User;
+import com.ledger.project_software.orm.UserDAO;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//change version of each user's data, bumped by every committed LedgerChange of the user. the ETag of a read
+//endpoint is derived from it, so an unchanged version means an unchanged response and a poll can be answered
+//with 304 without touching the database. versions live in memory: the boot id in the tag invalidates every
+//tag handed out before a restart. the day is part of the tag too, responses defaulting to "this month"
+//or showing what is active today change at midnight without any write
+@Service
+public class UserChangeVersions {
+    private final UserDAO userDAO;
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+    private final long bootMillis = Instant.now().truncatedTo(ChronoUnit.SECONDS).toEpochMilli();
+
+    private final Map<Long, Stamp> stamps = new ConcurrentHashMap<>();
+    //username -> user id, so that a 304 needs no query at all. renames are evicted from the USER change
+    private final Map<String, Long> userIds = new ConcurrentHashMap<>();
+
+    public UserChangeVersions(UserDAO userDAO) {
+        this.userDAO = userDAO;
+    }
+
+    public record Stamp(long version, long modifiedMillis) {}
+
+    //null when there is no such user
+    public Long userId(String username) {
+        Long id = userIds.get(username);
+        if (id == null) {
+            User user = userDAO.findByUsername(username);
+            if (user == null) {
+                return null;
+            }
+            id = user.getId();
+            userIds.putIfAbsent(username, id);
+        }
+        return id;
+    }
+
+    public Stamp stamp(Long userId) {
+        return stamps.getOrDefault(userId, new Stamp(0, bootMillis));
+    }
+
+    public String eTag(Stamp stamp) {
+        return "\"" + bootId + "-" + stamp.version() + "-" + LocalDate.now().toEpochDay() + "\"";
+    }
+
+    public long lastModified(Stamp stamp) {
+        long startOfToday = LocalDate.now().atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return Math.max(stamp.modifiedMillis(), startOfToday);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLedgerChange(LedgerChange change) {
+        if (change.userId() == null) {
+            return;
+        }
+        //Last-Modified has a one second resolution: every change moves it at least one second forward,
+        //or a client that read in the same second would keep getting 304 from If-Modified-Since
+        long now = Instant.now().truncatedTo(ChronoUnit.SECONDS).toEpochMilli();
+        stamps.compute(change.userId(), (id, old) -> {
+            Stamp previous = old != null ? old : new Stamp(0, bootMillis);
+            return new Stamp(previous.version() + 1, Math.max(now, previous.modifiedMillis() + 1000));
+        });
+        if (change.type() == LedgerChange.Type.USER && change.data().get("previousUsername") instanceof String previous) {
+            userIds.remove(previous);
+        }
+    }
+}
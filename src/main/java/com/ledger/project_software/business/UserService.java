@@ -7,6 +7,7 @@ import com.ledger.project_software.domain.User;
 import com.ledger.project_software.orm.AccountDAO;
 import com.ledger.project_software.orm.LedgerDAO;
 import com.ledger.project_software.orm.UserDAO;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,12 +22,15 @@ public class UserService {
     private final AccountDAO accountDAO;
     private final LedgerDAO ledgerDAO;
     private final LedgerService ledgerService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public UserService(UserDAO userDAO, AccountDAO accountDAO, LedgerDAO ledgerDAO, LedgerService ledgerService) {
+    public UserService(UserDAO userDAO, AccountDAO accountDAO, LedgerDAO ledgerDAO, LedgerService ledgerService,
+                       ApplicationEventPublisher eventPublisher) {
         this.userDAO = userDAO;
         this.accountDAO = accountDAO;
         this.ledgerDAO = ledgerDAO;
         this.ledgerService = ledgerService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
@@ -49,6 +53,7 @@ public class UserService {
         User user = new User(username, PasswordUtils.hash(password));
         userDAO.save(user);
         ledgerService.createLedger("Default Ledger", user);
+        eventPublisher.publishEvent(LedgerChange.user(user.getId(), user, LedgerChange.Action.CREATED));
         return user;
     }
 
@@ -65,6 +70,7 @@ public class UserService {
     @Transactional
     public void updateUserInfo(User user, String username,String password) {
         validateUser(user);
+        String previousUsername = user.getUsername();
         if(username != null && !username.isEmpty()){
             if(userDAO.findByUsername(username) != null){
                 throw new IllegalArgumentException("Username already exists");
@@ -75,6 +81,11 @@ public class UserService {
             user.setPassword(PasswordUtils.hash(password));
         }
         userDAO.save(user);
+        if (!user.getUsername().equals(previousUsername)) {
+            //the old name may be taken by someone else from now on
+            eventPublisher.publishEvent(LedgerChange.user(user.getId(), user, LedgerChange.Action.UPDATED)
+                    .with("previousUsername", previousUsername));
+        }
     }
 
     public Map<String, Object> getUserAssets(User user) {
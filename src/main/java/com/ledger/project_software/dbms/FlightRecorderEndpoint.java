@@ -0,0 +1,141 @@
+package com.ledger.project_software.dbms;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//on-demand flight recording: POST /actuator/jfr/start, POST /actuator/jfr/stop, GET /actuator/jfr/dump (.jfr file),
+//GET /actuator/jfr for the state, DELETE /actuator/jfr to drop it. the recording uses the JDK "profile" settings
+//plus every ledger.* event (DomainEvents, OperationEvents) and is bounded by ledger.jfr.max-age-seconds and
+//ledger.jfr.max-bytes. one recording at a time. exposed with the "ops" profile only, on the loopback management port
+@Component
+@Endpoint(id = "jfr")
+public class FlightRecorderEndpoint {
+    private static final String[] LEDGER_EVENTS = {
+            "ledger.Operation", "ledger.HibernateFlush", "ledger.BudgetEvaluation",
+            "ledger.PasswordHash", "ledger.ScheduleCalculation"
+    };
+
+    private final Duration maxAge;
+    private final long maxBytes;
+    private Recording recording; //guarded by this
+
+    public FlightRecorderEndpoint(@Value("${ledger.jfr.max-age-seconds:600}") long maxAgeSeconds,
+                                  @Value("${ledger.jfr.max-bytes:52428800}") long maxBytes) {
+        this.maxAge = Duration.ofSeconds(maxAgeSeconds);
+        this.maxBytes = maxBytes;
+    }
+
+    @ReadOperation
+    public synchronized Map<String, Object> state() {
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("available", FlightRecorder.isAvailable());
+        state.put("state", recording != null ? recording.getState().name() : "NONE");
+        if (recording != null) {
+            state.put("startTime", recording.getStartTime());
+            state.put("stopTime", recording.getStopTime());
+            state.put("sizeBytes", recording.getSize());
+        }
+        state.put("maxAgeSeconds", maxAge.toSeconds());
+        state.put("maxBytes", maxBytes);
+        return state;
+    }
+
+    @WriteOperation
+    public synchronized WebEndpointResponse<Map<String, Object>> control(@Selector String action) {
+        switch (action) {
+            case "start" -> {
+                if (!FlightRecorder.isAvailable()) {
+                    return new WebEndpointResponse<>(state(), WebEndpointResponse.STATUS_SERVICE_UNAVAILABLE);
+                }
+                if (recording != null && recording.getState() == RecordingState.RUNNING) {
+                    return new WebEndpointResponse<>(state(), WebEndpointResponse.STATUS_BAD_REQUEST);
+                }
+                close();
+                recording = newRecording();
+                recording.start();
+            }
+            case "stop" -> {
+                if (recording == null || recording.getState() != RecordingState.RUNNING) {
+                    return new WebEndpointResponse<>(state(), WebEndpointResponse.STATUS_BAD_REQUEST);
+                }
+                recording.stop(); //kept for the dump
+            }
+            default -> {
+                return new WebEndpointResponse<>(state(), WebEndpointResponse.STATUS_NOT_FOUND);
+            }
+        }
+        return new WebEndpointResponse<>(state(), WebEndpointResponse.STATUS_OK);
+    }
+
+    //what was recorded so far, also while the recording runs
+    @ReadOperation(produces = "application/octet-stream")
+    public synchronized WebEndpointResponse<Resource> dump(@Selector String name) {
+        if (!"dump".equals(name) || recording == null
+                || (recording.getState() != RecordingState.RUNNING && recording.getState() != RecordingState.STOPPED)) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        try {
+            Path file = Files.createTempFile("ledger-", ".jfr");
+            try {
+                recording.dump(file);
+                return new WebEndpointResponse<>(new ByteArrayResource(Files.readAllBytes(file)), WebEndpointResponse.STATUS_OK);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DeleteOperation
+    public synchronized Map<String, Object> discard() {
+        close();
+        return state();
+    }
+
+    private Recording newRecording() {
+        Recording created;
+        try {
+            created = new Recording(Configuration.getConfiguration("profile"));
+        } catch (IOException | ParseException e) {
+            created = new Recording();
+        }
+        for (String event : LEDGER_EVENTS) {
+            created.enable(event).withThreshold(Duration.ZERO);
+        }
+        created.setName("ledger-" + Instant.now());
+        created.setMaxAge(maxAge);
+        created.setMaxSize(maxBytes);
+        created.setToDisk(true);
+        return created;
+    }
+
+    private void close() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.ledger.project_software.dbms;
+
+import com.ledger.project_software.business.CashFlowForecastService;
+import com.ledger.project_software.business.ConditionalGetFilter;
+import com.ledger.project_software.business.OperationMetrics;
+import com.ledger.project_software.business.TransactionAnalyticsCache;
+import com.ledger.project_software.business.TransactionSearchIndex;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+//application metrics next to the actuator defaults (hikaricp.connections.*, jvm.*, http.server.requests):
+//operation timers and per-operation statement/row summaries (OperationMetrics), and the occupancy of the in-memory
+//caches as ledger.cache.entries{cache} and ledger.cache.bytes{cache} gauges
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+    private final OperationMetrics operationMetrics;
+
+    public MetricsConfig(OperationMetrics operationMetrics) {
+        this.operationMetrics = operationMetrics;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(operationMetrics);
+    }
+
+    //static: needed while the EntityManagerFactory is built, before this configuration
+    @Bean
+    public static HibernatePropertiesCustomizer operationMetricsHibernateHooks() {
+        return properties -> {
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, OperationMetrics.StatementListener.class.getName());
+            properties.put(AvailableSettings.INTERCEPTOR, new OperationMetrics.RowInterceptor());
+        };
+    }
+
+    @Bean
+    public MeterBinder cacheMetrics(ConditionalGetFilter conditionalGetFilter,
+                                    TransactionSearchIndex searchIndex,
+                                    TransactionAnalyticsCache analyticsCache,
+                                    CashFlowForecastService forecastService) {
+        return registry -> {
+            Gauge.builder("ledger.cache.entries", conditionalGetFilter, ConditionalGetFilter::getCachedResponses)
+                    .tag("cache", "responses").register(registry);
+            Gauge.builder("ledger.cache.entries", searchIndex, TransactionSearchIndex::getIndexedUsers)
+                    .tag("cache", "search").register(registry);
+            Gauge.builder("ledger.cache.entries", analyticsCache, TransactionAnalyticsCache::getCachedUsers)
+                    .tag("cache", "analytics").register(registry);
+            Gauge.builder("ledger.cache.bytes", analyticsCache, TransactionAnalyticsCache::getEstimatedBytes)
+                    .tag("cache", "analytics").baseUnit("bytes").register(registry);
+            Gauge.builder("ledger.cache.entries", forecastService, CashFlowForecastService::getCachedSchedules)
+                    .tag("cache", "forecast-schedules").register(registry);
+        };
+    }
+}
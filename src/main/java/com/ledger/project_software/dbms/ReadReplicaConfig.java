@@ -0,0 +1,79 @@
+package com.ledger.project_software.dbms;
+
+import com.ledger.project_software.business.ReadYourWrites;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+
+//read/write split, switched on with ledger.read-replica.enabled=true (profile "read-replica"): two Hikari pools,
+//spring.datasource.* for the primary and ledger.read-replica.datasource.* for the replica, behind the routing
+//DataSource that JPA uses. the read endpoints are @Transactional(readOnly = true) and run on the replica within
+//ledger.read-replica.max-staleness-millis, the rest stays on the primary
+@Configuration
+@ConditionalOnProperty(name = "ledger.read-replica.enabled", havingValue = "true")
+public class ReadReplicaConfig implements WebMvcConfigurer {
+    private final ReadYourWrites readYourWrites;
+
+    public ReadReplicaConfig(ReadYourWrites readYourWrites) {
+        this.readYourWrites = readYourWrites;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(readYourWrites);
+    }
+
+    //static: the DataSource beans must not need this configuration, which depends on the repositories
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public static HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("ledger.read-replica.datasource")
+    public static HikariDataSource replicaDataSource() {
+        return DataSourceBuilder.create().type(HikariDataSource.class).build();
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public static ReplicaLagMonitor replicaLagMonitor(
+            @Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") DataSource replica,
+            @Value("${ledger.read-replica.max-staleness-millis:5000}") long maxStalenessMillis,
+            @Value("${ledger.read-replica.heartbeat-millis:1000}") long heartbeatMillis) {
+        return new ReplicaLagMonitor(primary, replica, maxStalenessMillis, heartbeatMillis);
+    }
+
+    //the physical connection is taken at the first statement, when the transaction is known to be read-only
+    @Bean
+    @Primary
+    public static DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                        @Qualifier("replicaDataSource") DataSource replica,
+                                        ReplicaLagMonitor replicaLagMonitor) {
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replica, replicaLagMonitor));
+    }
+
+    //connections go back to their pool at the end of each transaction instead of the end of the request (open
+    //session in view): the next transaction of the same request is routed again
+    @Bean
+    public static HibernatePropertiesCustomizer releaseConnectionsAfterTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+}
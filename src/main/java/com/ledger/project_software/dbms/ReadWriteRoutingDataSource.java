@@ -0,0 +1,41 @@
+package com.ledger.project_software.dbms;
+
+import com.ledger.project_software.business.ReadYourWrites;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+//primary or replica for each physical connection. used behind a LazyConnectionDataSourceProxy, so the choice is made
+//at the first statement, when the transaction is set up: read-only transactions go to the replica while it is usable
+//(ReplicaLagMonitor) and shows the last write of the user the thread works for (ReadYourWrites), everything else,
+//work outside a transaction included, goes to the primary
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private final ReplicaLagMonitor lagMonitor;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor) {
+        this.lagMonitor = lagMonitor;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return route();
+    }
+
+    public Route route() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || !lagMonitor.isUsable()) {
+            return Route.PRIMARY;
+        }
+        Long writtenAt = ReadYourWrites.writtenAt();
+        return writtenAt == null || lagMonitor.shows(writtenAt) ? Route.REPLICA : Route.PRIMARY;
+    }
+}
@@ -0,0 +1,44 @@
+package com.ledger.project_software.dbms;
+
+import com.ledger.project_software.business.BalanceReconciliationService;
+import com.ledger.project_software.business.BalanceReconciliationService.ReconciliationReport;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.OptionalParameter;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.stereotype.Component;
+
+//balance reconciliation on demand: GET /actuator/reconciliation for the report of the last run,
+//POST /actuator/reconciliation to run it now ({"repair": true} to correct the positions too). 409 while a run is going
+//exposed with the "ops" profile only, on the loopback management port
+@Component
+@Endpoint(id = "reconciliation")
+public class ReconciliationEndpoint {
+    private static final int STATUS_CONFLICT = 409;
+
+    private final BalanceReconciliationService reconciliationService;
+
+    public ReconciliationEndpoint(BalanceReconciliationService reconciliationService) {
+        this.reconciliationService = reconciliationService;
+    }
+
+    @ReadOperation
+    public WebEndpointResponse<ReconciliationReport> lastReport() {
+        ReconciliationReport report = reconciliationService.getLastReport();
+        if (report == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        return new WebEndpointResponse<>(report, WebEndpointResponse.STATUS_OK);
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<ReconciliationReport> run(@OptionalParameter Boolean repair) {
+        try {
+            return new WebEndpointResponse<>(reconciliationService.reconcile(Boolean.TRUE.equals(repair)),
+                    WebEndpointResponse.STATUS_OK);
+        } catch (IllegalStateException e) {
+            return new WebEndpointResponse<>(reconciliationService.getLastReport(), STATUS_CONFLICT);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.ledger.project_software.dbms;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+//replication lag from a heartbeat row: the time of this host is written on the primary every heartbeat-millis and
+//read back from the replica, which is "as of" the beat it shows. the replica is usable while that beat is at most
+//max-staleness old; a replica that cannot be read, or has no beat yet, is not. hosts are expected to keep their
+//clocks in sync (beats of other instances are compared with this clock)
+public class ReplicaLagMonitor implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+    private static final long UNKNOWN = -1;
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final long maxStalenessMillis;
+    private final long heartbeatMillis;
+    private volatile long replicaAsOfMillis = UNKNOWN;
+    private ScheduledExecutorService scheduler;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, long maxStalenessMillis, long heartbeatMillis) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.maxStalenessMillis = maxStalenessMillis;
+        this.heartbeatMillis = heartbeatMillis;
+    }
+
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        primary.execute("CREATE TABLE IF NOT EXISTS replica_heartbeat (id INT PRIMARY KEY, beat_millis BIGINT NOT NULL)");
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "ledger-replica-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::beat, 0, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    //writes a beat on the primary, then reads what the replica shows
+    public void beat() {
+        long now = System.currentTimeMillis();
+        try {
+            if (primary.update("UPDATE replica_heartbeat SET beat_millis = ? WHERE id = 1", now) == 0) {
+                primary.update("INSERT INTO replica_heartbeat (id, beat_millis) VALUES (1, ?)", now);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Replica heartbeat not written", e);
+        }
+        try {
+            Long asOf = replica.queryForObject("SELECT beat_millis FROM replica_heartbeat WHERE id = 1", Long.class);
+            replicaAsOfMillis = asOf != null ? asOf : UNKNOWN;
+        } catch (DataAccessException e) {
+            if (replicaAsOfMillis != UNKNOWN) {
+                log.warn("Replica not readable, reads go to the primary", e);
+            }
+            replicaAsOfMillis = UNKNOWN;
+        }
+    }
+
+    public boolean isUsable() {
+        long asOf = replicaAsOfMillis;
+        return asOf != UNKNOWN && System.currentTimeMillis() - asOf <= maxStalenessMillis;
+    }
+
+    //true when a write committed at writtenAtMillis has reached the replica
+    public boolean shows(long writtenAtMillis) {
+        return replicaAsOfMillis >= writtenAtMillis;
+    }
+
+    //-1 when unknown
+    public long getLagMillis() {
+        long asOf = replicaAsOfMillis;
+        return asOf == UNKNOWN ? UNKNOWN : Math.max(0, System.currentTimeMillis() - asOf);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.ledger.project_software.dbms;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+//batch jobs (statement close, ...) run in-process; ledger.scheduling.enabled=false turns them off, e.g. on replicas
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "ledger.scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+}
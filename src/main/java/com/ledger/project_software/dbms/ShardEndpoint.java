@@ -0,0 +1,59 @@
+package com.ledger.project_software.dbms;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.OptionalParameter;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//sharding on demand: GET /actuator/shards for the users per shard, POST /actuator/shards {"userId": 7, "shard": 1}
+//to move a user, POST /actuator/shards/rebalance {"maxMoves": 10} to even the shards out. a move blocks until done
+//exposed with the "ops" profile only, on the loopback management port
+@Endpoint(id = "shards")
+public class ShardEndpoint {
+    private static final int STATUS_CONFLICT = 409;
+
+    private final UserDirectory directory;
+    private final ShardMigrator migrator;
+
+    public ShardEndpoint(UserDirectory directory, ShardMigrator migrator) {
+        this.directory = directory;
+        this.migrator = migrator;
+    }
+
+    @ReadOperation
+    public Map<String, Object> shards() {
+        Map<String, Object> shards = new LinkedHashMap<>();
+        shards.put("shardCount", directory.getShardCount());
+        shards.put("usersPerShard", directory.usersPerShard());
+        return shards;
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Object> move(Long userId, Integer shard) {
+        try {
+            return new WebEndpointResponse<>(migrator.move(userId, shard), WebEndpointResponse.STATUS_OK);
+        } catch (IllegalArgumentException e) {
+            return new WebEndpointResponse<>(e.getMessage(), WebEndpointResponse.STATUS_BAD_REQUEST);
+        } catch (IllegalStateException e) {
+            return new WebEndpointResponse<>(e.getMessage(), STATUS_CONFLICT);
+        }
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Object> run(@Selector String action, @OptionalParameter Integer maxMoves) {
+        if (!"rebalance".equals(action)) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        try {
+            return new WebEndpointResponse<>(migrator.rebalance(maxMoves != null ? maxMoves : Integer.MAX_VALUE),
+                    WebEndpointResponse.STATUS_OK);
+        } catch (IllegalStateException e) {
+            return new WebEndpointResponse<>(e.getMessage(), STATUS_CONFLICT);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.ledger.project_software.dbms;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+//moves all the data of a user from its shard to another one, ids unchanged (they are unique across shards).
+//the user is marked moving in the directory, so its requests get 503, and after the grace period (longer than the
+//directory cache ttl and than a request) the rows are copied to the target in one transaction, counted again there
+//and the directory switched; only then, after another grace period, are they deleted from the source.
+//a failure before the switch leaves the user where it was. the nightly jobs do not look at the directory: run
+//moves outside their window
+public class ShardMigrator {
+    private static final Logger log = LoggerFactory.getLogger(ShardMigrator.class);
+    private static final String ACCOUNTS = "SELECT id FROM account WHERE owner_id = ?";
+    private static final String LEDGERS = "SELECT id FROM ledger WHERE owner_id = ?";
+    private static final String TRANSACTIONS = "SELECT id FROM transaction WHERE ledger_id IN (" + LEDGERS + ")" +
+            " OR from_account_id IN (" + ACCOUNTS + ") OR to_account_id IN (" + ACCOUNTS + ")";
+
+    //rows of a user in one table: the condition takes the user id for each ?. selfReference is nulled before a
+    //delete, the rows of the same table may point to each other
+    private record Part(String table, String condition, String key, String selfReference) {
+        Part(String table, String condition) {
+            this(table, condition, "id", null);
+        }
+
+        int parameters() {
+            return (int) condition.chars().filter(c -> c == '?').count();
+        }
+    }
+
+    //parents first: copied in this order, deleted in the reverse one
+    private static final List<Part> PARTS = List.of(
+            new Part("users", "id = ?"),
+            new Part("account", "owner_id = ?"),
+            new Part("basic_account", "id IN (" + ACCOUNTS + ")"),
+            new Part("credit_account", "id IN (" + ACCOUNTS + ")"),
+            new Part("loan_account", "id IN (" + ACCOUNTS + ")"),
+            new Part("borrowing_account", "id IN (" + ACCOUNTS + ")"),
+            new Part("lending_account", "id IN (" + ACCOUNTS + ")"),
+            new Part("ledger", "owner_id = ?"),
+            new Part("ledger_category", "ledger_id IN (" + LEDGERS + ")", "id", "parent_id"),
+            new Part("transaction", "id IN (" + TRANSACTIONS + ")"),
+            new Part("expense", "id IN (" + TRANSACTIONS + ")"),
+            new Part("income", "id IN (" + TRANSACTIONS + ")"),
+            new Part("transfer", "id IN (" + TRANSACTIONS + ")"),
+            new Part("installment_plan", "linked_account_id IN (" + ACCOUNTS + ")"),
+            new Part("budget", "owner_id = ?"),
+            new Part("recurring_transaction", "owner_id = ?"),
+            new Part("credit_statement", "account_id IN (" + ACCOUNTS + ")"),
+            new Part("balance_checkpoint", "account_id IN (" + ACCOUNTS + ")"),
+            new Part("net_worth_point", "user_id = ?"),
+            new Part("reconciliation_baseline", "account_id IN (" + ACCOUNTS + ")", "account_id", null));
+
+    private final ShardPools pools;
+    private final UserDirectory directory;
+    private final long graceMillis;
+    private final int batchSize;
+
+    public ShardMigrator(ShardPools pools, UserDirectory directory, long graceMillis, int batchSize) {
+        this.pools = pools;
+        this.directory = directory;
+        this.graceMillis = Math.max(graceMillis, directory.getTtlMillis());
+        this.batchSize = batchSize;
+    }
+
+    //rows copied per table
+    public record MoveResult(Long userId, int fromShard, int toShard, Map<String, Integer> rows) {}
+
+    public record RebalanceResult(List<MoveResult> moves, Map<Integer, Long> usersPerShard) {}
+
+    //one move at a time
+    public synchronized MoveResult move(Long userId, int targetShard) {
+        UserDirectory.Entry entry = directory.lookup(userId);
+        if (entry == null) {
+            throw new IllegalArgumentException("User " + userId + " is not in the directory");
+        }
+        pools.get(targetShard); //no such shard: IllegalArgumentException
+        if (entry.shard() == targetShard) {
+            throw new IllegalArgumentException("User " + userId + " is already on shard " + targetShard);
+        }
+        if (entry.moving()) {
+            throw new IllegalStateException("User " + userId + " is already being moved");
+        }
+        JdbcTemplate source = new JdbcTemplate(pools.get(entry.shard()));
+        JdbcTemplate target = new JdbcTemplate(pools.get(targetShard));
+
+        long started = System.currentTimeMillis();
+        directory.setMoving(entry, true);
+        Map<String, Integer> rows;
+        try {
+            pause(); //requests routed before the flag was seen end, cached directory entries expire
+            rows = inTransaction(pools.get(targetShard), () -> {
+                delete(target, userId); //leftovers of an earlier move away from the target
+                Map<String, Integer> copied = copy(source, target, userId);
+                verify(source, target, userId, copied);
+                return copied;
+            });
+            directory.moveTo(entry, targetShard);
+        } catch (RuntimeException e) {
+            directory.setMoving(entry, false);
+            throw e;
+        }
+
+        //the old copy is no longer routed to, but a request may have read the old directory entry just before
+        pause();
+        try {
+            inTransaction(pools.get(entry.shard()), () -> {
+                delete(source, userId);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            //the user is served by the target already, what is left is only dead rows, removed by a move back
+            log.error("User {} moved to shard {} but not deleted from shard {}", userId, targetShard, entry.shard(), e);
+        }
+        log.info("Moved user {} from shard {} to shard {} in {} ms: {}",
+                userId, entry.shard(), targetShard, System.currentTimeMillis() - started, rows);
+        return new MoveResult(userId, entry.shard(), targetShard, rows);
+    }
+
+    //moves users from the fullest shard to the emptiest one until they differ by at most one user (or maxMoves).
+    //users, not rows: a first cut, the per-shard data volume is not known without counting all the tables
+    public RebalanceResult rebalance(int maxMoves) {
+        List<MoveResult> moves = new ArrayList<>();
+        while (moves.size() < maxMoves) {
+            Map<Integer, Long> counts = directory.usersPerShard();
+            int fullest = Collections.max(counts.entrySet(), Map.Entry.comparingByValue()).getKey();
+            int emptiest = Collections.min(counts.entrySet(), Map.Entry.comparingByValue()).getKey();
+            if (counts.get(fullest) - counts.get(emptiest) <= 1) {
+                break;
+            }
+            List<Long> candidates = directory.movableUsers(fullest, 1);
+            if (candidates.isEmpty()) {
+                break;
+            }
+            moves.add(move(candidates.get(0), emptiest));
+        }
+        return new RebalanceResult(moves, directory.usersPerShard());
+    }
+
+    private Map<String, Integer> copy(JdbcTemplate source, JdbcTemplate target, Long userId) {
+        Map<String, Integer> copied = new LinkedHashMap<>();
+        for (Part part : PARTS) {
+            List<Object[]> batch = new ArrayList<>();
+            String[] insert = new String[1];
+            int[] count = new int[1];
+            source.query("SELECT * FROM " + part.table() + " WHERE " + part.condition() + " ORDER BY " + part.key(),
+                    rs -> {
+                        ResultSetMetaData metaData = rs.getMetaData();
+                        int columns = metaData.getColumnCount();
+                        if (insert[0] == null) {
+                            insert[0] = insertStatement(part.table(), metaData);
+                        }
+                        Object[] values = new Object[columns];
+                        for (int i = 0; i < columns; i++) {
+                            values[i] = rs.getObject(i + 1);
+                        }
+                        batch.add(values);
+                        count[0]++;
+                        if (batch.size() == batchSize) {
+                            target.batchUpdate(insert[0], batch);
+                            batch.clear();
+                        }
+                    }, arguments(part, userId));
+            if (!batch.isEmpty()) {
+                target.batchUpdate(insert[0], batch);
+            }
+            copied.put(part.table(), count[0]);
+        }
+        return copied;
+    }
+
+    private static String insertStatement(String table, ResultSetMetaData metaData) throws SQLException {
+        List<String> columns = new ArrayList<>();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            columns.add(metaData.getColumnLabel(i));
+        }
+        return "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+    }
+
+    //the target holds what was copied and the source did not change meanwhile: otherwise the target rolls back
+    private void verify(JdbcTemplate source, JdbcTemplate target, Long userId, Map<String, Integer> copied) {
+        for (Part part : PARTS) {
+            int expected = copied.get(part.table());
+            int onTarget = count(target, part, userId);
+            int onSource = count(source, part, userId);
+            if (onTarget != expected || onSource != expected) {
+                throw new IllegalStateException("Move of user " + userId + " aborted, " + part.table() + ": copied "
+                        + expected + ", " + onTarget + " on the target, " + onSource + " on the source");
+            }
+        }
+    }
+
+    private static int count(JdbcTemplate jdbc, Part part, Long userId) {
+        Integer count = jdbc.queryForObject("SELECT COUNT(*) FROM " + part.table() + " WHERE " + part.condition(),
+                Integer.class, arguments(part, userId));
+        return count != null ? count : 0;
+    }
+
+    private static void delete(JdbcTemplate jdbc, Long userId) {
+        List<Part> reversed = new ArrayList<>(PARTS);
+        Collections.reverse(reversed);
+        for (Part part : reversed) {
+            if (part.selfReference() != null) {
+                jdbc.update("UPDATE " + part.table() + " SET " + part.selfReference() + " = NULL"
+                        + " WHERE " + part.condition(), arguments(part, userId));
+            }
+            jdbc.update("DELETE FROM " + part.table() + " WHERE " + part.condition(), arguments(part, userId));
+        }
+    }
+
+    private static Object[] arguments(Part part, Long userId) {
+        Object[] arguments = new Object[part.parameters()];
+        Arrays.fill(arguments, userId);
+        return arguments;
+    }
+
+    private static <T> T inTransaction(DataSource dataSource, Supplier<T> work) {
+        return new TransactionTemplate(new DataSourceTransactionManager(dataSource)).execute(status -> work.get());
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(graceMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Move interrupted", e);
+        }
+    }
+}
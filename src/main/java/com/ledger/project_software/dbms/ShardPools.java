@@ -0,0 +1,47 @@
+package com.ledger.project_software.dbms;
+
+import com.ledger.project_software.business.ShardContext;
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+//one Hikari pool per shard, shard i is the i-th of ledger.sharding.shard-urls
+public class ShardPools implements AutoCloseable {
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    public ShardPools(List<String> urls, String username, String password, int maximumPoolSize) {
+        for (String url : urls) {
+            pools.add(pool("shard-" + pools.size(), url.trim(), username, password, maximumPoolSize));
+        }
+        ShardContext.configure(pools.size()); //the batch jobs run once per shard from now on
+    }
+
+    static HikariDataSource pool(String name, String url, String username, String password, int maximumPoolSize) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(name);
+        pool.setJdbcUrl(url);
+        pool.setUsername(username);
+        pool.setPassword(password);
+        pool.setMaximumPoolSize(maximumPoolSize);
+        return pool;
+    }
+
+    public DataSource get(int shard) {
+        if (shard < 0 || shard >= pools.size()) {
+            throw new IllegalArgumentException("No shard " + shard);
+        }
+        return pools.get(shard);
+    }
+
+    public int size() {
+        return pools.size();
+    }
+
+    @Override
+    public void close() {
+        ShardContext.configure(0);
+        pools.forEach(HikariDataSource::close);
+    }
+}
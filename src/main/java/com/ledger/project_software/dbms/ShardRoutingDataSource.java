@@ -0,0 +1,28 @@
+package com.ledger.project_software.dbms;
+
+import com.ledger.project_software.business.ShardContext;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+//the pool of the shard bound to the thread (ShardContext), shard 0 for unbound work (startup, schema, actuator)
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    public ShardRoutingDataSource(ShardPools pools) {
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < pools.size(); shard++) {
+            targets.put(shard, pools.get(shard));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(pools.get(0));
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer shard = ShardContext.current();
+        return shard != null ? shard : 0;
+    }
+}
@@ -0,0 +1,52 @@
+package com.ledger.project_software.dbms;
+
+import com.ledger.project_software.business.ShardContext;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.security.Principal;
+
+//binds the request to the shard of its user (UserDirectory) before anything reads the database, the conditional
+//GET filter and open session in view included. anonymous requests stay on shard 0. while the data of the user is
+//being moved the request is refused with 503 and Retry-After instead of writing to a copy about to be dropped
+public class ShardRoutingFilter extends OncePerRequestFilter {
+    private final UserDirectory directory;
+    private final long retryAfterSeconds;
+
+    public ShardRoutingFilter(UserDirectory directory, long retryAfterSeconds) {
+        this.directory = directory;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Principal principal = request.getUserPrincipal();
+        if (principal == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        UserDirectory.Entry entry = directory.lookup(principal.getName());
+        if (entry != null && entry.moving() && !isAsyncDispatch(request)) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "User data is being moved");
+            return;
+        }
+        //not in the directory (yet): the shard a registration of this name would go to
+        int shard = entry != null ? entry.shard() : directory.placeNewUser(principal.getName());
+        try (ShardContext.Scope scope = ShardContext.open(shard)) {
+            chain.doFilter(request, response);
+        }
+    }
+
+    //the async dispatch of a streaming response runs on another thread, it is bound again
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+}
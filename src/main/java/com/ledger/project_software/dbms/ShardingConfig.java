@@ -0,0 +1,121 @@
+package com.ledger.project_software.dbms;
+
+import com.ledger.project_software.business.ShardContext;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+//users split across databases, switched on with ledger.sharding.enabled=true (profile "sharding"): one pool per
+//ledger.sharding.shard-urls entry behind the routing DataSource that JPA uses, the user directory in its own
+//database (ledger.sharding.directory-url). every request runs on the shard of its user, the nightly jobs once per
+//shard, the shard moves on /actuator/shards ("ops" profile). not combined with the read/write split.
+//ids stay unique across shards, so that a user keeps them when moved: shard k hands out ids from k * id-range + 1
+//(set by create-schema here, with AUTO_INCREMENT/sequence starts on a database whose schema is managed outside)
+@Configuration
+@ConditionalOnProperty(name = "ledger.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+    //the tables whose ids are generated by the database, the subclass tables take the id of their root
+    private static final List<String> IDENTITY_TABLES = List.of("users", "account", "transaction", "ledger",
+            "ledger_category", "category", "installment_plan", "recurring_transaction", "credit_statement",
+            "balance_checkpoint", "net_worth_point");
+    private static final String BUDGET_SEQUENCE = "budget_seq";
+
+    //static: the DataSource beans must not need this configuration
+    @Bean
+    public static ShardPools shardPools(@Value("${ledger.sharding.shard-urls}") String[] urls,
+                                        @Value("${ledger.sharding.username:sa}") String username,
+                                        @Value("${ledger.sharding.password:}") String password,
+                                        @Value("${ledger.sharding.maximum-pool-size:10}") int maximumPoolSize) {
+        return new ShardPools(List.of(urls), username, password, maximumPoolSize);
+    }
+
+    @Bean
+    public static UserDirectory userDirectory(ShardPools shardPools,
+                                              @Value("${ledger.sharding.directory-url}") String url,
+                                              @Value("${ledger.sharding.username:sa}") String username,
+                                              @Value("${ledger.sharding.password:}") String password,
+                                              @Value("${ledger.sharding.directory-ttl-millis:1000}") long ttlMillis) {
+        UserDirectory directory = new UserDirectory(ShardPools.pool("directory", url, username, password, 10),
+                shardPools.size(), ttlMillis);
+        directory.createTable();
+        return directory;
+    }
+
+    @Bean
+    @Primary
+    public static DataSource dataSource(ShardPools shardPools) {
+        return new ShardRoutingDataSource(shardPools);
+    }
+
+    //after the security filters, before the conditional GET filter, which already reads the user's data
+    @Bean
+    public static FilterRegistrationBean<ShardRoutingFilter> shardRoutingFilter(
+            UserDirectory userDirectory,
+            @Value("${ledger.sharding.retry-after-seconds:5}") long retryAfterSeconds) {
+        FilterRegistrationBean<ShardRoutingFilter> registration =
+                new FilterRegistrationBean<>(new ShardRoutingFilter(userDirectory, retryAfterSeconds));
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE - 100);
+        return registration;
+    }
+
+    @Bean
+    public static ShardMigrator shardMigrator(ShardPools shardPools, UserDirectory userDirectory,
+                                              @Value("${ledger.sharding.move-grace-millis:2000}") long graceMillis,
+                                              @Value("${ledger.sharding.move-batch-size:500}") int batchSize) {
+        return new ShardMigrator(shardPools, userDirectory, graceMillis, batchSize);
+    }
+
+    @Bean
+    public static ShardEndpoint shardEndpoint(UserDirectory userDirectory, ShardMigrator shardMigrator) {
+        return new ShardEndpoint(userDirectory, shardMigrator);
+    }
+
+    //Hibernate creates the schema on shard 0 only (the default of the routing DataSource): the other shards get the
+    //same tables, their id ranges and the template categories before the application serves requests
+    @Bean
+    @ConditionalOnProperty(name = "ledger.sharding.create-schema", havingValue = "true")
+    public static ApplicationRunner shardSchemaCreator(ShardPools shardPools,
+                                                       EntityManagerFactory entityManagerFactory,
+                                                       CategoryInitializer categoryInitializer,
+                                                       @Value("${ledger.sharding.id-range:1000000000000}") long idRange) {
+        return args -> {
+            for (int shard = 1; shard < shardPools.size(); shard++) {
+                long firstId = shard * idRange + 1;
+                JdbcTemplate jdbc = new JdbcTemplate(shardPools.get(shard));
+                ShardContext.callOn(shard, () -> {
+                    entityManagerFactory.unwrap(SessionFactory.class).getSchemaManager().exportMappedObjects(true);
+                    restartIds(jdbc, firstId);
+                    categoryInitializer.init();
+                    return null;
+                });
+            }
+        };
+    }
+
+    private static void restartIds(JdbcTemplate jdbc, long firstId) {
+        String product = jdbc.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        boolean mysql = "MySQL".equalsIgnoreCase(product);
+        for (String table : IDENTITY_TABLES) {
+            jdbc.execute(mysql
+                    ? "ALTER TABLE " + table + " AUTO_INCREMENT = " + firstId
+                    : "ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + firstId);
+        }
+        //MySQL has no sequences, Hibernate keeps the next value in a table
+        jdbc.execute(mysql
+                ? "UPDATE " + BUDGET_SEQUENCE + " SET next_val = " + firstId
+                : "ALTER SEQUENCE " + BUDGET_SEQUENCE + " RESTART WITH " + firstId);
+    }
+}
@@ -0,0 +1,30 @@
+package com.ledger.project_software.dbms;
+
+import com.ledger.project_software.business.RequestTracer;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//actuator view of the in-process traces: the slowest recent requests with their span trees ("ops" profile)
+@Endpoint(id = "traces")
+public class TracesEndpoint {
+    private static final int DEFAULT_LIMIT = 10;
+
+    private final RequestTracer requestTracer;
+
+    public TracesEndpoint(RequestTracer requestTracer) {
+        this.requestTracer = requestTracer;
+    }
+
+    @ReadOperation
+    public Map<String, Object> traces(@Nullable Integer limit) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("enabled", requestTracer.isEnabled());
+        response.put("recorded", requestTracer.getTraceCount());
+        response.put("slowest", requestTracer.slowest(limit != null && limit > 0 ? limit : DEFAULT_LIMIT));
+        return response;
+    }
+}
@@ -0,0 +1,103 @@
+package com.ledger.project_software.dbms;
+
+import com.ledger.project_software.business.RequestTracer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+//wiring of the in-process tracer (RequestTracer): root span per controller operation, a span per repository call
+//with the query shape (the JPQL of @Query, "derived" for the methods Spring Data builds from the name) and the
+//rows returned, and the Hibernate flush spans added by OperationMetrics.StatementListener
+@Configuration
+public class TracingConfig implements WebMvcConfigurer {
+    private final RequestTracer requestTracer;
+
+    public TracingConfig(RequestTracer requestTracer) {
+        this.requestTracer = requestTracer;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(requestTracer);
+    }
+
+    @Bean
+    public TracesEndpoint tracesEndpoint() {
+        return new TracesEndpoint(requestTracer);
+    }
+
+    //static: applied to the repository factory beans, created before this configuration.
+    //runs before their afterPropertiesSet, when the customizers are still taken
+    @Bean
+    public static BeanPostProcessor repositorySpansPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(
+                                    new RepositorySpans(repositoryInformation.getRepositoryInterface().getSimpleName()))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    static final class RepositorySpans implements MethodInterceptor {
+        private static final Map<Method, String> shapes = new ConcurrentHashMap<>();
+        private final String repository;
+
+        RepositorySpans(String repository) {
+            this.repository = repository;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            if (!RequestTracer.isTracing()) {
+                return invocation.proceed();
+            }
+            Method method = invocation.getMethod();
+            try (RequestTracer.Span span = RequestTracer.span(repository + "." + method.getName())) {
+                span.attribute("query", shapes.computeIfAbsent(method, RepositorySpans::shape));
+                Object result = invocation.proceed();
+                span.attribute("rows", rows(result));
+                return result;
+            }
+        }
+
+        private static String shape(Method method) {
+            Query query = AnnotationUtils.findAnnotation(method, Query.class);
+            return query != null ? query.value().replaceAll("\\s+", " ").trim() : "derived";
+        }
+
+        private static long rows(Object result) {
+            if (result == null) {
+                return 0;
+            }
+            if (result instanceof Collection<?> collection) {
+                return collection.size();
+            }
+            if (result instanceof Slice<?> slice) {
+                return slice.getNumberOfElements();
+            }
+            if (result instanceof Optional<?> optional) {
+                return optional.isPresent() ? 1 : 0;
+            }
+            return 1;
+        }
+    }
+}
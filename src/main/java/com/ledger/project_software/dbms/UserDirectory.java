@@ -0,0 +1,148 @@
+package com.ledger.project_software.dbms;
+
+import com.ledger.project_software.business.LedgerChange;
+import com.ledger.project_software.business.ShardContext;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+//global directory of the users (its own database, not sharded): user id, username, shard, and whether the data of
+//the user is being moved to another shard. a new user goes to the shard given by the hash of the name, so that two
+//registrations of one name meet on the same shard; from then on the directory row decides. lookups by name are
+//cached for ttl-millis, a move waits at least as long before switching and before deleting the old copy
+public class UserDirectory implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(UserDirectory.class);
+
+    private final HikariDataSource pool;
+    private final JdbcTemplate jdbc;
+    private final int shardCount;
+    private final long ttlMillis;
+    private final Map<String, Cached> byUsername = new ConcurrentHashMap<>();
+
+    public UserDirectory(HikariDataSource pool, int shardCount, long ttlMillis) {
+        this.pool = pool;
+        this.jdbc = new JdbcTemplate(pool);
+        this.shardCount = shardCount;
+        this.ttlMillis = ttlMillis;
+    }
+
+    public record Entry(Long userId, String username, int shard, boolean moving) {}
+
+    private record Cached(Entry entry, long loadedAt) {}
+
+    private static final RowMapper<Entry> ENTRY = (rs, rowNum) ->
+            new Entry(rs.getLong("user_id"), rs.getString("username"), rs.getInt("shard"), rs.getBoolean("moving"));
+
+    public void createTable() {
+        jdbc.execute("CREATE TABLE IF NOT EXISTS user_directory (" +
+                "user_id BIGINT PRIMARY KEY, " +
+                "username VARCHAR(255) NOT NULL UNIQUE, " +
+                "shard INT NOT NULL, " +
+                "moving BOOLEAN NOT NULL)");
+    }
+
+    //null for a name nobody has
+    public Entry lookup(String username) {
+        Cached cached = byUsername.get(username);
+        if (cached != null && System.currentTimeMillis() - cached.loadedAt() <= ttlMillis) {
+            return cached.entry();
+        }
+        List<Entry> found = jdbc.query("SELECT * FROM user_directory WHERE username = ?", ENTRY, username);
+        if (found.isEmpty()) {
+            byUsername.remove(username);
+            return null;
+        }
+        byUsername.put(username, new Cached(found.get(0), System.currentTimeMillis()));
+        return found.get(0);
+    }
+
+    public Entry lookup(Long userId) {
+        List<Entry> found = jdbc.query("SELECT * FROM user_directory WHERE user_id = ?", ENTRY, userId);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    public int placeNewUser(String username) {
+        return Math.floorMod(username.hashCode(), shardCount);
+    }
+
+    public void register(Long userId, String username, int shard) {
+        jdbc.update("INSERT INTO user_directory (user_id, username, shard, moving) VALUES (?, ?, ?, FALSE)",
+                userId, username, shard);
+        byUsername.remove(username);
+    }
+
+    public void rename(Long userId, String previousUsername, String username) {
+        jdbc.update("UPDATE user_directory SET username = ? WHERE user_id = ?", username, userId);
+        byUsername.remove(previousUsername);
+        byUsername.remove(username);
+    }
+
+    void setMoving(Entry entry, boolean moving) {
+        jdbc.update("UPDATE user_directory SET moving = ? WHERE user_id = ?", moving, entry.userId());
+        byUsername.remove(entry.username());
+    }
+
+    void moveTo(Entry entry, int shard) {
+        jdbc.update("UPDATE user_directory SET shard = ?, moving = FALSE WHERE user_id = ?", shard, entry.userId());
+        byUsername.remove(entry.username());
+    }
+
+    //every shard, those without users too
+    public Map<Integer, Long> usersPerShard() {
+        Map<Integer, Long> counts = new TreeMap<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            counts.put(shard, 0L);
+        }
+        jdbc.query("SELECT shard, COUNT(*) FROM user_directory GROUP BY shard",
+                rs -> {
+                    counts.put(rs.getInt(1), rs.getLong(2));
+                });
+        return counts;
+    }
+
+    //users of a shard not being moved, most recent first (the least history to copy is a guess, not a rule)
+    public List<Long> movableUsers(int shard, int limit) {
+        return jdbc.queryForList("SELECT user_id FROM user_directory WHERE shard = ? AND moving = FALSE " +
+                "ORDER BY user_id DESC LIMIT " + limit, Long.class, shard);
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    //new users are registered on the shard their transaction ran on, renames follow
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLedgerChange(LedgerChange change) {
+        if (change.type() != LedgerChange.Type.USER || !(change.data().get("username") instanceof String username)) {
+            return;
+        }
+        try {
+            if (change.action() == LedgerChange.Action.CREATED) {
+                Integer shard = ShardContext.current();
+                register(change.id(), username, shard != null ? shard : 0);
+            } else if (change.data().get("previousUsername") instanceof String previous) {
+                rename(change.id(), previous, username);
+            }
+        } catch (DataAccessException e) {
+            log.error("User directory not updated for user {} ({})", change.id(), username, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+    }
+}
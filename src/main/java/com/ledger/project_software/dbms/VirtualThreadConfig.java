@@ -0,0 +1,80 @@
+package com.ledger.project_software.dbms;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+//virtual-thread execution mode, switched on with spring.threads.virtual.enabled=true
+//(Spring Boot then runs Tomcat requests, @Async and schedulers on virtual threads).
+//blocking JDBC is isolated behind a fair semaphore sized like the Hikari pool and pinned carriers are reported.
+//only the DataSource the application uses is limited, the @Primary one when there are several (the routing
+//DataSource of the read replica and sharding modes): the pools behind it would otherwise take a second permit
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    //static: the post processor must exist before the DataSource bean is created
+    @Bean
+    public static BeanPostProcessor connectionLimitingPostProcessor(
+            @Value("${ledger.virtual-threads.max-db-concurrency:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConcurrency,
+            @Value("${ledger.virtual-threads.db-acquire-timeout-millis:30000}") long acquireTimeoutMillis) {
+        return new PrimaryDataSourceLimiter(maxConcurrency, acquireTimeoutMillis);
+    }
+
+    private static class PrimaryDataSourceLimiter implements BeanPostProcessor, BeanFactoryAware {
+        private final int maxConcurrency;
+        private final long acquireTimeoutMillis;
+        private ConfigurableListableBeanFactory beanFactory;
+
+        PrimaryDataSourceLimiter(int maxConcurrency, long acquireTimeoutMillis) {
+            this.maxConcurrency = maxConcurrency;
+            this.acquireTimeoutMillis = acquireTimeoutMillis;
+        }
+
+        @Override
+        public void setBeanFactory(BeanFactory beanFactory) {
+            this.beanFactory = (ConfigurableListableBeanFactory) beanFactory;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource && !(bean instanceof ConnectionLimitingDataSource)
+                    && isPrimary(beanName)) {
+                return new ConnectionLimitingDataSource(dataSource, maxConcurrency, acquireTimeoutMillis);
+            }
+            return bean;
+        }
+
+        //the only DataSource, or the @Primary one
+        private boolean isPrimary(String beanName) {
+            if (beanFactory.getBeanNamesForType(DataSource.class, true, false).length == 1) {
+                return true;
+            }
+            return beanFactory.containsBeanDefinition(beanName) && beanFactory.getBeanDefinition(beanName).isPrimary();
+        }
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(
+            @Value("${ledger.virtual-threads.pinned-threshold-millis:20}") long thresholdMillis,
+            @Value("${ledger.virtual-threads.pinned-history:50}") int historySize) {
+        return new VirtualThreadPinningMonitor(Duration.ofMillis(thresholdMillis), historySize);
+    }
+
+    @Bean
+    public VirtualThreadEndpoint virtualThreadEndpoint(VirtualThreadPinningMonitor pinningMonitor,
+                                                       ObjectProvider<DataSource> dataSource) {
+        DataSource ds = dataSource.getIfAvailable();
+        return new VirtualThreadEndpoint(pinningMonitor,
+                ds instanceof ConnectionLimitingDataSource limiting ? limiting : null);
+    }
+}
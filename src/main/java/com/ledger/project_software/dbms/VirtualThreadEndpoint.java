@@ -0,0 +1,36 @@
+package com.ledger.project_software.dbms;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//actuator view of the virtual-thread mode: pinned carriers and connection limiter state
+@Endpoint(id = "virtualthreads")
+public class VirtualThreadEndpoint {
+    private final VirtualThreadPinningMonitor pinningMonitor;
+    private final ConnectionLimitingDataSource dataSource;
+
+    public VirtualThreadEndpoint(VirtualThreadPinningMonitor pinningMonitor,
+                                 ConnectionLimitingDataSource dataSource) {
+        this.pinningMonitor = pinningMonitor;
+        this.dataSource = dataSource;
+    }
+
+    @ReadOperation
+    public Map<String, Object> virtualThreads() {
+        Map<String, Object> connections = new LinkedHashMap<>();
+        if (dataSource != null) {
+            connections.put("maxConcurrency", dataSource.getMaxConcurrency());
+            connections.put("active", dataSource.getActive());
+            connections.put("waiting", dataSource.getWaiting());
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("pinnedCount", pinningMonitor.getPinnedCount());
+        response.put("recentPinned", pinningMonitor.getRecent());
+        response.put("connections", connections);
+        return response;
+    }
+}
@@ -0,0 +1,89 @@
+package com.ledger.project_software.dbms;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+//listens to the JFR jdk.VirtualThreadPinned event: a virtual thread that blocks while pinned
+//(inside synchronized or a native frame) keeps its carrier busy, which is what starves the pool under load
+public class VirtualThreadPinningMonitor implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    private static final int STACK_DEPTH = 8;
+
+    private final Duration threshold;
+    private final int historySize;
+    private final AtomicLong pinnedCount = new AtomicLong();
+    private final Deque<PinnedEvent> recent = new ArrayDeque<>();
+    private RecordingStream stream;
+
+    public record PinnedEvent(Instant at, String thread, long durationMillis, List<String> stack) {
+    }
+
+    public VirtualThreadPinningMonitor(Duration threshold, int historySize) {
+        this.threshold = threshold;
+        this.historySize = historySize;
+    }
+
+    public synchronized void start() {
+        if (stream != null) {
+            return;
+        }
+        stream = new RecordingStream();
+        stream.enable("jdk.VirtualThreadPinned").withThreshold(threshold).withStackTrace();
+        stream.onEvent("jdk.VirtualThreadPinned", this::record);
+        stream.startAsync();
+    }
+
+    private void record(RecordedEvent event) {
+        pinnedCount.incrementAndGet();
+        List<String> stack = event.getStackTrace() == null ? List.of() : event.getStackTrace().getFrames().stream()
+                .limit(STACK_DEPTH)
+                .map(VirtualThreadPinningMonitor::format)
+                .collect(Collectors.toList());
+        PinnedEvent pinned = new PinnedEvent(
+                event.getStartTime(),
+                event.getThread() != null ? event.getThread().getJavaName() : null,
+                event.getDuration().toMillis(),
+                stack);
+        synchronized (recent) {
+            if (recent.size() >= historySize) {
+                recent.pollFirst();
+            }
+            recent.addLast(pinned);
+        }
+        log.warn("virtual thread {} pinned for {}ms at {}", pinned.thread(), pinned.durationMillis(),
+                stack.isEmpty() ? "?" : stack.get(0));
+    }
+
+    private static String format(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    public long getPinnedCount() {
+        return pinnedCount.get();
+    }
+
+    public List<PinnedEvent> getRecent() {
+        synchronized (recent) {
+            return List.copyOf(recent);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.ledger.project_software.domain;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 
 import java.math.BigDecimal;
@@ -13,11 +14,17 @@ import java.util.stream.Collectors;
 
 @Entity
 @Inheritance(strategy = InheritanceType.JOINED)
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"}) //lazy references are proxies, serialized through the getters
 public abstract class Account {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     protected Long id;
 
+    //optimistic lock, bumped on every update: an edit based on an older read fails instead of overwriting
+    @Version
+    @Column(name = "version")
+    protected Long version;
+
     @Column(length = 100, nullable = false)
     protected String name= "Default Account";
 
@@ -32,7 +39,7 @@ public abstract class Account {
     @Column(name= "account_category")
     protected AccountCategory category;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "owner_id", nullable = false)
     @JsonBackReference("user-accounts")
     protected User owner;
@@ -136,6 +143,9 @@ public abstract class Account {
     public Long getId() {
         return id;
     }
+    public Long getVersion() {
+        return version;
+    }
     public String getNotes() {
         return notes;
     }
@@ -0,0 +1,56 @@
+package com.ledger.project_software.domain;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+//balance of an account at the end of asOf (a month-end), derived from the current balance minus the transactions
+//dated after it. deleted from a date forward when a transaction dated on or before it changes, never updated.
+//no foreign key: deleting an account drops its checkpoints by id
+@Entity
+@Table(name = "balance_checkpoint",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"account_id", "as_of"}),
+        indexes = @Index(name = "idx_checkpoint_account_date", columnList = "account_id, as_of"))
+public class BalanceCheckpoint {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Column(name = "as_of", nullable = false)
+    private LocalDate asOf;
+
+    @Column(name = "balance", precision = 15, scale = 2, nullable = false)
+    private BigDecimal balance;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public BalanceCheckpoint() {}
+    public BalanceCheckpoint(Long accountId, LocalDate asOf, BigDecimal balance) {
+        this.accountId = accountId;
+        this.asOf = asOf;
+        this.balance = balance;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+    public Long getAccountId() {
+        return accountId;
+    }
+    public LocalDate getAsOf() {
+        return asOf;
+    }
+    public BigDecimal getBalance() {
+        return balance;
+    }
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
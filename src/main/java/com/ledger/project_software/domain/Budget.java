@@ -8,6 +8,7 @@ import java.time.LocalDate;
 import java.time.YearMonth;
 
 @Entity
+@NamedEntityGraph(name = "Budget.summary", attributeNodes = @NamedAttributeNode("category"))
 public class Budget {
 
     public enum Period {
@@ -18,6 +19,10 @@ public class Budget {
     @GeneratedValue
     private Long id;
 
+    @Version
+    @Column(name = "version")
+    private Long version;
+
     @Column(name = "amount", precision = 15, scale = 2, nullable = false)
     private BigDecimal amount=BigDecimal.ZERO; // Budget amount
 
@@ -25,12 +30,12 @@ public class Budget {
     @Enumerated(EnumType.STRING)
     private Period period; // e.g., "monthly", "yearly"
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id")
     @JsonBackReference("category-budgets")
     private LedgerCategory category; // Category or subcategory
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "owner_id", nullable = false)
     @JsonBackReference("user-budgets")
     private User owner; // User ID or name
@@ -74,6 +79,9 @@ public class Budget {
     public Long getId() {
         return id;
     }
+    public Long getVersion() {
+        return version;
+    }
     public void setId(Long id) {
         this.id = id;
     }
@@ -98,6 +106,12 @@ public class Budget {
     public void setEndDate(LocalDate endDate) {
         this.endDate = endDate;
     }
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+    public LocalDate getEndDate() {
+        return endDate;
+    }
 
 
     public boolean isActive(LocalDate date) {
@@ -122,14 +122,7 @@ public class CreditAccount extends Account {
         if (installmentPlans.contains(installmentPlan)) {
             BigDecimal amount = installmentPlan.getMonthlyPayment(installmentPlan.getPaidPeriods() + 1);
             installmentPlan.repayOnePeriod();
-            Transaction tx = new Transfer(
-                    LocalDate.now(),
-                    "Repay installment plan",
-                    this,
-                    null,
-                    amount,
-                    ledger
-            );
+            Transaction tx = Transfer.installmentRepayment(LocalDate.now(), this, amount, ledger);
             outgoingTransactions.add(tx);
             if(ledger != null) {
                 ledger.getTransactions().add(tx);
@@ -0,0 +1,130 @@
+package com.ledger.project_software.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+//closed statement of a CreditAccount: snapshot taken on billDay, never recomputed
+@Entity
+@Table(name = "credit_statement",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"account_id", "period_end"}),
+        indexes = @Index(name = "idx_statement_account_period", columnList = "account_id, period_end"))
+public class CreditStatement {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id", nullable = false)
+    @JsonIgnore
+    private CreditAccount account;
+
+    @Column(name = "account_id", insertable = false, updatable = false)
+    private Long accountId;
+
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    @Column(name = "period_end", nullable = false)
+    private LocalDate periodEnd; //closing date (billDay)
+
+    @Column(name = "due_date", nullable = false)
+    private LocalDate dueDate;
+
+    @Column(name = "previous_balance", precision = 15, scale = 2, nullable = false)
+    private BigDecimal previousBalance = BigDecimal.ZERO;
+
+    @Column(name = "purchases", precision = 15, scale = 2, nullable = false)
+    private BigDecimal purchases = BigDecimal.ZERO; //charged to the card in the cycle
+
+    @Column(name = "payments", precision = 15, scale = 2, nullable = false)
+    private BigDecimal payments = BigDecimal.ZERO; //paid into the card in the cycle
+
+    @Column(name = "installment_due", precision = 15, scale = 2, nullable = false)
+    private BigDecimal installmentDue = BigDecimal.ZERO; //portions of installment plans due in the cycle
+
+    @Column(name = "installment_count", nullable = false)
+    private int installmentCount = 0;
+
+    @Column(name = "statement_balance", precision = 15, scale = 2, nullable = false)
+    private BigDecimal statementBalance = BigDecimal.ZERO;
+
+    @Column(name = "minimum_due", precision = 15, scale = 2, nullable = false)
+    private BigDecimal minimumDue = BigDecimal.ZERO;
+
+    @Column(name = "closed_at", nullable = false)
+    private LocalDateTime closedAt;
+
+    public CreditStatement() {}
+    public CreditStatement(CreditAccount account,
+                           LocalDate periodStart,
+                           LocalDate periodEnd,
+                           LocalDate dueDate,
+                           BigDecimal previousBalance,
+                           BigDecimal purchases,
+                           BigDecimal payments,
+                           BigDecimal installmentDue,
+                           int installmentCount,
+                           BigDecimal statementBalance,
+                           BigDecimal minimumDue) {
+        this.account = account;
+        this.accountId = account.getId();
+        this.periodStart = periodStart;
+        this.periodEnd = periodEnd;
+        this.dueDate = dueDate;
+        this.previousBalance = previousBalance;
+        this.purchases = purchases;
+        this.payments = payments;
+        this.installmentDue = installmentDue;
+        this.installmentCount = installmentCount;
+        this.statementBalance = statementBalance;
+        this.minimumDue = minimumDue;
+        this.closedAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+    public CreditAccount getAccount() {
+        return account;
+    }
+    public Long getAccountId() {
+        return accountId;
+    }
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+    public LocalDate getPeriodEnd() {
+        return periodEnd;
+    }
+    public LocalDate getDueDate() {
+        return dueDate;
+    }
+    public BigDecimal getPreviousBalance() {
+        return previousBalance;
+    }
+    public BigDecimal getPurchases() {
+        return purchases;
+    }
+    public BigDecimal getPayments() {
+        return payments;
+    }
+    public BigDecimal getInstallmentDue() {
+        return installmentDue;
+    }
+    public int getInstallmentCount() {
+        return installmentCount;
+    }
+    public BigDecimal getStatementBalance() {
+        return statementBalance;
+    }
+    public BigDecimal getMinimumDue() {
+        return minimumDue;
+    }
+    public LocalDateTime getClosedAt() {
+        return closedAt;
+    }
+}
@@ -0,0 +1,37 @@
+package com.ledger.project_software.domain;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+//JDK Flight Recorder events of the CPU-heavy domain code (bcrypt, payment schedules). disabled and nearly free until
+//a recording enables them, e.g. through the /actuator/jfr endpoint
+public final class DomainEvents {
+    private DomainEvents() {}
+
+    @Name("ledger.PasswordHash")
+    @Label("Password Hash")
+    @Category({"Ledger", "Domain"})
+    @Description("bcrypt hash or verify of a password")
+    public static class PasswordHash extends Event {
+        @Label("Operation")
+        public String operation;
+    }
+
+    @Name("ledger.ScheduleCalculation")
+    @Label("Schedule Calculation")
+    @Category({"Ledger", "Domain"})
+    @Description("Remaining amount summed over the unpaid periods of a loan or installment plan")
+    public static class ScheduleCalculation extends Event {
+        @Label("Entity")
+        public String entity;
+        @Label("Entity Id")
+        public long entityId;
+        @Label("Paid Periods")
+        public int paidPeriods;
+        @Label("Total Periods")
+        public int totalPeriods;
+    }
+}
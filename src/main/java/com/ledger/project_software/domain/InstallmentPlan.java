@@ -19,6 +19,10 @@ public class InstallmentPlan {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id; // Unique identifier for the installment plan
 
+    @Version
+    @Column(name = "version")
+    private Long version;
+
     @Column(name = "total_amount", precision = 15, scale = 2, nullable = false)
     private BigDecimal totalAmount;
 
@@ -34,7 +38,7 @@ public class InstallmentPlan {
     @Enumerated
     private FeeStrategy feeStrategy = FeeStrategy.EVENLY_SPLIT;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "linked_account_id")
     private Account linkedAccount;
 
@@ -74,6 +78,9 @@ public class InstallmentPlan {
     public Long getId() {
         return id;
     }
+    public Long getVersion() {
+        return version;
+    }
     public void setLinkedAccount(Account linkedAccount) {
         this.linkedAccount = linkedAccount;
     }
@@ -107,6 +114,9 @@ public class InstallmentPlan {
     public FeeStrategy getFeeStrategy() {
         return feeStrategy;
     }
+    public LocalDate getRepaymentStartDate() {
+        return repaymentStartDate;
+    }
     public BigDecimal getMonthlyPayment(int period) {
         BigDecimal base = totalAmount.divide(BigDecimal.valueOf(totalPeriods), 2, RoundingMode.HALF_UP); //base amount per period
         BigDecimal fee = totalAmount.multiply(feeRate.divide(BigDecimal.valueOf(100), 10, RoundingMode.HALF_UP)).setScale(2, RoundingMode.HALF_UP); //total fee for the installment
@@ -159,10 +169,19 @@ public class InstallmentPlan {
     }
 
     public BigDecimal getRemainingAmountWithRepaidPeriods() {//dipende da paidPeriods
+        DomainEvents.ScheduleCalculation event = new DomainEvents.ScheduleCalculation();
+        event.begin();
         BigDecimal total = BigDecimal.ZERO;
         for (int i = paidPeriods + 1; i <= totalPeriods; i++) {
             total = total.add(getMonthlyPayment(i));
         }
+        if (event.shouldCommit()) {
+            event.entity = "InstallmentPlan";
+            event.entityId = id != null ? id : 0;
+            event.paidPeriods = paidPeriods;
+            event.totalPeriods = totalPeriods;
+            event.commit();
+        }
         return total.setScale(2, RoundingMode.HALF_UP);
     }
 }
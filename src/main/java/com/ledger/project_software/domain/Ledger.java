@@ -12,6 +12,7 @@ import java.util.Comparator;
 import java.util.List;
 
 @Entity
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Ledger {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -20,7 +21,7 @@ public class Ledger {
     @Column(length =50, nullable= false)
     private String name;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "owner_id")
     @JsonBackReference("user-ledgers")
     private User owner;
@@ -68,14 +69,16 @@ public class Ledger {
         return getTransactionsForMonth(month).stream()
                 .filter(tx -> tx.getType() == TransactionType.INCOME)
                 .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .collect(Money.summing())
+                .toBigDecimal();
 
     }
     public BigDecimal getTotalExpenseForMonth(YearMonth month) {
         return getTransactionsForMonth(month).stream()
                 .filter(tx ->tx.getType() == TransactionType.EXPENSE)
                 .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .collect(Money.summing())
+                .toBigDecimal();
     }
 
 
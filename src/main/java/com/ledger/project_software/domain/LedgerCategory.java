@@ -8,6 +8,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class LedgerCategory {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -17,7 +18,7 @@ public class LedgerCategory {
     private String name;
 
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "parent_id")
     @JsonIgnoreProperties({"children"})
     private LedgerCategory parent;
@@ -25,7 +26,7 @@ public class LedgerCategory {
     @Column(length = 20, nullable = false)
     protected CategoryType type;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "ledger_id", nullable = false)
     @JsonIgnoreProperties({"transactions", "categories"})
     protected Ledger ledger;
@@ -117,6 +117,9 @@ public class LoanAccount extends Account {
     public BigDecimal getRemainingAmount() {
         return remainingAmount;
     }
+    public void setRemainingAmount(BigDecimal remainingAmount) {
+        this.remainingAmount = remainingAmount;
+    }
     public BigDecimal getAnnualInterestRate() {
         return annualInterestRate;
     }
@@ -137,6 +140,14 @@ public class LoanAccount extends Account {
 
     public int getTotalPeriods(){return this.totalPeriods;}
     public int getRepaidPeriods(){return this.repaidPeriods;}
+    public LocalDate getRepaymentDay(){return this.repaymentDay;}
+    public RepaymentType getRepaymentType(){return this.repaymentType;}
+    public Account getReceivingAccount(){return this.receivingAccount;}
+
+    //due date of a period: repaymentDay is the date of the first one, then monthly
+    public LocalDate getDueDate(int period){
+        return repaymentDay != null ? repaymentDay.plusMonths(period - 1) : null;
+    }
 
     public BigDecimal getMonthlyRate() {
         if (annualInterestRate == null) return BigDecimal.ZERO;
@@ -247,10 +258,19 @@ public class LoanAccount extends Account {
         if(repaidPeriods==0 && annualInterestRate.compareTo(BigDecimal.ZERO)==0){
             return loanAmount;
         }
+        DomainEvents.ScheduleCalculation event = new DomainEvents.ScheduleCalculation();
+        event.begin();
         BigDecimal total = BigDecimal.ZERO;
         for (int i = repaidPeriods + 1; i <= totalPeriods; i++) {
             total = total.add(getMonthlyRepayment(i));
         }
+        if (event.shouldCommit()) {
+            event.entity = "LoanAccount";
+            event.entityId = getId() != null ? getId() : 0;
+            event.paidPeriods = repaidPeriods;
+            event.totalPeriods = totalPeriods;
+            event.commit();
+        }
         return total.setScale(2, RoundingMode.HALF_UP);
     }
 
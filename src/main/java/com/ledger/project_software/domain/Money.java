@@ -0,0 +1,89 @@
+package com.ledger.project_software.domain;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.stream.Collector;
+
+//immutable amount in minor units (cents) for the summation hot paths: adding two Money is a long addition
+//instead of a new BigDecimal. conversion from BigDecimal rounds HALF_UP to 2 decimals, like the
+//setScale(2, RoundingMode.HALF_UP) used on the entities, and overflow throws instead of wrapping
+public final class Money implements Comparable<Money> {
+    public static final int SCALE = 2;
+    public static final Money ZERO = new Money(0);
+
+    private final long cents;
+
+    private Money(long cents) {
+        this.cents = cents;
+    }
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    public static Money of(BigDecimal amount) {
+        return ofCents(toCents(amount));
+    }
+
+    //an amount that already has scale 2 (every DECIMAL(15,2) column) costs one small BigDecimal for the shift,
+    //no BigInteger while it fits a long
+    public static long toCents(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).movePointRight(SCALE).longValueExact();
+    }
+
+    //sum of BigDecimal amounts accumulated in a single long, the result is converted once
+    public static Collector<BigDecimal, ?, Money> summing() {
+        return Collector.of(
+                () -> new long[1],
+                (total, amount) -> total[0] = Math.addExact(total[0], toCents(amount)),
+                (left, right) -> {
+                    left[0] = Math.addExact(left[0], right[0]);
+                    return left;
+                },
+                total -> ofCents(total[0]));
+    }
+
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(Money other) {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    public Money negate() {
+        return ofCents(Math.negateExact(cents));
+    }
+
+    public long getCents() {
+        return cents;
+    }
+
+    public int signum() {
+        return Long.signum(cents);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money other && cents == other.cents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
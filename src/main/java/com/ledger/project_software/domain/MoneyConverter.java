@@ -0,0 +1,21 @@
+package com.ledger.project_software.domain;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+//Money fields are stored in the same DECIMAL(15,2) columns as the BigDecimal ones:
+//@Convert(converter = MoneyConverter.class) @Column(precision = 15, scale = 2)
+@Converter
+public class MoneyConverter implements AttributeConverter<Money, BigDecimal> {
+    @Override
+    public BigDecimal convertToDatabaseColumn(Money money) {
+        return money != null ? money.toBigDecimal() : null;
+    }
+
+    @Override
+    public Money convertToEntityAttribute(BigDecimal amount) {
+        return amount != null ? Money.of(amount) : null;
+    }
+}
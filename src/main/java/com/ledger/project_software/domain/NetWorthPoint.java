@@ -0,0 +1,73 @@
+package com.ledger.project_software.domain;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+//end-of-day totals of a user as User computes them (getTotalAssets, getTotalLiabilities, ...), one row per day.
+//rows are shifted in place by NetWorthService when a change dated on or before them arrives
+@Entity
+@Table(name = "net_worth_point",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "point_date"}),
+        indexes = @Index(name = "idx_net_worth_user_date", columnList = "user_id, point_date"))
+public class NetWorthPoint {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "point_date", nullable = false)
+    private LocalDate date;
+
+    @Column(name = "total_assets", precision = 15, scale = 2, nullable = false)
+    private BigDecimal totalAssets;
+
+    @Column(name = "total_liabilities", precision = 15, scale = 2, nullable = false)
+    private BigDecimal totalLiabilities;
+
+    @Column(name = "total_lending", precision = 15, scale = 2, nullable = false)
+    private BigDecimal totalLending;
+
+    @Column(name = "total_borrowing", precision = 15, scale = 2, nullable = false)
+    private BigDecimal totalBorrowing;
+
+    public NetWorthPoint() {}
+    public NetWorthPoint(Long userId,
+                         LocalDate date,
+                         BigDecimal totalAssets,
+                         BigDecimal totalLiabilities,
+                         BigDecimal totalLending,
+                         BigDecimal totalBorrowing) {
+        this.userId = userId;
+        this.date = date;
+        this.totalAssets = totalAssets;
+        this.totalLiabilities = totalLiabilities;
+        this.totalLending = totalLending;
+        this.totalBorrowing = totalBorrowing;
+    }
+
+    public Long getId() {
+        return id;
+    }
+    public Long getUserId() {
+        return userId;
+    }
+    public LocalDate getDate() {
+        return date;
+    }
+    public BigDecimal getTotalAssets() {
+        return totalAssets;
+    }
+    public BigDecimal getTotalLiabilities() {
+        return totalLiabilities;
+    }
+    public BigDecimal getTotalLending() {
+        return totalLending;
+    }
+    public BigDecimal getTotalBorrowing() {
+        return totalBorrowing;
+    }
+}
@@ -4,10 +4,20 @@ import org.mindrot.jbcrypt.BCrypt;
 
 public class PasswordUtils {
     public static String hash(String plainPassword) {
-        return BCrypt.hashpw(plainPassword, BCrypt.gensalt());
+        DomainEvents.PasswordHash event = new DomainEvents.PasswordHash();
+        event.begin();
+        String hashed = BCrypt.hashpw(plainPassword, BCrypt.gensalt());
+        event.operation = "hash";
+        event.commit();
+        return hashed;
     }
 
     public static boolean verify(String plainPassword, String hashedPassword) {
-        return BCrypt.checkpw(plainPassword, hashedPassword);
+        DomainEvents.PasswordHash event = new DomainEvents.PasswordHash();
+        event.begin();
+        boolean matches = BCrypt.checkpw(plainPassword, hashedPassword);
+        event.operation = "verify";
+        event.commit();
+        return matches;
     }
 }
@@ -0,0 +1,60 @@
+package com.ledger.project_software.domain;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+//what the transaction history of an account does not explain: its position (balance, minus debt for credit
+//accounts, minus the amount still owed for loans and borrowings) minus incoming plus outgoing amounts, recorded
+//the first time the account is reconciled. it stays constant until the position is set without a transaction,
+//which drops the row so the next run records it again
+@Entity
+@Table(name = "reconciliation_baseline")
+public class ReconciliationBaseline implements Persistable<Long> {
+    @Id
+    @Column(name = "account_id")
+    private Long accountId;
+
+    @Column(name = "position_offset", precision = 15, scale = 2, nullable = false)
+    private BigDecimal offset;
+
+    @Column(name = "recorded_at", nullable = false)
+    private LocalDateTime recordedAt;
+
+    //assigned id: save() inserts without a select first
+    @Transient
+    private boolean isNew = true;
+
+    public ReconciliationBaseline() {}
+    public ReconciliationBaseline(Long accountId, BigDecimal offset) {
+        this.accountId = accountId;
+        this.offset = offset;
+        this.recordedAt = LocalDateTime.now();
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    @Override
+    public Long getId() {
+        return accountId;
+    }
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+    public Long getAccountId() {
+        return accountId;
+    }
+    public BigDecimal getOffset() {
+        return offset;
+    }
+    public LocalDateTime getRecordedAt() {
+        return recordedAt;
+    }
+}
@@ -0,0 +1,256 @@
+package com.ledger.project_software.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+//template of an income/expense/transfer repeated on a schedule (every interval days/weeks/months/years from
+//startDate, monthly ones on dayOfMonth, clamped to the length of the month). occurrenceCount is the progress
+//marker: occurrences 0..occurrenceCount-1 are posted, nextOccurrence is the date of the next one (null when ended).
+//the template is removed by the database together with its user, ledger, accounts or category
+@Entity
+@Table(name = "recurring_transaction",
+        indexes = @Index(name = "idx_recurring_next_occurrence", columnList = "active, next_occurrence"))
+public class RecurringTransaction {
+
+    public enum Frequency {
+        DAILY, WEEKLY, MONTHLY, YEARLY
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JoinColumn(name = "owner_id", nullable = false)
+    @JsonIgnore
+    private User owner;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JoinColumn(name = "ledger_id", nullable = false)
+    @JsonIgnore
+    private Ledger ledger;
+
+    @Column(name = "ledger_id", insertable = false, updatable = false)
+    private Long ledgerId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JoinColumn(name = "from_account_id")
+    @JsonIgnore
+    private Account fromAccount;
+
+    @Column(name = "from_account_id", insertable = false, updatable = false)
+    private Long fromAccountId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JoinColumn(name = "to_account_id")
+    @JsonIgnore
+    private Account toAccount;
+
+    @Column(name = "to_account_id", insertable = false, updatable = false)
+    private Long toAccountId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JoinColumn(name = "category_id")
+    @JsonIgnore
+    private LedgerCategory category;
+
+    @Column(name = "category_id", insertable = false, updatable = false)
+    private Long categoryId;
+
+    @Column(name = "transaction_type", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private TransactionType type;
+
+    @Column(name = "amount", precision = 15, scale = 2, nullable = false)
+    private BigDecimal amount;
+
+    @Column(name = "description")
+    private String description;
+
+    @Column(name = "frequency", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Frequency frequency;
+
+    @Column(name = "repeat_interval", nullable = false)
+    private int interval = 1; //every interval days/weeks/months/years
+
+    @Column(name = "day_of_month")
+    private Integer dayOfMonth; //monthly only, 31 = last day of the month
+
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+
+    @Column(name = "end_date")
+    private LocalDate endDate; //inclusive, null = no end
+
+    @Column(name = "occurrence_count", nullable = false)
+    private int occurrenceCount = 0;
+
+    @Column(name = "next_occurrence")
+    private LocalDate nextOccurrence;
+
+    @Column(name = "active", nullable = false)
+    private boolean active = true;
+
+    public RecurringTransaction() {}
+    public RecurringTransaction(User owner,
+                                Ledger ledger,
+                                Account fromAccount,
+                                Account toAccount,
+                                LedgerCategory category,
+                                TransactionType type,
+                                BigDecimal amount,
+                                String description,
+                                Frequency frequency,
+                                int interval,
+                                Integer dayOfMonth,
+                                LocalDate startDate,
+                                LocalDate endDate) {
+        this.owner = owner;
+        this.ledger = ledger;
+        this.ledgerId = ledger.getId();
+        this.fromAccount = fromAccount;
+        this.fromAccountId = fromAccount != null ? fromAccount.getId() : null;
+        this.toAccount = toAccount;
+        this.toAccountId = toAccount != null ? toAccount.getId() : null;
+        this.category = category;
+        this.categoryId = category != null ? category.getId() : null;
+        this.type = type;
+        this.amount = amount;
+        this.description = description;
+        this.frequency = frequency;
+        this.interval = interval;
+        this.dayOfMonth = frequency == Frequency.MONTHLY
+                ? (dayOfMonth != null ? dayOfMonth : startDate.getDayOfMonth())
+                : null;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.nextOccurrence = occurrenceDate(0);
+    }
+
+    //date of the n-th occurrence (0 = first), null if after endDate. always computed from startDate,
+    //so a monthly template on the 31st goes back to the 31st after a short month
+    public LocalDate occurrenceDate(int n) {
+        LocalDate date = switch (frequency) {
+            case DAILY -> startDate.plusDays((long) n * interval);
+            case WEEKLY -> startDate.plusWeeks((long) n * interval);
+            case YEARLY -> startDate.plusYears((long) n * interval);
+            case MONTHLY -> {
+                YearMonth first = YearMonth.from(startDate);
+                if (dayInMonth(first) < startDate.getDayOfMonth()) {
+                    first = first.plusMonths(1); //day already passed in the month of startDate
+                }
+                yield dayInMonthDate(first.plusMonths((long) n * interval));
+            }
+        };
+        return endDate != null && date.isAfter(endDate) ? null : date;
+    }
+
+    private int dayInMonth(YearMonth month) {
+        return Math.min(dayOfMonth, month.lengthOfMonth());
+    }
+
+    private LocalDate dayInMonthDate(YearMonth month) {
+        return month.atDay(dayInMonth(month));
+    }
+
+    //marks the next occurrence as posted and moves to the following one. returns the posted date
+    public LocalDate advance() {
+        LocalDate posted = nextOccurrence;
+        occurrenceCount++;
+        nextOccurrence = occurrenceDate(occurrenceCount);
+        return posted;
+    }
+
+    public Transaction toTransaction(LocalDate date) {
+        return switch (type) {
+            case EXPENSE -> new Expense(date, amount, description, fromAccount, ledger, category);
+            case INCOME -> new Income(date, amount, description, toAccount, ledger, category);
+            case TRANSFER -> new Transfer(date, description, fromAccount, toAccount, amount, ledger);
+        };
+    }
+
+    public Long getId() {
+        return id;
+    }
+    public User getOwner() {
+        return owner;
+    }
+    public Ledger getLedger() {
+        return ledger;
+    }
+    public Long getLedgerId() {
+        return ledgerId;
+    }
+    public Account getFromAccount() {
+        return fromAccount;
+    }
+    public Long getFromAccountId() {
+        return fromAccountId;
+    }
+    public Account getToAccount() {
+        return toAccount;
+    }
+    public Long getToAccountId() {
+        return toAccountId;
+    }
+    public LedgerCategory getCategory() {
+        return category;
+    }
+    public Long getCategoryId() {
+        return categoryId;
+    }
+    public TransactionType getType() {
+        return type;
+    }
+    public BigDecimal getAmount() {
+        return amount;
+    }
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+    public String getDescription() {
+        return description;
+    }
+    public void setDescription(String description) {
+        this.description = description;
+    }
+    public Frequency getFrequency() {
+        return frequency;
+    }
+    public int getInterval() {
+        return interval;
+    }
+    public Integer getDayOfMonth() {
+        return dayOfMonth;
+    }
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+    public int getOccurrenceCount() {
+        return occurrenceCount;
+    }
+    public LocalDate getNextOccurrence() {
+        return nextOccurrence;
+    }
+    public boolean isActive() {
+        return active;
+    }
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+}
@@ -7,13 +7,24 @@ import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
+//associations are lazy, each use case fetches what it reads with one of these graphs (see TransactionDAO):
+//listing = the accounts serialized with every row, edit = everything the edit endpoint moves
 @Entity
 @Inheritance(strategy = InheritanceType.JOINED)
+@NamedEntityGraph(name = "Transaction.listing", attributeNodes = {
+        @NamedAttributeNode("fromAccount"), @NamedAttributeNode("toAccount")})
+@NamedEntityGraph(name = "Transaction.edit", attributeNodes = {
+        @NamedAttributeNode("fromAccount"), @NamedAttributeNode("toAccount"),
+        @NamedAttributeNode("category"), @NamedAttributeNode("ledger")})
 public abstract class Transaction {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     protected Long id;
 
+    @Version
+    @Column(name = "version")
+    protected Long version;
+
     @Column(name= "date", nullable = false)
     protected LocalDate date;
 
@@ -23,22 +34,22 @@ public abstract class Transaction {
     @Column(name = "note", length = 500)
     protected String note;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "from_account_id")
     @JsonIgnoreProperties({"outgoingTransactions", "incomingTransactions", "transactions"})
     protected Account fromAccount; //relaizone tra Transaction e Account è associazione. più transazioni->un account
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "to_account_id")
     @JsonIgnoreProperties({"outgoingTransactions", "incomingTransactions", "transactions"})
     protected Account toAccount; //per i trasferimenti tra conti
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "ledger_id")
     @JsonBackReference("ledger-transactions")
     protected Ledger ledger; //relazione tra Transaction e Ledger è aggregazione. più transazioni -> un ledger
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id")
     @JsonBackReference("category-transactions")
     protected LedgerCategory category;
@@ -71,6 +82,9 @@ public abstract class Transaction {
     public Long getId() {
         return id;
     }
+    public Long getVersion() {
+        return version;
+    }
     public TransactionType getType() {
         return type;
     }
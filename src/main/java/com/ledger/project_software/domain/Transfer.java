@@ -1,5 +1,6 @@
 package com.ledger.project_software.domain;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
 
@@ -9,6 +10,10 @@ import java.time.LocalDate;
 @Entity
 @Table(name = "transfer")
 public class Transfer extends Transaction{
+    //the repayment of an installment portion out of the card: the statement bills the portion by its due date,
+    //so this posting is not a charge of its own
+    @Column(name = "installment_repayment")
+    private boolean installmentRepayment = false;
 
     public Transfer() {}
     public Transfer(LocalDate date,
@@ -20,4 +25,14 @@ public class Transfer extends Transaction{
         super(date, amount, description, from, to, ledger, null, TransactionType.TRANSFER);
     }
 
+    public static Transfer installmentRepayment(LocalDate date, Account card, BigDecimal amount, Ledger ledger) {
+        Transfer transfer = new Transfer(date, "Repay installment plan", card, null, amount, ledger);
+        transfer.installmentRepayment = true;
+        return transfer;
+    }
+
+    public boolean isInstallmentRepayment() {
+        return installmentRepayment;
+    }
+
 }
@@ -1,5 +1,6 @@
 package com.ledger.project_software.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 
@@ -10,6 +11,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "users")
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class User {
 
     @Id
@@ -72,7 +74,8 @@ public class User {
                 .filter(account -> account.includedInNetAsset && !account.hidden)
                 .filter(account -> account.getBalance().compareTo(BigDecimal.ZERO) > 0)
                 .map(Account::getBalance)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .collect(Money.summing())
+                .toBigDecimal();
     }
 
     public BigDecimal getTotalBorrowing() {
@@ -80,19 +83,20 @@ public class User {
                 .filter(account -> account instanceof BorrowingAccount)
                 .filter(account -> account.includedInNetAsset && !account.hidden)
                 .map(account -> ((BorrowingAccount) account).getBorrowingAmount())
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .collect(Money.summing())
+                .toBigDecimal();
     }
 
     public BigDecimal getTotalAssets() {
-        BigDecimal totalBalance = accounts.stream()
+        Money totalBalance = accounts.stream()
                 .filter(account -> !(account instanceof LoanAccount))
                 .filter(account -> !(account instanceof BorrowingAccount))
                 .filter(account -> !(account instanceof LendingAccount))
                 .filter(account -> account.includedInNetAsset && !account.hidden)
                 .map(Account::getBalance)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .collect(Money.summing());
 
-        return totalBalance.add(getTotalLending()).setScale(2, RoundingMode.HALF_UP);
+        return totalBalance.plus(Money.of(getTotalLending())).toBigDecimal();
     }
 
     public BigDecimal getNetAssets() {
@@ -100,21 +104,21 @@ public class User {
     }
 
     public BigDecimal getTotalLiabilities() {
-        BigDecimal totalCreditDebt = accounts.stream()
+        Money totalCreditDebt = accounts.stream()
                 .filter(account -> account.getCategory() == AccountCategory.CREDIT)
                 .filter(account -> account instanceof CreditAccount)
                 .filter(account-> account.includedInNetAsset && !account.hidden)
                 .map(account -> ((CreditAccount) account).getCurrentDebt())
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .collect(Money.summing());
 
-        BigDecimal totalUnpaidLoan = accounts.stream()
+        Money totalUnpaidLoan = accounts.stream()
                 .filter(account -> account.getCategory() == AccountCategory.CREDIT)
                 .filter(account -> account instanceof LoanAccount)
                 .filter(account -> account.includedInNetAsset && !account.hidden)
                 .filter(account -> !((LoanAccount) account).isEnded)
                 .map(account -> ((LoanAccount) account).getRemainingAmount()) //get this.remainingAmount
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .collect(Money.summing());
 
-        return totalCreditDebt.add(getTotalBorrowing()).add(totalUnpaidLoan).setScale(2, RoundingMode.HALF_UP);
+        return totalCreditDebt.plus(Money.of(getTotalBorrowing())).plus(totalUnpaidLoan).toBigDecimal();
     }
 }
@@ -1,12 +1,19 @@
 package com.ledger.project_software.orm;
 
 import com.ledger.project_software.domain.Account;
+import com.ledger.project_software.domain.LoanAccount;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface AccountDAO extends JpaRepository<Account, Long> {
@@ -16,4 +23,46 @@ public interface AccountDAO extends JpaRepository<Account, Long> {
             "WHERE a.owner.id = :ownerId" +
             " AND a.hidden = false")
     List<Account> findByOwnerId(@Param("ownerId") Long ownerId);
+
+    //hidden ones too: loaded before a graph that reaches the accounts only through lazy references
+    @Query("SELECT a FROM Account a WHERE a.owner.id = :ownerId")
+    List<Account> findAllByOwnerId(@Param("ownerId") Long ownerId);
+
+    //keyset page of credit cards closing on one of billDays, for the statement batch job
+    @Query("SELECT c.id FROM CreditAccount c " +
+            "WHERE c.billDay IN :billDays " +
+            "AND c.id > :afterId " +
+            "ORDER BY c.id")
+    List<Long> findCreditAccountIdsByBillDays(@Param("billDays") List<Integer> billDays,
+                                              @Param("afterId") Long afterId,
+                                              Pageable pageable);
+
+    //keyset page of open loans whose first repayment is not after date, for the repayment batch job
+    @Query("SELECT l.id FROM LoanAccount l " +
+            "WHERE l.repaymentDay <= :date " +
+            "AND l.repaidPeriods < l.totalPeriods " +
+            "AND l.isEnded = false " +
+            "AND l.id > :afterId " +
+            "ORDER BY l.id")
+    List<Long> findLoanIdsWithRepaymentsUpTo(@Param("date") LocalDate date,
+                                             @Param("afterId") Long afterId,
+                                             Pageable pageable);
+
+    //row lock held until commit, so a manual repayment and the batch job cannot pay the same period twice
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM LoanAccount l WHERE l.id = :id")
+    Optional<LoanAccount> findLoanByIdForUpdate(@Param("id") Long id);
+
+    //row locks on several accounts taken in id order: two requests moving money between the same accounts
+    //in opposite directions wait for each other instead of deadlocking
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id IN :ids ORDER BY a.id")
+    List<Account> lockAllById(@Param("ids") Collection<Long> ids);
+
+    //keyset page of all account ids, for the balance checkpoint batch job
+    @Query("SELECT a.id FROM Account a " +
+            "WHERE a.id > :afterId " +
+            "ORDER BY a.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId,
+                            Pageable pageable);
 }
@@ -0,0 +1,54 @@
+package com.ledger.project_software.orm;
+
+import com.ledger.project_software.domain.BalanceCheckpoint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BalanceCheckpointDAO extends JpaRepository<BalanceCheckpoint, Long> {
+    //with PageRequest.of(0, 1): the checkpoint nearest to date from below, a single indexed row
+    @Query("SELECT c FROM BalanceCheckpoint c " +
+            "WHERE c.accountId = :accountId " +
+            "AND c.asOf <= :date " +
+            "ORDER BY c.asOf DESC")
+    List<BalanceCheckpoint> findOnOrBefore(@Param("accountId") Long accountId,
+                                           @Param("date") LocalDate date,
+                                           Pageable pageable);
+
+    //with PageRequest.of(0, 1): the checkpoint nearest to date from above
+    @Query("SELECT c FROM BalanceCheckpoint c " +
+            "WHERE c.accountId = :accountId " +
+            "AND c.asOf > :date " +
+            "ORDER BY c.asOf ASC")
+    List<BalanceCheckpoint> findAfter(@Param("accountId") Long accountId,
+                                      @Param("date") LocalDate date,
+                                      Pageable pageable);
+
+    @Query("SELECT c.asOf FROM BalanceCheckpoint c " +
+            "WHERE c.accountId = :accountId " +
+            "AND c.asOf >= :from")
+    List<LocalDate> findDatesFrom(@Param("accountId") Long accountId,
+                                  @Param("from") LocalDate from);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM BalanceCheckpoint c " +
+            "WHERE c.accountId IN :accountIds " +
+            "AND c.asOf >= :from")
+    int deleteFrom(@Param("accountIds") Collection<Long> accountIds,
+                   @Param("from") LocalDate from);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM BalanceCheckpoint c WHERE c.accountId = :accountId")
+    int deleteByAccountId(@Param("accountId") Long accountId);
+}
@@ -1,6 +1,7 @@
 package com.ledger.project_software.orm;
 
 import com.ledger.project_software.domain.Budget;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -12,6 +13,11 @@ import java.util.Optional;
 
 @Repository
 public interface BudgetDAO extends JpaRepository<Budget, Long> {
+    //Budget.summary: the category is read by every caller (name, parent, children), fetched with the budget
+    @Override
+    @EntityGraph("Budget.summary")
+    Optional<Budget> findById(Long id);
+
     @Query("SELECT b FROM Budget b " +
             "WHERE b.owner.id = :userId " +
             "AND b.category IS NULL " +
@@ -21,6 +27,7 @@ public interface BudgetDAO extends JpaRepository<Budget, Long> {
                                                            @Param("today") LocalDate today);
 
 
+    @EntityGraph("Budget.summary")
     @Query("SELECT b FROM Budget b " +
             "WHERE b.owner.id = :userId " +
             "AND b.category IS NOT NULL " +
@@ -65,5 +72,21 @@ public interface BudgetDAO extends JpaRepository<Budget, Long> {
                                               @Param("today") LocalDate today,
                                               @Param("period") Budget.Period period);
 
-}
+    //budget attivi toccati da una spesa: budget di user senza categoria + budget delle categorie indicate
+    @EntityGraph("Budget.summary")
+    @Query("SELECT b FROM Budget b " +
+            "WHERE b.owner.id = :userId " +
+            "AND (b.category IS NULL OR b.category.id IN :categoryIds) " +
+            "AND :date BETWEEN b.startDate AND b.endDate")
+    List<Budget> findActiveBudgetsAffectedBy(@Param("userId") Long userId,
+                                             @Param("categoryIds") List<Long> categoryIds,
+                                             @Param("date") LocalDate date);
 
+    //tutti i budget attivi di user, per il forecast
+    @EntityGraph("Budget.summary")
+    @Query("SELECT b FROM Budget b " +
+            "WHERE b.owner.id = :userId " +
+            "AND :today BETWEEN b.startDate AND b.endDate")
+    List<Budget> findActiveByUserId(@Param("userId") Long userId,
+                                    @Param("today") LocalDate today);
+}
@@ -0,0 +1,28 @@
+package com.ledger.project_software.orm;
+
+import com.ledger.project_software.domain.CreditStatement;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CreditStatementDAO extends JpaRepository<CreditStatement, Long> {
+    @Query("SELECT s FROM CreditStatement s " +
+            "WHERE s.accountId = :accountId " +
+            "AND s.periodEnd = :periodEnd")
+    Optional<CreditStatement> findByAccountIdAndPeriodEnd(@Param("accountId") Long accountId,
+                                                          @Param("periodEnd") LocalDate periodEnd);
+
+    //newest first: with PageRequest.of(0, 1) the latest statement is a single indexed row
+    @Query("SELECT s FROM CreditStatement s " +
+            "WHERE s.accountId = :accountId " +
+            "ORDER BY s.periodEnd DESC")
+    List<CreditStatement> findByAccountIdOrderByPeriodEndDesc(@Param("accountId") Long accountId,
+                                                              Pageable pageable);
+}
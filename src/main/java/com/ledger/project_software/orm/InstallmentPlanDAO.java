@@ -1,15 +1,49 @@
 package com.ledger.project_software.orm;
 
 import com.ledger.project_software.domain.InstallmentPlan;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface InstallmentPlanDAO extends JpaRepository<InstallmentPlan, Long> {
+    //the card is loaded with the plan as the concrete CreditAccount, a lazy proxy could not be cast to it
+    @Override
+    @EntityGraph(attributePaths = "linkedAccount")
+    Optional<InstallmentPlan> findById(Long id);
+
     @Query("SELECT ip FROM InstallmentPlan ip " +
             "WHERE ip.linkedAccount.id = :accountId")
     List<InstallmentPlan> findByLinkedAccountId(Long accountId);
+
+    //plans of the user with periods still to pay
+    @Query("SELECT ip FROM InstallmentPlan ip " +
+            "WHERE ip.linkedAccount.owner.id = :userId " +
+            "AND ip.paidPeriods < ip.totalPeriods " +
+            "AND ip.remainingAmount > 0")
+    List<InstallmentPlan> findOpenByOwnerId(@Param("userId") Long userId);
+
+    //keyset page of open plans whose first portion is not after date, for the repayment batch job
+    @Query("SELECT ip.id FROM InstallmentPlan ip " +
+            "WHERE ip.repaymentStartDate <= :date " +
+            "AND ip.paidPeriods < ip.totalPeriods " +
+            "AND ip.remainingAmount > 0 " +
+            "AND ip.id > :afterId " +
+            "ORDER BY ip.id")
+    List<Long> findPlanIdsWithRepaymentsUpTo(@Param("date") LocalDate date,
+                                             @Param("afterId") Long afterId,
+                                             Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT ip FROM InstallmentPlan ip WHERE ip.id = :id")
+    Optional<InstallmentPlan> findByIdForUpdate(@Param("id") Long id);
 }
@@ -2,7 +2,10 @@ package com.ledger.project_software.orm;
 
 import com.ledger.project_software.domain.Ledger;
 import com.ledger.project_software.domain.LedgerCategory;
+import com.ledger.project_software.domain.CategoryType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,4 +16,13 @@ public interface LedgerCategoryDAO extends JpaRepository<LedgerCategory, Long> {
     boolean existsByLedgerAndName(Ledger ledger, String name);
     List<LedgerCategory> findByParentId(Long categoryId);
     List<LedgerCategory> findByLedgerIdAndParentIsNull(Long ledgerId);
+
+    //categories of one type in one ledger (ledgerId null: in all ledgers of the user)
+    @Query("SELECT c FROM LedgerCategory c " +
+            "WHERE c.ledger.owner.id = :userId " +
+            "AND (:ledgerId IS NULL OR c.ledger.id = :ledgerId) " +
+            "AND c.type = :type")
+    List<LedgerCategory> findByOwnerIdAndType(@Param("userId") Long userId,
+                                              @Param("ledgerId") Long ledgerId,
+                                              @Param("type") CategoryType type);
 }
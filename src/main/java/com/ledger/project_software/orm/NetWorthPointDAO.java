@@ -0,0 +1,52 @@
+package com.ledger.project_software.orm;
+
+import com.ledger.project_software.domain.NetWorthPoint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+//values are read as scalars: rows shifted by shiftFrom are never served stale from the persistence context
+@Repository
+public interface NetWorthPointDAO extends JpaRepository<NetWorthPoint, Long> {
+    //with PageRequest.of(0, 1): date, assets, liabilities, lending, borrowing of the latest row
+    @Query("SELECT p.date, p.totalAssets, p.totalLiabilities, p.totalLending, p.totalBorrowing " +
+            "FROM NetWorthPoint p " +
+            "WHERE p.userId = :userId " +
+            "ORDER BY p.date DESC")
+    List<Object[]> findLatestValues(@Param("userId") Long userId,
+                                    Pageable pageable);
+
+    //date, assets, liabilities, lending, borrowing, oldest first
+    @Query("SELECT p.date, p.totalAssets, p.totalLiabilities, p.totalLending, p.totalBorrowing " +
+            "FROM NetWorthPoint p " +
+            "WHERE p.userId = :userId " +
+            "AND p.date BETWEEN :start AND :end " +
+            "ORDER BY p.date")
+    List<Object[]> findValues(@Param("userId") Long userId,
+                              @Param("start") LocalDate start,
+                              @Param("end") LocalDate end);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE NetWorthPoint p " +
+            "SET p.totalAssets = p.totalAssets + :assets, " +
+            "p.totalLiabilities = p.totalLiabilities + :liabilities, " +
+            "p.totalLending = p.totalLending + :lending, " +
+            "p.totalBorrowing = p.totalBorrowing + :borrowing " +
+            "WHERE p.userId = :userId " +
+            "AND p.date >= :from")
+    int shiftFrom(@Param("userId") Long userId,
+                  @Param("from") LocalDate from,
+                  @Param("assets") BigDecimal assets,
+                  @Param("liabilities") BigDecimal liabilities,
+                  @Param("lending") BigDecimal lending,
+                  @Param("borrowing") BigDecimal borrowing);
+}
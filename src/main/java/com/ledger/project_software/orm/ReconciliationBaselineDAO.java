@@ -0,0 +1,9 @@
+package com.ledger.project_software.orm;
+
+import com.ledger.project_software.domain.ReconciliationBaseline;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReconciliationBaselineDAO extends JpaRepository<ReconciliationBaseline, Long> {
+}
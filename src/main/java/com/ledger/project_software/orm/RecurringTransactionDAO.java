@@ -0,0 +1,36 @@
+package com.ledger.project_software.orm;
+
+import com.ledger.project_software.domain.RecurringTransaction;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface RecurringTransactionDAO extends JpaRepository<RecurringTransaction, Long> {
+    @Query("SELECT r FROM RecurringTransaction r " +
+            "WHERE r.owner.id = :ownerId " +
+            "ORDER BY r.id")
+    List<RecurringTransaction> findByOwnerId(@Param("ownerId") Long ownerId);
+
+    //keyset page of active templates with an occurrence due on or before date, for the batch job
+    @Query("SELECT r.id FROM RecurringTransaction r " +
+            "WHERE r.active = true " +
+            "AND r.nextOccurrence <= :date " +
+            "AND r.id > :afterId " +
+            "ORDER BY r.id")
+    List<Long> findDueIds(@Param("date") LocalDate date,
+                          @Param("afterId") Long afterId,
+                          Pageable pageable);
+
+    //row locks in id order until commit: a template is never materialized twice by concurrent runs
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM RecurringTransaction r WHERE r.id IN :ids ORDER BY r.id")
+    List<RecurringTransaction> findAllByIdForUpdate(@Param("ids") List<Long> ids);
+}
@@ -1,6 +1,9 @@
 package com.ledger.project_software.orm;
 
 import com.ledger.project_software.domain.Transaction;
+import com.ledger.project_software.domain.TransactionType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -8,10 +11,31 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TransactionDAO extends JpaRepository<Transaction, Long> {
+    //filters of the search endpoint, every parameter but userId is optional
+    String SEARCH_FILTERS = "LEFT JOIN t.ledger l " +
+            "LEFT JOIN t.fromAccount fa " +
+            "LEFT JOIN t.toAccount ta " +
+            "LEFT JOIN t.category c " +
+            "WHERE (l.owner.id = :userId OR fa.owner.id = :userId OR ta.owner.id = :userId) " +
+            "AND (:minAmount IS NULL OR t.amount >= :minAmount) " +
+            "AND (:maxAmount IS NULL OR t.amount <= :maxAmount) " +
+            "AND (:start IS NULL OR t.date >= :start) " +
+            "AND (:end IS NULL OR t.date <= :end) " +
+            "AND (:ledgerId IS NULL OR l.id = :ledgerId) " +
+            "AND (:accountId IS NULL OR fa.id = :accountId OR ta.id = :accountId) " +
+            "AND (:categoryId IS NULL OR c.id = :categoryId OR c.parent.id = :categoryId) ";
+
+    //edit and delete move balances of both accounts and touch ledger and category
+    @Override
+    @EntityGraph("Transaction.edit")
+    Optional<Transaction> findById(Long id);
+
     //total expense for user in period
     @Query("SELECT COALESCE(SUM(t.amount), 0) FROM Transaction t " +
             "WHERE t.ledger IN (SELECT l FROM Ledger l WHERE l.owner.id = :userId) " +
@@ -47,6 +71,7 @@ public interface TransactionDAO extends JpaRepository<Transaction, Long> {
                                                  @Param("startDate") LocalDate startDate,
                                                  @Param("endDate") LocalDate endDate);
 
+    @EntityGraph("Transaction.listing")
     @Query("SELECT t FROM Transaction t " +
             "WHERE t.ledger.owner.id = :ownerId " +
             "AND (t.fromAccount.id = :accountId OR t.toAccount.id = :accountId) " +
@@ -57,6 +82,7 @@ public interface TransactionDAO extends JpaRepository<Transaction, Long> {
                                                 @Param("start") LocalDate start,
                                                 @Param("end") LocalDate end);
 
+    @EntityGraph("Transaction.listing")
     @Query("SELECT t FROM Transaction t " +
             "WHERE t.ledger.id = :ledgerId " +
             "AND t.ledger.owner.id = :ownerId " +
@@ -83,6 +109,7 @@ public interface TransactionDAO extends JpaRepository<Transaction, Long> {
                                            @Param("start") LocalDate start,
                                            @Param("end") LocalDate end);
 
+    @EntityGraph("Transaction.listing")
     @Query("SELECT t FROM Transaction t " +
             "WHERE t.category.id IN :categoryIds " +
             "AND t.date BETWEEN :start AND :end " +
@@ -91,6 +118,7 @@ public interface TransactionDAO extends JpaRepository<Transaction, Long> {
                                                  @Param("start") LocalDate start,
                                                  @Param("end") LocalDate end);
 
+    @EntityGraph("Transaction.listing")
     @Query("SELECT t FROM Transaction t " +
             "WHERE t.category.id = :categoryId " +
             "AND t.date BETWEEN :start AND :end " +
@@ -98,4 +126,137 @@ public interface TransactionDAO extends JpaRepository<Transaction, Long> {
     List<Transaction> findByCategoryIdAndUserId(@Param("categoryId") Long categoryId,
                                                 @Param("start") LocalDate start,
                                                 @Param("end") LocalDate end);
+
+    //credit card cycle: amounts charged to the account (expenses and transfers out)
+    @Query("SELECT COALESCE(SUM(t.amount), 0) FROM Transaction t " +
+            "WHERE t.fromAccount.id = :accountId " +
+            "AND t.date BETWEEN :start AND :end")
+    BigDecimal sumOutgoingByAccountAndPeriod(@Param("accountId") Long accountId,
+                                             @Param("start") LocalDate start,
+                                             @Param("end") LocalDate end);
+
+    //credit card cycle: the charges only, without the installment repayment postings (Transfer.installmentRepayment):
+    //the statement bills the installment portions by their due date already
+    @Query("SELECT COALESCE(SUM(t.amount), 0) FROM Transaction t " +
+            "WHERE t.fromAccount.id = :accountId " +
+            "AND (TYPE(t) <> Transfer OR TREAT(t AS Transfer).installmentRepayment = false) " +
+            "AND t.date BETWEEN :start AND :end")
+    BigDecimal sumChargesByAccountAndPeriod(@Param("accountId") Long accountId,
+                                            @Param("start") LocalDate start,
+                                            @Param("end") LocalDate end);
+
+    //credit card cycle: amounts paid into the account (income, refunds, repayments)
+    @Query("SELECT COALESCE(SUM(t.amount), 0) FROM Transaction t " +
+            "WHERE t.toAccount.id = :accountId " +
+            "AND t.date BETWEEN :start AND :end")
+    BigDecimal sumIncomingByAccountAndPeriod(@Param("accountId") Long accountId,
+                                             @Param("start") LocalDate start,
+                                             @Param("end") LocalDate end);
+
+    //reconciliation: accountId, total received over the whole history, for a chunk of accounts
+    @Query("SELECT t.toAccount.id, SUM(t.amount) FROM Transaction t " +
+            "WHERE t.toAccount.id IN :accountIds " +
+            "GROUP BY t.toAccount.id")
+    List<Object[]> sumIncomingByAccountIds(@Param("accountIds") Collection<Long> accountIds);
+
+    //reconciliation: accountId, total paid over the whole history, for a chunk of accounts
+    @Query("SELECT t.fromAccount.id, SUM(t.amount) FROM Transaction t " +
+            "WHERE t.fromAccount.id IN :accountIds " +
+            "GROUP BY t.fromAccount.id")
+    List<Object[]> sumOutgoingByAccountIds(@Param("accountIds") Collection<Long> accountIds);
+
+    //whole history of the user as column values, for TransactionAnalyticsCache:
+    //id, date, amount, type, categoryId, fromAccountId, toAccountId, ledgerId
+    @Query("SELECT t.id, t.date, t.amount, t.type, c.id, fa.id, ta.id, l.id FROM Transaction t " +
+            "LEFT JOIN t.category c " +
+            "LEFT JOIN t.fromAccount fa " +
+            "LEFT JOIN t.toAccount ta " +
+            "LEFT JOIN t.ledger l " +
+            "WHERE l.owner.id = :userId OR fa.owner.id = :userId OR ta.owner.id = :userId " +
+            "ORDER BY t.id")
+    List<Object[]> findColumnsByUserId(@Param("userId") Long userId);
+
+    //one row per category and month: categoryId, year, month, total. ledgerId null = all ledgers of the user
+    @Query("SELECT t.category.id, YEAR(t.date), MONTH(t.date), SUM(t.amount) FROM Transaction t " +
+            "WHERE t.ledger.owner.id = :userId " +
+            "AND (:ledgerId IS NULL OR t.ledger.id = :ledgerId) " +
+            "AND t.type = :type " +
+            "AND t.category IS NOT NULL " +
+            "AND t.date BETWEEN :start AND :end " +
+            "GROUP BY t.category.id, YEAR(t.date), MONTH(t.date)")
+    List<Object[]> sumByCategoryAndMonth(@Param("userId") Long userId,
+                                         @Param("ledgerId") Long ledgerId,
+                                         @Param("type") TransactionType type,
+                                         @Param("start") LocalDate start,
+                                         @Param("end") LocalDate end);
+
+    //income received per account, category and month: accountId, categoryId, year, month, total
+    @Query("SELECT ta.id, c.id, YEAR(t.date), MONTH(t.date), SUM(t.amount) FROM Transaction t " +
+            "JOIN t.toAccount ta " +
+            "LEFT JOIN t.category c " +
+            "WHERE ta.owner.id = :userId " +
+            "AND t.type = :type " +
+            "AND t.date BETWEEN :start AND :end " +
+            "GROUP BY ta.id, c.id, YEAR(t.date), MONTH(t.date)")
+    List<Object[]> sumIncomingByAccountCategoryAndMonth(@Param("userId") Long userId,
+                                                        @Param("type") TransactionType type,
+                                                        @Param("start") LocalDate start,
+                                                        @Param("end") LocalDate end);
+
+    //amounts paid out per account: accountId, total
+    @Query("SELECT fa.id, SUM(t.amount) FROM Transaction t " +
+            "JOIN t.fromAccount fa " +
+            "WHERE fa.owner.id = :userId " +
+            "AND t.type = :type " +
+            "AND t.date BETWEEN :start AND :end " +
+            "GROUP BY fa.id")
+    List<Object[]> sumOutgoingByAccount(@Param("userId") Long userId,
+                                       @Param("type") TransactionType type,
+                                       @Param("start") LocalDate start,
+                                       @Param("end") LocalDate end);
+
+    //notes of every transaction of the user, for TransactionSearchIndex: id, note
+    @Query("SELECT t.id, t.note FROM Transaction t " +
+            "LEFT JOIN t.ledger l " +
+            "LEFT JOIN t.fromAccount fa " +
+            "LEFT JOIN t.toAccount ta " +
+            "WHERE (l.owner.id = :userId OR fa.owner.id = :userId OR ta.owner.id = :userId) " +
+            "AND t.note IS NOT NULL")
+    List<Object[]> findNotesByUserId(@Param("userId") Long userId);
+
+    @EntityGraph("Transaction.listing")
+    @Query("SELECT t FROM Transaction t " + SEARCH_FILTERS +
+            "ORDER BY t.date DESC, t.id DESC")
+    List<Transaction> search(@Param("userId") Long userId,
+                             @Param("minAmount") BigDecimal minAmount,
+                             @Param("maxAmount") BigDecimal maxAmount,
+                             @Param("start") LocalDate start,
+                             @Param("end") LocalDate end,
+                             @Param("ledgerId") Long ledgerId,
+                             @Param("accountId") Long accountId,
+                             @Param("categoryId") Long categoryId,
+                             Pageable pageable);
+
+    //same filters restricted to the ids matched by the note index
+    @EntityGraph("Transaction.listing")
+    @Query("SELECT t FROM Transaction t " + SEARCH_FILTERS +
+            "AND t.id IN :ids " +
+            "ORDER BY t.date DESC, t.id DESC")
+    List<Transaction> searchIn(@Param("ids") Collection<Long> ids,
+                               @Param("userId") Long userId,
+                               @Param("minAmount") BigDecimal minAmount,
+                               @Param("maxAmount") BigDecimal maxAmount,
+                               @Param("start") LocalDate start,
+                               @Param("end") LocalDate end,
+                               @Param("ledgerId") Long ledgerId,
+                               @Param("accountId") Long accountId,
+                               @Param("categoryId") Long categoryId,
+                               Pageable pageable);
+
+    //from/to account ids of one transaction without loading it, to lock the accounts before the transaction is read
+    @Query("SELECT f.id, a.id FROM Transaction t " +
+            "LEFT JOIN t.fromAccount f " +
+            "LEFT JOIN t.toAccount a " +
+            "WHERE t.id = :id")
+    List<Object[]> findAccountIdsById(@Param("id") Long id);
 }
@@ -1,10 +1,30 @@
 package com.ledger.project_software.orm;
 
 import com.ledger.project_software.domain.User;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface UserDAO extends JpaRepository<User, Long> {
     User findByUsername(String username);
+
+    //serializes the net-worth updates of one user
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM User u WHERE u.id = :id")
+    Optional<User> lockById(@Param("id") Long id);
+
+    //keyset page of all user ids, for the net-worth batch job
+    @Query("SELECT u.id FROM User u " +
+            "WHERE u.id > :afterId " +
+            "ORDER BY u.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId,
+                            Pageable pageable);
 }
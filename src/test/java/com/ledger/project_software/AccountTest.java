@@ -6,6 +6,7 @@ import jakarta.transaction.Transactional;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -29,7 +30,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
-@SpringBootTest(classes = com.ledger.project_software.ProjectSoftwareApplication.class)
+@SpringBootTest(classes = com.ledger.project_software.ProjectSoftwareApplication.class,
+        properties = QueryCountExtension.STATEMENT_INSPECTOR)
 @Transactional
 @AutoConfigureMockMvc
 @Rollback
@@ -37,6 +39,9 @@ public class AccountTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @RegisterExtension
+    QueryCountExtension queries = new QueryCountExtension();
+
     @Autowired
     private AccountDAO accountDAO;
 
@@ -2085,4 +2090,34 @@ public class AccountTest {
                 .andExpect(jsonPath("$[1].amount").value(50));
     }
 
+    //query-count budgets: statements of one request, loaded on a cleared persistence context
+    @Test
+    public void testQueryCount_TransactionsForMonth() throws Exception {
+        BasicAccount cash = new BasicAccount("Cash", BigDecimal.valueOf(1000), null, true, true, AccountType.CASH, AccountCategory.FUNDS, testUser);
+        accountDAO.save(cash);
+        for (int i = 0; i < 5; i++) {
+            BasicAccount other = new BasicAccount("other " + i, BigDecimal.valueOf(100), null, true, true, AccountType.CASH, AccountCategory.FUNDS, testUser);
+            accountDAO.save(other);
+            transactionDAO.save(new Transfer(LocalDate.now(), null, cash, other, BigDecimal.valueOf(10), testLedger));
+        }
+
+        queries.perform(mockMvc, get("/accounts/{id}/get-transactions-for-month", cash.getId())
+                        .principal(() -> "Alice")
+                        .param("month", YearMonth.now().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(5)));
+        queries.assertAtMost(3, 0, 0); //account, user, transactions with their accounts
+    }
+
+    @Test
+    public void testQueryCount_CreditAccount() throws Exception {
+        BasicAccount cash = new BasicAccount("Cash", BigDecimal.valueOf(1000), null, true, true, AccountType.CASH, AccountCategory.FUNDS, testUser);
+        accountDAO.save(cash);
+
+        queries.perform(mockMvc, put("/accounts/{id}/credit", cash.getId())
+                        .principal(() -> "Alice")
+                        .param("amount", "50"))
+                .andExpect(status().isOk());
+        queries.assertAtMost(2, 0, 1); //user, account; the balance
+    }
 }
@@ -0,0 +1,185 @@
+package com.ledger.project_software;
+
+import com.ledger.project_software.business.BalanceCheckpointService;
+import com.ledger.project_software.domain.*;
+import com.ledger.project_software.orm.*;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(classes = com.ledger.project_software.ProjectSoftwareApplication.class)
+@Transactional
+@AutoConfigureMockMvc
+@Rollback
+public class BalanceCheckpointTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserDAO userDAO;
+    @Autowired
+    private LedgerDAO ledgerDAO;
+    @Autowired
+    private LedgerCategoryDAO ledgerCategoryDAO;
+    @Autowired
+    private AccountDAO accountDAO;
+    @Autowired
+    private TransactionDAO transactionDAO;
+    @Autowired
+    private BalanceCheckpointDAO balanceCheckpointDAO;
+    @Autowired
+    private BalanceCheckpointService balanceCheckpointService;
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 10, 19);
+
+    private String username;
+    private Ledger ledger;
+    private LedgerCategory salary;
+    private BasicAccount cash;
+
+    @BeforeEach
+    public void setUp() {
+        username = "Checkpoint" + UUID.randomUUID().toString().substring(0, 8);
+        User testUser = new User(username, "pass123");
+        userDAO.save(testUser);
+        ledger = new Ledger("Checkpoint Ledger", testUser);
+        ledgerDAO.save(ledger);
+        salary = new LedgerCategory("Salary", CategoryType.INCOME, ledger);
+        ledgerCategoryDAO.save(salary);
+
+        //current balance 1000, after +200 on 2025-08-10 and -50 on 2025-09-05
+        cash = new BasicAccount("Cash", BigDecimal.valueOf(1000), null, true, true,
+                AccountType.CASH, AccountCategory.FUNDS, testUser);
+        accountDAO.save(cash);
+        transactionDAO.save(new Income(LocalDate.of(2025, 8, 10), BigDecimal.valueOf(200), null, cash, ledger, salary));
+        transactionDAO.save(new Expense(LocalDate.of(2025, 9, 5), BigDecimal.valueOf(50), null, cash, ledger, null));
+    }
+
+    private BalanceCheckpoint checkpoint(LocalDate asOf) {
+        List<BalanceCheckpoint> found = balanceCheckpointDAO.findOnOrBefore(cash.getId(), asOf, PageRequest.of(0, 1));
+        return found.isEmpty() || !found.get(0).getAsOf().equals(asOf) ? null : found.get(0);
+    }
+
+    @Test
+    public void testBalanceAsOf_ReplayedFromCurrentBalance() {
+        BalanceCheckpointService.BalanceAsOf endOfAugust = balanceCheckpointService.balanceAsOf(cash, LocalDate.of(2025, 8, 31), TODAY);
+        BalanceCheckpointService.BalanceAsOf beforeIncome = balanceCheckpointService.balanceAsOf(cash, LocalDate.of(2025, 8, 1), TODAY);
+
+        Assertions.assertEquals(0, BigDecimal.valueOf(1050).compareTo(endOfAugust.balance()));
+        Assertions.assertEquals(0, BigDecimal.valueOf(850).compareTo(beforeIncome.balance()));
+        Assertions.assertNull(endOfAugust.checkpoint());
+    }
+
+    @Test
+    public void testWriteCheckpoints_IsIdempotent() {
+        Assertions.assertTrue(balanceCheckpointService.writeCheckpointsFor(TODAY) >= 12);
+        Assertions.assertEquals(0, balanceCheckpointService.writeCheckpointsFor(TODAY));
+
+        Assertions.assertEquals(0, BigDecimal.valueOf(850).compareTo(checkpoint(LocalDate.of(2025, 7, 31)).getBalance()));
+        Assertions.assertEquals(0, BigDecimal.valueOf(1050).compareTo(checkpoint(LocalDate.of(2025, 8, 31)).getBalance()));
+        Assertions.assertEquals(0, BigDecimal.valueOf(1000).compareTo(checkpoint(LocalDate.of(2025, 9, 30)).getBalance()));
+        Assertions.assertNotNull(checkpoint(LocalDate.of(2024, 10, 31)));
+
+        BalanceCheckpointService.BalanceAsOf fromCheckpoint = balanceCheckpointService.balanceAsOf(cash, LocalDate.of(2025, 9, 2), TODAY);
+        Assertions.assertEquals(LocalDate.of(2025, 8, 31), fromCheckpoint.checkpoint());
+        Assertions.assertEquals(0, BigDecimal.valueOf(1050).compareTo(fromCheckpoint.balance()));
+    }
+
+    @Test
+    public void testBackDatedTransaction_InvalidatesLaterCheckpoints() throws Exception {
+        balanceCheckpointService.writeCheckpointsFor(TODAY);
+
+        mockMvc.perform(post("/transactions/create")
+                        .principal(() -> username)
+                        .param("amount", "100.00")
+                        .param("toAccountId", String.valueOf(cash.getId()))
+                        .param("categoryId", String.valueOf(salary.getId()))
+                        .param("ledgerId", String.valueOf(ledger.getId()))
+                        .param("date", "2025-08-20")
+                        .param("type", "INCOME"))
+                .andExpect(status().isOk());
+
+        Assertions.assertNotNull(checkpoint(LocalDate.of(2025, 7, 31)));
+        Assertions.assertNull(checkpoint(LocalDate.of(2025, 8, 31)));
+        Assertions.assertNull(checkpoint(LocalDate.of(2025, 9, 30)));
+
+        //current balance 1100: 1100 + 50 spent after the 2nd
+        mockMvc.perform(get("/accounts/{id}/balance", cash.getId())
+                        .principal(() -> username)
+                        .param("asOf", "2025-09-02"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(1150.0))
+                .andExpect(jsonPath("$.checkpoint").value("2025-07-31"));
+    }
+
+    @Test
+    public void testCardRepayment_MovesTheDebtNotTheBalance() {
+        User owner = userDAO.findByUsername(username);
+        CreditAccount card = new CreditAccount("Card", BigDecimal.ZERO, owner, null, true, true,
+                BigDecimal.valueOf(5000), BigDecimal.valueOf(200), 15, 5, AccountType.CREDIT_CARD);
+        accountDAO.save(card);
+        Transaction repayment = new Transfer(LocalDate.of(2025, 9, 10), "Repay", cash, card, BigDecimal.valueOf(50), ledger);
+        transactionDAO.save(repayment);
+        cash.debit(BigDecimal.valueOf(50));
+        card.repayDebt(repayment);
+        accountDAO.save(cash);
+        accountDAO.save(card);
+
+        //owes 150 now, 200 before the repayment
+        Assertions.assertEquals(0, BigDecimal.valueOf(-150)
+                .compareTo(balanceCheckpointService.balanceAsOf(card, LocalDate.of(2025, 9, 30), TODAY).balance()));
+        Assertions.assertEquals(0, BigDecimal.valueOf(-200)
+                .compareTo(balanceCheckpointService.balanceAsOf(card, LocalDate.of(2025, 9, 1), TODAY).balance()));
+
+        balanceCheckpointService.writeCheckpointsFor(TODAY);
+        List<BalanceCheckpoint> endOfAugust = balanceCheckpointDAO.findOnOrBefore(card.getId(), LocalDate.of(2025, 8, 31), PageRequest.of(0, 1));
+        Assertions.assertEquals(0, BigDecimal.valueOf(-200).compareTo(endOfAugust.get(0).getBalance()));
+    }
+
+    @Test
+    public void testLoanRepayment_MovesTheRemainingAmount() {
+        User owner = userDAO.findByUsername(username);
+        LoanAccount loan = new LoanAccount("Loan", owner, null, true, 36, 0, BigDecimal.valueOf(1),
+                BigDecimal.valueOf(1000), cash, LocalDate.of(2025, 1, 5), LoanAccount.RepaymentType.EQUAL_INTEREST);
+        loan.setRemainingAmount(BigDecimal.valueOf(1000));
+        accountDAO.save(loan);
+        Transaction repayment = new Transfer(LocalDate.of(2025, 9, 10), "Loan Repayment", cash, loan, BigDecimal.valueOf(100), ledger);
+        transactionDAO.save(repayment);
+        cash.debit(BigDecimal.valueOf(100));
+        loan.repayLoan(repayment, BigDecimal.valueOf(100));
+        accountDAO.save(cash);
+        accountDAO.save(loan);
+
+        //the balance field of a loan stays 0: a repayment must not show up as a negative balance
+        Assertions.assertEquals(0, BigDecimal.valueOf(-900)
+                .compareTo(balanceCheckpointService.balanceAsOf(loan, LocalDate.of(2025, 9, 30), TODAY).balance()));
+        Assertions.assertEquals(0, BigDecimal.valueOf(-1000)
+                .compareTo(balanceCheckpointService.balanceAsOf(loan, LocalDate.of(2025, 9, 1), TODAY).balance()));
+    }
+
+    @Test
+    public void testGetBalance_OtherUserForbidden() throws Exception {
+        User other = new User("Other" + username, "pass123");
+        userDAO.save(other);
+
+        mockMvc.perform(get("/accounts/{id}/balance", cash.getId())
+                        .principal(() -> "Other" + username)
+                        .param("asOf", "2025-09-02"))
+                .andExpect(status().isForbidden());
+    }
+}
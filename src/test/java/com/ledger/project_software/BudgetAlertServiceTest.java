@@ -0,0 +1,167 @@
+package com.ledger.project_software;
+
+import com.ledger.project_software.business.BudgetAlert;
+import com.ledger.project_software.business.BudgetAlertService;
+import com.ledger.project_software.domain.*;
+import com.ledger.project_software.orm.BudgetDAO;
+import com.ledger.project_software.orm.TransactionDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BudgetAlertServiceTest {
+    @Mock
+    private BudgetDAO budgetDAO;
+
+    @Mock
+    private TransactionDAO transactionDAO;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private BudgetAlertService budgetAlertService;
+
+    private User testUser;
+    private Account account;
+    private Ledger ledger;
+    private LedgerCategory food;
+    private LedgerCategory lunch;
+    private Budget foodBudget;
+
+    @BeforeEach
+    public void setup() {
+        budgetAlertService = new BudgetAlertService(budgetDAO, transactionDAO, eventPublisher, new int[]{80, 100}, 2);
+
+        testUser = new User("Alice", "password123");
+        testUser.setId(1L);
+        ledger = new Ledger("Test Ledger", testUser);
+        ledger.setId(1L);
+        account = new BasicAccount("Cash", BigDecimal.valueOf(1000), null, true, true, AccountType.CASH, AccountCategory.FUNDS, testUser);
+        account.setId(1L);
+
+        food = new LedgerCategory("Food", CategoryType.EXPENSE, ledger);
+        food.setId(10L);
+        lunch = new LedgerCategory("Lunch", CategoryType.EXPENSE, ledger);
+        lunch.setId(11L);
+        lunch.setParent(food);
+        food.getChildren().add(lunch);
+
+        foodBudget = new Budget(BigDecimal.valueOf(100), Budget.Period.MONTHLY, food, testUser);
+        foodBudget.setId(100L);
+    }
+
+    @Test
+    public void testEvaluate_CrossingEightyPercent() {
+        Expense expense = new Expense(LocalDate.now(), BigDecimal.valueOf(30), null, account, ledger, lunch);
+        when(budgetDAO.findActiveBudgetsAffectedBy(eq(1L), eq(List.of(11L, 10L)), any(LocalDate.class)))
+                .thenReturn(List.of(foodBudget));
+        when(transactionDAO.sumExpensesByCategoryIdsAndPeriod(eq(1L), eq(List.of(10L, 11L)), any(), any()))
+                .thenReturn(BigDecimal.valueOf(85)); //55 before, 85 after
+
+        List<BudgetAlert> alerts = budgetAlertService.evaluate(testUser, expense);
+
+        assertEquals(1, alerts.size());
+        assertEquals(80, alerts.get(0).threshold());
+        assertEquals(100L, alerts.get(0).budgetId());
+        assertEquals("Food", alerts.get(0).categoryName());
+        verify(eventPublisher, times(1)).publishEvent(any(BudgetAlert.class));
+    }
+
+    @Test
+    public void testEvaluate_CrossingBothThresholds() {
+        Expense expense = new Expense(LocalDate.now(), BigDecimal.valueOf(60), null, account, ledger, food);
+        when(budgetDAO.findActiveBudgetsAffectedBy(eq(1L), eq(List.of(10L)), any(LocalDate.class)))
+                .thenReturn(List.of(foodBudget));
+        when(transactionDAO.sumExpensesByCategoryIdsAndPeriod(eq(1L), anyList(), any(), any()))
+                .thenReturn(BigDecimal.valueOf(110)); //50 before, 110 after
+
+        List<BudgetAlert> alerts = budgetAlertService.evaluate(testUser, expense);
+
+        assertEquals(2, alerts.size());
+        assertEquals(80, alerts.get(0).threshold());
+        assertEquals(100, alerts.get(1).threshold());
+    }
+
+    @Test
+    public void testEvaluate_AlreadyAboveThreshold_NoAlert() {
+        Expense expense = new Expense(LocalDate.now(), BigDecimal.valueOf(5), null, account, ledger, food);
+        when(budgetDAO.findActiveBudgetsAffectedBy(eq(1L), anyList(), any(LocalDate.class)))
+                .thenReturn(List.of(foodBudget));
+        when(transactionDAO.sumExpensesByCategoryIdsAndPeriod(eq(1L), anyList(), any(), any()))
+                .thenReturn(BigDecimal.valueOf(90)); //85 before, 90 after
+
+        List<BudgetAlert> alerts = budgetAlertService.evaluate(testUser, expense);
+
+        assertTrue(alerts.isEmpty());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    public void testEvaluate_EditLoweringAmount_NoQuery() {
+        Expense expense = new Expense(LocalDate.now(), BigDecimal.valueOf(20), null, account, ledger, food);
+        when(budgetDAO.findActiveBudgetsAffectedBy(eq(1L), anyList(), any(LocalDate.class)))
+                .thenReturn(List.of(foodBudget));
+
+        List<BudgetAlert> alerts = budgetAlertService.evaluate(testUser, expense, food, LocalDate.now(), BigDecimal.valueOf(50));
+
+        assertTrue(alerts.isEmpty());
+        verify(transactionDAO, never()).sumExpensesByCategoryIdsAndPeriod(any(), anyList(), any(), any());
+    }
+
+    @Test
+    public void testEvaluate_IncomeIgnored() {
+        LedgerCategory salary = new LedgerCategory("Salary", CategoryType.INCOME, ledger);
+        salary.setId(20L);
+        Income income = new Income(LocalDate.now(), BigDecimal.valueOf(500), null, account, ledger, salary);
+
+        assertTrue(budgetAlertService.evaluate(testUser, income).isEmpty());
+        verifyNoInteractions(budgetDAO, transactionDAO, eventPublisher);
+    }
+
+    @Test
+    public void testQueue_BoundedAndDrained() {
+        budgetAlertService.onBudgetAlert(alert(80));
+        budgetAlertService.onBudgetAlert(alert(90));
+        budgetAlertService.onBudgetAlert(alert(100)); //capacity 2: oldest is dropped
+
+        List<BudgetAlert> pending = budgetAlertService.drainAlerts(1L);
+        assertEquals(2, pending.size());
+        assertEquals(90, pending.get(0).threshold());
+        assertEquals(100, pending.get(1).threshold());
+        assertTrue(budgetAlertService.drainAlerts(1L).isEmpty());
+    }
+
+    @Test
+    public void testAwaitAlerts_NotifiedOnPublish() {
+        List<BudgetAlert> received = new ArrayList<>();
+        Runnable unsubscribe = budgetAlertService.awaitAlerts(1L, received::addAll);
+        assertTrue(received.isEmpty());
+
+        budgetAlertService.onBudgetAlert(alert(80));
+        assertEquals(1, received.size());
+
+        //waiter is consumed: next alert stays queued
+        budgetAlertService.onBudgetAlert(alert(100));
+        assertEquals(1, received.size());
+        assertEquals(1, budgetAlertService.drainAlerts(1L).size());
+        unsubscribe.run();
+    }
+
+    private BudgetAlert alert(int threshold) {
+        return new BudgetAlert(1L, 100L, "Food", Budget.Period.MONTHLY, foodBudget.getStartDate(),
+                foodBudget.getEndDate(), threshold, BigDecimal.valueOf(100), BigDecimal.valueOf(threshold), null, null);
+    }
+}
@@ -5,6 +5,7 @@ import com.ledger.project_software.orm.LedgerCategoryDAO;
 import com.ledger.project_software.orm.TransactionDAO;
 import com.ledger.project_software.orm.UserDAO;
 import com.ledger.project_software.business.BudgetController;
+import com.ledger.project_software.business.ParallelQueryExecutor;
 import com.ledger.project_software.domain.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,7 +13,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.server.ResponseStatusException;
@@ -42,6 +45,12 @@ public class BudgetStructuralTest {
     @Mock
     private TransactionDAO transactionDAO;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private ParallelQueryExecutor parallelQueryExecutor = new ParallelQueryExecutor(1, 1, 10, null); //serial: stubs answer in call order
+
     @InjectMocks
     private BudgetController budgetController;
 
@@ -250,7 +259,7 @@ public class BudgetStructuralTest {
         Mockito.when(budgetDAO.save(any(Budget.class))).thenAnswer(i -> i.getArguments()[0]);
 
         ResponseEntity<String> response = budgetController.editBudget(
-                100L, BigDecimal.valueOf(800), principal);
+                100L, BigDecimal.valueOf(800), principal, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals("Budget updated successfully", response.getBody());
@@ -261,7 +270,7 @@ public class BudgetStructuralTest {
     @Test
     public void testEditBudget_Unauthorized_NullPrincipal() {
         ResponseEntity<String> response = budgetController.editBudget(
-                100L, BigDecimal.valueOf(800), null);
+                100L, BigDecimal.valueOf(800), null, null);
 
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
         assertEquals("Unauthenticated access", response.getBody());
@@ -272,7 +281,7 @@ public class BudgetStructuralTest {
         Mockito.when(userDAO.findByUsername("Alice")).thenReturn(null);
 
         ResponseEntity<String> response = budgetController.editBudget(
-                100L, BigDecimal.valueOf(800), principal);
+                100L, BigDecimal.valueOf(800), principal, null);
 
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
         assertEquals("Unauthenticated access", response.getBody());
@@ -284,7 +293,7 @@ public class BudgetStructuralTest {
         Mockito.when(budgetDAO.findById(999L)).thenReturn(Optional.empty());
 
         assertThrows(ResponseStatusException.class, () ->
-                budgetController.editBudget(999L, BigDecimal.valueOf(800), principal)
+                budgetController.editBudget(999L, BigDecimal.valueOf(800), principal, null)
         );
     }
 
@@ -298,7 +307,7 @@ public class BudgetStructuralTest {
         Mockito.when(budgetDAO.findById(100L)).thenReturn(Optional.of(categoryBudget));
 
         ResponseEntity<String> response = budgetController.editBudget(
-                100L, BigDecimal.valueOf(800), principal);
+                100L, BigDecimal.valueOf(800), principal, null);
 
         assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
         assertEquals("Budget does not belong to the user", response.getBody());
@@ -310,7 +319,7 @@ public class BudgetStructuralTest {
         Mockito.when(budgetDAO.findById(100L)).thenReturn(Optional.of(categoryBudget));
 
         ResponseEntity<String> response = budgetController.editBudget(
-                100L, BigDecimal.valueOf(-100), principal);
+                100L, BigDecimal.valueOf(-100), principal, null);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertEquals("Amount must be non-negative", response.getBody());
@@ -323,7 +332,7 @@ public class BudgetStructuralTest {
         Mockito.when(budgetDAO.save(any(Budget.class))).thenAnswer(i -> i.getArguments()[0]);
 
         ResponseEntity<String> response = budgetController.editBudget(
-                100L, BigDecimal.ZERO, principal);
+                100L, BigDecimal.ZERO, principal, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(0, BigDecimal.ZERO.compareTo(categoryBudget.getAmount()));
@@ -6,6 +6,7 @@ import jakarta.transaction.Transactional;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -23,7 +24,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
-@SpringBootTest(classes = com.ledger.project_software.ProjectSoftwareApplication.class)
+@SpringBootTest(classes = com.ledger.project_software.ProjectSoftwareApplication.class,
+        properties = QueryCountExtension.STATEMENT_INSPECTOR)
 @Transactional
 @AutoConfigureMockMvc
 @Rollback
@@ -31,6 +33,9 @@ public class BudgetTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @RegisterExtension
+    QueryCountExtension queries = new QueryCountExtension();
+
     @Autowired
     private BudgetDAO budgetRepository;
 
@@ -536,4 +541,31 @@ public class BudgetTest {
 
     }
 
+    //query-count budgets: statements of one request, loaded on a cleared persistence context
+    @Test
+    public void testQueryCount_BudgetDashboard() throws Exception {
+        budgetRepository.save(new Budget(BigDecimal.valueOf(1000), Budget.Period.MONTHLY, null, testUser));
+        budgetRepository.save(new Budget(BigDecimal.valueOf(300), Budget.Period.MONTHLY, foodCategory, testUser));
+        budgetRepository.save(new Budget(BigDecimal.valueOf(100), Budget.Period.MONTHLY, lunch, testUser));
+        budgetRepository.save(new Budget(BigDecimal.valueOf(200), Budget.Period.MONTHLY, transportCategory, testUser));
+
+        queries.perform(mockMvc, get("/budgets").principal(() -> "Alice"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.categoryBudgets", hasSize(2)));
+        //user, user budget, category budgets with their categories; per category: spent and subcategories;
+        //per subcategory: its budget and spent
+        queries.assertAtMost(9, 0, 0);
+    }
+
+    @Test
+    public void testQueryCount_EditBudget() throws Exception {
+        Budget budget = new Budget(BigDecimal.valueOf(300), Budget.Period.MONTHLY, foodCategory, testUser);
+        budgetRepository.save(budget);
+
+        queries.perform(mockMvc, put("/budgets/{id}/edit", budget.getId())
+                        .principal(() -> "Alice")
+                        .param("amount", "400"))
+                .andExpect(status().isOk());
+        queries.assertAtMost(2, 0, 1); //user, budget with its category; the amount
+    }
 }
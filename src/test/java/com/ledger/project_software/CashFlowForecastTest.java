@@ -0,0 +1,166 @@
+package com.ledger.project_software;
+
+import com.ledger.project_software.business.CashFlowForecast;
+import com.ledger.project_software.business.CashFlowForecastService;
+import com.ledger.project_software.domain.*;
+import com.ledger.project_software.orm.*;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(classes = com.ledger.project_software.ProjectSoftwareApplication.class)
+@Transactional
+@AutoConfigureMockMvc
+@Rollback
+public class CashFlowForecastTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserDAO userDAO;
+    @Autowired
+    private AccountDAO accountDAO;
+    @Autowired
+    private LedgerDAO ledgerDAO;
+    @Autowired
+    private LedgerCategoryDAO ledgerCategoryDAO;
+    @Autowired
+    private TransactionDAO transactionDAO;
+    @Autowired
+    private InstallmentPlanDAO installmentPlanDAO;
+    @Autowired
+    private BudgetDAO budgetDAO;
+    @Autowired
+    private CashFlowForecastService cashFlowForecastService;
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 10, 15);
+
+    private User testUser;
+    private BasicAccount bank;
+    private LoanAccount loan;
+    private CreditAccount card;
+
+    @BeforeEach
+    public void setUp() {
+        testUser = new User("Alice", "pass123");
+        userDAO.save(testUser);
+        Ledger ledger = new Ledger("Test Ledger", testUser);
+        ledgerDAO.save(ledger);
+        LedgerCategory salary = new LedgerCategory("Salary", CategoryType.INCOME, ledger);
+        ledgerCategoryDAO.save(salary);
+        LedgerCategory gifts = new LedgerCategory("Gifts", CategoryType.INCOME, ledger);
+        ledgerCategoryDAO.save(gifts);
+
+        bank = new BasicAccount("Bank", BigDecimal.valueOf(1000), null, true, true,
+                AccountType.DEBIT_CARD, AccountCategory.FUNDS, testUser);
+        accountDAO.save(bank);
+
+        //100 per month from 2025-07-10, 3 periods paid: the one of 2025-10-10 is still open
+        loan = new LoanAccount("Loan", testUser, null, true, 12, 3, BigDecimal.ZERO, BigDecimal.valueOf(1200),
+                bank, LocalDate.of(2025, 7, 10), LoanAccount.RepaymentType.EQUAL_INTEREST);
+        accountDAO.save(loan);
+
+        card = new CreditAccount("Card", BigDecimal.ZERO, testUser, null, true, true,
+                BigDecimal.valueOf(5000), BigDecimal.valueOf(600), 15, 5, AccountType.CREDIT_CARD);
+        accountDAO.save(card);
+        //100 per month from 2025-11-01
+        InstallmentPlan plan = new InstallmentPlan(BigDecimal.valueOf(600), 6, BigDecimal.ZERO, 0,
+                InstallmentPlan.FeeStrategy.EVENLY_SPLIT, card, LocalDate.of(2025, 11, 1));
+        installmentPlanDAO.save(plan);
+
+        //salary in 3 of the last 6 months, a gift only once
+        transactionDAO.save(new Income(LocalDate.of(2025, 7, 27), BigDecimal.valueOf(2000), null, bank, ledger, salary));
+        transactionDAO.save(new Income(LocalDate.of(2025, 8, 27), BigDecimal.valueOf(2100), null, bank, ledger, salary));
+        transactionDAO.save(new Income(LocalDate.of(2025, 9, 27), BigDecimal.valueOf(2000), null, bank, ledger, salary));
+        transactionDAO.save(new Income(LocalDate.of(2025, 8, 3), BigDecimal.valueOf(500), null, bank, ledger, gifts));
+        transactionDAO.save(new Expense(LocalDate.of(2025, 9, 5), BigDecimal.valueOf(50), null, bank, ledger, null));
+
+        Budget budget = new Budget(BigDecimal.valueOf(300), Budget.Period.MONTHLY, null, testUser);
+        budget.setStartDate(LocalDate.of(2025, 10, 1));
+        budget.setEndDate(LocalDate.of(2025, 10, 31));
+        budgetDAO.save(budget);
+    }
+
+    private static CashFlowForecast.AccountProjection projection(CashFlowForecast forecast, Account account) {
+        return forecast.accounts().stream()
+                .filter(p -> p.accountId().equals(account.getId()))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static void assertAmounts(List<BigDecimal> actual, long... expected) {
+        Assertions.assertEquals(expected.length, actual.size());
+        for (int i = 0; i < expected.length; i++) {
+            Assertions.assertEquals(0, BigDecimal.valueOf(expected[i]).compareTo(actual.get(i)), "month " + i);
+        }
+    }
+
+    @Test
+    public void testForecast() {
+        CashFlowForecast forecast = cashFlowForecastService.forecast(testUser.getId(), 3, TODAY);
+
+        Assertions.assertEquals(List.of(YearMonth.of(2025, 11), YearMonth.of(2025, 12), YearMonth.of(2026, 1)),
+                forecast.months());
+        Assertions.assertEquals(bank.getId(), forecast.spendingAccountId());
+        assertAmounts(forecast.expectedIncome(), 2000, 2000, 2000); //median salary, no gift
+        assertAmounts(forecast.scheduledPayments(), 200, 200, 200);
+        assertAmounts(forecast.budgetedSpend(), 300, 300, 300);
+
+        //opening balances already include the loan period due in October
+        CashFlowForecast.AccountProjection bankProjection = projection(forecast, bank);
+        Assertions.assertEquals(0, BigDecimal.valueOf(900).compareTo(bankProjection.openingBalance()));
+        assertAmounts(bankProjection.balance(), 2500, 4100, 5700);
+        assertAmounts(projection(forecast, loan).balance(), -700, -600, -500);
+        assertAmounts(projection(forecast, card).balance(), -100, -200, -300);
+        assertAmounts(forecast.netBalance(), 1700, 3300, 4900);
+    }
+
+    @Test
+    public void testForecast_LoanEndsWithinHorizon() {
+        CashFlowForecast forecast = cashFlowForecastService.forecast(testUser.getId(), 12, TODAY);
+
+        List<BigDecimal> loanBalance = projection(forecast, loan).balance();
+        Assertions.assertEquals(0, BigDecimal.ZERO.compareTo(loanBalance.get(7))); //last period on 2026-06-10
+        Assertions.assertEquals(0, BigDecimal.ZERO.compareTo(loanBalance.get(11)));
+        assertAmounts(projection(forecast, card).balance().subList(4, 6), -500, -600); //plan ends in April
+        Assertions.assertEquals(0, BigDecimal.valueOf(-600).compareTo(projection(forecast, card).balance().get(11)));
+    }
+
+    @Test
+    public void testForecast_InvalidMonths() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> cashFlowForecastService.forecast(testUser.getId(), 0, TODAY));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> cashFlowForecastService.forecast(testUser.getId(), 61, TODAY));
+    }
+
+    @Test
+    @WithMockUser(username = "Alice")
+    public void testGetCashFlowForecast() throws Exception {
+        mockMvc.perform(get("/reports/cash-flow-forecast")
+                        .param("months", "24")
+                        .principal(() -> "Alice"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.months.length()").value(24))
+                .andExpect(jsonPath("$.accounts.length()").value(3));
+
+        mockMvc.perform(get("/reports/cash-flow-forecast")
+                        .param("months", "0")
+                        .principal(() -> "Alice"))
+                .andExpect(status().isBadRequest());
+    }
+}
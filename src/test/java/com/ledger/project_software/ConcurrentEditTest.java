@@ -0,0 +1,184 @@
+package com.ledger.project_software;
+
+import com.ledger.project_software.domain.*;
+import com.ledger.project_software.orm.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+//not transactional: every request commits on its own, so concurrent edits really race on the same rows.
+//own in-memory database, dropped with the context
+@SpringBootTest(classes = com.ledger.project_software.ProjectSoftwareApplication.class,
+        properties = "spring.datasource.url=jdbc:h2:mem:concurrentedit;LOCK_TIMEOUT=10000")
+@AutoConfigureMockMvc
+@DirtiesContext
+public class ConcurrentEditTest {
+    private static final int THREADS = 8;
+    private static final int EDITS = 200;
+    private static final BigDecimal INITIAL_BALANCE = BigDecimal.valueOf(10000);
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserDAO userDAO;
+    @Autowired
+    private LedgerDAO ledgerDAO;
+    @Autowired
+    private LedgerCategoryDAO ledgerCategoryDAO;
+    @Autowired
+    private AccountDAO accountDAO;
+    @Autowired
+    private TransactionDAO transactionDAO;
+
+    private String username;
+    private Long ledgerId;
+    private final List<Long> accountIds = new ArrayList<>();
+    private final List<Long> transactionIds = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        username = "Concurrent" + UUID.randomUUID();
+        User user = new User(username, "pass123");
+        userDAO.save(user);
+        Ledger ledger = new Ledger("Concurrent Ledger", user);
+        ledgerDAO.save(ledger);
+        ledgerId = ledger.getId();
+        LedgerCategory food = new LedgerCategory("Food", CategoryType.EXPENSE, ledger);
+        ledgerCategoryDAO.save(food);
+        for (int i = 0; i < 3; i++) {
+            BasicAccount account = new BasicAccount("Account " + i, INITIAL_BALANCE, null, true, true,
+                    AccountType.CASH, AccountCategory.FUNDS, user);
+            accountDAO.save(account);
+            accountIds.add(account.getId());
+        }
+
+        //transfers in both directions between every pair, plus one expense per account
+        for (int from = 0; from < 3; from++) {
+            for (int to = 0; to < 3; to++) {
+                if (from != to) {
+                    create(post("/transactions/create")
+                            .param("type", "TRANSFER")
+                            .param("fromAccountId", accountIds.get(from).toString())
+                            .param("toAccountId", accountIds.get(to).toString()));
+                }
+            }
+            create(post("/transactions/create")
+                    .param("type", "EXPENSE")
+                    .param("fromAccountId", accountIds.get(from).toString())
+                    .param("categoryId", food.getId().toString()));
+        }
+        for (Transaction transaction : transactionDAO.findAll()) {
+            if (transaction.getLedger() != null && transaction.getLedger().getId().equals(ledgerId)) {
+                transactionIds.add(transaction.getId());
+            }
+        }
+    }
+
+    private void create(MockHttpServletRequestBuilder request) throws Exception {
+        int status = mockMvc.perform(request
+                        .param("ledgerId", ledgerId.toString())
+                        .param("amount", "25.00")
+                        .principal(() -> username))
+                .andReturn().getResponse().getStatus();
+        Assertions.assertEquals(200, status);
+    }
+
+    @Test
+    public void testConcurrentEdits_BalancesStayConsistent() throws Exception {
+        Map<Integer, Integer> statuses = new ConcurrentHashMap<>();
+        List<Future<?>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            for (int i = 0; i < EDITS; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    int status = edit(index);
+                    statuses.merge(status, 1, Integer::sum);
+                    return null;
+                }));
+            }
+        }
+        for (Future<?> future : futures) {
+            future.get(); //rethrows a request that blew up instead of answering
+        }
+
+        Assertions.assertTrue(Set.of(200, 409, 412).containsAll(statuses.keySet()), statuses.toString());
+        Assertions.assertTrue(statuses.getOrDefault(200, 0) > 0, statuses.toString());
+
+        //every balance is the initial one moved by exactly the transactions that exist now
+        Map<Long, BigDecimal> expected = new HashMap<>();
+        for (Long accountId : accountIds) {
+            expected.put(accountId, INITIAL_BALANCE);
+        }
+        for (Long id : transactionIds) {
+            Transaction transaction = transactionDAO.findById(id).orElseThrow();
+            if (transaction.getFromAccount() != null) {
+                expected.merge(transaction.getFromAccount().getId(), transaction.getAmount().negate(), BigDecimal::add);
+            }
+            if (transaction.getToAccount() != null) {
+                expected.merge(transaction.getToAccount().getId(), transaction.getAmount(), BigDecimal::add);
+            }
+        }
+        for (Long accountId : accountIds) {
+            Account account = accountDAO.findById(accountId).orElseThrow();
+            Assertions.assertEquals(0, expected.get(accountId).compareTo(account.getBalance()),
+                    "account " + accountId + " expected " + expected.get(accountId) + " but was " + account.getBalance());
+        }
+    }
+
+    //random amount, transfers sometimes reversed (the two accounts locked in the opposite order of the last edit),
+    //every other request conditional on the version read just before
+    private int edit(int index) throws Exception {
+        Random random = new Random(index);
+        Long id = transactionIds.get(random.nextInt(transactionIds.size()));
+        Transaction transaction = transactionDAO.findById(id).orElseThrow();
+        MockHttpServletRequestBuilder request = put("/transactions/{id}/edit", id)
+                .param("amount", BigDecimal.valueOf(1 + random.nextInt(50)).toString())
+                .principal(() -> username);
+        if (transaction instanceof Transfer && random.nextBoolean()) {
+            request.param("fromAccountId", transaction.getToAccount().getId().toString())
+                    .param("toAccountId", transaction.getFromAccount().getId().toString());
+        }
+        if (index % 2 == 0) {
+            request.header("If-Match", "\"" + transaction.getVersion() + "\"");
+        }
+        return mockMvc.perform(request).andReturn().getResponse().getStatus();
+    }
+
+    @Test
+    public void testEdit_IfMatch() throws Exception {
+        Long id = transactionIds.get(0);
+        Long version = transactionDAO.findById(id).orElseThrow().getVersion();
+
+        MockHttpServletResponse response = mockMvc.perform(put("/transactions/{id}/edit", id)
+                        .param("amount", "30.00")
+                        .header("If-Match", "\"" + version + "\"")
+                        .principal(() -> username))
+                .andReturn().getResponse();
+        Assertions.assertEquals(200, response.getStatus());
+        Assertions.assertEquals("\"" + (version + 1) + "\"", response.getHeader("ETag"));
+
+        //second edit based on the old read is refused, nothing changes
+        response = mockMvc.perform(put("/transactions/{id}/edit", id)
+                        .param("amount", "40.00")
+                        .header("If-Match", "\"" + version + "\"")
+                        .principal(() -> username))
+                .andReturn().getResponse();
+        Assertions.assertEquals(412, response.getStatus());
+        Assertions.assertEquals("\"" + (version + 1) + "\"", response.getHeader("ETag"));
+        Assertions.assertEquals(0, BigDecimal.valueOf(30).compareTo(transactionDAO.findById(id).orElseThrow().getAmount()));
+    }
+}
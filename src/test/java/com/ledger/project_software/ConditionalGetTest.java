@@ -0,0 +1,105 @@
+package com.ledger.project_software;
+
+import com.ledger.project_software.business.LedgerChange;
+import com.ledger.project_software.business.UserChangeVersions;
+import com.ledger.project_software.domain.*;
+import com.ledger.project_software.orm.*;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+//events do not fire in a rolled-back test transaction: the committed change is simulated by calling the listener
+@SpringBootTest(classes = com.ledger.project_software.ProjectSoftwareApplication.class,
+        properties = "ledger.response-cache.enabled=true")
+@Transactional
+@AutoConfigureMockMvc
+@Rollback
+public class ConditionalGetTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserDAO userDAO;
+    @Autowired
+    private LedgerDAO ledgerDAO;
+    @Autowired
+    private AccountDAO accountDAO;
+    @Autowired
+    private UserChangeVersions changeVersions;
+
+    private User testUser;
+    private String username;
+
+    @BeforeEach
+    public void setUp() {
+        username = "Cond" + UUID.randomUUID().toString().substring(0, 8); //ids are not rolled back, names must not repeat
+        testUser = new User(username, "pass123");
+        userDAO.save(testUser);
+        ledgerDAO.save(new Ledger("Test Ledger", testUser));
+        accountDAO.save(new BasicAccount("Cash", BigDecimal.valueOf(100), null, true, true,
+                AccountType.CASH, AccountCategory.FUNDS, testUser));
+    }
+
+    @Test
+    public void testNotModifiedUntilChange() throws Exception {
+        String eTag = mockMvc.perform(get("/accounts/all-accounts").principal(() -> username))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("Last-Modified"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/accounts/all-accounts")
+                        .header("If-None-Match", eTag)
+                        .principal(() -> username))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag))
+                .andExpect(content().string(""));
+
+        changeVersions.onLedgerChange(LedgerChange.user(testUser.getId(), testUser, LedgerChange.Action.UPDATED));
+
+        mockMvc.perform(get("/accounts/all-accounts")
+                        .header("If-None-Match", eTag)
+                        .principal(() -> username))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(eTag)));
+    }
+
+    @Test
+    public void testResponseCache() throws Exception {
+        mockMvc.perform(get("/ledgers/all-ledgers").principal(() -> username))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+
+        //written without a change event: the cached body is still served at the same version
+        ledgerDAO.save(new Ledger("Another Ledger", testUser));
+        mockMvc.perform(get("/ledgers/all-ledgers").principal(() -> username))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+
+        changeVersions.onLedgerChange(LedgerChange.user(testUser.getId(), testUser, LedgerChange.Action.UPDATED));
+        mockMvc.perform(get("/ledgers/all-ledgers").principal(() -> username))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+    }
+
+    @Test
+    public void testUnknownUserPassesThrough() throws Exception {
+        mockMvc.perform(get("/ledgers/all-ledgers").principal(() -> "Nobody" + username))
+                .andExpect(status().isUnauthorized())
+                .andExpect(header().doesNotExist("ETag"));
+        assertNull(changeVersions.userId("Nobody" + username));
+    }
+}
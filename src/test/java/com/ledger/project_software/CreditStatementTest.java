@@ -0,0 +1,184 @@
+package com.ledger.project_software;
+
+import com.ledger.project_software.business.CreditStatementService;
+import com.ledger.project_software.orm.*;
+import com.ledger.project_software.domain.*;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(classes = com.ledger.project_software.ProjectSoftwareApplication.class)
+@Transactional
+@AutoConfigureMockMvc
+@Rollback
+public class CreditStatementTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserDAO userDAO;
+    @Autowired
+    private AccountDAO accountDAO;
+    @Autowired
+    private LedgerDAO ledgerDAO;
+    @Autowired
+    private TransactionDAO transactionDAO;
+    @Autowired
+    private InstallmentPlanDAO installmentPlanDAO;
+    @Autowired
+    private CreditStatementDAO creditStatementDAO;
+    @Autowired
+    private CreditStatementService creditStatementService;
+
+    private User testUser;
+    private CreditAccount card;
+    private InstallmentPlan plan;
+    private static final LocalDate CLOSING = LocalDate.of(2025, 9, 15);
+
+    @BeforeEach
+    public void setUp() {
+        testUser = new User("Alice", "pass123");
+        userDAO.save(testUser);
+        Ledger ledger = new Ledger("Test Ledger", testUser);
+        ledgerDAO.save(ledger);
+
+        card = new CreditAccount("Card",
+                BigDecimal.ZERO,
+                testUser,
+                null,
+                true,
+                true,
+                BigDecimal.valueOf(5000),
+                BigDecimal.ZERO,
+                15, //billDay
+                5, //dueDay
+                AccountType.CREDIT_CARD);
+        accountDAO.save(card);
+        testUser.getAccounts().add(card);
+
+        //cycle 2025-08-16 .. 2025-09-15
+        transactionDAO.save(new Expense(LocalDate.of(2025, 9, 1), BigDecimal.valueOf(300), null, card, ledger, null));
+        transactionDAO.save(new Expense(LocalDate.of(2025, 8, 10), BigDecimal.valueOf(50), null, card, ledger, null)); //previous cycle
+        transactionDAO.save(new Transfer(LocalDate.of(2025, 9, 10), "payment", null, card, BigDecimal.valueOf(100), ledger));
+
+        plan = new InstallmentPlan(BigDecimal.valueOf(1200), 12, BigDecimal.ZERO, 0,
+                InstallmentPlan.FeeStrategy.EVENLY_SPLIT, card, LocalDate.of(2025, 9, 1));
+        installmentPlanDAO.save(plan);
+        card.getInstallmentPlans().add(plan);
+    }
+
+    @Test
+    public void testCloseStatement_Snapshot() {
+        CreditStatement statement = creditStatementService.closeStatement(card, CLOSING);
+
+        Assertions.assertEquals(LocalDate.of(2025, 8, 16), statement.getPeriodStart());
+        Assertions.assertEquals(CLOSING, statement.getPeriodEnd());
+        Assertions.assertEquals(LocalDate.of(2025, 10, 5), statement.getDueDate());
+        Assertions.assertEquals(0, BigDecimal.valueOf(300).compareTo(statement.getPurchases()));
+        Assertions.assertEquals(0, BigDecimal.valueOf(100).compareTo(statement.getPayments()));
+        Assertions.assertEquals(0, BigDecimal.valueOf(100).compareTo(statement.getInstallmentDue()));
+        Assertions.assertEquals(1, statement.getInstallmentCount());
+        Assertions.assertEquals(0, BigDecimal.valueOf(300).compareTo(statement.getStatementBalance()));
+        Assertions.assertEquals(0, BigDecimal.valueOf(125).compareTo(statement.getMinimumDue())); //100 + max(25, 200 * 5%)
+    }
+
+    @Test
+    public void testCloseStatement_NextCycleCarriesBalance() {
+        creditStatementService.closeStatement(card, CLOSING);
+        CreditStatement next = creditStatementService.closeStatement(card, LocalDate.of(2025, 10, 15));
+
+        Assertions.assertEquals(LocalDate.of(2025, 9, 16), next.getPeriodStart());
+        Assertions.assertEquals(0, BigDecimal.valueOf(300).compareTo(next.getPreviousBalance()));
+        Assertions.assertEquals(1, next.getInstallmentCount()); //period 2, due on 2025-10-01: period 1 is in previousBalance
+        Assertions.assertEquals(0, BigDecimal.valueOf(400).compareTo(next.getStatementBalance()));
+    }
+
+    @Test
+    public void testCloseStatement_RepaidPortionNotBilledAgain() {
+        creditStatementService.closeStatement(card, CLOSING); //period 1, due on 2025-09-01, billed here
+
+        //period 1 repaid in the next cycle, the way the repayment job posts it
+        plan.repayOnePeriod();
+        installmentPlanDAO.save(plan);
+        transactionDAO.save(Transfer.installmentRepayment(LocalDate.of(2025, 9, 20), card, BigDecimal.valueOf(100), null));
+        CreditStatement next = creditStatementService.closeStatement(card, LocalDate.of(2025, 10, 15));
+
+        Assertions.assertEquals(0, BigDecimal.ZERO.compareTo(next.getPurchases()));
+        Assertions.assertEquals(0, BigDecimal.valueOf(100).compareTo(next.getInstallmentDue())); //period 2 only
+        Assertions.assertEquals(1, next.getInstallmentCount());
+        Assertions.assertEquals(0, BigDecimal.valueOf(400).compareTo(next.getStatementBalance()));
+    }
+
+    @Test
+    public void testCloseStatement_TransferToNoAccountIsACharge() {
+        //created by the user through /transactions/create, e.g. cash taken out of the card
+        transactionDAO.save(new Transfer(LocalDate.of(2025, 9, 5), "withdrawal", card, null, BigDecimal.valueOf(40), null));
+
+        CreditStatement statement = creditStatementService.closeStatement(card, CLOSING);
+
+        Assertions.assertEquals(0, BigDecimal.valueOf(340).compareTo(statement.getPurchases()));
+        Assertions.assertEquals(0, BigDecimal.valueOf(340).compareTo(statement.getStatementBalance()));
+    }
+
+    @Test
+    public void testCloseStatementsFor_BatchIsIdempotent() {
+        Assertions.assertEquals(1, creditStatementService.closeStatementsFor(CLOSING));
+        Assertions.assertEquals(0, creditStatementService.closeStatementsFor(CLOSING));
+        Assertions.assertTrue(creditStatementDAO.findByAccountIdAndPeriodEnd(card.getId(), CLOSING).isPresent());
+        Assertions.assertEquals(0, creditStatementService.closeStatementsFor(CLOSING.plusDays(1))); //nobody closes on the 16th
+    }
+
+    @Test
+    public void testClosingDate_ShortMonth() {
+        Assertions.assertEquals(LocalDate.of(2025, 2, 28), CreditStatementService.closingDate(31, YearMonth.of(2025, 2)));
+        Assertions.assertEquals(LocalDate.of(2025, 8, 15), CreditStatementService.lastClosingDate(15, LocalDate.of(2025, 9, 14)));
+    }
+
+    @Test
+    @WithMockUser(username = "Alice")
+    public void testManualClose_OnBillDayLeavesTodaysCycleOpen() throws Exception {
+        LocalDate today = LocalDate.now();
+        CreditAccount billedToday = new CreditAccount("Card billed today", BigDecimal.ZERO, testUser, null, true, true,
+                BigDecimal.valueOf(5000), BigDecimal.ZERO, today.getDayOfMonth(), null, AccountType.CREDIT_CARD);
+        accountDAO.save(billedToday);
+
+        mockMvc.perform(post("/credit-statements/" + billedToday.getId() + "/close")
+                        .principal(() -> "Alice"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.periodEnd").value(
+                        CreditStatementService.lastClosingDate(today.getDayOfMonth(), today.minusDays(1)).toString()));
+        Assertions.assertTrue(creditStatementService.findLatest(billedToday.getId()).orElseThrow()
+                .getPeriodEnd().isBefore(today));
+    }
+
+    @Test
+    @WithMockUser(username = "Alice")
+    public void testGetLatestStatement() throws Exception {
+        mockMvc.perform(get("/credit-statements/" + card.getId() + "/latest")
+                        .principal(() -> "Alice"))
+                .andExpect(status().isNotFound());
+
+        creditStatementService.closeStatement(card, CLOSING);
+
+        mockMvc.perform(get("/credit-statements/" + card.getId() + "/latest")
+                        .principal(() -> "Alice"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.periodEnd").value("2025-09-15"))
+                .andExpect(jsonPath("$.statementBalance").value(300.0))
+                .andExpect(jsonPath("$.accountId").value(card.getId()));
+    }
+}
@@ -0,0 +1,123 @@
+package com.ledger.project_software;
+
+import com.ledger.project_software.domain.*;
+import com.ledger.project_software.orm.*;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//SQL statements run by the listing endpoints: the count must stay the same when the month has more transactions
+//on more accounts (no query per row)
+@SpringBootTest(classes = com.ledger.project_software.ProjectSoftwareApplication.class,
+        properties = QueryCountExtension.STATEMENT_INSPECTOR)
+@Transactional
+@AutoConfigureMockMvc
+@Rollback
+public class FetchPlanTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserDAO userDAO;
+    @Autowired
+    private LedgerDAO ledgerDAO;
+    @Autowired
+    private LedgerCategoryDAO ledgerCategoryDAO;
+    @Autowired
+    private AccountDAO accountDAO;
+    @Autowired
+    private TransactionDAO transactionDAO;
+    @RegisterExtension
+    QueryCountExtension queries = new QueryCountExtension();
+
+    private String username;
+    private User testUser;
+    private Ledger ledger;
+    private LedgerCategory food;
+    private BasicAccount cash;
+
+    @BeforeEach
+    public void setUp() {
+        username = "Fetch" + UUID.randomUUID().toString().substring(0, 8);
+        testUser = new User(username, "pass123");
+        userDAO.save(testUser);
+        ledger = new Ledger("Fetch Ledger", testUser);
+        ledgerDAO.save(ledger);
+        food = new LedgerCategory("Food", CategoryType.EXPENSE, ledger);
+        ledgerCategoryDAO.save(food);
+        LedgerCategory lunch = new LedgerCategory("Lunch", CategoryType.EXPENSE, ledger);
+        lunch.setParent(food);
+        ledgerCategoryDAO.save(lunch);
+        cash = new BasicAccount("Cash", BigDecimal.valueOf(1000), null, true, true,
+                AccountType.CASH, AccountCategory.FUNDS, testUser);
+        accountDAO.save(cash);
+        transactionDAO.save(new Expense(LocalDate.now(), BigDecimal.valueOf(12), null, cash, ledger, lunch));
+        addAccounts(2);
+    }
+
+    //every new account gets a transfer from cash and an expense on food, all in the current month
+    private void addAccounts(int count) {
+        for (int i = 0; i < count; i++) {
+            BasicAccount account = new BasicAccount("Account " + UUID.randomUUID(), BigDecimal.valueOf(100), null,
+                    true, true, AccountType.CASH, AccountCategory.FUNDS, testUser);
+            accountDAO.save(account);
+            transactionDAO.save(new Transfer(LocalDate.now(), null, cash, account, BigDecimal.valueOf(10), ledger));
+            transactionDAO.save(new Expense(LocalDate.now(), BigDecimal.valueOf(5), null, account, ledger, food));
+        }
+    }
+
+    private SqlStatementCounter.Counts statements(MockHttpServletRequestBuilder request) throws Exception {
+        queries.perform(mockMvc, request.principal(() -> username)).andExpect(status().isOk());
+        return queries.counts();
+    }
+
+    //max selects with few rows, then the same counts with more rows
+    private void assertSelects(long max, MockHttpServletRequestBuilder request) throws Exception {
+        SqlStatementCounter.Counts few = statements(request);
+        queries.assertAtMost(max, 0, 0);
+        addAccounts(5);
+        Assertions.assertEquals(few, statements(request), "statements grow with the rows");
+    }
+
+    @Test
+    public void testAccountTransactionsForMonth() throws Exception {
+        //user, account, transactions with their accounts
+        assertSelects(3, get("/accounts/{id}/get-transactions-for-month", cash.getId())
+                .param("month", YearMonth.now().toString()));
+    }
+
+    @Test
+    public void testLedgerTransactionsForMonth() throws Exception {
+        //user, ledger, transactions with their accounts
+        assertSelects(3, get("/ledgers/{id}/all-transactions-for-month", ledger.getId()));
+    }
+
+    @Test
+    public void testCategoryTransactionsForMonth() throws Exception {
+        //user, category, its ledger for the owner check, subcategories, transactions with their accounts
+        assertSelects(5, get("/ledger-categories/{id}/all-transactions-for-month", food.getId()));
+    }
+
+    @Test
+    public void testAllLedgers() throws Exception {
+        statements(get("/ledgers/all-ledgers")); //the conditional GET filter caches the user id on the first request
+        SqlStatementCounter.Counts few = statements(get("/ledgers/all-ledgers"));
+        addAccounts(5);
+        Assertions.assertEquals(few, statements(get("/ledgers/all-ledgers")), "statements grow with the rows");
+    }
+}
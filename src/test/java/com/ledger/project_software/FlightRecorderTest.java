@@ -0,0 +1,75 @@
+package com.ledger.project_software;
+
+import com.ledger.project_software.dbms.FlightRecorderEndpoint;
+import com.ledger.project_software.domain.InstallmentPlan;
+import com.ledger.project_software.domain.PasswordUtils;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.Resource;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FlightRecorderTest {
+    private final FlightRecorderEndpoint endpoint = new FlightRecorderEndpoint(60, 10 * 1024 * 1024);
+
+    @AfterEach
+    public void tearDown() {
+        endpoint.discard();
+    }
+
+    private List<RecordedEvent> dumpedEvents() throws Exception {
+        WebEndpointResponse<Resource> dump = endpoint.dump("dump");
+        assertEquals(WebEndpointResponse.STATUS_OK, dump.getStatus());
+        Path file = Files.createTempFile("ledger-test-", ".jfr");
+        try {
+            Files.write(file, dump.getBody().getContentAsByteArray());
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testRecordsDomainEvents() throws Exception {
+        assertEquals(WebEndpointResponse.STATUS_OK, endpoint.control("start").getStatus());
+        assertEquals(WebEndpointResponse.STATUS_BAD_REQUEST, endpoint.control("start").getStatus()); //already running
+
+        String hashed = PasswordUtils.hash("secret");
+        assertTrue(PasswordUtils.verify("secret", hashed));
+        InstallmentPlan plan = new InstallmentPlan();
+        plan.setTotalAmount(BigDecimal.valueOf(1200));
+        plan.setTotalPeriods(12);
+        plan.setFeeRate(BigDecimal.ZERO);
+        plan.getRemainingAmountWithRepaidPeriods();
+
+        assertEquals(WebEndpointResponse.STATUS_OK, endpoint.control("stop").getStatus());
+        List<RecordedEvent> events = dumpedEvents();
+
+        List<String> operations = events.stream()
+                .filter(e -> e.getEventType().getName().equals("ledger.PasswordHash"))
+                .map(e -> e.getString("operation"))
+                .toList();
+        assertTrue(operations.containsAll(List.of("hash", "verify")));
+        RecordedEvent schedule = events.stream()
+                .filter(e -> e.getEventType().getName().equals("ledger.ScheduleCalculation"))
+                .findFirst().orElseThrow();
+        assertEquals("InstallmentPlan", schedule.getString("entity"));
+        assertEquals(12, schedule.getInt("totalPeriods"));
+    }
+
+    @Test
+    public void testNothingToDumpBeforeStart() {
+        assertEquals(WebEndpointResponse.STATUS_NOT_FOUND, endpoint.dump("dump").getStatus());
+        assertEquals(WebEndpointResponse.STATUS_BAD_REQUEST, endpoint.control("stop").getStatus());
+        assertEquals(WebEndpointResponse.STATUS_NOT_FOUND, endpoint.control("restart").getStatus());
+        assertEquals("NONE", endpoint.state().get("state"));
+    }
+}
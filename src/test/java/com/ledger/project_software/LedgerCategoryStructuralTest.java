@@ -1,6 +1,7 @@
 package com.ledger.project_software;
 
 import com.ledger.project_software.orm.*;
+import com.ledger.project_software.business.BalanceCheckpointService;
 import com.ledger.project_software.business.LedgerCategoryController;
 import com.ledger.project_software.domain.*;
 import org.junit.jupiter.api.BeforeEach;
@@ -10,6 +11,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.server.ResponseStatusException;
@@ -43,6 +45,12 @@ public class LedgerCategoryStructuralTest {
     @Mock
     private BudgetDAO budgetDAO;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private BalanceCheckpointService balanceCheckpoints;
+
     @InjectMocks
     private LedgerCategoryController ledgerCategoryController;
 
@@ -0,0 +1,76 @@
+package com.ledger.project_software;
+
+import com.ledger.project_software.business.LedgerChange;
+import com.ledger.project_software.business.LedgerStreamService;
+import com.ledger.project_software.domain.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LedgerStreamServiceTest {
+    private LedgerStreamService ledgerStreamService;
+    private User testUser;
+    private Account account;
+
+    @BeforeEach
+    public void setup() {
+        ledgerStreamService = new LedgerStreamService(4, 60000, 60000);
+        testUser = new User("Alice", "password123");
+        testUser.setId(1L);
+        account = new BasicAccount("Cash", BigDecimal.valueOf(1000), null, true, true, AccountType.CASH, AccountCategory.FUNDS, testUser);
+        account.setId(1L);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ledgerStreamService.shutdown();
+    }
+
+    @Test
+    public void testSubscribe_RegisteredUntilShutdown() {
+        ledgerStreamService.subscribe(1L);
+        ledgerStreamService.subscribe(1L);
+        assertEquals(2, ledgerStreamService.getSubscriberCount());
+
+        ledgerStreamService.shutdown();
+        assertEquals(0, ledgerStreamService.getSubscriberCount());
+    }
+
+    @Test
+    public void testPublish_WithoutSubscribers() {
+        //nessun client collegato: l'evento viene ignorato
+        assertDoesNotThrow(() -> ledgerStreamService.onLedgerChange(
+                LedgerChange.account(1L, account, LedgerChange.Action.UPDATED)));
+        assertEquals(0, ledgerStreamService.getSubscriberCount());
+    }
+
+    @Test
+    public void testAccountChange_IsSnapshot() {
+        LedgerChange change = LedgerChange.account(1L, account, LedgerChange.Action.UPDATED);
+        account.credit(BigDecimal.valueOf(500));
+
+        assertEquals(LedgerChange.Type.ACCOUNT, change.type());
+        assertEquals(0, BigDecimal.valueOf(1000).compareTo((BigDecimal) change.data().get("balance")));
+        assertThrows(UnsupportedOperationException.class, () -> change.data().put("balance", BigDecimal.ZERO));
+    }
+
+    @Test
+    public void testTransactionChange_WithPreviousValues() {
+        Ledger ledger = new Ledger("Test Ledger", testUser);
+        ledger.setId(1L);
+        Transaction transfer = new Transfer(LocalDate.now(), "move", account, null, BigDecimal.valueOf(20), ledger);
+
+        LedgerChange change = LedgerChange.transaction(1L, transfer, LedgerChange.Action.UPDATED)
+                .with("previousAmount", BigDecimal.TEN);
+
+        assertEquals(LedgerChange.Type.TRANSACTION, change.type());
+        assertEquals(1L, change.data().get("fromAccountId"));
+        assertNull(change.data().get("toAccountId"));
+        assertEquals(BigDecimal.TEN, change.data().get("previousAmount"));
+    }
+}
@@ -1,7 +1,9 @@
 package com.ledger.project_software;
 
 import com.ledger.project_software.orm.*;
+import com.ledger.project_software.business.BalanceCheckpointService;
 import com.ledger.project_software.business.LedgerController;
+import com.ledger.project_software.business.TransactionAnalyticsCache;
 import com.ledger.project_software.domain.*;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,6 +13,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.server.ResponseStatusException;
@@ -46,6 +49,14 @@ public class LedgerStructuralTest {
     @Mock
     private TransactionDAO transactionDAO;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private TransactionAnalyticsCache analyticsCache; //disabled: monthly summary goes to transactionDAO
+
+    @Mock
+    private BalanceCheckpointService balanceCheckpoints;
 
     @InjectMocks
     private LedgerController ledgerController; //controller con il mock del repository iniettato
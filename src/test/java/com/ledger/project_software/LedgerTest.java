@@ -6,6 +6,7 @@ import jakarta.transaction.Transactional;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -29,7 +30,8 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
-@SpringBootTest(classes = com.ledger.project_software.ProjectSoftwareApplication.class)
+@SpringBootTest(classes = com.ledger.project_software.ProjectSoftwareApplication.class,
+        properties = QueryCountExtension.STATEMENT_INSPECTOR)
 @Transactional
 @AutoConfigureMockMvc
 @Rollback
@@ -37,6 +39,9 @@ public class LedgerTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @RegisterExtension
+    QueryCountExtension queries = new QueryCountExtension();
+
     @Autowired
     private UserDAO userDAO;
 
@@ -457,4 +462,47 @@ public class LedgerTest {
                 .andExpect(jsonPath("$.totalExpense").value(320));
     }
 
+    //query-count budgets: statements of one request, loaded on a cleared persistence context
+    private Ledger ledgerWithTransfers(int count) {
+        Ledger ledger = new Ledger("Busy Ledger", testUser);
+        ledgerDAO.save(ledger);
+        for (int i = 0; i < count; i++) {
+            BasicAccount account = new BasicAccount("account " + i, BigDecimal.valueOf(100), null, true, true, AccountType.CASH, AccountCategory.FUNDS, testUser);
+            accountDAO.save(account);
+            transactionDAO.save(new Transfer(LocalDate.now(), null, testAccount1, account, BigDecimal.valueOf(10), ledger));
+        }
+        return ledger;
+    }
+
+    @Test
+    public void testQueryCount_TransactionsForMonth() throws Exception {
+        Ledger ledger = ledgerWithTransfers(5);
+
+        queries.perform(mockMvc, get("/ledgers/{ledgerId}/all-transactions-for-month", ledger.getId())
+                        .principal(() -> "Alice"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(5)));
+        queries.assertAtMost(3, 0, 0); //user, ledger, transactions with their accounts
+    }
+
+    @Test
+    public void testQueryCount_MonthlySummary() throws Exception {
+        Ledger ledger = ledgerWithTransfers(5);
+
+        queries.perform(mockMvc, get("/ledgers/{ledgerId}/monthly-summary", ledger.getId())
+                        .principal(() -> "Alice"))
+                .andExpect(status().isOk());
+        queries.assertAtMost(5, 0, 0); //user id for the ETag, user, ledger, income and expense sums
+    }
+
+    @Test
+    public void testQueryCount_RenameLedger() throws Exception {
+        Ledger ledger = ledgerWithTransfers(5);
+
+        queries.perform(mockMvc, put("/ledgers/{ledgerId}/rename", ledger.getId())
+                        .principal(() -> "Alice")
+                        .param("newName", "Renamed Ledger"))
+                .andExpect(status().isOk());
+        queries.assertAtMost(3, 0, 1); //user, ledger, name check; the name
+    }
 }
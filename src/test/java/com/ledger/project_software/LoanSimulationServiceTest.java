@@ -0,0 +1,122 @@
+package com.ledger.project_software;
+
+import com.ledger.project_software.business.LoanScenario;
+import com.ledger.project_software.business.LoanSchedule;
+import com.ledger.project_software.business.LoanSimulationService;
+import com.ledger.project_software.business.ParallelQueryExecutor;
+import com.ledger.project_software.domain.LoanAccount;
+import com.ledger.project_software.domain.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoanSimulationServiceTest {
+    private ParallelQueryExecutor executor;
+    private LoanSimulationService loanSimulationService;
+    private User testUser;
+
+    @BeforeEach
+    public void setUp() {
+        executor = new ParallelQueryExecutor(2, 2, 10, null);
+        loanSimulationService = new LoanSimulationService(executor, 20);
+        testUser = new User("Alice", "pass123");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    private LoanAccount loan(LoanAccount.RepaymentType type, int repaidPeriods, BigDecimal rate) {
+        return new LoanAccount("Loan", testUser, null, true, 12, repaidPeriods, rate,
+                BigDecimal.valueOf(12000), null, LocalDate.of(2025, 1, 10), type);
+    }
+
+    @Test
+    public void testCurrentPlan_MatchesLoanAccount() {
+        for (LoanAccount.RepaymentType type : LoanAccount.RepaymentType.values()) {
+            LoanAccount loan = loan(type, 0, BigDecimal.valueOf(6));
+
+            LoanSchedule current = loanSimulationService.simulate(loan, null).get(0);
+
+            assertEquals("current", current.name());
+            assertEquals(12, current.totalPeriods());
+            for (int period = 1; period < 12; period++) { //last one absorbs the rounding differences
+                assertEquals(0, loan.getMonthlyRepayment(period).compareTo(current.rows().get(period - 1).payment()),
+                        type + " period " + period);
+            }
+            assertEquals(0, BigDecimal.ZERO.compareTo(current.rows().get(11).remainingPrincipal()));
+            assertEquals(LocalDate.of(2025, 12, 10), current.rows().get(11).dueDate());
+        }
+    }
+
+    @Test
+    public void testZeroRate_NoInterest() {
+        LoanSchedule current = loanSimulationService.simulate(loan(LoanAccount.RepaymentType.EQUAL_INTEREST, 0, BigDecimal.ZERO), null).get(0);
+
+        assertEquals(0, BigDecimal.ZERO.compareTo(current.totalInterest()));
+        assertEquals(0, BigDecimal.valueOf(1000).compareTo(current.rows().get(0).payment()));
+        assertEquals(0, BigDecimal.valueOf(12000).compareTo(current.totalPayment()));
+    }
+
+    @Test
+    public void testPrepayment_ShortenTermSavesMoreInterest() {
+        LoanAccount loan = loan(LoanAccount.RepaymentType.EQUAL_INTEREST, 2, BigDecimal.valueOf(6));
+
+        List<LoanSchedule> schedules = loanSimulationService.simulate(loan, List.of(
+                new LoanScenario("lower installment", 3, BigDecimal.valueOf(3000), false, null, null, null),
+                new LoanScenario("shorter term", 3, BigDecimal.valueOf(3000), true, null, null, null)));
+
+        assertEquals(3, schedules.size());
+        LoanSchedule current = schedules.get(0);
+        LoanSchedule lower = schedules.get(1);
+        LoanSchedule shorter = schedules.get(2);
+        assertEquals(0, BigDecimal.ZERO.compareTo(current.interestSaved()));
+
+        assertEquals(12, lower.totalPeriods());
+        assertTrue(lower.rows().get(3).payment().compareTo(current.rows().get(3).payment()) < 0);
+        assertEquals(0, BigDecimal.valueOf(3000).compareTo(lower.rows().get(2).prepayment()));
+        assertTrue(lower.interestSaved().compareTo(BigDecimal.ZERO) > 0);
+
+        assertTrue(shorter.totalPeriods() < 12);
+        assertTrue(shorter.interestSaved().compareTo(lower.interestSaved()) > 0);
+        assertEquals(0, BigDecimal.ZERO.compareTo(shorter.rows().get(shorter.rows().size() - 1).remainingPrincipal()));
+    }
+
+    @Test
+    public void testRateAndTermChange() {
+        LoanAccount loan = loan(LoanAccount.RepaymentType.EQUAL_PRINCIPAL, 0, BigDecimal.valueOf(6));
+
+        List<LoanSchedule> schedules = loanSimulationService.simulate(loan, List.of(
+                new LoanScenario("rate cut", null, null, null, BigDecimal.valueOf(3), 7, null),
+                new LoanScenario("longer", null, null, null, null, null, 24)));
+
+        LoanSchedule rateCut = schedules.get(1);
+        assertEquals(0, schedules.get(0).rows().get(5).interest().compareTo(rateCut.rows().get(5).interest()));
+        assertTrue(rateCut.rows().get(6).interest().compareTo(schedules.get(0).rows().get(6).interest()) < 0);
+        assertTrue(rateCut.interestSaved().compareTo(BigDecimal.ZERO) > 0);
+
+        LoanSchedule longer = schedules.get(2);
+        assertEquals(24, longer.totalPeriods());
+        assertTrue(longer.interestSaved().compareTo(BigDecimal.ZERO) < 0); //longer term costs more interest
+        assertEquals(LocalDate.of(2026, 12, 10), longer.rows().get(23).dueDate());
+    }
+
+    @Test
+    public void testValidation_PaidPeriodsCannotChange() {
+        LoanAccount loan = loan(LoanAccount.RepaymentType.EQUAL_INTEREST, 4, BigDecimal.valueOf(6));
+
+        assertThrows(IllegalArgumentException.class, () -> loanSimulationService.simulate(loan, List.of(
+                new LoanScenario(null, 2, BigDecimal.valueOf(100), false, null, null, null))));
+        assertThrows(IllegalArgumentException.class, () -> loanSimulationService.simulate(loan, List.of(
+                new LoanScenario(null, null, null, null, null, null, 3))));
+        assertThrows(IllegalArgumentException.class, () -> loanSimulationService.simulate(loan, List.of(
+                new LoanScenario(null, null, BigDecimal.valueOf(-5), false, null, null, null))));
+    }
+}
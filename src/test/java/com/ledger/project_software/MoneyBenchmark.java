@@ -0,0 +1,67 @@
+package com.ledger.project_software;
+
+import com.ledger.project_software.domain.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+//BigDecimal reduce (User/Ledger totals, AccountService.getMonthlySummary before Money) vs Money.summing().
+//mvn test-compile exec:exec -Pbenchmark -Dbenchmark.include=MoneyBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-XX:+UseParallelGC")
+public class MoneyBenchmark {
+    @Param({"100", "10000"})
+    private int size;
+
+    private List<BigDecimal> amounts;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        amounts = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            amounts.add(BigDecimal.valueOf(random.nextInt(10_000_000), 2)); //as loaded from DECIMAL(15,2)
+        }
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalReduce() {
+        return amounts.stream()
+                .reduce(BigDecimal.ZERO, BigDecimal::add)
+                .setScale(2, RoundingMode.HALF_UP);
+    }
+
+    @Benchmark
+    public BigDecimal moneySumming() {
+        return amounts.stream()
+                .collect(Money.summing())
+                .toBigDecimal();
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalLoop() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal amount : amounts) {
+            total = total.add(amount);
+        }
+        return total.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    @Benchmark
+    public BigDecimal moneyLoop() {
+        long total = 0;
+        for (BigDecimal amount : amounts) {
+            total = Math.addExact(total, Money.toCents(amount));
+        }
+        return Money.ofCents(total).toBigDecimal();
+    }
+}
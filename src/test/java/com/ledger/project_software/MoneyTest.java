@@ -0,0 +1,65 @@
+package com.ledger.project_software;
+
+import com.ledger.project_software.domain.Money;
+import com.ledger.project_software.domain.MoneyConverter;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoneyTest {
+
+    @Test
+    public void testOf_RoundsHalfUpLikeBigDecimal() {
+        for (String value : List.of("1.005", "1.004", "-1.005", "-1.004", "0.125", "-0.125", "2.5", "1234567.899")) {
+            BigDecimal amount = new BigDecimal(value);
+            assertEquals(amount.setScale(2, RoundingMode.HALF_UP), Money.of(amount).toBigDecimal(), value);
+        }
+    }
+
+    @Test
+    public void testSumming_SameAsBigDecimalReduce() {
+        List<BigDecimal> amounts = List.of(new BigDecimal("10.10"), new BigDecimal("0.20"), BigDecimal.valueOf(1000),
+                new BigDecimal("-3.33"), new BigDecimal("99.99"));
+
+        BigDecimal expected = amounts.stream().reduce(BigDecimal.ZERO, BigDecimal::add).setScale(2, RoundingMode.HALF_UP);
+        assertEquals(expected, amounts.stream().collect(Money.summing()).toBigDecimal());
+        assertEquals(expected, amounts.parallelStream().collect(Money.summing()).toBigDecimal());
+        assertEquals(Money.ZERO, Stream.<BigDecimal>empty().collect(Money.summing()));
+    }
+
+    @Test
+    public void testArithmetic() {
+        Money a = Money.of(new BigDecimal("12.34"));
+        Money b = Money.ofCents(66);
+
+        assertEquals(Money.ofCents(1300), a.plus(b));
+        assertEquals(Money.ofCents(1168), a.minus(b));
+        assertEquals(-1, b.minus(a).signum());
+        assertEquals(Money.ofCents(-66), b.negate());
+        assertTrue(a.compareTo(b) > 0);
+        assertEquals("12.34", a.toString());
+    }
+
+    @Test
+    public void testOverflow_Throws() {
+        Money max = Money.ofCents(Long.MAX_VALUE);
+        assertThrows(ArithmeticException.class, () -> max.plus(Money.ofCents(1)));
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("1E+20"))); //cents beyond a long
+    }
+
+    @Test
+    public void testConverter_RoundTrip() {
+        MoneyConverter converter = new MoneyConverter();
+        BigDecimal column = converter.convertToDatabaseColumn(Money.ofCents(123456));
+
+        assertEquals(new BigDecimal("1234.56"), column);
+        assertEquals(Money.ofCents(123456), converter.convertToEntityAttribute(column));
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+}
@@ -0,0 +1,194 @@
+package com.ledger.project_software;
+
+import com.ledger.project_software.business.LedgerChange;
+import com.ledger.project_software.business.NetWorthSeries;
+import com.ledger.project_software.business.NetWorthService;
+import com.ledger.project_software.domain.*;
+import com.ledger.project_software.orm.*;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(classes = com.ledger.project_software.ProjectSoftwareApplication.class)
+@Transactional
+@AutoConfigureMockMvc
+@Rollback
+@RecordApplicationEvents
+public class NetWorthTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserDAO userDAO;
+    @Autowired
+    private LedgerDAO ledgerDAO;
+    @Autowired
+    private AccountDAO accountDAO;
+    @Autowired
+    private TransactionDAO transactionDAO;
+    @Autowired
+    private NetWorthService netWorthService;
+    @Autowired
+    private ApplicationEvents events;
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2025, 10, 1);
+    private static final LocalDate TODAY = LocalDate.of(2025, 10, 4);
+
+    private String username;
+    private User testUser;
+    private Ledger ledger;
+    private BasicAccount cash;
+
+    @BeforeEach
+    public void setUp() {
+        username = "NetWorth" + UUID.randomUUID().toString().substring(0, 8);
+        testUser = new User(username, "pass123");
+        userDAO.save(testUser);
+        ledger = new Ledger("Net Worth Ledger", testUser);
+        ledgerDAO.save(ledger);
+
+        //assets 1000, liabilities 200
+        cash = new BasicAccount("Cash", BigDecimal.valueOf(1000), null, true, true,
+                AccountType.CASH, AccountCategory.FUNDS, testUser);
+        accountDAO.save(cash);
+        testUser.getAccounts().add(cash);
+        CreditAccount card = new CreditAccount("Card", BigDecimal.ZERO, testUser, null, true, true,
+                BigDecimal.valueOf(5000), BigDecimal.valueOf(200), 15, 5, AccountType.CREDIT_CARD);
+        accountDAO.save(card);
+        testUser.getAccounts().add(card);
+    }
+
+    @Test
+    public void testMaterialize_ExtendsThroughToday() {
+        Assertions.assertEquals(1, netWorthService.materialize(testUser.getId(), FIRST_DAY, FIRST_DAY));
+        Assertions.assertEquals(3, netWorthService.materialize(testUser.getId(), TODAY, TODAY));
+        Assertions.assertEquals(0, netWorthService.materialize(testUser.getId(), TODAY, TODAY));
+
+        NetWorthSeries series = netWorthService.series(testUser.getId(), FIRST_DAY.minusMonths(1), TODAY.plusDays(10), TODAY);
+
+        Assertions.assertEquals(FIRST_DAY, series.start());
+        Assertions.assertEquals(TODAY, series.end());
+        Assertions.assertEquals(4, series.netAssets().size());
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertEquals(0, BigDecimal.valueOf(1000).compareTo(series.assets().get(i)));
+            Assertions.assertEquals(0, BigDecimal.valueOf(200).compareTo(series.liabilities().get(i)));
+            Assertions.assertEquals(0, BigDecimal.valueOf(800).compareTo(series.netAssets().get(i)));
+        }
+    }
+
+    @Test
+    public void testBackDatedTransaction_PatchesFollowingDays() {
+        netWorthService.materialize(testUser.getId(), FIRST_DAY, FIRST_DAY);
+        netWorthService.materialize(testUser.getId(), TODAY, TODAY);
+
+        //expense of 100 dated on the 2nd, entered today
+        transactionDAO.save(new Expense(FIRST_DAY.plusDays(1), BigDecimal.valueOf(100), null, cash, ledger, null));
+        cash.debit(BigDecimal.valueOf(100));
+        accountDAO.save(cash);
+        Assertions.assertEquals(0, netWorthService.materialize(testUser.getId(), FIRST_DAY.plusDays(1), TODAY));
+
+        NetWorthSeries series = netWorthService.series(testUser.getId(), FIRST_DAY, TODAY, TODAY);
+
+        Assertions.assertEquals(0, BigDecimal.valueOf(800).compareTo(series.netAssets().get(0)));
+        Assertions.assertEquals(0, BigDecimal.valueOf(700).compareTo(series.netAssets().get(1)));
+        Assertions.assertEquals(0, BigDecimal.valueOf(700).compareTo(series.netAssets().get(3)));
+    }
+
+    @Test
+    public void testDateOnlyEdit_MovesTheAmountBetweenDays() {
+        netWorthService.materialize(testUser.getId(), FIRST_DAY, FIRST_DAY);
+        netWorthService.materialize(testUser.getId(), TODAY, TODAY);
+        Expense expense = new Expense(FIRST_DAY.plusDays(1), BigDecimal.valueOf(100), null, cash, ledger, null);
+        transactionDAO.save(expense);
+        cash.debit(BigDecimal.valueOf(100));
+        accountDAO.save(cash);
+        netWorthService.materialize(testUser.getId(), TODAY, TODAY,
+                List.of(LedgerChange.transaction(testUser.getId(), expense, LedgerChange.Action.CREATED)));
+
+        //moved from the 2nd to the 4th, same amount: the live totals do not change
+        expense.setDate(FIRST_DAY.plusDays(3));
+        transactionDAO.save(expense);
+        netWorthService.materialize(testUser.getId(), TODAY, TODAY,
+                List.of(LedgerChange.transaction(testUser.getId(), expense, LedgerChange.Action.UPDATED)
+                        .with("previousDate", FIRST_DAY.plusDays(1))
+                        .with("previousAmount", BigDecimal.valueOf(100))));
+
+        NetWorthSeries series = netWorthService.series(testUser.getId(), FIRST_DAY, TODAY, TODAY);
+
+        Assertions.assertEquals(0, BigDecimal.valueOf(800).compareTo(series.netAssets().get(0)));
+        Assertions.assertEquals(0, BigDecimal.valueOf(800).compareTo(series.netAssets().get(1)));
+        Assertions.assertEquals(0, BigDecimal.valueOf(800).compareTo(series.netAssets().get(2)));
+        Assertions.assertEquals(0, BigDecimal.valueOf(700).compareTo(series.netAssets().get(3)));
+    }
+
+    @Test
+    public void testLedgerDeletion_UndoesBackDatedTransactions() throws Exception {
+        netWorthService.materialize(testUser.getId(), FIRST_DAY, FIRST_DAY);
+        netWorthService.materialize(testUser.getId(), TODAY, TODAY);
+        Ledger trip = new Ledger("Trip", testUser);
+        ledgerDAO.save(trip);
+        testUser.getLedgers().add(trip);
+        Expense expense = new Expense(FIRST_DAY.plusDays(1), BigDecimal.valueOf(100), null, cash, trip, null);
+        transactionDAO.save(expense);
+        trip.getTransactions().add(expense);
+        cash.addTransaction(expense);
+        accountDAO.save(cash);
+        netWorthService.materialize(testUser.getId(), TODAY, TODAY,
+                List.of(LedgerChange.transaction(testUser.getId(), expense, LedgerChange.Action.CREATED)));
+
+        //the ledger goes with its expense of the 2nd: the history is as if it never existed
+        mockMvc.perform(delete("/ledgers/{id}/delete", trip.getId()).principal(() -> username))
+                .andExpect(status().isOk());
+        netWorthService.materialize(testUser.getId(), TODAY, TODAY, events.stream(LedgerChange.class).toList());
+
+        NetWorthSeries series = netWorthService.series(testUser.getId(), FIRST_DAY, TODAY, TODAY);
+
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertEquals(0, BigDecimal.valueOf(800).compareTo(series.netAssets().get(i)));
+        }
+    }
+
+    @Test
+    public void testMaterializeFor_IsIdempotent() {
+        Assertions.assertTrue(netWorthService.materializeFor(FIRST_DAY) >= 1);
+        Assertions.assertEquals(0, netWorthService.materializeFor(FIRST_DAY));
+    }
+
+    @Test
+    public void testSeries_RangeTooLong() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> netWorthService.series(testUser.getId(), FIRST_DAY.minusYears(20), TODAY, TODAY));
+    }
+
+    @Test
+    public void testGetNetWorth() throws Exception {
+        netWorthService.materialize(testUser.getId(), FIRST_DAY, FIRST_DAY);
+        netWorthService.materialize(testUser.getId(), TODAY, TODAY);
+
+        mockMvc.perform(get("/reports/net-worth")
+                        .principal(() -> username)
+                        .param("from", "2025-09-01")
+                        .param("to", "2025-10-04"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.start").value("2025-10-01"))
+                .andExpect(jsonPath("$.netAssets.length()").value(4))
+                .andExpect(jsonPath("$.assets[3]").value(1000.0))
+                .andExpect(jsonPath("$.netAssets[0]").value(800.0));
+    }
+}
@@ -0,0 +1,120 @@
+package com.ledger.project_software;
+
+import com.ledger.project_software.domain.*;
+import com.ledger.project_software.orm.*;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = com.ledger.project_software.ProjectSoftwareApplication.class)
+@Transactional
+@AutoConfigureMockMvc
+@Rollback
+public class OperationMetricsTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private MeterRegistry registry;
+    @Autowired
+    private UserDAO userDAO;
+    @Autowired
+    private LedgerDAO ledgerDAO;
+    @Autowired
+    private LedgerCategoryDAO ledgerCategoryDAO;
+    @Autowired
+    private AccountDAO accountDAO;
+    @Autowired
+    private TransactionDAO transactionDAO;
+
+    private String username;
+    private Ledger ledger;
+    private LedgerCategory salary;
+    private BasicAccount cash;
+
+    @BeforeEach
+    public void setUp() {
+        username = "Metrics" + UUID.randomUUID().toString().substring(0, 8);
+        User testUser = new User(username, "pass123");
+        userDAO.save(testUser);
+        ledger = new Ledger("Metrics Ledger", testUser);
+        ledgerDAO.save(ledger);
+        salary = new LedgerCategory("Salary", CategoryType.INCOME, ledger);
+        ledgerCategoryDAO.save(salary);
+        cash = new BasicAccount("Cash", BigDecimal.valueOf(100), null, true, true,
+                AccountType.CASH, AccountCategory.FUNDS, testUser);
+        accountDAO.save(cash);
+    }
+
+    //the registry is shared by the whole test context: counts are compared before and after
+    private long operations(String operation, String type, String outcome) {
+        Timer timer = registry.find("ledger.operations")
+                .tags("operation", operation, "type", type, "outcome", outcome)
+                .timer();
+        return timer != null ? timer.count() : 0;
+    }
+
+    @Test
+    public void testCreateTimedByTransactionType() throws Exception {
+        long before = operations("TransactionController.createTransaction", "INCOME", "SUCCESS");
+
+        mockMvc.perform(post("/transactions/create")
+                        .principal(() -> username)
+                        .param("amount", "50.00")
+                        .param("toAccountId", String.valueOf(cash.getId()))
+                        .param("categoryId", String.valueOf(salary.getId()))
+                        .param("ledgerId", String.valueOf(ledger.getId()))
+                        .param("type", "INCOME"))
+                .andExpect(status().isOk());
+
+        assertEquals(before + 1, operations("TransactionController.createTransaction", "INCOME", "SUCCESS"));
+        DistributionSummary statements = registry.find("ledger.operation.statements")
+                .tag("operation", "TransactionController.createTransaction")
+                .summary();
+        assertNotNull(statements);
+        assertTrue(statements.max() > 0);
+    }
+
+    @Test
+    public void testDeleteTaggedWithLoadedType() throws Exception {
+        Transaction income = new Income(LocalDate.now(), BigDecimal.valueOf(20), null, cash, ledger, salary);
+        transactionDAO.save(income);
+        long before = operations("TransactionController.deleteTransaction", "INCOME", "SUCCESS");
+
+        mockMvc.perform(delete("/transactions/{id}/delete", income.getId()).principal(() -> username))
+                .andExpect(status().isOk());
+
+        assertEquals(before + 1, operations("TransactionController.deleteTransaction", "INCOME", "SUCCESS"));
+    }
+
+    @Test
+    public void testUnauthorizedIsClientError() throws Exception {
+        long before = operations("BudgetController.getAllBudgets", "none", "CLIENT_ERROR");
+
+        mockMvc.perform(get("/budgets").principal(() -> "Nobody" + username))
+                .andExpect(status().isUnauthorized());
+
+        assertEquals(before + 1, operations("BudgetController.getAllBudgets", "none", "CLIENT_ERROR"));
+    }
+
+    @Test
+    public void testCacheGauges() {
+        assertNotNull(registry.find("ledger.cache.entries").tag("cache", "responses").gauge());
+        assertNotNull(registry.find("ledger.cache.bytes").tag("cache", "analytics").gauge());
+    }
+}
@@ -0,0 +1,126 @@
+package com.ledger.project_software;
+
+import com.ledger.project_software.business.ParallelQueryExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelQueryExecutorTest {
+    private ParallelQueryExecutor executor;
+
+    @AfterEach
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testInvokeAll_ResultsInTaskOrder() {
+        executor = new ParallelQueryExecutor(4, 4, 10, null);
+        List<Supplier<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            int value = i;
+            tasks.add(() -> {
+                try {
+                    Thread.sleep((20 - value) % 5); //later tasks finish first
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return value;
+            });
+        }
+
+        List<Integer> results = executor.invokeAll(tasks);
+
+        assertEquals(20, results.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, results.get(i));
+        }
+    }
+
+    @Test
+    public void testInvokeAll_RunsConcurrentlyWithinLimit() {
+        executor = new ParallelQueryExecutor(2, 2, 10, null);
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        Supplier<Boolean> task = () -> {
+            threads.add(Thread.currentThread().getName());
+            bothStarted.countDown();
+            try {
+                return bothStarted.await(5, TimeUnit.SECONDS); //only true if the other task runs at the same time
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        };
+
+        assertEquals(List.of(true, true), executor.invokeAll(List.of(task, task)));
+        assertEquals(2, threads.size());
+        assertTrue(threads.stream().allMatch(name -> name.startsWith("ledger-query-")));
+    }
+
+    @Test
+    public void testInvokeAll_SerialRunsOnCallerThread() {
+        executor = new ParallelQueryExecutor(1, 1, 10, null);
+        String caller = Thread.currentThread().getName();
+
+        List<String> results = executor.invokeAll(List.of(
+                () -> Thread.currentThread().getName(),
+                () -> Thread.currentThread().getName()));
+
+        assertEquals(List.of(caller, caller), results);
+    }
+
+    @Test
+    public void testInvokeAll_SerialWhenTooManyRequestsFanOut() throws Exception {
+        executor = new ParallelQueryExecutor(2, 1, 10, null);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<Boolean> blocking = () -> {
+            started.countDown();
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        };
+        //the first request holds the only fan-out permit until released
+        CompletableFuture<List<Boolean>> first = CompletableFuture.supplyAsync(
+                () -> executor.invokeAll(List.of(blocking, blocking)));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        String caller = Thread.currentThread().getName();
+        List<String> results = executor.invokeAll(List.of(
+                () -> Thread.currentThread().getName(),
+                () -> Thread.currentThread().getName()));
+        release.countDown();
+
+        assertEquals(List.of(caller, caller), results);
+        assertEquals(List.of(true, true), first.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testInvokeAll_PropagatesFailure() {
+        executor = new ParallelQueryExecutor(4, 4, 10, null);
+        List<Supplier<Integer>> tasks = List.of(
+                () -> 1,
+                () -> {
+                    throw new IllegalStateException("query failed");
+                });
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> executor.invokeAll(tasks));
+        assertEquals("query failed", e.getMessage());
+    }
+}
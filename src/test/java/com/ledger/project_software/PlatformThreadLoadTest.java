@@ -0,0 +1,24 @@
+package com.ledger.project_software;
+
+import com.ledger.project_software.dbms.ConnectionLimitingDataSource;
+import org.junit.jupiter.api.Assertions;
+import org.springframework.boot.test.context.SpringBootTest;
+
+//default mode: Tomcat worker pool, no connection limiter in front of Hikari
+@SpringBootTest(classes = com.ledger.project_software.ProjectSoftwareApplication.class,
+        properties = {
+                "spring.threads.virtual.enabled=false",
+                "spring.datasource.hikari.maximum-pool-size=10",
+                "spring.datasource.url=jdbc:h2:mem:loadtest-platform;LOCK_TIMEOUT=10000"
+        })
+public class PlatformThreadLoadTest extends ThreadModeLoadTest {
+    @Override
+    protected String mode() {
+        return "platform";
+    }
+
+    @Override
+    protected void assertMode() {
+        Assertions.assertFalse(dataSource instanceof ConnectionLimitingDataSource);
+    }
+}
@@ -0,0 +1,69 @@
+package com.ledger.project_software;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+//query-count budgets for the MockMvc tests: perform() runs a request and records the SQL statements it prepared,
+//assertAtMost() fails when SELECT, INSERT or UPDATE statements go over the budget, so that an N+1 introduced by a
+//change breaks the build. the test class registers it with @RegisterExtension and adds STATEMENT_INSPECTOR to
+//its @SpringBootTest properties.
+//in a @Transactional test the persistence context is flushed and cleared before the request, so the request loads
+//what it reads as with a fresh session, and flushed after it, so the updates it left pending count as at commit
+public class QueryCountExtension implements BeforeEachCallback {
+    public static final String STATEMENT_INSPECTOR =
+            "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.ledger.project_software.SqlStatementCounter";
+
+    private EntityManager entityManager;
+    private SqlStatementCounter.Counts counts;
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        EntityManagerFactory entityManagerFactory = SpringExtension.getApplicationContext(context)
+                .getBean(EntityManagerFactory.class);
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+        counts = null;
+    }
+
+    public ResultActions perform(MockMvc mockMvc, RequestBuilder request) throws Exception {
+        boolean inTransaction = TransactionSynchronizationManager.isActualTransactionActive();
+        if (inTransaction) {
+            entityManager.flush();
+            entityManager.clear();
+        }
+        SqlStatementCounter.reset();
+        ResultActions result = mockMvc.perform(request);
+        if (inTransaction) {
+            entityManager.flush();
+        }
+        counts = SqlStatementCounter.snapshot();
+        return result;
+    }
+
+    //statements of the last perform()
+    public SqlStatementCounter.Counts counts() {
+        if (counts == null) {
+            throw new IllegalStateException("No request performed through QueryCountExtension");
+        }
+        return counts;
+    }
+
+    public void assertAtMost(long maxSelects, long maxInserts, long maxUpdates) {
+        SqlStatementCounter.Counts last = counts();
+        Assertions.assertAll("statements of the request: " + last,
+                () -> Assertions.assertTrue(last.selects() <= maxSelects,
+                        "expected at most " + maxSelects + " SELECT, got " + last.selects()),
+                () -> Assertions.assertTrue(last.inserts() <= maxInserts,
+                        "expected at most " + maxInserts + " INSERT, got " + last.inserts()),
+                () -> Assertions.assertTrue(last.updates() <= maxUpdates,
+                        "expected at most " + maxUpdates + " UPDATE, got " + last.updates()));
+    }
+}
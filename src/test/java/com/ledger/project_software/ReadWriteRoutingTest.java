@@ -0,0 +1,109 @@
+package com.ledger.project_software;
+
+import com.ledger.project_software.business.ReadYourWrites;
+import com.ledger.project_software.dbms.ReadWriteRoutingDataSource;
+import com.ledger.project_software.dbms.ReplicaLagMonitor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//two H2 databases standing in for primary and replica, "replication" of the heartbeat done by hand
+public class ReadWriteRoutingTest {
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+    private JdbcTemplate routed;
+    private ReplicaLagMonitor lagMonitor;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    public void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        DriverManagerDataSource primaryDataSource = new DriverManagerDataSource("jdbc:h2:mem:primary-" + suffix + ";DB_CLOSE_DELAY=-1");
+        DriverManagerDataSource replicaDataSource = new DriverManagerDataSource("jdbc:h2:mem:replica-" + suffix + ";DB_CLOSE_DELAY=-1");
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        for (JdbcTemplate database : new JdbcTemplate[]{primary, replica}) {
+            database.execute("CREATE TABLE replica_heartbeat (id INT PRIMARY KEY, beat_millis BIGINT NOT NULL)");
+            database.execute("CREATE TABLE marker (name VARCHAR(16))");
+        }
+        primary.update("INSERT INTO marker VALUES ('primary')");
+        replica.update("INSERT INTO marker VALUES ('replica')");
+
+        lagMonitor = new ReplicaLagMonitor(primaryDataSource, replicaDataSource, 5000, 1000);
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSource, lagMonitor));
+        routed = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    //the replica receives the beat the primary holds
+    private void replicate() {
+        Long beat = primary.queryForObject("SELECT beat_millis FROM replica_heartbeat WHERE id = 1", Long.class);
+        replica.update("MERGE INTO replica_heartbeat (id, beat_millis) KEY (id) VALUES (1, ?)", beat);
+    }
+
+    private String readOnlyMarker() {
+        return readOnly.execute(status -> routed.queryForObject("SELECT name FROM marker", String.class));
+    }
+
+    @Test
+    public void testReadOnlyTransaction_GoesToReplica() {
+        lagMonitor.beat();
+        replicate();
+        lagMonitor.beat();
+
+        assertTrue(lagMonitor.isUsable());
+        assertEquals("replica", readOnlyMarker());
+        assertEquals("primary", readWrite.execute(status -> routed.queryForObject("SELECT name FROM marker", String.class)));
+        assertEquals("primary", routed.queryForObject("SELECT name FROM marker", String.class));
+    }
+
+    @Test
+    public void testReplicaWithoutHeartbeat_ReadsOnPrimary() {
+        lagMonitor.beat();
+
+        assertFalse(lagMonitor.isUsable());
+        assertEquals("primary", readOnlyMarker());
+    }
+
+    @Test
+    public void testStaleReplica_ReadsOnPrimary() {
+        lagMonitor.beat();
+        replica.update("INSERT INTO replica_heartbeat (id, beat_millis) VALUES (1, ?)", System.currentTimeMillis() - 60_000);
+        lagMonitor.beat();
+
+        assertFalse(lagMonitor.isUsable());
+        assertEquals("primary", readOnlyMarker());
+    }
+
+    @Test
+    public void testOwnWrite_ReadsOnPrimaryUntilReplicated() throws InterruptedException {
+        lagMonitor.beat();
+        replicate();
+        lagMonitor.beat();
+        Thread.sleep(5);
+        long writtenAt = System.currentTimeMillis();
+
+        assertEquals("primary", ReadYourWrites.callWith(writtenAt, this::readOnlyMarker));
+        assertEquals("replica", readOnlyMarker()); //other users
+
+        Thread.sleep(5);
+        lagMonitor.beat();
+        replicate();
+        lagMonitor.beat();
+
+        assertEquals("replica", ReadYourWrites.callWith(writtenAt, this::readOnlyMarker));
+    }
+}
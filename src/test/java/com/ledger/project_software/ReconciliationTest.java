@@ -0,0 +1,170 @@
+package com.ledger.project_software;
+
+import com.ledger.project_software.business.BalanceReconciliationService;
+import com.ledger.project_software.business.BalanceReconciliationService.Discrepancy;
+import com.ledger.project_software.business.BalanceReconciliationService.ReconciliationReport;
+import com.ledger.project_software.business.LedgerChange;
+import com.ledger.project_software.domain.*;
+import com.ledger.project_software.orm.*;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//serial run: the chunks join the test transaction
+@SpringBootTest(classes = com.ledger.project_software.ProjectSoftwareApplication.class,
+        properties = "ledger.reconciliation.parallelism=1")
+@Transactional
+@AutoConfigureMockMvc
+@Rollback
+@RecordApplicationEvents
+public class ReconciliationTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserDAO userDAO;
+    @Autowired
+    private LedgerDAO ledgerDAO;
+    @Autowired
+    private AccountDAO accountDAO;
+    @Autowired
+    private TransactionDAO transactionDAO;
+    @Autowired
+    private ReconciliationBaselineDAO baselineDAO;
+    @Autowired
+    private BalanceReconciliationService reconciliationService;
+    @Autowired
+    private ApplicationEvents events;
+
+    private User testUser;
+    private Ledger ledger;
+    private BasicAccount cash;
+    private CreditAccount card;
+
+    @BeforeEach
+    public void setUp() {
+        testUser = new User("Reconcile" + UUID.randomUUID().toString().substring(0, 8), "pass123");
+        userDAO.save(testUser);
+        ledger = new Ledger("Reconciliation Ledger", testUser);
+        ledgerDAO.save(ledger);
+
+        //opening balance 800, then an income of 200
+        cash = new BasicAccount("Cash", BigDecimal.valueOf(1000), null, true, true,
+                AccountType.CASH, AccountCategory.FUNDS, testUser);
+        accountDAO.save(cash);
+        transactionDAO.save(new Income(LocalDate.now(), BigDecimal.valueOf(200), null, cash, ledger, null));
+        card = new CreditAccount("Card", BigDecimal.ZERO, testUser, null, true, true,
+                BigDecimal.valueOf(5000), BigDecimal.valueOf(200), 15, 5, AccountType.CREDIT_CARD);
+        accountDAO.save(card);
+    }
+
+    private static Discrepancy discrepancyOf(ReconciliationReport report, Account account) {
+        return report.discrepancies().stream()
+                .filter(discrepancy -> discrepancy.accountId().equals(account.getId()))
+                .findFirst()
+                .orElse(null);
+    }
+
+    @Test
+    public void testFirstRun_RecordsBaselines() {
+        ReconciliationReport report = reconciliationService.reconcile(false);
+
+        Assertions.assertTrue(report.accountsChecked() >= 2);
+        Assertions.assertTrue(report.baselinesRecorded() >= 2);
+        Assertions.assertEquals(0, BigDecimal.valueOf(800)
+                .compareTo(baselineDAO.findById(cash.getId()).orElseThrow().getOffset()));
+        Assertions.assertEquals(0, BigDecimal.valueOf(-200)
+                .compareTo(baselineDAO.findById(card.getId()).orElseThrow().getOffset()));
+        Assertions.assertNull(discrepancyOf(report, cash));
+        Assertions.assertSame(report, reconciliationService.getLastReport());
+    }
+
+    @Test
+    public void testTransactions_KeepAccountsReconciled() {
+        reconciliationService.reconcile(false);
+
+        //debt repaid from cash: both positions move with the history
+        Transaction repayment = new Transfer(LocalDate.now(), "Repay", cash, card, BigDecimal.valueOf(50), ledger);
+        transactionDAO.save(repayment);
+        cash.debit(BigDecimal.valueOf(50));
+        card.repayDebt(repayment);
+        accountDAO.save(cash);
+        accountDAO.save(card);
+
+        ReconciliationReport report = reconciliationService.reconcile(false);
+
+        Assertions.assertNull(discrepancyOf(report, cash));
+        Assertions.assertNull(discrepancyOf(report, card));
+    }
+
+    @Test
+    public void testDrift_ReportedAndRepaired() {
+        reconciliationService.reconcile(false);
+
+        //balance moved without a transaction
+        cash.setBalance(BigDecimal.valueOf(1100));
+        accountDAO.save(cash);
+
+        Discrepancy reported = discrepancyOf(reconciliationService.reconcile(false), cash);
+        Assertions.assertNotNull(reported);
+        Assertions.assertFalse(reported.repaired());
+        Assertions.assertEquals(0, BigDecimal.valueOf(100).compareTo(reported.difference()));
+        Assertions.assertEquals(0, BigDecimal.valueOf(1000).compareTo(reported.expectedPosition()));
+        Assertions.assertEquals(0, BigDecimal.valueOf(1100).compareTo(accountDAO.findById(cash.getId()).orElseThrow().getBalance()));
+
+        Discrepancy repaired = discrepancyOf(reconciliationService.reconcile(true), cash);
+        Assertions.assertNotNull(repaired);
+        Assertions.assertTrue(repaired.repaired());
+        Assertions.assertEquals(0, BigDecimal.valueOf(1000).compareTo(accountDAO.findById(cash.getId()).orElseThrow().getBalance()));
+        Assertions.assertEquals(1, events.stream(LedgerChange.class)
+                .filter(change -> change.type() == LedgerChange.Type.ACCOUNT && change.id().equals(cash.getId())
+                        && change.data().containsKey("reconciliationRepair"))
+                .count()); //only the repair publishes
+
+        Assertions.assertNull(discrepancyOf(reconciliationService.reconcile(false), cash));
+    }
+
+    //the test transaction never commits: run what the service does just before a commit
+    private static void beforeCommit() {
+        TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.beforeCommit(false));
+    }
+
+    @Test
+    public void testLedgerDeletion_WrongReversalReported() throws Exception {
+        Ledger trip = new Ledger("Trip", testUser);
+        ledgerDAO.save(trip);
+        testUser.getLedgers().add(trip);
+        Transaction dinner = new Expense(LocalDate.now(), BigDecimal.valueOf(50), null, cash, trip, null);
+        transactionDAO.save(dinner);
+        trip.getTransactions().add(dinner);
+        cash.addTransaction(dinner); //takes the 50 off the balance
+        accountDAO.save(cash);
+        reconciliationService.reconcile(false);
+
+        //amount changed without moving the balance: the deletion gives back 80 instead of 50
+        dinner.setAmount(BigDecimal.valueOf(80));
+        mockMvc.perform(delete("/ledgers/{id}/delete", trip.getId()).principal(() -> testUser.getUsername()))
+                .andExpect(status().isOk());
+        beforeCommit();
+
+        Assertions.assertTrue(baselineDAO.findById(cash.getId()).isPresent());
+        Discrepancy reported = discrepancyOf(reconciliationService.reconcile(false), cash);
+        Assertions.assertNotNull(reported);
+        Assertions.assertEquals(0, BigDecimal.valueOf(30).compareTo(reported.difference()));
+    }
+}
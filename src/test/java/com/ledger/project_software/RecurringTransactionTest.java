@@ -0,0 +1,176 @@
+package com.ledger.project_software;
+
+import com.ledger.project_software.business.RecurringTransactionService;
+import com.ledger.project_software.domain.*;
+import com.ledger.project_software.orm.*;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(classes = com.ledger.project_software.ProjectSoftwareApplication.class)
+@Transactional
+@AutoConfigureMockMvc
+@Rollback
+public class RecurringTransactionTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserDAO userDAO;
+    @Autowired
+    private AccountDAO accountDAO;
+    @Autowired
+    private LedgerDAO ledgerDAO;
+    @Autowired
+    private LedgerCategoryDAO ledgerCategoryDAO;
+    @Autowired
+    private TransactionDAO transactionDAO;
+    @Autowired
+    private RecurringTransactionDAO recurringTransactionDAO;
+    @Autowired
+    private RecurringTransactionService recurringTransactionService;
+
+    private User testUser;
+    private Ledger ledger;
+    private BasicAccount bank;
+    private LedgerCategory rent;
+    private RecurringTransaction rentTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        testUser = new User("Alice", "pass123");
+        userDAO.save(testUser);
+        ledger = new Ledger("Test Ledger", testUser);
+        ledgerDAO.save(ledger);
+        rent = new LedgerCategory("Rent", CategoryType.EXPENSE, ledger);
+        ledgerCategoryDAO.save(rent);
+        LedgerCategory salary = new LedgerCategory("Salary", CategoryType.INCOME, ledger);
+        ledgerCategoryDAO.save(salary);
+
+        bank = new BasicAccount("Bank", BigDecimal.valueOf(1000), null, true, true,
+                AccountType.DEBIT_CARD, AccountCategory.FUNDS, testUser);
+        accountDAO.save(bank);
+
+        //rent on the last day of the month, salary on the 27th
+        rentTemplate = new RecurringTransaction(testUser, ledger, bank, null, rent, TransactionType.EXPENSE,
+                BigDecimal.valueOf(500), "Rent", RecurringTransaction.Frequency.MONTHLY, 1, 31,
+                LocalDate.of(2025, 1, 31), null);
+        recurringTransactionDAO.save(rentTemplate);
+        recurringTransactionDAO.save(new RecurringTransaction(testUser, ledger, null, bank, salary, TransactionType.INCOME,
+                BigDecimal.valueOf(2000), "Salary", RecurringTransaction.Frequency.MONTHLY, 1, null,
+                LocalDate.of(2025, 1, 27), null));
+    }
+
+    @Test
+    public void testOccurrenceDates() {
+        Assertions.assertEquals(LocalDate.of(2025, 2, 28), rentTemplate.occurrenceDate(1));
+        Assertions.assertEquals(LocalDate.of(2025, 3, 31), rentTemplate.occurrenceDate(2)); //back to the 31st
+
+        RecurringTransaction weekly = new RecurringTransaction(testUser, ledger, bank, null, rent, TransactionType.EXPENSE,
+                BigDecimal.TEN, null, RecurringTransaction.Frequency.WEEKLY, 2, null,
+                LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31));
+        Assertions.assertEquals(LocalDate.of(2025, 1, 29), weekly.occurrenceDate(2));
+        Assertions.assertNull(weekly.occurrenceDate(3)); //after endDate
+
+        //day 5 already passed in the month of startDate: first occurrence next month
+        RecurringTransaction lateStart = new RecurringTransaction(testUser, ledger, bank, null, rent, TransactionType.EXPENSE,
+                BigDecimal.TEN, null, RecurringTransaction.Frequency.MONTHLY, 1, 5,
+                LocalDate.of(2025, 1, 20), null);
+        Assertions.assertEquals(LocalDate.of(2025, 2, 5), lateStart.getNextOccurrence());
+    }
+
+    @Test
+    public void testMaterializeDueOn_BatchIsIdempotent() {
+        Assertions.assertEquals(6, recurringTransactionService.materializeDueOn(LocalDate.of(2025, 3, 31)));
+        Assertions.assertEquals(0, recurringTransactionService.materializeDueOn(LocalDate.of(2025, 3, 31)));
+
+        Assertions.assertEquals(0, BigDecimal.valueOf(5500).compareTo(bank.getBalance())); //1000 - 3 * 500 + 3 * 2000
+        Assertions.assertEquals(3, rentTemplate.getOccurrenceCount());
+        Assertions.assertEquals(LocalDate.of(2025, 4, 30), rentTemplate.getNextOccurrence());
+        Assertions.assertEquals(0, BigDecimal.valueOf(1500).compareTo(transactionDAO.sumByCategoryAndMonth(testUser.getId(),
+                null, TransactionType.EXPENSE, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 3, 31)).stream()
+                .map(row -> (BigDecimal) row[3])
+                .reduce(BigDecimal.ZERO, BigDecimal::add)));
+
+        Assertions.assertEquals(2, recurringTransactionService.materializeDueOn(LocalDate.of(2025, 4, 30)));
+        Assertions.assertEquals(0, BigDecimal.valueOf(7000).compareTo(bank.getBalance()));
+    }
+
+    @Test
+    public void testMaterializeDueOn_StoppedTemplate() {
+        rentTemplate.setActive(false);
+        recurringTransactionDAO.save(rentTemplate);
+
+        Assertions.assertEquals(3, recurringTransactionService.materializeDueOn(LocalDate.of(2025, 3, 31))); //salary only
+        Assertions.assertEquals(0, rentTemplate.getOccurrenceCount());
+    }
+
+    @Test
+    public void testMaterializeDueOn_SkipsTemplatesThatCannotPost() {
+        BasicAccount wallet = new BasicAccount("Wallet", BigDecimal.valueOf(100), null, true, true,
+                AccountType.CASH, AccountCategory.FUNDS, testUser);
+        accountDAO.save(wallet);
+        RecurringTransaction gym = new RecurringTransaction(testUser, ledger, wallet, null, rent, TransactionType.EXPENSE,
+                BigDecimal.valueOf(300), "Gym", RecurringTransaction.Frequency.MONTHLY, 1, 1,
+                LocalDate.of(2025, 1, 1), null);
+        recurringTransactionDAO.save(gym);
+        BasicAccount closed = new BasicAccount("Closed", BigDecimal.valueOf(5000), null, true, false,
+                AccountType.CASH, AccountCategory.FUNDS, testUser);
+        accountDAO.save(closed);
+        RecurringTransaction fromClosed = new RecurringTransaction(testUser, ledger, closed, bank, null,
+                TransactionType.TRANSFER, BigDecimal.TEN, null, RecurringTransaction.Frequency.MONTHLY, 1, 1,
+                LocalDate.of(2025, 1, 1), null);
+        recurringTransactionDAO.save(fromClosed);
+
+        //rent and salary only: the wallet cannot pay the gym, the closed account is not selectable
+        Assertions.assertEquals(6, recurringTransactionService.materializeDueOn(LocalDate.of(2025, 3, 31)));
+
+        Assertions.assertEquals(0, BigDecimal.valueOf(100).compareTo(wallet.getBalance()));
+        Assertions.assertEquals(0, gym.getOccurrenceCount());
+        Assertions.assertEquals(LocalDate.of(2025, 1, 1), gym.getNextOccurrence()); //still due on the next run
+        Assertions.assertEquals(0, BigDecimal.valueOf(5000).compareTo(closed.getBalance()));
+        Assertions.assertEquals(0, fromClosed.getOccurrenceCount());
+        Assertions.assertEquals(0, BigDecimal.valueOf(5500).compareTo(bank.getBalance()));
+    }
+
+    @Test
+    @WithMockUser(username = "Alice")
+    public void testCreateRecurringTransaction_PostsDueOccurrences() throws Exception {
+        LocalDate start = LocalDate.now().minusDays(14);
+        mockMvc.perform(post("/recurring-transactions/create")
+                        .param("ledgerId", ledger.getId().toString())
+                        .param("fromAccountId", bank.getId().toString())
+                        .param("categoryId", rent.getId().toString())
+                        .param("amount", "10")
+                        .param("type", "EXPENSE")
+                        .param("frequency", "WEEKLY")
+                        .param("startDate", start.toString())
+                        .principal(() -> "Alice"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("Recurring transaction created successfully"));
+
+        Assertions.assertEquals(0, BigDecimal.valueOf(970).compareTo(bank.getBalance())); //start, +7 and +14 days
+
+        mockMvc.perform(post("/recurring-transactions/create")
+                        .param("ledgerId", ledger.getId().toString())
+                        .param("toAccountId", bank.getId().toString())
+                        .param("categoryId", rent.getId().toString())
+                        .param("amount", "10")
+                        .param("type", "INCOME")
+                        .param("frequency", "MONTHLY")
+                        .principal(() -> "Alice"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,115 @@
+package com.ledger.project_software;
+
+import com.ledger.project_software.business.RepaymentBatchService;
+import com.ledger.project_software.domain.*;
+import com.ledger.project_software.orm.*;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.Rollback;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@SpringBootTest(classes = com.ledger.project_software.ProjectSoftwareApplication.class)
+@Transactional
+@Rollback
+public class RepaymentBatchTest {
+    @Autowired
+    private UserDAO userDAO;
+    @Autowired
+    private AccountDAO accountDAO;
+    @Autowired
+    private InstallmentPlanDAO installmentPlanDAO;
+    @Autowired
+    private RepaymentBatchService repaymentBatchService;
+
+    private BasicAccount bank;
+    private LoanAccount loan;
+    private CreditAccount card;
+    private InstallmentPlan plan;
+
+    @BeforeEach
+    public void setUp() {
+        User testUser = new User("Alice", "pass123");
+        userDAO.save(testUser);
+
+        bank = new BasicAccount("Bank", BigDecimal.valueOf(5000), null, true, true,
+                AccountType.DEBIT_CARD, AccountCategory.FUNDS, testUser);
+        accountDAO.save(bank);
+
+        //1200 in 12 periods without interest: 100 per month from 2025-07-10
+        loan = new LoanAccount("Loan", testUser, null, true, 12, 0, BigDecimal.ZERO, BigDecimal.valueOf(1200),
+                bank, LocalDate.of(2025, 7, 10), LoanAccount.RepaymentType.EQUAL_INTEREST);
+        accountDAO.save(loan);
+
+        card = new CreditAccount("Card", BigDecimal.ZERO, testUser, null, true, true,
+                BigDecimal.valueOf(5000), BigDecimal.valueOf(600), 15, 5, AccountType.CREDIT_CARD);
+        accountDAO.save(card);
+
+        //600 in 6 periods without fee: 100 per month from 2025-08-01
+        plan = new InstallmentPlan(BigDecimal.valueOf(600), 6, BigDecimal.ZERO, 0,
+                InstallmentPlan.FeeStrategy.EVENLY_SPLIT, card, LocalDate.of(2025, 8, 1));
+        installmentPlanDAO.save(plan);
+        card.getInstallmentPlans().add(plan);
+    }
+
+    @Test
+    public void testRepayDueOn_PostsMissedPeriods() {
+        int posted = repaymentBatchService.repayDueOn(LocalDate.of(2025, 9, 10));
+
+        Assertions.assertEquals(5, posted); //loan: 07-10, 08-10, 09-10. plan: 08-01, 09-01
+        Assertions.assertEquals(3, loan.getRepaidPeriods());
+        Assertions.assertEquals(0, BigDecimal.valueOf(900).compareTo(loan.getRemainingAmount()));
+        Assertions.assertEquals(0, BigDecimal.valueOf(4700).compareTo(bank.getBalance()));
+        Assertions.assertEquals(3, bank.getOutgoingTransactions().size());
+
+        Assertions.assertEquals(2, plan.getPaidPeriods());
+        Assertions.assertEquals(0, BigDecimal.valueOf(400).compareTo(plan.getRemainingAmount()));
+        Assertions.assertEquals(0, BigDecimal.valueOf(400).compareTo(card.getCurrentDebt()));
+        Assertions.assertEquals(LocalDate.of(2025, 9, 1), card.getOutgoingTransactions().get(1).getDate());
+    }
+
+    @Test
+    public void testRepayDueOn_LoanPaysOnlyWhatTheAccountCovers() {
+        bank.setBalance(BigDecimal.valueOf(250));
+        accountDAO.save(bank);
+
+        repaymentBatchService.repayDueOn(LocalDate.of(2025, 9, 10));
+
+        Assertions.assertEquals(2, loan.getRepaidPeriods()); //07-10 and 08-10, 09-10 stays overdue
+        Assertions.assertEquals(0, BigDecimal.valueOf(1000).compareTo(loan.getRemainingAmount()));
+        Assertions.assertEquals(0, BigDecimal.valueOf(50).compareTo(bank.getBalance()));
+
+        bank.credit(BigDecimal.valueOf(100));
+        accountDAO.save(bank);
+        repaymentBatchService.repayDueOn(LocalDate.of(2025, 9, 11));
+        Assertions.assertEquals(3, loan.getRepaidPeriods());
+    }
+
+    @Test
+    public void testRepayDueOn_IdempotentPerPeriod() {
+        repaymentBatchService.repayDueOn(LocalDate.of(2025, 9, 10));
+
+        Assertions.assertEquals(0, repaymentBatchService.repayDueOn(LocalDate.of(2025, 9, 10)));
+        Assertions.assertEquals(0, repaymentBatchService.repayDueOn(LocalDate.of(2025, 9, 30)));
+        Assertions.assertEquals(3, loan.getRepaidPeriods());
+        Assertions.assertEquals(2, plan.getPaidPeriods());
+
+        Assertions.assertEquals(2, repaymentBatchService.repayDueOn(LocalDate.of(2025, 10, 10))); //next month
+        Assertions.assertEquals(4, loan.getRepaidPeriods());
+        Assertions.assertEquals(3, plan.getPaidPeriods());
+    }
+
+    @Test
+    public void testRepayDueOn_StopsWhenFullyRepaid() {
+        Assertions.assertEquals(18, repaymentBatchService.repayDueOn(LocalDate.of(2027, 1, 1)));
+        Assertions.assertEquals(12, loan.getRepaidPeriods());
+        Assertions.assertEquals(6, plan.getPaidPeriods());
+
+        Assertions.assertEquals(0, repaymentBatchService.repayDueOn(LocalDate.of(2027, 6, 1)));
+    }
+}
@@ -0,0 +1,139 @@
+package com.ledger.project_software;
+
+import com.ledger.project_software.business.CategoryTrend;
+import com.ledger.project_software.business.ReportService;
+import com.ledger.project_software.domain.*;
+import com.ledger.project_software.orm.*;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(classes = com.ledger.project_software.ProjectSoftwareApplication.class)
+@Transactional
+@AutoConfigureMockMvc
+@Rollback
+public class ReportTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserDAO userDAO;
+    @Autowired
+    private AccountDAO accountDAO;
+    @Autowired
+    private LedgerDAO ledgerDAO;
+    @Autowired
+    private LedgerCategoryDAO ledgerCategoryDAO;
+    @Autowired
+    private TransactionDAO transactionDAO;
+    @Autowired
+    private ReportService reportService;
+
+    private User testUser;
+    private Ledger ledger;
+    private LedgerCategory food;
+    private LedgerCategory lunch;
+    private LedgerCategory rent;
+
+    @BeforeEach
+    public void setUp() {
+        testUser = new User("Alice", "pass123");
+        userDAO.save(testUser);
+        ledger = new Ledger("Test Ledger", testUser);
+        ledgerDAO.save(ledger);
+        Ledger other = new Ledger("Other Ledger", testUser);
+        ledgerDAO.save(other);
+
+        food = new LedgerCategory("Food", CategoryType.EXPENSE, ledger);
+        ledgerCategoryDAO.save(food);
+        lunch = new LedgerCategory("Lunch", CategoryType.EXPENSE, ledger);
+        lunch.setParent(food);
+        ledgerCategoryDAO.save(lunch);
+        food.getChildren().add(lunch);
+        rent = new LedgerCategory("Rent", CategoryType.EXPENSE, other);
+        ledgerCategoryDAO.save(rent);
+        LedgerCategory salary = new LedgerCategory("Salary", CategoryType.INCOME, ledger);
+        ledgerCategoryDAO.save(salary);
+
+        BasicAccount cash = new BasicAccount("Cash", BigDecimal.valueOf(5000), null, true, true,
+                AccountType.CASH, AccountCategory.FUNDS, testUser);
+        accountDAO.save(cash);
+
+        transactionDAO.save(new Expense(LocalDate.of(2025, 8, 3), BigDecimal.valueOf(20), null, cash, ledger, food));
+        transactionDAO.save(new Expense(LocalDate.of(2025, 8, 20), new BigDecimal("12.50"), null, cash, ledger, lunch));
+        transactionDAO.save(new Expense(LocalDate.of(2025, 9, 5), new BigDecimal("7.25"), null, cash, ledger, lunch));
+        transactionDAO.save(new Expense(LocalDate.of(2025, 9, 1), BigDecimal.valueOf(800), null, cash, other, rent));
+        transactionDAO.save(new Expense(LocalDate.of(2025, 11, 1), BigDecimal.valueOf(99), null, cash, ledger, food)); //out of range
+        transactionDAO.save(new Income(LocalDate.of(2025, 9, 27), BigDecimal.valueOf(2000), null, cash, ledger, salary));
+    }
+
+    private static CategoryTrend.Row row(CategoryTrend trend, LedgerCategory category) {
+        return trend.categories().stream()
+                .filter(r -> r.categoryId().equals(category.getId()))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    public void testCategoryTrend_RolledUpToParent() {
+        CategoryTrend trend = reportService.categoryTrend(testUser.getId(), null, TransactionType.EXPENSE,
+                YearMonth.of(2025, 8), YearMonth.of(2025, 10));
+
+        Assertions.assertEquals(3, trend.months().size());
+        Assertions.assertEquals(3, trend.categories().size()); //income categories are not listed
+
+        CategoryTrend.Row foodRow = row(trend, food);
+        Assertions.assertEquals(0, new BigDecimal("32.50").compareTo(foodRow.monthly().get(0)));
+        Assertions.assertEquals(0, new BigDecimal("7.25").compareTo(foodRow.monthly().get(1)));
+        Assertions.assertEquals(0, BigDecimal.ZERO.compareTo(foodRow.monthly().get(2)));
+        Assertions.assertEquals(0, new BigDecimal("39.75").compareTo(foodRow.total()));
+
+        CategoryTrend.Row lunchRow = row(trend, lunch);
+        Assertions.assertEquals(food.getId(), lunchRow.parentId());
+        Assertions.assertEquals(0, new BigDecimal("19.75").compareTo(lunchRow.total()));
+
+        Assertions.assertEquals(0, BigDecimal.valueOf(800).compareTo(row(trend, rent).monthly().get(1)));
+    }
+
+    @Test
+    public void testCategoryTrend_InvalidRange() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> reportService.categoryTrend(testUser.getId(),
+                null, TransactionType.EXPENSE, YearMonth.of(2025, 10), YearMonth.of(2025, 8)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> reportService.categoryTrend(testUser.getId(),
+                null, TransactionType.TRANSFER, YearMonth.of(2025, 8), YearMonth.of(2025, 10)));
+    }
+
+    @Test
+    @WithMockUser(username = "Alice")
+    public void testGetCategoryTrend_OneLedger() throws Exception {
+        mockMvc.perform(get("/reports/category-trend")
+                        .param("from", "2025-08")
+                        .param("to", "2025-09")
+                        .param("ledgerId", ledger.getId().toString())
+                        .principal(() -> "Alice"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.months[0]").value("2025-08"))
+                .andExpect(jsonPath("$.categories.length()").value(2))
+                .andExpect(jsonPath("$.categories[0].name").value("Food"))
+                .andExpect(jsonPath("$.categories[0].total").value(39.75));
+
+        mockMvc.perform(get("/reports/category-trend")
+                        .param("from", "2025-09")
+                        .param("to", "2025-08")
+                        .principal(() -> "Alice"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,158 @@
+package com.ledger.project_software;
+
+import com.ledger.project_software.business.ShardContext;
+import com.ledger.project_software.business.UserService;
+import com.ledger.project_software.dbms.ShardMigrator;
+import com.ledger.project_software.dbms.ShardMigrator.MoveResult;
+import com.ledger.project_software.dbms.ShardPools;
+import com.ledger.project_software.dbms.UserDirectory;
+import com.ledger.project_software.domain.*;
+import com.ledger.project_software.orm.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+//two in-memory H2 shards and a directory database. not transactional: the directory is filled after commit and the
+//shards are checked with their own connections. the context is dropped afterwards, the shard count is static
+@SpringBootTest(classes = com.ledger.project_software.ProjectSoftwareApplication.class,
+        properties = {
+                "ledger.sharding.enabled=true",
+                "ledger.sharding.directory-url=jdbc:h2:mem:sharding-test-directory;DB_CLOSE_DELAY=-1",
+                "ledger.sharding.shard-urls=jdbc:h2:mem:sharding-test-0;DB_CLOSE_DELAY=-1,"
+                        + "jdbc:h2:mem:sharding-test-1;DB_CLOSE_DELAY=-1",
+                "ledger.sharding.create-schema=true",
+                "ledger.sharding.directory-ttl-millis=0",
+                "ledger.sharding.move-grace-millis=0",
+                "spring.jpa.hibernate.ddl-auto=create-drop"})
+@AutoConfigureMockMvc
+@DirtiesContext
+public class ShardingTest {
+    private static final long ID_RANGE = 1_000_000_000_000L;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private LedgerDAO ledgerDAO;
+    @Autowired
+    private AccountDAO accountDAO;
+    @Autowired
+    private TransactionDAO transactionDAO;
+    @Autowired
+    private ShardPools shardPools;
+    @Autowired
+    private UserDirectory directory;
+    @Autowired
+    private ShardMigrator migrator;
+
+    private User register(int shard) {
+        String username = "Shard" + UUID.randomUUID().toString().substring(0, 8);
+        return ShardContext.callOn(shard, () -> userService.register(username, "pass123"));
+    }
+
+    //a cash account with an income in a second ledger
+    private void addHistory(User user, int shard) {
+        ShardContext.callOn(shard, () -> {
+            Ledger ledger = ledgerDAO.save(new Ledger("Shard Ledger", user));
+            BasicAccount cash = accountDAO.save(new BasicAccount("Cash", BigDecimal.valueOf(100), null, true, true,
+                    AccountType.CASH, AccountCategory.FUNDS, user));
+            transactionDAO.save(new Income(LocalDate.now(), BigDecimal.valueOf(20), null, cash, ledger, null));
+            return null;
+        });
+    }
+
+    private long rowsOn(int shard, String table, String condition, Long userId) {
+        Long count = new JdbcTemplate(shardPools.get(shard))
+                .queryForObject("SELECT COUNT(*) FROM " + table + " WHERE " + condition, Long.class, userId);
+        return count != null ? count : 0;
+    }
+
+    @Test
+    public void testUsers_LiveOnTheirShard() {
+        User first = register(0);
+        User second = register(1);
+
+        Assertions.assertEquals(1, rowsOn(0, "users", "id = ?", first.getId()));
+        Assertions.assertEquals(0, rowsOn(1, "users", "id = ?", first.getId()));
+        Assertions.assertEquals(1, rowsOn(1, "users", "id = ?", second.getId()));
+        Assertions.assertEquals(1, rowsOn(1, "ledger", "owner_id = ?", second.getId())); //default ledger
+        Assertions.assertTrue(second.getId() > ID_RANGE); //ids of shard 1 do not collide with those of shard 0
+        Assertions.assertEquals(0, directory.lookup(first.getUsername()).shard());
+        Assertions.assertEquals(1, directory.lookup(second.getUsername()).shard());
+        Assertions.assertTrue(new JdbcTemplate(shardPools.get(1))
+                .queryForObject("SELECT COUNT(*) FROM category", Long.class) > 0); //templates seeded on every shard
+    }
+
+    @Test
+    public void testRequests_RoutedToTheShardOfTheUser() throws Exception {
+        for (int shard = 0; shard < 2; shard++) {
+            User user = register(shard);
+            addHistory(user, shard);
+
+            mockMvc.perform(get("/accounts/all-accounts").principal(user::getUsername))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)));
+        }
+    }
+
+    @Test
+    public void testMove_CopiesTheUserAndCleansTheSource() throws Exception {
+        User user = register(0);
+        addHistory(user, 0);
+
+        MoveResult result = migrator.move(user.getId(), 1);
+
+        Assertions.assertEquals(0, result.fromShard());
+        Assertions.assertEquals(1, result.toShard());
+        Assertions.assertEquals(1, result.rows().get("users"));
+        Assertions.assertEquals(2, result.rows().get("ledger"));
+        Assertions.assertEquals(1, result.rows().get("basic_account"));
+        Assertions.assertEquals(1, result.rows().get("income"));
+        Assertions.assertEquals(1, directory.lookup(user.getId()).shard());
+        Assertions.assertFalse(directory.lookup(user.getId()).moving());
+        Assertions.assertEquals(0, rowsOn(0, "users", "id = ?", user.getId()));
+        Assertions.assertEquals(0, rowsOn(0, "account", "owner_id = ?", user.getId()));
+        Assertions.assertEquals(2, rowsOn(1, "ledger", "owner_id = ?", user.getId()));
+
+        mockMvc.perform(get("/accounts/all-accounts").principal(user::getUsername))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    public void testMove_ToTheSameShardRejected() {
+        User user = register(1);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> migrator.move(user.getId(), 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> migrator.move(user.getId(), 5));
+        Assertions.assertEquals(1, rowsOn(1, "users", "id = ?", user.getId()));
+    }
+
+    @Test
+    public void testRebalance_EvensTheShardsOut() {
+        for (int i = 0; i < 4; i++) {
+            register(0);
+        }
+
+        migrator.rebalance(100);
+
+        Map<Integer, Long> usersPerShard = directory.usersPerShard();
+        Assertions.assertTrue(Collections.max(usersPerShard.values()) - Collections.min(usersPerShard.values()) <= 1);
+    }
+}
@@ -0,0 +1,44 @@
+package com.ledger.project_software;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+//hibernate statement inspector of the test contexts declaring QueryCountExtension.STATEMENT_INSPECTOR: counts
+//every SQL statement prepared, by kind. the counters are static because Hibernate creates the inspector from its
+//class name, and shared by all threads so that the queries a request runs on the parallel-queries pool count too
+public class SqlStatementCounter implements StatementInspector {
+    private static final LongAdder selects = new LongAdder();
+    private static final LongAdder inserts = new LongAdder();
+    private static final LongAdder updates = new LongAdder();
+    private static final LongAdder deletes = new LongAdder();
+
+    public record Counts(long selects, long inserts, long updates, long deletes) {}
+
+    @Override
+    public String inspect(String sql) {
+        String statement = sql.stripLeading().toLowerCase(Locale.ROOT);
+        if (statement.startsWith("select") || statement.startsWith("with")) {
+            selects.increment();
+        } else if (statement.startsWith("insert")) {
+            inserts.increment();
+        } else if (statement.startsWith("update")) {
+            updates.increment();
+        } else if (statement.startsWith("delete")) {
+            deletes.increment();
+        }
+        return sql;
+    }
+
+    public static void reset() {
+        selects.reset();
+        inserts.reset();
+        updates.reset();
+        deletes.reset();
+    }
+
+    public static Counts snapshot() {
+        return new Counts(selects.sum(), inserts.sum(), updates.sum(), deletes.sum());
+    }
+}
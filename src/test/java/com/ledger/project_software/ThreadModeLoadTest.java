@@ -0,0 +1,171 @@
+package com.ledger.project_software;
+
+import com.ledger.project_software.domain.*;
+import com.ledger.project_software.orm.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.IntFunction;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+//the same load in each execution mode, every mode in a context of its own (PlatformThreadLoadTest,
+//VirtualThreadLoadTest) against a pool of 10 connections: throughput and p99 are logged per endpoint.
+//run with: mvn test -Pload-test
+@Tag("load")
+@AutoConfigureMockMvc
+@DirtiesContext
+public abstract class ThreadModeLoadTest {
+    private static final Logger log = LoggerFactory.getLogger(ThreadModeLoadTest.class);
+    private static final int REQUESTS = 2000;
+    private static final int PLATFORM_THREADS = 200;
+    private static final int WARMUP = 200;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    protected DataSource dataSource;
+
+    @Autowired
+    private UserDAO userRepository;
+
+    @Autowired
+    private LedgerDAO ledgerRepository;
+
+    @Autowired
+    private LedgerCategoryDAO ledgerCategoryRepository;
+
+    @Autowired
+    private AccountDAO accountRepository;
+
+    @Autowired
+    private BudgetDAO budgetRepository;
+
+    private Ledger testLedger;
+    private LedgerCategory salary;
+    private final List<Long> accountIds = new ArrayList<>();
+
+    private record Result(String mode, String endpoint, long elapsedNanos, long[] latencies, int failures) {
+        double throughput() {
+            return latencies.length / (elapsedNanos / 1e9);
+        }
+
+        double p99Millis() {
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            return sorted[(int) Math.ceil(sorted.length * 0.99) - 1] / 1e6;
+        }
+    }
+
+    @BeforeEach
+    public void setup() {
+        User testUser = new User("LoadUser", "password123");
+        userRepository.save(testUser);
+
+        testLedger = new Ledger("Load Ledger", testUser);
+        ledgerRepository.save(testLedger);
+
+        salary = new LedgerCategory("Salary", CategoryType.INCOME, testLedger);
+        ledgerCategoryRepository.save(salary);
+        LedgerCategory food = new LedgerCategory("Food", CategoryType.EXPENSE, testLedger);
+        ledgerCategoryRepository.save(food);
+        budgetRepository.save(new Budget(BigDecimal.valueOf(500), Budget.Period.MONTHLY, food, testUser));
+        budgetRepository.save(new Budget(BigDecimal.valueOf(2000), Budget.Period.MONTHLY, null, testUser));
+
+        //one account per request: concurrent requests never wait on the same row lock
+        for (int i = 0; i < REQUESTS; i++) {
+            Account account = new BasicAccount("load " + i, BigDecimal.valueOf(1000), null, true, true,
+                    AccountType.CASH, AccountCategory.FUNDS, testUser);
+            accountRepository.save(account);
+            accountIds.add(account.getId());
+        }
+    }
+
+    //"platform" or "virtual": the client threads as well, 200 platform threads like the Tomcat default workers
+    //or one virtual thread per request
+    protected abstract String mode();
+
+    //checks that the context runs in the mode under test
+    protected abstract void assertMode();
+
+    @Test
+    public void testLoad() throws Exception {
+        assertMode();
+
+        run("warmup", WARMUP, i -> getAllBudgets()); //JIT and pool warm-up, not measured
+        List<Result> results = List.of(
+                run("createTransaction", REQUESTS, this::createTransaction),
+                run("getAllBudgets", REQUESTS, i -> getAllBudgets()));
+
+        for (Result result : results) {
+            log.info(String.format("%-9s %-18s %10.1f req/s %10.2f ms p99",
+                    result.mode(), result.endpoint(), result.throughput(), result.p99Millis()));
+            Assertions.assertEquals(0, result.failures(), result.mode() + " " + result.endpoint());
+        }
+    }
+
+    private RequestBuilder createTransaction(int index) {
+        return post("/transactions/create")
+                .principal(() -> "LoadUser")
+                .param("amount", "10.00")
+                .param("toAccountId", String.valueOf(accountIds.get(index)))
+                .param("ledgerId", String.valueOf(testLedger.getId()))
+                .param("categoryId", String.valueOf(salary.getId()))
+                .param("type", "INCOME");
+    }
+
+    private RequestBuilder getAllBudgets() {
+        return get("/budgets").principal(() -> "LoadUser");
+    }
+
+    private Result run(String endpoint, int requests, IntFunction<RequestBuilder> request) throws Exception {
+        long[] latencies = new long[requests];
+        List<Future<Integer>> statuses = new ArrayList<>(requests);
+        ExecutorService executor = mode().equals("virtual")
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(PLATFORM_THREADS);
+        long start = System.nanoTime();
+        try (executor) {
+            for (int i = 0; i < requests; i++) {
+                int index = i;
+                RequestBuilder builder = request.apply(index);
+                statuses.add(executor.submit(() -> {
+                    long begin = System.nanoTime();
+                    int status = mockMvc.perform(builder).andReturn().getResponse().getStatus();
+                    latencies[index] = System.nanoTime() - begin;
+                    return status;
+                }));
+            }
+        } //close() waits for all submitted requests
+        long elapsed = System.nanoTime() - start;
+
+        int failures = 0;
+        for (Future<Integer> status : statuses) {
+            try {
+                if (status.get() != 200) {
+                    failures++;
+                }
+            } catch (ExecutionException e) {
+                failures++;
+            }
+        }
+        return new Result(mode(), endpoint, elapsed, latencies, failures);
+    }
+}
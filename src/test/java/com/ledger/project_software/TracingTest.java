@@ -0,0 +1,96 @@
+package com.ledger.project_software;
+
+import com.ledger.project_software.business.RequestTracer;
+import com.ledger.project_software.domain.*;
+import com.ledger.project_software.orm.*;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//traces exposed on the application port: MockMvc does not reach the management port of the "ops" profile
+@SpringBootTest(classes = com.ledger.project_software.ProjectSoftwareApplication.class,
+        properties = "management.endpoints.web.exposure.include=health,traces")
+@Transactional
+@AutoConfigureMockMvc
+@Rollback
+public class TracingTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private RequestTracer requestTracer;
+    @Autowired
+    private UserDAO userDAO;
+    @Autowired
+    private LedgerDAO ledgerDAO;
+    @Autowired
+    private LedgerCategoryDAO ledgerCategoryDAO;
+    @Autowired
+    private BudgetDAO budgetDAO;
+
+    private String username;
+
+    @BeforeEach
+    public void setUp() {
+        username = "Trace" + UUID.randomUUID().toString().substring(0, 8);
+        User testUser = new User(username, "pass123");
+        userDAO.save(testUser);
+        Ledger ledger = new Ledger("Trace Ledger", testUser);
+        ledgerDAO.save(ledger);
+        LedgerCategory food = new LedgerCategory("Food", CategoryType.EXPENSE, ledger);
+        ledgerCategoryDAO.save(food);
+        budgetDAO.save(new Budget(BigDecimal.valueOf(300), Budget.Period.MONTHLY, food, testUser));
+    }
+
+    private static Stream<RequestTracer.SpanView> flatten(RequestTracer.SpanView span) {
+        return Stream.concat(Stream.of(span), span.children().stream().flatMap(TracingTest::flatten));
+    }
+
+    @Test
+    public void testDashboardSpanTree() throws Exception {
+        mockMvc.perform(get("/budgets").principal(() -> username))
+                .andExpect(status().isOk());
+
+        RequestTracer.Trace trace = requestTracer.slowest(Integer.MAX_VALUE).stream()
+                .filter(t -> t.operation().equals("BudgetController.getAllBudgets"))
+                .filter(t -> t.root().attributes().get("http.path").equals("/budgets"))
+                .findFirst().orElseThrow();
+        assertEquals(200, trace.status());
+
+        List<RequestTracer.SpanView> spans = flatten(trace.root()).toList();
+        RequestTracer.SpanView categoryBudgets = spans.stream()
+                .filter(s -> s.name().equals("BudgetDAO.findActiveCategoriesBudgetByUserId"))
+                .findFirst().orElseThrow();
+        assertEquals(1L, categoryBudgets.attributes().get("rows"));
+        assertTrue(categoryBudgets.attributes().get("query").toString().startsWith("SELECT"));
+        assertTrue(categoryBudgets.statements() >= 1);
+        assertTrue(spans.stream().anyMatch(s -> s.name().equals("UserDAO.findByUsername")
+                && s.attributes().get("query").equals("derived")));
+        assertTrue(trace.root().statements() >= categoryBudgets.statements()); //the root counts its children too
+    }
+
+    @Test
+    public void testTracesEndpoint() throws Exception {
+        mockMvc.perform(get("/budgets").principal(() -> username))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/traces").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.enabled").value(true))
+                .andExpect(jsonPath("$.slowest.length()").value(1));
+    }
+}
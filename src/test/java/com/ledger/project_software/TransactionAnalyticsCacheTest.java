@@ -0,0 +1,142 @@
+package com.ledger.project_software;
+
+import com.ledger.project_software.business.LedgerChange;
+import com.ledger.project_software.business.TransactionAnalyticsCache;
+import com.ledger.project_software.business.TransactionColumns;
+import com.ledger.project_software.domain.*;
+import com.ledger.project_software.orm.TransactionDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TransactionAnalyticsCacheTest {
+    @Mock
+    private TransactionDAO transactionDAO;
+
+    private TransactionAnalyticsCache cache;
+
+    private static final LocalDate SEPT = LocalDate.of(2025, 9, 10);
+    private static final LocalDate OCT = LocalDate.of(2025, 10, 5);
+
+    @BeforeEach
+    public void setUp() {
+        cache = new TransactionAnalyticsCache(transactionDAO, true, 1_000_000);
+    }
+
+    private static Object[] row(long id, LocalDate date, String amount, TransactionType type, Long categoryId, Long ledgerId) {
+        return new Object[]{id, date, new BigDecimal(amount), type, categoryId, 1L, null, ledgerId};
+    }
+
+    private List<Object[]> history() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(row(1, SEPT, "10.50", TransactionType.EXPENSE, 100L, 7L));
+        rows.add(row(2, SEPT, "4.25", TransactionType.EXPENSE, 101L, 7L));
+        rows.add(row(3, SEPT.plusDays(1), "1000.00", TransactionType.INCOME, 200L, 7L));
+        rows.add(row(4, OCT, "20.00", TransactionType.EXPENSE, 100L, 7L));
+        rows.add(row(5, OCT, "99.99", TransactionType.EXPENSE, 100L, 8L));
+        rows.add(row(6, OCT, "50.00", TransactionType.TRANSFER, null, null));
+        return rows;
+    }
+
+    @Test
+    public void testAggregations() {
+        when(transactionDAO.findColumnsByUserId(1L)).thenReturn(history());
+
+        TransactionColumns columns = cache.columns(1L);
+
+        assertEquals(6, columns.size());
+        TransactionColumns.RowFilter september = TransactionColumns.between(SEPT.withDayOfMonth(1), SEPT.withDayOfMonth(30));
+        assertEquals(0, new BigDecimal("14.75").compareTo(
+                columns.sum(september.and(TransactionColumns.ofType(TransactionType.EXPENSE)))));
+        assertEquals(100000L, columns.sumCents(september.and(TransactionColumns.ofType(TransactionType.INCOME))));
+
+        Map<Long, Long> byCategory = columns.sumCentsBy(TransactionColumns.BY_CATEGORY,
+                TransactionColumns.ofType(TransactionType.EXPENSE).and(TransactionColumns.inLedger(7L)));
+        assertEquals(Map.of(100L, 3050L, 101L, 425L), byCategory);
+
+        Map<Long, Map<Long, Long>> byCategoryAndMonth = columns.sumCentsBy(TransactionColumns.BY_CATEGORY,
+                TransactionColumns.BY_MONTH, TransactionColumns.ofType(TransactionType.EXPENSE));
+        assertEquals(Map.of((long) TransactionColumns.month(SEPT), 1050L, (long) TransactionColumns.month(OCT), 11999L),
+                byCategoryAndMonth.get(100L));
+
+        assertEquals(5000L, columns.sumCents(TransactionColumns.touchingAccount(1L).and(TransactionColumns.ofType(TransactionType.TRANSFER))));
+        assertEquals(TransactionColumns.NO_ID, columns.categoryId(5));
+    }
+
+    @Test
+    public void testLoadedOnceAndAppendedOnPosting() {
+        when(transactionDAO.findColumnsByUserId(1L)).thenReturn(history());
+        TransactionColumns before = cache.columns(1L);
+
+        User user = new User("Alice", "pass123");
+        user.setId(1L);
+        Ledger ledger = new Ledger("Ledger", user);
+        ledger.setId(7L);
+        Expense expense = new Expense(OCT, new BigDecimal("5.00"), null, null, ledger, null);
+        LedgerChange created = new LedgerChange(1L, LedgerChange.Type.TRANSACTION, LedgerChange.Action.CREATED, 99L,
+                LedgerChange.transaction(1L, expense, LedgerChange.Action.CREATED).data(), null);
+        cache.onLedgerChange(created);
+
+        TransactionColumns after = cache.columns(1L);
+        assertEquals(6, before.size()); //views handed out earlier do not change
+        assertEquals(7, after.size());
+        assertEquals(99L, after.id(6));
+        assertEquals(2500L, after.sumCents(TransactionColumns.inLedger(7L).and(TransactionColumns.between(OCT, OCT))));
+        verify(transactionDAO, times(1)).findColumnsByUserId(1L);
+    }
+
+    @Test
+    public void testEditInvalidates() {
+        when(transactionDAO.findColumnsByUserId(1L)).thenReturn(history());
+        cache.columns(1L);
+
+        cache.onLedgerChange(new LedgerChange(1L, LedgerChange.Type.TRANSACTION, LedgerChange.Action.UPDATED, 4L, Map.of(), null));
+        cache.columns(1L);
+
+        verify(transactionDAO, times(2)).findColumnsByUserId(1L);
+    }
+
+    @Test
+    public void testBalanceUpdatesIgnored() {
+        when(transactionDAO.findColumnsByUserId(1L)).thenReturn(history());
+        cache.columns(1L);
+
+        cache.onLedgerChange(new LedgerChange(1L, LedgerChange.Type.ACCOUNT, LedgerChange.Action.UPDATED, 1L, Map.of(), null));
+        cache.columns(1L);
+
+        verify(transactionDAO, times(1)).findColumnsByUserId(1L);
+        assertEquals(1L, cache.getStats().get("hits"));
+    }
+
+    @Test
+    public void testLruEvictionWithinBudget() {
+        //room for two users of 16 rows each
+        long perUser = TransactionColumns.empty(16).estimatedBytes();
+        cache = new TransactionAnalyticsCache(transactionDAO, true, perUser * 2);
+        when(transactionDAO.findColumnsByUserId(anyLong())).thenAnswer(invocation -> history());
+
+        cache.columns(1L);
+        cache.columns(2L);
+        cache.columns(1L); //2 is now the least recently used
+        cache.columns(3L);
+
+        assertEquals(2, cache.getStats().get("users"));
+        assertEquals(1L, cache.getStats().get("evictions"));
+        cache.columns(1L);
+        cache.columns(2L); //reloaded
+        verify(transactionDAO, times(1)).findColumnsByUserId(1L);
+        verify(transactionDAO, times(2)).findColumnsByUserId(2L);
+    }
+}
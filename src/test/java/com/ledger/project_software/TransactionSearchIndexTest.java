@@ -0,0 +1,78 @@
+package com.ledger.project_software;
+
+import com.ledger.project_software.business.LedgerChange;
+import com.ledger.project_software.business.TransactionSearchIndex;
+import com.ledger.project_software.orm.TransactionDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TransactionSearchIndexTest {
+    @Mock
+    private TransactionDAO transactionDAO;
+
+    private TransactionSearchIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new TransactionSearchIndex(transactionDAO, 10);
+        List<Object[]> notes = new ArrayList<>();
+        notes.add(new Object[]{1L, "Cena al ristorante Da Mario"});
+        notes.add(new Object[]{2L, "Spesa supermercato, caffè"});
+        notes.add(new Object[]{3L, "Ristorante giapponese"});
+        when(transactionDAO.findNotesByUserId(1L)).thenReturn(notes);
+    }
+
+    private static LedgerChange change(Long id, LedgerChange.Action action, String note) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("note", note);
+        return new LedgerChange(1L, LedgerChange.Type.TRANSACTION, action, id, data, LocalDateTime.now());
+    }
+
+    @Test
+    public void testSearch_PrefixAndAllTerms() {
+        assertEquals(Set.of(1L, 3L), index.search(1L, "ristor"));
+        assertEquals(Set.of(1L), index.search(1L, "RISTORANTE mario"));
+        assertEquals(Set.of(2L), index.search(1L, "caffe")); //accents removed
+        assertTrue(index.search(1L, "pizza").isEmpty());
+        assertTrue(index.search(1L, "  ,, ").isEmpty());
+        verify(transactionDAO, times(1)).findNotesByUserId(1L); //built once
+    }
+
+    @Test
+    public void testSearch_UpdatedFromEvents() {
+        index.search(1L, "cena");
+
+        index.onLedgerChange(change(4L, LedgerChange.Action.CREATED, "Pizza con Mario"));
+        index.onLedgerChange(change(1L, LedgerChange.Action.UPDATED, "Pranzo di lavoro"));
+        index.onLedgerChange(change(3L, LedgerChange.Action.DELETED, "Ristorante giapponese"));
+
+        assertEquals(Set.of(4L), index.search(1L, "mario"));
+        assertEquals(Set.of(1L), index.search(1L, "pranzo"));
+        assertTrue(index.search(1L, "ristorante").isEmpty());
+        verify(transactionDAO, times(1)).findNotesByUserId(1L);
+    }
+
+    @Test
+    public void testRebuild() {
+        index.search(1L, "cena");
+        index.rebuild(1L);
+        index.search(1L, "cena");
+
+        verify(transactionDAO, times(2)).findNotesByUserId(1L);
+        assertEquals(1, index.getStats().get("users"));
+    }
+}
@@ -0,0 +1,116 @@
+package com.ledger.project_software;
+
+import com.ledger.project_software.domain.*;
+import com.ledger.project_software.orm.*;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+//one id per chunk: every text search merges the pages of several queries
+@SpringBootTest(classes = com.ledger.project_software.ProjectSoftwareApplication.class,
+        properties = "ledger.search.id-chunk-size=1")
+@Transactional
+@AutoConfigureMockMvc
+@Rollback
+public class TransactionSearchTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserDAO userDAO;
+    @Autowired
+    private AccountDAO accountDAO;
+    @Autowired
+    private LedgerDAO ledgerDAO;
+    @Autowired
+    private LedgerCategoryDAO ledgerCategoryDAO;
+    @Autowired
+    private TransactionDAO transactionDAO;
+
+    private BasicAccount cash;
+    private LedgerCategory food;
+
+    @BeforeEach
+    public void setUp() {
+        User testUser = new User("Alice", "pass123");
+        userDAO.save(testUser);
+        Ledger ledger = new Ledger("Test Ledger", testUser);
+        ledgerDAO.save(ledger);
+        food = new LedgerCategory("Food", CategoryType.EXPENSE, ledger);
+        ledgerCategoryDAO.save(food);
+        LedgerCategory restaurants = new LedgerCategory("Restaurants", CategoryType.EXPENSE, ledger);
+        restaurants.setParent(food);
+        ledgerCategoryDAO.save(restaurants);
+
+        cash = new BasicAccount("Cash", BigDecimal.valueOf(1000), null, true, true,
+                AccountType.CASH, AccountCategory.FUNDS, testUser);
+        accountDAO.save(cash);
+        BasicAccount bank = new BasicAccount("Bank", BigDecimal.valueOf(1000), null, true, true,
+                AccountType.DEBIT_CARD, AccountCategory.FUNDS, testUser);
+        accountDAO.save(bank);
+
+        transactionDAO.save(new Expense(LocalDate.of(2025, 9, 1), BigDecimal.valueOf(45), "Cena al ristorante", cash, ledger, restaurants));
+        transactionDAO.save(new Expense(LocalDate.of(2025, 9, 10), BigDecimal.valueOf(12), "Pranzo ristorante", bank, ledger, restaurants));
+        transactionDAO.save(new Expense(LocalDate.of(2025, 9, 12), BigDecimal.valueOf(80), "Spesa settimanale", cash, ledger, food));
+    }
+
+    @Test
+    @WithMockUser(username = "Alice")
+    public void testSearch_TextAndFilters() throws Exception {
+        mockMvc.perform(get("/transactions/search")
+                        .param("q", "ristor")
+                        .principal(() -> "Alice"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].note").value("Pranzo ristorante")); //newest first
+
+        mockMvc.perform(get("/transactions/search")
+                        .param("q", "ristorante")
+                        .param("accountId", cash.getId().toString())
+                        .param("minAmount", "20")
+                        .principal(() -> "Alice"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].note").value("Cena al ristorante"));
+
+        mockMvc.perform(get("/transactions/search")
+                        .param("q", "pizza")
+                        .principal(() -> "Alice"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    @WithMockUser(username = "Alice")
+    public void testSearch_FiltersOnly() throws Exception {
+        mockMvc.perform(get("/transactions/search")
+                        .param("categoryId", food.getId().toString()) //includes subcategories
+                        .param("startDate", "2025-09-05")
+                        .principal(() -> "Alice"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    @WithMockUser(username = "Alice")
+    public void testSearch_ChunksMergedNewestFirst() throws Exception {
+        mockMvc.perform(get("/transactions/search")
+                        .param("q", "ristor")
+                        .param("limit", "1")
+                        .principal(() -> "Alice"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].note").value("Pranzo ristorante"));
+    }
+}
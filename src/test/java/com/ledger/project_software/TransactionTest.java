@@ -6,6 +6,7 @@ import jakarta.transaction.Transactional;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -20,7 +21,8 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
-@SpringBootTest(classes = com.ledger.project_software.ProjectSoftwareApplication.class)
+@SpringBootTest(classes = com.ledger.project_software.ProjectSoftwareApplication.class,
+        properties = QueryCountExtension.STATEMENT_INSPECTOR)
 @Transactional
 @AutoConfigureMockMvc
 @Rollback
@@ -28,6 +30,9 @@ public class TransactionTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @RegisterExtension
+    QueryCountExtension queries = new QueryCountExtension();
+
     @Autowired
     private UserDAO userDAO;
     @Autowired
@@ -864,4 +869,49 @@ public class TransactionTest {
         Assertions.assertEquals(0, updatedAccount3.getBalance().compareTo(BigDecimal.valueOf(500)));
         Assertions.assertTrue(updatedAccount3.getOutgoingTransactions().contains(updatedTx));
     }
+
+    //query-count budgets: statements of one request, loaded on a cleared persistence context
+    @Test
+    public void testQueryCount_CreateTransfer() throws Exception {
+        Account savings = new BasicAccount("Savings", BigDecimal.valueOf(500), null, true, true, AccountType.CASH, AccountCategory.FUNDS, testUser);
+        accountDAO.save(savings);
+
+        queries.perform(mockMvc, post("/transactions/create")
+                        .principal(() -> "Alice")
+                        .param("amount", "100.00")
+                        .param("fromAccountId", String.valueOf(testAccount.getId()))
+                        .param("toAccountId", String.valueOf(savings.getId()))
+                        .param("ledgerId", String.valueOf(testLedger1.getId()))
+                        .param("type", "TRANSFER"))
+                .andExpect(status().isOk());
+        queries.assertAtMost(3, 2, 2); //user, ledger, both accounts locked; transaction and transfer rows; both balances
+    }
+
+    @Test
+    public void testQueryCount_EditExpense() throws Exception {
+        Transaction expense = new Expense(LocalDate.now(), BigDecimal.valueOf(100), null, testAccount, testLedger1, testCategory1);
+        transactionDAO.save(expense);
+
+        queries.perform(mockMvc, put("/transactions/{id}/edit", expense.getId())
+                        .principal(() -> "Alice")
+                        .param("amount", "80.00"))
+                .andExpect(status().isOk());
+        //user, account ids, account locked, transaction with its associations, budgets touched; amount and balance
+        queries.assertAtMost(5, 0, 2);
+    }
+
+    @Test
+    public void testQueryCount_Search() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            Account account = new BasicAccount("account " + i, BigDecimal.valueOf(100), null, true, true, AccountType.CASH, AccountCategory.FUNDS, testUser);
+            accountDAO.save(account);
+            transactionDAO.save(new Transfer(LocalDate.now(), "rent", testAccount, account, BigDecimal.valueOf(10), testLedger1));
+        }
+
+        queries.perform(mockMvc, get("/transactions/search")
+                        .principal(() -> "Alice")
+                        .param("ledgerId", String.valueOf(testLedger1.getId())))
+                .andExpect(status().isOk());
+        queries.assertAtMost(2, 0, 0); //user, transactions with their accounts
+    }
 }
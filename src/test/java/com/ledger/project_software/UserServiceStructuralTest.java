@@ -10,6 +10,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 
 import java.math.BigDecimal;
@@ -25,6 +26,8 @@ import static org.mockito.Mockito.never;
 public class UserServiceStructuralTest {
     @Mock
     private UserDAO userDAO; //mock del repository per simulare il comportamento senza collegarsi al database
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private UserService userService; //istanza del servizio con il mock iniettato
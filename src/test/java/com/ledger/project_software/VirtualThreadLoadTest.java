@@ -0,0 +1,25 @@
+package com.ledger.project_software;
+
+import com.ledger.project_software.dbms.ConnectionLimitingDataSource;
+import org.junit.jupiter.api.Assertions;
+import org.springframework.boot.test.context.SpringBootTest;
+
+//virtual-thread mode: one virtual thread per request, JDBC behind the connection limiter
+@SpringBootTest(classes = com.ledger.project_software.ProjectSoftwareApplication.class,
+        properties = {
+                "spring.threads.virtual.enabled=true",
+                "spring.datasource.hikari.maximum-pool-size=10",
+                "ledger.virtual-threads.max-db-concurrency=10",
+                "spring.datasource.url=jdbc:h2:mem:loadtest-virtual;LOCK_TIMEOUT=10000"
+        })
+public class VirtualThreadLoadTest extends ThreadModeLoadTest {
+    @Override
+    protected String mode() {
+        return "virtual";
+    }
+
+    @Override
+    protected void assertMode() {
+        Assertions.assertInstanceOf(ConnectionLimitingDataSource.class, dataSource);
+    }
+}